@@ -1,9 +1,12 @@
 package org.mystudying.bookmanagementauth;
 
+import org.mystudying.bookmanagementauth.config.NativeImageHints;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.annotation.ImportRuntimeHints;
 
 @SpringBootApplication
+@ImportRuntimeHints(NativeImageHints.class)
 public class
 BookManagementAuthApplication {
 
@@ -0,0 +1,61 @@
+package org.mystudying.bookmanagementauth.config;
+
+import org.springframework.security.authorization.AuthorizationDecision;
+import org.springframework.security.authorization.AuthorizationManager;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.web.access.intercept.RequestAuthorizationContext;
+
+import java.util.function.Supplier;
+
+/**
+ * "Admin or self" for routes like {@code /api/users/{id}/**}: grants admins and the user whose id is in the
+ * given path variable. Equivalent to {@code hasRole('ADMIN') or #id == principal.id}, but without parsing,
+ * reflection or per-call allocation.
+ */
+public final class AdminOrSelfAuthorizationManager implements AuthorizationManager<RequestAuthorizationContext> {
+
+    private static final String ADMIN_AUTHORITY = "ROLE_ADMIN";
+    private static final AuthorizationDecision GRANTED = new AuthorizationDecision(true);
+    private static final AuthorizationDecision DENIED = new AuthorizationDecision(false);
+
+    private final String idVariable;
+
+    public AdminOrSelfAuthorizationManager(String idVariable) {
+        this.idVariable = idVariable;
+    }
+
+    @Override
+    public AuthorizationDecision check(Supplier<Authentication> authentication, RequestAuthorizationContext context) {
+        Authentication auth = authentication.get();
+        if (auth == null || !auth.isAuthenticated()) {
+            return DENIED;
+        }
+        for (GrantedAuthority authority : auth.getAuthorities()) {
+            if (ADMIN_AUTHORITY.equals(authority.getAuthority())) {
+                return GRANTED;
+            }
+        }
+        if (!(auth.getPrincipal() instanceof UserPrincipal principal)) {
+            return DENIED;
+        }
+        String id = context.getVariables().get(idVariable);
+        return id != null && isSameId(id, principal.getId()) ? GRANTED : DENIED;
+    }
+
+    // Compares without Long.parseLong, which would allocate an exception for ids like "abc"
+    private static boolean isSameId(String id, long principalId) {
+        if (id.isEmpty() || id.length() > 19) {
+            return false;
+        }
+        long value = 0;
+        for (int i = 0; i < id.length(); i++) {
+            char c = id.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value == principalId;
+    }
+}
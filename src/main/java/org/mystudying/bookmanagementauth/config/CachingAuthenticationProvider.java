@@ -0,0 +1,61 @@
+package org.mystudying.bookmanagementauth.config;
+
+import org.mystudying.bookmanagementauth.services.CredentialCache;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.core.userdetails.UserDetailsChecker;
+
+/**
+ * Answers username/password authentications from the {@link CredentialCache} and only falls back to
+ * the wrapped provider (user lookup + password hash check) on a miss. Cache hits still go through the
+ * account status checks the wrapped provider runs, and a hit that fails them is evicted.
+ */
+public class CachingAuthenticationProvider implements AuthenticationProvider {
+
+    private final AuthenticationProvider delegate;
+    private final CredentialCache credentialCache;
+    private final UserDetailsChecker userDetailsChecker;
+
+    public CachingAuthenticationProvider(AuthenticationProvider delegate, CredentialCache credentialCache,
+                                         UserDetailsChecker userDetailsChecker) {
+        this.delegate = delegate;
+        this.credentialCache = credentialCache;
+        this.userDetailsChecker = userDetailsChecker;
+    }
+
+    @Override
+    public Authentication authenticate(Authentication authentication) throws AuthenticationException {
+        String username = authentication.getName();
+        Object credentials = authentication.getCredentials();
+        if (username == null || !(credentials instanceof String password)) {
+            return delegate.authenticate(authentication);
+        }
+
+        UserPrincipal cached = credentialCache.get(username, password);
+        if (cached != null) {
+            try {
+                userDetailsChecker.check(cached);
+            } catch (AuthenticationException e) {
+                credentialCache.invalidate(cached.getId());
+                throw e;
+            }
+            UsernamePasswordAuthenticationToken result =
+                    UsernamePasswordAuthenticationToken.authenticated(cached, null, cached.getAuthorities());
+            result.setDetails(authentication.getDetails());
+            return result;
+        }
+
+        Authentication result = delegate.authenticate(authentication);
+        if (result != null && result.getPrincipal() instanceof UserPrincipal principal) {
+            credentialCache.put(username, password, principal);
+        }
+        return result;
+    }
+
+    @Override
+    public boolean supports(Class<?> authentication) {
+        return delegate.supports(authentication);
+    }
+}
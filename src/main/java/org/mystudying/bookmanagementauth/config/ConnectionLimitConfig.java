@@ -0,0 +1,89 @@
+package org.mystudying.bookmanagementauth.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * The application DataSource hands out the Hikari pool's connections through a {@link ConnectionLimitingDataSource}.
+ * It has {@code app.datasource.max-concurrent-connections} permits, or by default the pool size minus
+ * {@code app.datasource.nested-connection-headroom}. Only a thread's first connection takes a permit. Further
+ * connections it opens meanwhile use the headroom: Hibernate's table generator reserves ids (V11) on a second
+ * connection while the transaction's connection stays open. Without headroom, every pool connection could be held
+ * by a transaction whose thread then waits for a second one.
+ * With virtual threads ({@code spring.threads.virtual.enabled=true}, JDK 21) the permits also keep thousands of
+ * request threads queued in arrival order instead of inside the pool.
+ * Threads queued for a permit are exposed as {@code app.datasource.permits.waiting}.
+ */
+@Configuration
+public class ConnectionLimitConfig {
+
+    @Bean
+    public static BeanPostProcessor connectionLimitingDataSourcePostProcessor(Environment environment) {
+        int configured = environment.getProperty("app.datasource.max-concurrent-connections", Integer.class, 0);
+        int headroom = environment.getProperty("app.datasource.nested-connection-headroom", Integer.class, 2);
+        Duration acquireTimeout = environment.getProperty("app.datasource.acquire-timeout", Duration.class,
+                Duration.ofSeconds(30));
+        return new ConnectionLimitingPostProcessor(configured, headroom, acquireTimeout);
+    }
+
+    @Bean
+    public MeterBinder connectionPermitMetrics(DataSource dataSource) {
+        // may sit below other wrappers, such as the statement counting one or the replica routing
+        DataSource candidate = dataSource;
+        while (!(candidate instanceof ConnectionLimitingDataSource)) {
+            if (candidate instanceof DelegatingDataSource delegating) {
+                candidate = delegating.getTargetDataSource();
+            } else if (candidate instanceof ReadWriteRoutingDataSource routing) {
+                candidate = routing.getPrimaryDataSource();
+            } else {
+                break;
+            }
+        }
+        DataSource unwrapped = candidate;
+        return registry -> {
+            if (unwrapped instanceof ConnectionLimitingDataSource limited) {
+                Gauge.builder("app.datasource.permits.waiting", limited, ConnectionLimitingDataSource::getWaitingThreads)
+                        .description("Threads waiting for a database connection permit")
+                        .register(registry);
+            }
+        };
+    }
+
+    // Ordered ahead of the other DataSource wrappers (replica routing, statement counting), so it sees the Hikari pool
+    private static final class ConnectionLimitingPostProcessor implements BeanPostProcessor, Ordered {
+
+        private final int configured;
+        private final int headroom;
+        private final Duration acquireTimeout;
+
+        ConnectionLimitingPostProcessor(int configured, int headroom, Duration acquireTimeout) {
+            this.configured = configured;
+            this.headroom = headroom;
+            this.acquireTimeout = acquireTimeout;
+        }
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if (bean instanceof HikariDataSource hikari && "dataSource".equals(beanName)) {
+                int permits = configured > 0 ? configured : Math.max(1, hikari.getMaximumPoolSize() - headroom);
+                return new ConnectionLimitingDataSource(hikari, permits, acquireTimeout);
+            }
+            return bean;
+        }
+
+        @Override
+        public int getOrder() {
+            return Ordered.LOWEST_PRECEDENCE - 1;
+        }
+    }
+}
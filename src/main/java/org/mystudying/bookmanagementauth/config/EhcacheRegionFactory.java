@@ -0,0 +1,22 @@
+package org.mystudying.bookmanagementauth.config;
+
+import org.ehcache.jsr107.EhcacheCachingProvider;
+import org.hibernate.cache.jcache.internal.JCacheRegionFactory;
+
+import javax.cache.spi.CachingProvider;
+import java.util.Map;
+
+/**
+ * Second-level cache region factory ({@code hibernate.cache.region.factory_class}) on Ehcache, configured by
+ * {@code ehcache.xml}. Hibernate closes the cache manager when its session factory shuts down, while the provider
+ * from {@code Caching.getCachingProvider()} hands every session factory in the JVM the same manager for the same
+ * file. So each factory uses a provider of its own, and closing one application context (the test context cache
+ * evicts them) leaves the caches of the others open.
+ */
+public class EhcacheRegionFactory extends JCacheRegionFactory {
+
+    @Override
+    protected CachingProvider getCachingProvider(Map<String, Object> properties) {
+        return new EhcacheCachingProvider();
+    }
+}
@@ -0,0 +1,147 @@
+package org.mystudying.bookmanagementauth.config;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.AbstractResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.util.StringUtils;
+import org.springframework.web.servlet.resource.AbstractResourceResolver;
+import org.springframework.web.servlet.resource.HttpResource;
+import org.springframework.web.servlet.resource.ResourceResolverChain;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Serves text assets gzip-compressed to clients that accept it. Each asset is compressed once and kept in
+ * memory (recompressed only when the file changes), so requests never pay for compression.
+ * Resources that already carry a {@code Content-Encoding} (pre-built {@code .br}/{@code .gz} files picked up
+ * by the {@link org.springframework.web.servlet.resource.EncodedResourceResolver}) are passed through.
+ */
+public class GzipResourceResolver extends AbstractResourceResolver {
+
+    private static final Logger log = LoggerFactory.getLogger(GzipResourceResolver.class);
+
+    private static final Set<String> COMPRESSIBLE = Set.of("css", "js", "svg", "ico", "json", "txt", "html");
+
+    private final Map<String, GzippedResource> compressed = new ConcurrentHashMap<>();
+
+    @Override
+    protected Resource resolveResourceInternal(HttpServletRequest request, String requestPath,
+                                               List<? extends Resource> locations, ResourceResolverChain chain) {
+        Resource resource = chain.resolveResource(request, requestPath, locations);
+        if (resource == null || request == null || !acceptsGzip(request) || !isCompressible(resource)) {
+            return resource;
+        }
+        try {
+            return compressed(resource);
+        } catch (IOException e) {
+            log.warn("Could not gzip {}, serving it uncompressed", resource.getDescription(), e);
+            return resource;
+        }
+    }
+
+    @Override
+    protected String resolveUrlPathInternal(String resourceUrlPath, List<? extends Resource> locations,
+                                            ResourceResolverChain chain) {
+        return chain.resolveUrlPath(resourceUrlPath, locations);
+    }
+
+    private GzippedResource compressed(Resource resource) throws IOException {
+        String key = resource.getURL().toString();
+        long lastModified = resource.lastModified();
+        GzippedResource cached = compressed.get(key);
+        if (cached != null && cached.lastModified() == lastModified) {
+            return cached;
+        }
+        GzippedResource gzipped = new GzippedResource(resource, gzip(resource), lastModified);
+        compressed.put(key, gzipped);
+        return gzipped;
+    }
+
+    private static byte[] gzip(Resource resource) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (InputStream in = resource.getInputStream(); GZIPOutputStream out = new GZIPOutputStream(bytes)) {
+            in.transferTo(out);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static boolean acceptsGzip(HttpServletRequest request) {
+        String acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+        return acceptEncoding != null && acceptEncoding.toLowerCase().contains("gzip");
+    }
+
+    private static boolean isCompressible(Resource resource) {
+        if (resource instanceof HttpResource httpResource
+                && httpResource.getResponseHeaders().containsKey(HttpHeaders.CONTENT_ENCODING)) {
+            return false;
+        }
+        String extension = StringUtils.getFilenameExtension(resource.getFilename());
+        return extension != null && COMPRESSIBLE.contains(extension.toLowerCase());
+    }
+
+    static final class GzippedResource extends AbstractResource implements HttpResource {
+
+        private final Resource original;
+        private final byte[] content;
+        private final long lastModified;
+
+        GzippedResource(Resource original, byte[] content, long lastModified) {
+            this.original = original;
+            this.content = content;
+            this.lastModified = lastModified;
+        }
+
+        @Override
+        public InputStream getInputStream() {
+            return new ByteArrayInputStream(content);
+        }
+
+        @Override
+        public long contentLength() {
+            return content.length;
+        }
+
+        @Override
+        public long lastModified() {
+            return lastModified;
+        }
+
+        @Override
+        public boolean exists() {
+            return true;
+        }
+
+        @Override
+        public String getFilename() {
+            // media type is derived from the original name
+            return original.getFilename();
+        }
+
+        @Override
+        public String getDescription() {
+            return "gzip of " + original.getDescription();
+        }
+
+        @Override
+        public HttpHeaders getResponseHeaders() {
+            HttpHeaders headers = new HttpHeaders();
+            if (original instanceof HttpResource httpResource) {
+                headers.putAll(httpResource.getResponseHeaders());
+            }
+            headers.add(HttpHeaders.CONTENT_ENCODING, "gzip");
+            headers.add(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+            return headers;
+        }
+    }
+}
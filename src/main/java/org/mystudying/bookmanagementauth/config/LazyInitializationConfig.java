@@ -0,0 +1,32 @@
+package org.mystudying.bookmanagementauth.config;
+
+import org.mystudying.bookmanagementauth.controller.AuthController;
+import org.mystudying.bookmanagementauth.controller.UserController;
+import org.mystudying.bookmanagementauth.services.BookingService;
+import org.mystudying.bookmanagementauth.services.CurrentUserCache;
+import org.mystudying.bookmanagementauth.services.InventoryService;
+import org.mystudying.bookmanagementauth.services.JpaUserDetailsService;
+import org.mystudying.bookmanagementauth.services.RoleCache;
+import org.mystudying.bookmanagementauth.services.UserService;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Opt-in lazy bean initialization ({@code spring.main.lazy-initialization=true}) creates most beans on first use,
+ * which takes the catalog, reports, import and admin beans off the startup path. The circulation path stays eager:
+ * login, the navbar's current-user lookup, rent and return, so the first borrower after a deploy does not pay
+ * for creating them and the JPA repositories behind them.
+ * Not conditional on the property on purpose: with AOT processing conditions are decided at build time,
+ * and the filter has no effect while lazy initialization is off.
+ */
+@Configuration
+public class LazyInitializationConfig {
+
+    @Bean
+    public static LazyInitializationExcludeFilter circulationPathExcludeFilter() {
+        return LazyInitializationExcludeFilter.forBeanTypes(AuthController.class, UserController.class,
+                UserService.class, BookingService.class, InventoryService.class, CurrentUserCache.class,
+                RoleCache.class, JpaUserDetailsService.class);
+    }
+}
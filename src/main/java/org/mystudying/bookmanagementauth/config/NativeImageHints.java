@@ -0,0 +1,81 @@
+package org.mystudying.bookmanagementauth.config;
+
+import org.springframework.aot.hint.BindingReflectionHintsRegistrar;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.aot.hint.TypeReference;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.context.annotation.ClassPathScanningCandidateComponentProvider;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextImpl;
+import org.springframework.security.web.authentication.WebAuthenticationDetails;
+import org.springframework.util.ClassUtils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Hints for the native image ({@code ./mvnw -Pnative package}) beyond what Spring AOT derives from the beans:
+ * <ul>
+ *     <li>DTOs and entities are read reflectively by Thymeleaf expressions and springdoc schemas, not only by Jackson</li>
+ *     <li>templates, static files, Flyway migrations and {@code ehcache.xml} are loaded as resources</li>
+ *     <li>the JDBC session store Java-serializes the security context and plain attribute values</li>
+ * </ul>
+ * Computed while AOT processing runs, so package scanning costs nothing at runtime.
+ */
+public class NativeImageHints implements RuntimeHintsRegistrar {
+
+    private static final String BASE_PACKAGE = "org.mystudying.bookmanagementauth";
+
+    private final BindingReflectionHintsRegistrar bindingHints = new BindingReflectionHintsRegistrar();
+
+    @Override
+    public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+        bindingHints.registerReflectionHints(hints.reflection(),
+                scan(BASE_PACKAGE + ".dto", classLoader).toArray(Class<?>[]::new));
+        for (Class<?> entity : scan(BASE_PACKAGE + ".domain", classLoader)) {
+            hints.reflection().registerType(entity, MemberCategory.DECLARED_FIELDS,
+                    MemberCategory.INVOKE_DECLARED_CONSTRUCTORS, MemberCategory.INVOKE_DECLARED_METHODS);
+        }
+        // named in hibernate.cache.region.factory_class
+        hints.reflection().registerType(EhcacheRegionFactory.class, MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS);
+
+        hints.resources()
+                .registerPattern("templates/**")
+                .registerPattern("static/**")
+                .registerPattern("db/migration/*.sql")
+                .registerPattern("ehcache.xml")
+                .registerPattern("META-INF/resources/webjars/swagger-ui/**");
+
+        hints.serialization()
+                // session attribute values, e.g. the read-your-writes window (epoch millis)
+                .registerType(Number.class)
+                .registerType(Long.class)
+                .registerType(Boolean.class)
+                .registerType(String.class)
+                .registerType(HashMap.class)
+                .registerType(ArrayList.class)
+                .registerType(TypeReference.of("java.util.CollSer"))
+                .registerType(TypeReference.of("java.util.ImmutableCollections$ListN"))
+                .registerType(TypeReference.of("java.util.ImmutableCollections$List12"))
+                .registerType(TypeReference.of("java.util.Collections$UnmodifiableRandomAccessList"))
+                .registerType(SecurityContextImpl.class)
+                .registerType(UsernamePasswordAuthenticationToken.class)
+                .registerType(WebAuthenticationDetails.class)
+                .registerType(SimpleGrantedAuthority.class)
+                .registerType(UserPrincipal.class);
+    }
+
+    private static List<Class<?>> scan(String basePackage, ClassLoader classLoader) {
+        ClassPathScanningCandidateComponentProvider scanner = new ClassPathScanningCandidateComponentProvider(false);
+        scanner.addIncludeFilter((metadataReader, metadataReaderFactory) -> true);
+        List<Class<?>> types = new ArrayList<>();
+        for (BeanDefinition candidate : scanner.findCandidateComponents(basePackage)) {
+            types.add(ClassUtils.resolveClassName(candidate.getBeanClassName(), classLoader));
+        }
+        return types;
+    }
+}
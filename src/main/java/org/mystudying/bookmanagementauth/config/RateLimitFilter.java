@@ -0,0 +1,119 @@
+package org.mystudying.bookmanagementauth.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpSession;
+import org.mystudying.bookmanagementauth.services.RateLimiter;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.server.PathContainer;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.web.util.matcher.IpAddressMatcher;
+import org.springframework.security.web.context.HttpSessionSecurityContextRepository;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Counts requests to the configured route groups against a token bucket per group and client and answers
+ * {@code 429} with {@code Retry-After} once a bucket is empty. Runs before Spring Security, so rejected
+ * requests never reach the password check; the client is the principal of an existing session, otherwise
+ * its address. Behind a load balancer the remote address is the balancer's: when it is a trusted proxy, the
+ * client address header is read from the right, skipping the entries added by trusted proxies, so a client
+ * cannot pick its own key by sending a forged header.
+ */
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private final RateLimiter rateLimiter;
+    private final List<RouteGroup> routeGroups;
+    private final String clientIpHeader;
+    private final List<IpAddressMatcher> trustedProxies;
+
+    public RateLimitFilter(RateLimiter rateLimiter, Map<String, RateLimitProperties.Group> groups,
+                           String clientIpHeader, List<String> trustedProxies) {
+        this.rateLimiter = rateLimiter;
+        this.clientIpHeader = clientIpHeader;
+        this.trustedProxies = trustedProxies.stream().map(IpAddressMatcher::new).toList();
+        this.routeGroups = groups.entrySet().stream()
+                .map(group -> new RouteGroup(group.getKey(),
+                        group.getValue().paths().stream().map(PathPatternParser.defaultInstance::parse).toList(),
+                        group.getValue()))
+                .toList();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        PathContainer path = PathContainer.parsePath(request.getRequestURI().substring(request.getContextPath().length()));
+        RouteGroup group = routeGroups.stream()
+                .filter(candidate -> candidate.patterns().stream().anyMatch(pattern -> pattern.matches(path)))
+                .findFirst()
+                .orElse(null);
+        if (group == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        long waitMillis = rateLimiter.tryAcquire(group.name() + ":" + clientKey(request), group.limit());
+        if (waitMillis == 0) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        response.setStatus(429);
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, (waitMillis + 999) / 1000)));
+        response.setContentType("application/json");
+        String json = String.format(
+                "{\"timestamp\":\"%s\",\"status\":429,\"error\":\"Too Many Requests\",\"message\":\"Rate limit exceeded\",\"path\":\"%s\",\"code\":\"RATE_LIMITED\"}",
+                java.time.OffsetDateTime.now().toString(),
+                request.getRequestURI()
+        );
+        response.getWriter().write(json);
+    }
+
+    private String clientKey(HttpServletRequest request) {
+        HttpSession session = request.getSession(false);
+        if (session != null
+                && session.getAttribute(HttpSessionSecurityContextRepository.SPRING_SECURITY_CONTEXT_KEY) instanceof SecurityContext context
+                && context.getAuthentication() != null) {
+            return "user:" + context.getAuthentication().getName();
+        }
+        return "ip:" + clientAddress(request);
+    }
+
+    private String clientAddress(HttpServletRequest request) {
+        String address = request.getRemoteAddr();
+        String header = request.getHeader(clientIpHeader);
+        if (header == null || !isTrustedProxy(address)) {
+            return address;
+        }
+        String[] hops = header.split(",");
+        for (int i = hops.length - 1; i >= 0; i--) {
+            String hop = hops[i].trim();
+            if (hop.isEmpty()) {
+                break;
+            }
+            address = hop;
+            if (!isTrustedProxy(hop)) {
+                break;
+            }
+        }
+        return address;
+    }
+
+    private boolean isTrustedProxy(String address) {
+        // only IP literals: anything else would make the matcher resolve a host name
+        if (address.isEmpty() || !address.chars().allMatch(c -> Character.digit(c, 16) >= 0 || c == '.' || c == ':')) {
+            return false;
+        }
+        return trustedProxies.stream().anyMatch(proxy -> proxy.matches(address));
+    }
+
+    private record RouteGroup(String name, List<PathPattern> patterns, RateLimitProperties.Group limit) {
+    }
+}
@@ -0,0 +1,39 @@
+package org.mystudying.bookmanagementauth.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@code app.rate-limit.*}: token buckets per route group and client (session principal, otherwise client address).
+ *
+ * @param store          {@code memory} (per node) or {@code jdbc} (shared by all nodes through the database)
+ * @param groups         route groups by name; a request is counted against the first group with a matching path pattern
+ * @param clientIpHeader header in which proxies append the address they received the request from
+ * @param trustedProxies addresses or CIDR ranges of the proxies in front of the nodes; only their entries in
+ *                       {@code clientIpHeader} are believed
+ */
+@ConfigurationProperties(prefix = "app.rate-limit")
+public record RateLimitProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("memory") String store,
+        Map<String, Group> groups,
+        @DefaultValue("X-Forwarded-For") String clientIpHeader,
+        @DefaultValue({"127.0.0.0/8", "::1", "10.0.0.0/8", "172.16.0.0/12", "192.168.0.0/16", "fc00::/7"})
+        List<String> trustedProxies
+) {
+
+    /**
+     * @param paths           path patterns, e.g. {@code /api/users/*}{@code /rent}
+     * @param capacity        burst size
+     * @param refillPerMinute tokens added back per minute
+     */
+    public record Group(List<String> paths, int capacity, int refillPerMinute) {
+
+        public double tokensPerMilli() {
+            return refillPerMinute / 60_000.0;
+        }
+    }
+}
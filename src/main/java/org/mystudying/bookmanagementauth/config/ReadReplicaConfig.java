@@ -0,0 +1,126 @@
+package org.mystudying.bookmanagementauth.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.mystudying.bookmanagementauth.services.ReadYourWritesWindow;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Clock;
+import java.time.Duration;
+
+/**
+ * Read replica ({@code app.datasource.replica.enabled}): the application DataSource becomes a
+ * {@link ReadWriteRoutingDataSource} over the primary pool and a replica pool, so {@code @Transactional(readOnly = true)}
+ * service methods read from the replica while it keeps up ({@link ReplicaLagMonitor}) and the client of the
+ * request has not just changed anything ({@link ReadYourWritesWindow}). Writes, and work outside transactions such as
+ * Flyway, sessions and rate limits, stay on the primary.
+ * Replica lag and state are exposed as {@code app.datasource.replica.lag} and {@code app.datasource.replica.usable}.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.datasource.replica.enabled", havingValue = "true")
+public class ReadReplicaConfig {
+
+    @Bean
+    public static BeanPostProcessor readWriteRoutingPostProcessor(Environment environment,
+                                                                  ObjectProvider<ReadYourWritesWindow> readYourWrites) {
+        return new RoutingPostProcessor(environment, readYourWrites);
+    }
+
+    // the monitor is created with the DataSource; as a bean its heartbeat gets scheduled
+    @Bean
+    public ReplicaLagMonitor replicaLagMonitor(DataSource dataSource) {
+        DataSource candidate = dataSource;
+        while (!(candidate instanceof ReadWriteRoutingDataSource) && candidate instanceof DelegatingDataSource delegating) {
+            candidate = delegating.getTargetDataSource();
+        }
+        if (!(candidate instanceof ReadWriteRoutingDataSource routing)) {
+            throw new IllegalStateException("The application DataSource is not routed to the read replica");
+        }
+        return routing.getLagMonitor();
+    }
+
+    @Bean
+    public MeterBinder replicaLagMetrics(ReplicaLagMonitor lagMonitor) {
+        return registry -> {
+            Gauge.builder("app.datasource.replica.lag", lagMonitor,
+                            monitor -> monitor.getLag() != null ? monitor.getLag().toMillis() / 1000.0 : Double.NaN)
+                    .description("Replication lag measured by the heartbeat")
+                    .baseUnit("seconds")
+                    .register(registry);
+            Gauge.builder("app.datasource.replica.usable", lagMonitor, monitor -> monitor.isReplicaUsable() ? 1 : 0)
+                    .description("1 while read-only transactions are sent to the replica")
+                    .register(registry);
+        };
+    }
+
+    // Runs after ConnectionLimitConfig's wrapper, so only the primary pool is limited by its permits
+    private static final class RoutingPostProcessor implements BeanPostProcessor, Ordered, DisposableBean {
+
+        private final Environment environment;
+        private final ObjectProvider<ReadYourWritesWindow> readYourWrites;
+        private HikariDataSource replica;
+
+        RoutingPostProcessor(Environment environment, ObjectProvider<ReadYourWritesWindow> readYourWrites) {
+            this.environment = environment;
+            this.readYourWrites = readYourWrites;
+        }
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if (bean instanceof DataSource primary && "dataSource".equals(beanName)) {
+                replica = replicaPool();
+                Duration maxLag = environment.getProperty("app.datasource.replica.max-lag", Duration.class,
+                        Duration.ofSeconds(3));
+                ReplicaLagMonitor lagMonitor = new ReplicaLagMonitor(primary, replica, maxLag, Clock.systemUTC());
+                return new LazyConnectionDataSourceProxy(
+                        new ReadWriteRoutingDataSource(primary, replica, lagMonitor, this::primaryRequired));
+            }
+            return bean;
+        }
+
+        private boolean primaryRequired() {
+            ReadYourWritesWindow window = readYourWrites.getIfAvailable();
+            return window != null && window.isActiveForCurrentRequest();
+        }
+
+        private HikariDataSource replicaPool() {
+            HikariDataSource pool = DataSourceBuilder.create()
+                    .type(HikariDataSource.class)
+                    .url(environment.getRequiredProperty("app.datasource.replica.url"))
+                    .username(environment.getProperty("app.datasource.replica.username",
+                            environment.getProperty("spring.datasource.username", "")))
+                    .password(environment.getProperty("app.datasource.replica.password",
+                            environment.getProperty("spring.datasource.password", "")))
+                    .build();
+            pool.setPoolName("replica-pool");
+            pool.setMaximumPoolSize(environment.getProperty("app.datasource.replica.pool-size", Integer.class, 10));
+            pool.setReadOnly(true);
+            pool.setTransactionIsolation("TRANSACTION_READ_COMMITTED");
+            return pool;
+        }
+
+        @Override
+        public int getOrder() {
+            return Ordered.LOWEST_PRECEDENCE;
+        }
+
+        @Override
+        public void destroy() {
+            if (replica != null) {
+                replica.close();
+            }
+        }
+    }
+}
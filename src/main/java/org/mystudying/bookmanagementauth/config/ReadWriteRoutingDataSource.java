@@ -0,0 +1,55 @@
+package org.mystudying.bookmanagementauth.config;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.Map;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Sends connections of read-only transactions to the replica and everything else to the primary.
+ * Read-only transactions fall back to the primary while the {@link ReplicaLagMonitor} considers the replica
+ * stale and while {@code primaryRequired} holds (read-your-writes).
+ * The read-only flag is only known once the transaction has started, so this has to sit behind a
+ * {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}, which fetches the connection at
+ * the first statement instead of at transaction begin.
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+
+    enum Target {
+        PRIMARY, REPLICA
+    }
+
+    private final DataSource primary;
+    private final ReplicaLagMonitor lagMonitor;
+    private final BooleanSupplier primaryRequired;
+
+    public ReadWriteRoutingDataSource(DataSource primary, DataSource replica, ReplicaLagMonitor lagMonitor,
+                                      BooleanSupplier primaryRequired) {
+        this.primary = primary;
+        this.lagMonitor = lagMonitor;
+        this.primaryRequired = primaryRequired;
+        setTargetDataSources(Map.<Object, Object>of(Target.PRIMARY, primary, Target.REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+                && lagMonitor.isReplicaUsable()
+                && !primaryRequired.getAsBoolean()) {
+            return Target.REPLICA;
+        }
+        return Target.PRIMARY;
+    }
+
+    public DataSource getPrimaryDataSource() {
+        return primary;
+    }
+
+    public ReplicaLagMonitor getLagMonitor() {
+        return lagMonitor;
+    }
+}
@@ -0,0 +1,110 @@
+package org.mystudying.bookmanagementauth.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.simple.JdbcClient;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Decides whether the read replica is fresh enough to serve reads, using a heartbeat row (V13) instead of
+ * server-specific replication status: every {@code app.datasource.replica.heartbeat-interval} this node writes
+ * its clock to its own row on the primary and asks the replica which time that row has. Only this node's clock
+ * is involved, so skew between nodes does not show up as lag.
+ * The replica is usable while that is at most {@code app.datasource.replica.max-lag} old, so max-lag has to be
+ * larger than the interval. It starts out unusable, and any failure to read it makes it unusable until
+ * the next successful check.
+ */
+public class ReplicaLagMonitor {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicaLagMonitor.class);
+
+    // rows of nodes that have not beaten for this long are removed when a node writes its first beat
+    private static final Duration STALE_NODE = Duration.ofDays(1);
+
+    private final JdbcClient primary;
+    private final JdbcClient replica;
+    private final Duration maxLag;
+    private final Clock clock;
+    private final String nodeId = UUID.randomUUID().toString();
+    private volatile Duration lag;
+    private volatile boolean usable;
+
+    public ReplicaLagMonitor(DataSource primary, DataSource replica, Duration maxLag, Clock clock) {
+        this.primary = JdbcClient.create(primary);
+        this.replica = JdbcClient.create(replica);
+        this.maxLag = maxLag;
+        this.clock = clock;
+    }
+
+    @Scheduled(fixedDelayString = "${app.datasource.replica.heartbeat-interval:PT1S}")
+    public void heartbeat() {
+        try {
+            beat();
+        } catch (DataAccessException e) {
+            log.warn("Could not write the replica heartbeat: {}", e.getMessage());
+        }
+        check();
+    }
+
+    void beat() {
+        long now = clock.millis();
+        int updated = primary.sql("UPDATE replica_heartbeat SET beat_millis = :now WHERE node_id = :node")
+                .param("now", now)
+                .param("node", nodeId)
+                .update();
+        if (updated == 0) {
+            primary.sql("DELETE FROM replica_heartbeat WHERE beat_millis < :stale")
+                    .param("stale", now - STALE_NODE.toMillis())
+                    .update();
+            primary.sql("INSERT INTO replica_heartbeat (node_id, beat_millis) VALUES (:node, :now)")
+                    .param("node", nodeId)
+                    .param("now", now)
+                    .update();
+        }
+    }
+
+    void check() {
+        Duration measured;
+        try {
+            Optional<Long> beat = replica.sql("SELECT beat_millis FROM replica_heartbeat WHERE node_id = :node")
+                    .param("node", nodeId)
+                    .query(Long.class)
+                    .optional();
+            // no row yet: the first beat has not been replicated
+            measured = beat.map(millis -> Duration.ofMillis(Math.max(0, clock.millis() - millis))).orElse(null);
+        } catch (DataAccessException e) {
+            log.warn("Could not read the replica heartbeat: {}", e.getMessage());
+            measured = null;
+        }
+        boolean nowUsable = measured != null && measured.compareTo(maxLag) <= 0;
+        if (nowUsable != usable) {
+            if (nowUsable) {
+                log.info("Read replica in use, lag {} ms", measured.toMillis());
+            } else {
+                log.warn("Read replica not in use, lag {}; reads go to the primary",
+                        measured != null ? measured.toMillis() + " ms" : "unknown");
+            }
+        }
+        lag = measured;
+        usable = nowUsable;
+    }
+
+    public boolean isReplicaUsable() {
+        return usable;
+    }
+
+    /**
+     * Lag measured by the last check, {@code null} when the replica could not be read or does not have this
+     * node's heartbeat yet.
+     */
+    public Duration getLag() {
+        return lag;
+    }
+}
@@ -1,28 +1,66 @@
 package org.mystudying.bookmanagementauth.config;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.mystudying.bookmanagementauth.exceptions.PasswordHashingRejectedException;
+import org.mystudying.bookmanagementauth.services.CredentialCache;
+import org.mystudying.bookmanagementauth.services.TokenService;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.autoconfigure.security.servlet.EndpointRequest;
+import org.springframework.boot.actuate.health.HealthEndpoint;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.AccountStatusUserDetailsChecker;
 import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
+import org.springframework.security.core.AuthenticationException;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.crypto.factory.PasswordEncoderFactories;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.www.BasicAuthenticationEntryPoint;
+import org.springframework.security.web.authentication.www.BasicAuthenticationFilter;
 
-import static org.springframework.security.config.Customizer.withDefaults;
+import java.io.IOException;
 
 @Configuration
 @EnableWebSecurity
 @EnableMethodSecurity
 public class SecurityConfig {
 
+    // Static assets are public and cacheable: match them first and skip session, context and auth work
+    @Bean
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public SecurityFilterChain staticResourcesFilterChain(HttpSecurity http) throws Exception {
+        http
+                .securityMatcher("/css/**", "/js/**", "/favicon.ico")
+                .authorizeHttpRequests(auth -> auth.anyRequest().permitAll())
+                .csrf(csrf -> csrf.disable())
+                .requestCache(cache -> cache.disable())
+                .securityContext(context -> context.disable())
+                .sessionManagement(session -> session.disable())
+                .anonymous(anonymous -> anonymous.disable())
+                // keep the long-lived Cache-Control set by StaticResourceConfig
+                .headers(headers -> headers.cacheControl(cacheControl -> cacheControl.disable()));
+        return http.build();
+    }
+
     @Bean
     public SecurityFilterChain securityFilterChain(HttpSecurity http,
-                                                   AuthenticationProvider authenticationProvider) throws Exception {
+                                                   AuthenticationProvider authenticationProvider,
+                                                   ObjectProvider<TokenService> tokenService) throws Exception {
+        BasicAuthenticationEntryPoint basicEntryPoint = new BasicAuthenticationEntryPoint();
+        basicEntryPoint.setRealmName("Realm");
+
         http
                 .csrf(csrf -> csrf.disable())
                 .authorizeHttpRequests(auth -> auth
@@ -30,8 +68,7 @@ public class SecurityConfig {
                         .requestMatchers(HttpMethod.GET, "/api/books/**", "/api/authors/**", "/api/genres/**").permitAll()
                         .requestMatchers("/", "/books", "/books/{id}", "/authors", "/authors/{id}", "/login", "/register", "/swagger-ui/**", "/v3/api-docs/**", "/swagger-ui.html").permitAll()
 
-                        // 2. PUBLIC STATIC RESOURCES
-                        .requestMatchers("/css/**", "/js/**", "/favicon.ico").permitAll()
+                        // 2. PUBLIC STATIC RESOURCES: handled by staticResourcesFilterChain
 
                         // 3. PUBLIC AUTH (Login/Register APIs)
                         .requestMatchers("/api/auth/**").permitAll()
@@ -48,8 +85,14 @@ public class SecurityConfig {
                         .requestMatchers("/api/users/search").hasRole("ADMIN")
                         .requestMatchers(HttpMethod.DELETE, "/api/users/**").hasRole("ADMIN")
 
-                        // 6. EVERYTHING ELSE (Authenticated)
-                        // Ownership checks (e.g. /api/users/{id}/**) are enforced via @PreAuthorize in UserController
+                        // 6. OWNERSHIP: a user's own record and circulation, or any user for admins
+                        .requestMatchers("/api/users/{id}", "/api/users/{id}/**").access(new AdminOrSelfAuthorizationManager("id"))
+
+                        // 7. ACTUATOR: health for load balancers, metrics and the Prometheus scrape for admins
+                        .requestMatchers(EndpointRequest.to(HealthEndpoint.class)).permitAll()
+                        .requestMatchers(EndpointRequest.toAnyEndpoint()).hasRole("ADMIN")
+
+                        // 8. EVERYTHING ELSE (Authenticated)
                         .anyRequest().authenticated()
                 )
                 .formLogin(form -> form
@@ -61,6 +104,10 @@ public class SecurityConfig {
                             response.getWriter().write("{\"message\": \"Login successful\"}");
                         })
                         .failureHandler((request, response, exception) -> {
+                            if (exception instanceof PasswordHashingRejectedException) {
+                                writeServiceBusy(request, response, exception);
+                                return;
+                            }
                             response.setStatus(401);
                             response.setContentType("application/json");
                             String json = String.format(
@@ -82,24 +129,58 @@ public class SecurityConfig {
                         .deleteCookies("JSESSIONID")
                         .permitAll()
                 )
-                .httpBasic(withDefaults())
+                .httpBasic(basic -> basic.authenticationEntryPoint((request, response, authException) -> {
+                    if (authException instanceof PasswordHashingRejectedException) {
+                        writeServiceBusy(request, response, authException);
+                    } else {
+                        basicEntryPoint.commence(request, response, authException);
+                    }
+                }))
                 .authenticationProvider(authenticationProvider);
 
+        // Stateless mode (app.security.token.enabled): bearer tokens are verified without session or DB
+        tokenService.ifAvailable(service ->
+                http.addFilterBefore(new TokenAuthenticationFilter(service), BasicAuthenticationFilter.class));
+
         return http.build();
     }
 
+    // Hashing queue is full: tell clients to back off instead of 401 (credentials were never checked)
+    private static void writeServiceBusy(HttpServletRequest request, HttpServletResponse response,
+                                         AuthenticationException exception) throws IOException {
+        response.setStatus(503);
+        response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+        response.setContentType("application/json");
+        String json = String.format(
+            "{\"timestamp\":\"%s\",\"status\":503,\"error\":\"Service Unavailable\",\"message\":\"%s\",\"path\":\"%s\",\"code\":\"SERVICE_BUSY\"}",
+            java.time.OffsetDateTime.now().toString(),
+            exception.getMessage(),
+            request.getRequestURI()
+        );
+        response.getWriter().write(json);
+    }
+
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return PasswordEncoderFactories.createDelegatingPasswordEncoder();
+    public PasswordEncoder passwordEncoder(MeterRegistry meterRegistry,
+                                           @Value("${app.security.hashing.threads:0}") int threads,
+                                           @Value("${app.security.hashing.queue-capacity:64}") int queueCapacity) {
+        // BCrypt is CPU bound: one hashing thread per core unless configured otherwise
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        return new BoundedPasswordEncoder(PasswordEncoderFactories.createDelegatingPasswordEncoder(),
+                poolSize, queueCapacity, meterRegistry);
     }
 
     @Bean
     public AuthenticationProvider authenticationProvider(UserDetailsService userDetailsService,
-                                                         PasswordEncoder passwordEncoder) {
+                                                         PasswordEncoder passwordEncoder,
+                                                         CredentialCache credentialCache) {
         DaoAuthenticationProvider daoAuthenticationProvider = new DaoAuthenticationProvider();
         daoAuthenticationProvider.setUserDetailsService(userDetailsService);
         daoAuthenticationProvider.setPasswordEncoder(passwordEncoder);
-        return daoAuthenticationProvider;
+        // HTTP Basic clients send credentials with every request; skip the lookup + BCrypt for recent ones.
+        // The checker covers both the pre- and post-authentication checks of the DAO provider.
+        return new CachingAuthenticationProvider(daoAuthenticationProvider, credentialCache,
+                new AccountStatusUserDetailsChecker());
 
     }
 }
@@ -0,0 +1,52 @@
+package org.mystudying.bookmanagementauth.config;
+
+import org.mystudying.bookmanagementauth.repositories.JdbcSessionRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.simple.JdbcClient;
+import org.springframework.session.MapSessionRepository;
+import org.springframework.session.config.annotation.web.http.EnableSpringHttpSession;
+import org.springframework.session.web.http.CookieSerializer;
+import org.springframework.session.web.http.DefaultCookieSerializer;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Replaces the servlet container's sessions with a pluggable session repository ({@code app.sessions.store}):
+ * {@code jdbc} shares sessions between nodes and survives deploys, {@code memory} keeps them per node,
+ * {@code none} leaves sessions to the container.
+ */
+@Configuration
+@EnableSpringHttpSession
+@ConditionalOnExpression("'${app.sessions.store:jdbc}' != 'none'")
+public class SessionConfig {
+
+    @Bean
+    @ConditionalOnProperty(name = "app.sessions.store", havingValue = "jdbc", matchIfMissing = true)
+    public JdbcSessionRepository jdbcSessionRepository(JdbcClient jdbcClient, JdbcTemplate jdbcTemplate,
+                                                       @Value("${server.servlet.session.timeout:30m}") Duration timeout,
+                                                       @Value("${app.sessions.near-cache-ttl:5s}") Duration nearCacheTtl) {
+        return new JdbcSessionRepository(jdbcClient, jdbcTemplate, timeout, nearCacheTtl);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "app.sessions.store", havingValue = "memory")
+    public MapSessionRepository mapSessionRepository(@Value("${server.servlet.session.timeout:30m}") Duration timeout) {
+        MapSessionRepository repository = new MapSessionRepository(new ConcurrentHashMap<>());
+        repository.setDefaultMaxInactiveInterval(timeout);
+        return repository;
+    }
+
+    @Bean
+    public CookieSerializer cookieSerializer() {
+        DefaultCookieSerializer serializer = new DefaultCookieSerializer();
+        // Same cookie as before, so logout's deleteCookies("JSESSIONID") keeps working
+        serializer.setCookieName("JSESSIONID");
+        return serializer;
+    }
+}
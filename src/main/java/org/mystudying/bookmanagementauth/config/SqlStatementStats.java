@@ -0,0 +1,72 @@
+package org.mystudying.bookmanagementauth.config;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * JDBC statements executed on the current thread while a recording is open, and the time spent in them.
+ * {@link SqlStatementTimingFilter} opens one per HTTP request; {@link StatementCountingDataSource} reports
+ * every {@code execute*} call (a JDBC batch counts once, as it is one round trip).
+ */
+public final class SqlStatementStats {
+
+    private static final ThreadLocal<SqlStatementStats> CURRENT = new ThreadLocal<>();
+
+    private final SqlStatementStats previous;
+    private final List<String> statements;
+    private int count;
+    private long nanos;
+
+    private SqlStatementStats(SqlStatementStats previous, boolean captureSql) {
+        this.previous = previous;
+        this.statements = captureSql ? new ArrayList<>() : null;
+    }
+
+    /**
+     * Opens a recording on the current thread; {@code captureSql} also keeps the statements themselves.
+     */
+    public static SqlStatementStats start(boolean captureSql) {
+        SqlStatementStats stats = new SqlStatementStats(CURRENT.get(), captureSql);
+        CURRENT.set(stats);
+        return stats;
+    }
+
+    static boolean isRecording() {
+        return CURRENT.get() != null;
+    }
+
+    static void record(String sql, long elapsedNanos) {
+        SqlStatementStats stats = CURRENT.get();
+        if (stats != null) {
+            stats.count++;
+            stats.nanos += elapsedNanos;
+            if (stats.statements != null) {
+                stats.statements.add(sql);
+            }
+        }
+    }
+
+    public void stop() {
+        if (previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public Duration getDuration() {
+        return Duration.ofNanos(nanos);
+    }
+
+    /**
+     * The executed statements in order, or an empty list when the recording was started without capturing them.
+     */
+    public List<String> getStatements() {
+        return statements == null ? List.of() : List.copyOf(statements);
+    }
+}
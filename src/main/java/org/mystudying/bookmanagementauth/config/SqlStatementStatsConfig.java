@@ -0,0 +1,46 @@
+package org.mystudying.bookmanagementauth.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import javax.sql.DataSource;
+
+/**
+ * Per-request SQL statement counts ({@code app.sql.statement-stats.enabled}): the application DataSource is
+ * wrapped in a {@link StatementCountingDataSource} and {@link SqlStatementTimingFilter} runs first, so the
+ * session, security and rate-limit lookups of a request are counted along with the controller's queries.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.sql.statement-stats.enabled", havingValue = "true", matchIfMissing = true)
+public class SqlStatementStatsConfig {
+
+    @Bean
+    public static BeanPostProcessor statementCountingDataSourcePostProcessor() {
+        // not Ordered: runs after the Ordered wrappers (connection limiting, replica routing), so replica
+        // statements are counted too and the limiter still sees the Hikari pool
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && "dataSource".equals(beanName)) {
+                    return new StatementCountingDataSource(dataSource);
+                }
+                return bean;
+            }
+        };
+    }
+
+    @Bean
+    public FilterRegistrationBean<SqlStatementTimingFilter> sqlStatementTimingFilter(
+            @Value("${app.sql.statement-stats.warn-threshold:20}") int warnThreshold,
+            @Value("${app.sql.statement-stats.capture-sql:false}") boolean captureSql) {
+        FilterRegistrationBean<SqlStatementTimingFilter> registration =
+                new FilterRegistrationBean<>(new SqlStatementTimingFilter(warnThreshold, captureSql));
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return registration;
+    }
+}
@@ -0,0 +1,89 @@
+package org.mystudying.bookmanagementauth.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.web.util.OnCommittedResponseWrapper;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.Locale;
+
+/**
+ * Records the JDBC statements of each request and reports them as {@code Server-Timing: db;dur=..;desc=".."}
+ * (shown by browser dev tools) and a log line: DEBUG for every request, WARN once a request runs more than
+ * {@code warnThreshold} statements, which is how N+1 loading usually shows up first.
+ * The header is added when the response is committed; the log line also covers statements run after that.
+ */
+public class SqlStatementTimingFilter extends OncePerRequestFilter {
+
+    /**
+     * Request attribute holding the request's {@link SqlStatementStats}.
+     */
+    public static final String STATS_ATTRIBUTE = SqlStatementTimingFilter.class.getName() + ".STATS";
+
+    private static final Logger log = LoggerFactory.getLogger(SqlStatementTimingFilter.class);
+
+    private final int warnThreshold;
+    private final boolean captureSql;
+
+    public SqlStatementTimingFilter(int warnThreshold, boolean captureSql) {
+        this.warnThreshold = warnThreshold;
+        this.captureSql = captureSql;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        SqlStatementStats stats = SqlStatementStats.start(captureSql);
+        request.setAttribute(STATS_ATTRIBUTE, stats);
+        ServerTimingResponse timedResponse = new ServerTimingResponse(response, stats);
+        try {
+            filterChain.doFilter(request, timedResponse);
+        } finally {
+            stats.stop();
+            // bodiless responses such as 204 are only committed by the container, after the filters
+            if (!response.isCommitted()) {
+                timedResponse.addServerTiming();
+            }
+            log(request, response, stats);
+        }
+    }
+
+    private void log(HttpServletRequest request, HttpServletResponse response, SqlStatementStats stats) {
+        if (stats.getCount() > warnThreshold) {
+            log.warn("{} {} -> {}: {} SQL statements in {} ms", request.getMethod(), request.getRequestURI(),
+                    response.getStatus(), stats.getCount(), stats.getDuration().toMillis());
+        } else if (log.isDebugEnabled()) {
+            log.debug("{} {} -> {}: {} SQL statements in {} ms", request.getMethod(), request.getRequestURI(),
+                    response.getStatus(), stats.getCount(), stats.getDuration().toMillis());
+        }
+    }
+
+    private static final class ServerTimingResponse extends OnCommittedResponseWrapper {
+
+        private final SqlStatementStats stats;
+        private boolean added;
+
+        ServerTimingResponse(HttpServletResponse response, SqlStatementStats stats) {
+            super(response);
+            this.stats = stats;
+        }
+
+        @Override
+        protected void onResponseCommitted() {
+            addServerTiming();
+        }
+
+        void addServerTiming() {
+            if (!added) {
+                added = true;
+                addHeader("Server-Timing", String.format(Locale.ROOT, "db;dur=%.1f;desc=\"%d statements\"",
+                        stats.getDuration().toNanos() / 1_000_000.0, stats.getCount()));
+            }
+        }
+    }
+}
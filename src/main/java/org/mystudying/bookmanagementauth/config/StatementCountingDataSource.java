@@ -0,0 +1,118 @@
+package org.mystudying.bookmanagementauth.config;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Reports every statement execution to {@link SqlStatementStats}. Statements are only wrapped while a
+ * recording is open on the creating thread, so Flyway, scheduled jobs and other work outside a request
+ * pay for nothing but the connection proxy.
+ */
+public class StatementCountingDataSource extends DelegatingDataSource {
+
+    public StatementCountingDataSource(DataSource target) {
+        super(target);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return counting(obtainTargetDataSource().getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return counting(obtainTargetDataSource().getConnection(username, password));
+    }
+
+    private static Connection counting(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, new ConnectionHandler(connection));
+    }
+
+    private static Object invokeTarget(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+
+    private static final class ConnectionHandler implements InvocationHandler {
+
+        private final Connection target;
+
+        ConnectionHandler(Connection target) {
+            this.target = target;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                default:
+                    Object result = invokeTarget(target, method, args);
+                    if (!(result instanceof Statement statement) || !SqlStatementStats.isRecording()) {
+                        return result;
+                    }
+                    return switch (method.getName()) {
+                        case "createStatement" -> timed(statement, Statement.class, null);
+                        case "prepareStatement" -> timed(statement, PreparedStatement.class, (String) args[0]);
+                        case "prepareCall" -> timed(statement, CallableStatement.class, (String) args[0]);
+                        default -> result;
+                    };
+            }
+        }
+
+        private static Object timed(Statement statement, Class<? extends Statement> type, String sql) {
+            return Proxy.newProxyInstance(Statement.class.getClassLoader(), new Class<?>[]{type},
+                    new StatementHandler(statement, sql));
+        }
+    }
+
+    private static final class StatementHandler implements InvocationHandler {
+
+        private final Statement target;
+        private final String sql;
+
+        StatementHandler(Statement target, String sql) {
+            this.target = target;
+            this.sql = sql;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                default:
+                    if (!method.getName().startsWith("execute")) {
+                        return invokeTarget(target, method, args);
+                    }
+                    long start = System.nanoTime();
+                    try {
+                        return invokeTarget(target, method, args);
+                    } finally {
+                        // plain Statements carry their SQL in the execute call
+                        String executed = sql == null && args != null && args.length > 0 && args[0] instanceof String text
+                                ? text : sql;
+                        SqlStatementStats.record(executed, System.nanoTime() - start);
+                    }
+            }
+        }
+    }
+}
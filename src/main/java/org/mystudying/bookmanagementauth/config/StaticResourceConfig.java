@@ -0,0 +1,53 @@
+package org.mystudying.bookmanagementauth.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.CacheControl;
+import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import org.springframework.web.servlet.resource.EncodedResourceResolver;
+import org.springframework.web.servlet.resource.ResourceUrlEncodingFilter;
+import org.springframework.web.servlet.resource.VersionResourceResolver;
+
+import java.time.Duration;
+
+/**
+ * Static assets (/css, /js) are served under content-hashed URLs ({@code /js/core/api-<md5>.js}), which
+ * templates get automatically through {@code @{...}} links. A changed file gets a new URL, so browsers may keep
+ * every version for {@code app.static.max-age} without revalidating.
+ * They bypass authentication entirely, see {@code SecurityConfig#staticResourcesFilterChain}.
+ */
+@Configuration
+public class StaticResourceConfig implements WebMvcConfigurer {
+
+    private final Duration maxAge;
+
+    public StaticResourceConfig(@Value("${app.static.max-age:365d}") Duration maxAge) {
+        this.maxAge = maxAge;
+    }
+
+    @Override
+    public void addResourceHandlers(ResourceHandlerRegistry registry) {
+        for (String directory : new String[]{"css", "js"}) {
+            registry.addResourceHandler("/" + directory + "/**")
+                    .addResourceLocations("classpath:/static/" + directory + "/")
+                    .setCacheControl(CacheControl.maxAge(maxAge).cachePublic().immutable())
+                    .resourceChain(true)
+                    // pre-built .br/.gz files next to an asset win; otherwise text assets are gzipped once in memory
+                    .addResolver(new GzipResourceResolver())
+                    .addResolver(new EncodedResourceResolver())
+                    .addResolver(new VersionResourceResolver().addContentVersionStrategy("/**"));
+        }
+    }
+
+    @Bean
+    public FilterRegistrationBean<ResourceUrlEncodingFilter> resourceUrlEncodingFilter() {
+        // rewrites /js/core/api.js to its hashed URL whenever a template renders a link
+        FilterRegistrationBean<ResourceUrlEncodingFilter> registration =
+                new FilterRegistrationBean<>(new ResourceUrlEncodingFilter());
+        registration.addUrlPatterns("/*");
+        return registration;
+    }
+}
@@ -2,11 +2,9 @@ package org.mystudying.bookmanagementauth.config;
 
 import org.mystudying.bookmanagementauth.domain.User;
 import org.springframework.security.core.GrantedAuthority;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 
 import java.util.Collection;
-import java.util.List;
 
 public class UserPrincipal implements UserDetails {
 
@@ -24,11 +22,7 @@ public class UserPrincipal implements UserDetails {
         this.authorities = authorities;
     }
 
-    public static UserPrincipal from(User user) {
-        List<SimpleGrantedAuthority> authorities = user.getRoles().stream()
-                .map(role -> new SimpleGrantedAuthority(role.getName()))
-                .toList();
-
+    public static UserPrincipal from(User user, Collection<? extends GrantedAuthority> authorities) {
         return new UserPrincipal(
                 user.getId(),
                 user.getEmail(),
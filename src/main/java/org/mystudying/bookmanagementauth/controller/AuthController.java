@@ -3,11 +3,14 @@ package org.mystudying.bookmanagementauth.controller;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import org.mystudying.bookmanagementauth.config.UserPrincipal;
+import org.mystudying.bookmanagementauth.dto.CurrentUserDto;
 import org.mystudying.bookmanagementauth.dto.RegisterRequestDto;
 import org.mystudying.bookmanagementauth.dto.UserDto;
 import org.mystudying.bookmanagementauth.exceptions.UnauthorizedException;
+import org.mystudying.bookmanagementauth.services.CurrentUserCache;
 import org.mystudying.bookmanagementauth.services.UserService;
 import org.springframework.http.HttpStatus;
+import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
@@ -17,23 +20,28 @@ import org.springframework.web.bind.annotation.*;
 public class AuthController {
 
     private final UserService userService;
+    private final CurrentUserCache currentUserCache;
+    private final PasswordEncoder passwordEncoder;
 
-    public AuthController(UserService userService) {
+    public AuthController(UserService userService, CurrentUserCache currentUserCache, PasswordEncoder passwordEncoder) {
         this.userService = userService;
+        this.currentUserCache = currentUserCache;
+        this.passwordEncoder = passwordEncoder;
     }
 
     @PostMapping("/register")
     @ResponseStatus(HttpStatus.CREATED)
     public UserDto register(@Valid @RequestBody RegisterRequestDto registrationDto) {
-        return userService.register(registrationDto);
+        // hashed before the transaction starts, see UserService#register
+        return userService.register(registrationDto, passwordEncoder.encode(registrationDto.password()));
     }
 
     @GetMapping("/me")
-    public UserDto getCurrentUser(@AuthenticationPrincipal UserPrincipal principal) {
+    public CurrentUserDto getCurrentUser(@AuthenticationPrincipal UserPrincipal principal) {
         if (principal == null) {
             throw new UnauthorizedException("User is not authenticated");
         }
-        return userService.findById(principal.getId())
+        return currentUserCache.get(principal.getId())
                 .orElseThrow(() -> new UnauthorizedException("User session is valid but user not found"));
     }
 }
@@ -5,12 +5,16 @@ import jakarta.validation.Valid;
 import org.mystudying.bookmanagementauth.domain.Book;
 import org.mystudying.bookmanagementauth.dto.*;
 import org.mystudying.bookmanagementauth.exceptions.BookNotFoundException;
+import org.mystudying.bookmanagementauth.services.BookImportService;
 import org.mystudying.bookmanagementauth.services.BookService;
 import org.mystudying.bookmanagementauth.services.InventoryService;
+import org.mystudying.bookmanagementauth.services.PopularityService;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
@@ -22,10 +26,15 @@ public class BookController {
 
     private final BookService bookService;
     private final InventoryService inventoryService;
+    private final PopularityService popularityService;
+    private final BookImportService bookImportService;
 
-    public BookController(BookService bookService, InventoryService inventoryService) {
+    public BookController(BookService bookService, InventoryService inventoryService, PopularityService popularityService,
+                          BookImportService bookImportService) {
         this.bookService = bookService;
         this.inventoryService = inventoryService;
+        this.popularityService = popularityService;
+        this.bookImportService = bookImportService;
     }
 
     @GetMapping
@@ -70,6 +79,12 @@ public class BookController {
                 .collect(Collectors.toList());
     }
 
+    @GetMapping("/popular")
+    public PopularityDto getPopularBooks(@RequestParam(defaultValue = "WEEK") PopularityWindow window,
+                                         @RequestParam(defaultValue = "10") int limit) {
+        return popularityService.getPopular(window, limit);
+    }
+
     @GetMapping("/{id}")
     public BookDto getBookById(@PathVariable long id) {
         return bookService.findById(id)
@@ -97,6 +112,25 @@ public class BookController {
         return toDto(bookService.save(bookDto));
     }
 
+    /**
+     * Bulk import of a CSV file (header: title,year,author,available,genres; genres separated by |).
+     * The body is streamed, not buffered.
+     */
+    @PostMapping(value = "/import", consumes = "text/csv")
+    @PreAuthorize("hasRole('ADMIN')")
+    public BookImportResultDto importCsv(InputStream body) throws IOException {
+        return bookImportService.importBooks(body, BookImportFormat.CSV);
+    }
+
+    /**
+     * Bulk import of newline-delimited JSON, one {@link BookImportRowDto} per line.
+     */
+    @PostMapping(value = "/import", consumes = "application/x-ndjson")
+    @PreAuthorize("hasRole('ADMIN')")
+    public BookImportResultDto importNdjson(InputStream body) throws IOException {
+        return bookImportService.importBooks(body, BookImportFormat.NDJSON);
+    }
+
     @PutMapping("/{id}")
     @PreAuthorize("hasRole('ADMIN')")
     public BookDto updateBook(@PathVariable long id, @Valid @RequestBody UpdateBookRequestDto bookDto) {
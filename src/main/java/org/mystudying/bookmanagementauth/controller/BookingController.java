@@ -1,25 +1,45 @@
 package org.mystudying.bookmanagementauth.controller;
 
+import jakarta.validation.Valid;
+import org.mystudying.bookmanagementauth.dto.BookingDateRange;
 import org.mystudying.bookmanagementauth.dto.BookingReportDto;
 import org.mystudying.bookmanagementauth.dto.BookingReportType;
+import org.mystudying.bookmanagementauth.dto.BookingSummaryDto;
+import org.mystudying.bookmanagementauth.dto.CirculationDimension;
+import org.mystudying.bookmanagementauth.dto.CirculationPointDto;
+import org.mystudying.bookmanagementauth.dto.ReportJobDto;
+import org.mystudying.bookmanagementauth.dto.ReportJobRequestDto;
 import org.mystudying.bookmanagementauth.services.BookingService;
+import org.mystudying.bookmanagementauth.services.CirculationRollupService;
+import org.mystudying.bookmanagementauth.services.ReportJobService;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
-import org.springframework.web.bind.annotation.GetMapping;
-import org.springframework.web.bind.annotation.RequestMapping;
-import org.springframework.web.bind.annotation.RequestParam;
-import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.List;
 
 @RestController
 @RequestMapping("/api/reports")
 public class BookingController {
 
     private final BookingService bookingService;
+    private final ReportJobService reportJobService;
+    private final CirculationRollupService circulationRollupService;
 
-    public BookingController(BookingService bookingService) {
+    public BookingController(BookingService bookingService,
+                             ReportJobService reportJobService,
+                             CirculationRollupService circulationRollupService) {
         this.bookingService = bookingService;
+        this.reportJobService = reportJobService;
+        this.circulationRollupService = circulationRollupService;
     }
 
     @GetMapping("/bookings")
@@ -28,9 +48,61 @@ public class BookingController {
             @RequestParam(name = "type") BookingReportType type,
             @RequestParam(required = false) Integer days,
             @RequestParam(required = false) Long minActiveBooks,
+            @ModelAttribute BookingDateRange range,
             @PageableDefault(size = 10) Pageable pageable
     ) {
-        return bookingService.getBookingReport(type, days, minActiveBooks, pageable);
+        return bookingService.getBookingReport(type, days, minActiveBooks, range, pageable);
+    }
+
+    @GetMapping("/summary")
+    @PreAuthorize("hasRole('ADMIN')")
+    public BookingSummaryDto getSummary(
+            @RequestParam(required = false) Integer days,
+            @RequestParam(required = false) Long minActiveBooks
+    ) {
+        return bookingService.getSummary(days, minActiveBooks);
+    }
+
+    @GetMapping("/timeseries")
+    @PreAuthorize("hasRole('ADMIN')")
+    public List<CirculationPointDto> getTimeseries(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "TOTAL") CirculationDimension dimension,
+            @RequestParam(required = false) Long groupId
+    ) {
+        return circulationRollupService.getTimeseries(dimension, groupId, from, to);
+    }
+
+    @PostMapping("/jobs")
+    @PreAuthorize("hasRole('ADMIN')")
+    @ResponseStatus(HttpStatus.ACCEPTED)
+    public ReportJobDto submitReportJob(@Valid @RequestBody ReportJobRequestDto requestDto) {
+        return reportJobService.submit(requestDto);
+    }
+
+    @GetMapping("/jobs/{id}")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ReportJobDto getReportJob(@PathVariable long id) {
+        return reportJobService.findById(id);
+    }
+
+    @GetMapping("/jobs/{id}/result")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<byte[]> getReportJobResult(
+            @PathVariable long id,
+            @RequestHeader(name = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding
+    ) {
+        byte[] result = reportJobService.findResultById(id);
+        var response = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"report-" + id + ".json\"");
+
+        // Stored result is already gzip-compressed, serve it as is when the client accepts it
+        if (acceptEncoding != null && acceptEncoding.contains("gzip")) {
+            return response.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(result);
+        }
+        return response.body(reportJobService.decompress(result));
     }
 }
 
@@ -0,0 +1,33 @@
+package org.mystudying.bookmanagementauth.controller;
+
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import org.mystudying.bookmanagementauth.dto.TokenRefreshRequestDto;
+import org.mystudying.bookmanagementauth.dto.TokenRequestDto;
+import org.mystudying.bookmanagementauth.dto.TokenResponseDto;
+import org.mystudying.bookmanagementauth.services.TokenService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/auth/token")
+@ConditionalOnProperty(name = "app.security.token.enabled", havingValue = "true")
+@Tag(name = "Authentication", description = "Signed bearer tokens for stateless clients")
+public class TokenController {
+
+    private final TokenService tokenService;
+
+    public TokenController(TokenService tokenService) {
+        this.tokenService = tokenService;
+    }
+
+    @PostMapping
+    public TokenResponseDto issue(@Valid @RequestBody TokenRequestDto request) {
+        return tokenService.issue(request);
+    }
+
+    @PostMapping("/refresh")
+    public TokenResponseDto refresh(@Valid @RequestBody TokenRefreshRequestDto request) {
+        return tokenService.refresh(request.refreshToken());
+    }
+}
@@ -1,6 +1,8 @@
 package org.mystudying.bookmanagementauth.controller;
 
 import org.mystudying.bookmanagementauth.config.UserPrincipal;
+import org.mystudying.bookmanagementauth.services.BookingService;
+import org.mystudying.bookmanagementauth.services.CurrentUserCache;
 import org.mystudying.bookmanagementauth.services.UserService;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
@@ -17,9 +19,13 @@ import org.springframework.web.bind.annotation.PathVariable;
 public class UiController {
 
     private final UserService userService;
+    private final CurrentUserCache currentUserCache;
+    private final BookingService bookingService;
 
-    public UiController(UserService userService) {
+    public UiController(UserService userService, CurrentUserCache currentUserCache, BookingService bookingService) {
         this.userService = userService;
+        this.currentUserCache = currentUserCache;
+        this.bookingService = bookingService;
     }
 
     @GetMapping("/")
@@ -69,7 +75,7 @@ public class UiController {
     @PreAuthorize("isAuthenticated()")
     public String profile(@AuthenticationPrincipal UserPrincipal principal, Model model) {
         if (principal != null) {
-            var user = userService.findById(principal.getId()).orElse(null);
+            var user = currentUserCache.get(principal.getId()).orElse(null);
             model.addAttribute("user", user);
         }
         model.addAttribute("showSidebar", true);
@@ -92,6 +98,9 @@ public class UiController {
     public String reports(Model model) {
         model.addAttribute("showSidebar", true);
         model.addAttribute("sidebarType", "reports");
+        // the sidebar's filter inputs start at the server-side defaults
+        model.addAttribute("dueSoonDays", bookingService.getDefaultDueSoonDays());
+        model.addAttribute("minActiveBooks", bookingService.getDefaultMinActiveBooks());
         return "reports";
     }
 
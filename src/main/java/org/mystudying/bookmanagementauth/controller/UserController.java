@@ -1,5 +1,6 @@
 package org.mystudying.bookmanagementauth.controller;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import org.mystudying.bookmanagementauth.domain.Book;
@@ -8,21 +9,29 @@ import org.mystudying.bookmanagementauth.exceptions.UserNotFoundException;
 import org.mystudying.bookmanagementauth.services.UserService;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
+/**
+ * Routes under {@code /api/users/{id}} are restricted to admins and the user itself in {@code SecurityConfig}.
+ */
 @RestController
 @RequestMapping("/api/users")
 @Tag(name = "Users", description = "User management and booking operations")
 public class UserController {
 
     private final UserService userService;
+    private final MeterRegistry meterRegistry;
+    private final PasswordEncoder passwordEncoder;
 
-    public UserController(UserService userService) {
+    public UserController(UserService userService, MeterRegistry meterRegistry, PasswordEncoder passwordEncoder) {
         this.userService = userService;
+        this.meterRegistry = meterRegistry;
+        this.passwordEncoder = passwordEncoder;
     }
 
     @GetMapping
@@ -32,7 +41,6 @@ public class UserController {
     }
 
     @GetMapping("/{id}")
-    @PreAuthorize("hasRole('ADMIN') or #id == principal.id")
     public UserDto getUserById(@PathVariable long id) {
         return userService.findById(id)
                 .orElseThrow(() -> new UserNotFoundException(id));
@@ -55,7 +63,6 @@ public class UserController {
      */
     @Deprecated
     @GetMapping("/{id}/books")
-    @PreAuthorize("hasRole('ADMIN') or #id == principal.id")
     public List<BookDto> getBooksByUser(@PathVariable long id) {
         return userService.findActiveBorrowedBooksByUserId(id).stream()
                 .map(this::toBookDto)
@@ -66,13 +73,15 @@ public class UserController {
     @PreAuthorize("hasRole('ADMIN')")
     @ResponseStatus(HttpStatus.CREATED)
     public UserDto createUser(@Valid @RequestBody CreateUserRequestDto userDto) {
-        return userService.save(userDto);
+        // passwords are hashed before the transaction starts, see UserService#register
+        return userService.save(userDto, passwordEncoder.encode(userDto.password()));
     }
 
     @PutMapping("/{id}")
-    @PreAuthorize("hasRole('ADMIN') or #id == principal.id")
     public UserDto updateUser(@PathVariable long id, @Valid @RequestBody UpdateUserRequestDto userDto) {
-        return userService.update(id, userDto);
+        String password = userDto.password();
+        return userService.update(id, userDto,
+                password != null && !password.isBlank() ? passwordEncoder.encode(password) : null);
     }
 
     @DeleteMapping("/{id}")
@@ -83,27 +92,23 @@ public class UserController {
     }
 
     @PostMapping("/{userId}/rent")
-    @PreAuthorize("hasRole('ADMIN') or #userId == principal.id")
     @ResponseStatus(HttpStatus.NO_CONTENT)
     public void rentBook(@PathVariable long userId, @Valid @RequestBody BookActionRequestDto requestDto) {
-        userService.rentBook(userId, requestDto.bookId());
+        counted("rent", () -> userService.rentBook(userId, requestDto.bookId()));
     }
 
     @PostMapping("/{userId}/return")
-    @PreAuthorize("hasRole('ADMIN') or #userId == principal.id")
     @ResponseStatus(HttpStatus.NO_CONTENT)
     public void returnBook(@PathVariable long userId, @Valid @RequestBody BookActionRequestDto requestDto) {
-        userService.returnBook(userId, requestDto.bookId());
+        counted("return", () -> userService.returnBook(userId, requestDto.bookId()));
     }
 
     @GetMapping("/{id}/bookings")
-    @PreAuthorize("hasRole('ADMIN') or #id == principal.id")
     public List<BookingResponseDto> getUserBookings(@PathVariable long id) {
         return userService.findBookingsByUserId(id);
     }
 
     @PostMapping("/{userId}/bookings/{bookingId}/pay")
-    @PreAuthorize("hasRole('ADMIN') or #userId == principal.id")
     @ResponseStatus(HttpStatus.NO_CONTENT)
     public void payFine(@PathVariable long userId, @PathVariable long bookingId) {
         userService.payFine(userId, bookingId);
@@ -112,4 +117,20 @@ public class UserController {
     private BookDto toBookDto(Book book) {
         return new BookDto(book.getId(), book.getTitle(), book.getYear(), book.getAvailable());
     }
+
+    /**
+     * Counts rent/return outcomes ({@code app.circulation.outcomes}) around the service call, so failures
+     * raised while committing are tagged with their exception like the business rule violations.
+     */
+    private void counted(String operation, Runnable action) {
+        String outcome = "success";
+        try {
+            action.run();
+        } catch (RuntimeException e) {
+            outcome = e.getClass().getSimpleName();
+            throw e;
+        } finally {
+            meterRegistry.counter("app.circulation.outcomes", "operation", operation, "outcome", outcome).increment();
+        }
+    }
 }
@@ -4,6 +4,7 @@ import jakarta.servlet.http.HttpServletRequest;
 import org.mystudying.bookmanagementauth.dto.ErrorResponse;
 import org.mystudying.bookmanagementauth.exceptions.*;
 import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.orm.ObjectOptimisticLockingFailureException;
@@ -20,7 +21,7 @@ import java.util.stream.Collectors;
 public class GlobalExceptionHandler {
 
     @ExceptionHandler({BookNotFoundException.class, AuthorNotFoundException.class, UserNotFoundException.class,
-            GenreNotFoundException.class})
+            GenreNotFoundException.class, ReportJobNotFoundException.class})
     public ResponseEntity<ErrorResponse> handleNotFoundException(RuntimeException ex, HttpServletRequest request) {
         return buildErrorResponse(HttpStatus.NOT_FOUND, ex.getMessage(), request.getRequestURI(), "RESOURCE_NOT_FOUND");
     }
@@ -28,13 +29,14 @@ public class GlobalExceptionHandler {
     @ExceptionHandler({BookAlreadyBorrowedException.class, BookNotBorrowedException.class, EmailAlreadyExistsException.class,
             BookNotAvailableException.class, BookHasBookingsException.class, AuthorHasBooksException.class,
             UserHasBookingsException.class, UserHasOverdueBooksException.class, UserHasUnpaidFinesException.class,
-            GenreHasBooksException.class, InsufficientAvailableStockException.class})
+            GenreHasBooksException.class, InsufficientAvailableStockException.class, ReportJobNotReadyException.class})
     public ResponseEntity<ErrorResponse> handleConflictException(RuntimeException ex, HttpServletRequest request) {
         String code = "DATA_CONFLICT";
         if (ex instanceof BookNotAvailableException) code = "BOOK_NOT_AVAILABLE";
         if (ex instanceof UserHasOverdueBooksException) code = "USER_HAS_OVERDUE_BOOKS";
         if (ex instanceof UserHasUnpaidFinesException) code = "USER_HAS_UNPAID_FINES";
         if (ex instanceof EmailAlreadyExistsException) code = "EMAIL_ALREADY_EXISTS";
+        if (ex instanceof ReportJobNotReadyException) code = "REPORT_JOB_NOT_READY";
 
         return buildErrorResponse(HttpStatus.CONFLICT, ex.getMessage(), request.getRequestURI(), code);
     }
@@ -44,6 +46,22 @@ public class GlobalExceptionHandler {
         return buildErrorResponse(HttpStatus.CONFLICT, "The data was modified by another user or is currently locked. Please refresh and try again.", request.getRequestURI(), "CONCURRENT_MODIFICATION");
     }
 
+    @ExceptionHandler({ReportJobRejectedException.class, PasswordHashingRejectedException.class})
+    public ResponseEntity<ErrorResponse> handleServiceUnavailableException(RuntimeException ex, HttpServletRequest request) {
+        // same hint as the 503 written by the security failure handlers
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.RETRY_AFTER, "1");
+        return buildErrorResponse(HttpStatus.SERVICE_UNAVAILABLE, ex.getMessage(), request.getRequestURI(), "SERVICE_BUSY", headers);
+    }
+
+    @ExceptionHandler(CirculationRollupsPendingException.class)
+    public ResponseEntity<ErrorResponse> handleRollupsPendingException(CirculationRollupsPendingException ex, HttpServletRequest request) {
+        // a catch-up chunk takes longer than a second; no point in retrying right away
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.RETRY_AFTER, "30");
+        return buildErrorResponse(HttpStatus.SERVICE_UNAVAILABLE, ex.getMessage(), request.getRequestURI(), "ROLLUPS_PENDING", headers);
+    }
+
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ResponseEntity<ErrorResponse> handleValidationExceptions(MethodArgumentNotValidException ex, HttpServletRequest request) {
         String message = ex.getBindingResult().getAllErrors().stream()
@@ -52,6 +70,16 @@ public class GlobalExceptionHandler {
         return buildErrorResponse(HttpStatus.BAD_REQUEST, message, request.getRequestURI(), "VALIDATION_FAILED");
     }
 
+    @ExceptionHandler(InvalidImportFileException.class)
+    public ResponseEntity<ErrorResponse> handleInvalidImportFileException(InvalidImportFileException ex, HttpServletRequest request) {
+        return buildErrorResponse(HttpStatus.BAD_REQUEST, ex.getMessage(), request.getRequestURI(), "INVALID_IMPORT_FILE");
+    }
+
+    @ExceptionHandler(InvalidDateRangeException.class)
+    public ResponseEntity<ErrorResponse> handleInvalidDateRangeException(InvalidDateRangeException ex, HttpServletRequest request) {
+        return buildErrorResponse(HttpStatus.BAD_REQUEST, ex.getMessage(), request.getRequestURI(), "INVALID_DATE_RANGE");
+    }
+
     @ExceptionHandler(UnauthorizedException.class)
     public ResponseEntity<ErrorResponse> handleUnauthorizedException(UnauthorizedException ex, HttpServletRequest request) {
         return buildErrorResponse(HttpStatus.UNAUTHORIZED, ex.getMessage(), request.getRequestURI(), "UNAUTHORIZED");
@@ -68,6 +96,11 @@ public class GlobalExceptionHandler {
     }
 
     private ResponseEntity<ErrorResponse> buildErrorResponse(HttpStatus status, String message, String path, String code) {
+        return buildErrorResponse(status, message, path, code, new HttpHeaders());
+    }
+
+    private ResponseEntity<ErrorResponse> buildErrorResponse(HttpStatus status, String message, String path, String code,
+                                                             HttpHeaders headers) {
         ErrorResponse errorResponse = new ErrorResponse(
                 LocalDateTime.now(),
                 status.value(),
@@ -76,6 +109,6 @@ public class GlobalExceptionHandler {
                 path,
                 code
         );
-        return new ResponseEntity<>(errorResponse, status);
+        return new ResponseEntity<>(errorResponse, headers, status);
     }
 }
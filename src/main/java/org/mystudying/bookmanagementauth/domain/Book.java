@@ -14,7 +14,10 @@ import java.util.Set;
 public class Book {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "books_id")
+    @TableGenerator(name = "books_id", table = IdAllocation.TABLE, pkColumnName = IdAllocation.NAME_COLUMN,
+            valueColumnName = IdAllocation.VALUE_COLUMN, pkColumnValue = "books",
+            allocationSize = IdAllocation.ALLOCATION_SIZE)
     private Long id;
 
     @NotBlank(message = "Book title cannot be blank.")
@@ -0,0 +1,17 @@
+package org.mystudying.bookmanagementauth.domain;
+
+/**
+ * Pooled ids for authors, books, users and bookings, reserved in blocks from the {@code id_allocator} table
+ * (see {@code V11__pooled_ids.sql}). Hibernate knows ids before inserting, so inserts are batched.
+ */
+final class IdAllocation {
+
+    static final String TABLE = "id_allocator";
+    static final String NAME_COLUMN = "name";
+    static final String VALUE_COLUMN = "next_val";
+    // ids reserved per round trip to the allocator; unused ones are skipped when a node restarts
+    static final int ALLOCATION_SIZE = 50;
+
+    private IdAllocation() {
+    }
+}
@@ -0,0 +1,119 @@
+package org.mystudying.bookmanagementauth.domain;
+
+import jakarta.persistence.*;
+import org.mystudying.bookmanagementauth.dto.BookingReportType;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "report_jobs")
+public class ReportJob {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "spec_key", nullable = false)
+    private String specKey;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "report_type", nullable = false)
+    private BookingReportType type;
+
+    @Column(name = "due_soon_days")
+    private Integer dueSoonDays;
+
+    @Column(name = "min_active_books")
+    private Long minActiveBooks;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private ReportJobStatus status = ReportJobStatus.PENDING;
+
+    @Column(name = "row_count")
+    private Integer rowCount;
+
+    // gzip-compressed JSON array; read only through ReportJobRepository.findResultById
+    @Column(name = "result")
+    private byte[] result;
+
+    private String error;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "started_at")
+    private LocalDateTime startedAt;
+
+    @Column(name = "finished_at")
+    private LocalDateTime finishedAt;
+
+    protected ReportJob() {
+        // Required by JPA
+    }
+
+    public ReportJob(String specKey, BookingReportType type, Integer dueSoonDays, Long minActiveBooks, LocalDateTime createdAt) {
+        this.specKey = specKey;
+        this.type = type;
+        this.dueSoonDays = dueSoonDays;
+        this.minActiveBooks = minActiveBooks;
+        this.createdAt = createdAt;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getSpecKey() {
+        return specKey;
+    }
+
+    public BookingReportType getType() {
+        return type;
+    }
+
+    public Integer getDueSoonDays() {
+        return dueSoonDays;
+    }
+
+    public Long getMinActiveBooks() {
+        return minActiveBooks;
+    }
+
+    public ReportJobStatus getStatus() {
+        return status;
+    }
+
+    public Integer getRowCount() {
+        return rowCount;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public LocalDateTime getStartedAt() {
+        return startedAt;
+    }
+
+    public LocalDateTime getFinishedAt() {
+        return finishedAt;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof ReportJob)) return false;
+        ReportJob reportJob = (ReportJob) o;
+        return id != null && id.equals(reportJob.id);
+    }
+
+    @Override
+    public int hashCode() {
+        return getClass().hashCode();
+    }
+}
@@ -0,0 +1,8 @@
+package org.mystudying.bookmanagementauth.domain;
+
+public enum ReportJobStatus {
+    PENDING,
+    RUNNING,
+    DONE,
+    FAILED
+}
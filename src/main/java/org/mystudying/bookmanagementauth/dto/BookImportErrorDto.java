@@ -0,0 +1,4 @@
+package org.mystudying.bookmanagementauth.dto;
+
+public record BookImportErrorDto(long line, String message) {
+}
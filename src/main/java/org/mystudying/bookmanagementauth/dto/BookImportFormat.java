@@ -0,0 +1,12 @@
+package org.mystudying.bookmanagementauth.dto;
+
+public enum BookImportFormat {
+    /**
+     * Header line naming the columns title, year, author, available and genres; genres are separated by {@code |}.
+     */
+    CSV,
+    /**
+     * One JSON object per line with the fields of {@link BookImportRowDto}.
+     */
+    NDJSON
+}
@@ -0,0 +1,10 @@
+package org.mystudying.bookmanagementauth.dto;
+
+import java.util.List;
+
+/**
+ * Outcome of a bulk import. {@code errors} lists the first rejected lines only
+ * ({@code app.books.import.max-reported-errors}); {@code failed} counts all of them.
+ */
+public record BookImportResultDto(long imported, long failed, List<BookImportErrorDto> errors) {
+}
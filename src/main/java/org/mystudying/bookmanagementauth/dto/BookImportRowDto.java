@@ -0,0 +1,32 @@
+package org.mystudying.bookmanagementauth.dto;
+
+import jakarta.validation.constraints.*;
+
+import java.util.List;
+
+/**
+ * One book of a bulk import; author and genres are given by name and created when missing.
+ */
+public record BookImportRowDto(
+        @NotBlank(message = "Title cannot be blank")
+        @Size(max = 150, message = "Title cannot be longer than 150 characters")
+        String title,
+
+        @NotNull(message = "Year cannot be null")
+        @Positive(message = "Year must be a positive number")
+        @YearValid
+        Integer year,
+
+        @NotBlank(message = "Author cannot be blank")
+        @Size(max = 100, message = "Author cannot be longer than 100 characters")
+        String author,
+
+        @NotNull(message = "Available count cannot be null")
+        @Min(value = 0, message = "Available count cannot be negative")
+        Integer available,
+
+        @NotEmpty(message = "At least one genre must be given")
+        List<@NotBlank(message = "Genre cannot be blank")
+             @Size(max = 100, message = "Genre cannot be longer than 100 characters") String> genres
+) {
+}
@@ -0,0 +1,19 @@
+package org.mystudying.bookmanagementauth.dto;
+
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDate;
+
+/**
+ * Optional inclusive bounds on the booking dates of a report; {@code null} means unbounded.
+ */
+public record BookingDateRange(
+        @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate borrowedFrom,
+        @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate borrowedTo,
+        @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dueFrom,
+        @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dueTo,
+        @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate returnedFrom,
+        @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate returnedTo
+) {
+    public static final BookingDateRange NONE = new BookingDateRange(null, null, null, null, null, null);
+}
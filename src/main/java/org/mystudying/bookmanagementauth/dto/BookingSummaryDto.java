@@ -0,0 +1,19 @@
+package org.mystudying.bookmanagementauth.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+public record BookingSummaryDto(
+        long total,
+        long active,
+        long returned,
+        long overdue,
+        long dueSoon,
+        long withFines,
+        long withUnpaidFines,
+        BigDecimal totalFines,
+        BigDecimal unpaidFines,
+        long heavyUsers,
+        LocalDateTime generatedAt
+) {
+}
@@ -0,0 +1,7 @@
+package org.mystudying.bookmanagementauth.dto;
+
+public enum CirculationDimension {
+    TOTAL,
+    GENRE,
+    AUTHOR
+}
@@ -0,0 +1,15 @@
+package org.mystudying.bookmanagementauth.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+public record CirculationPointDto(
+        LocalDate day,
+        Long groupId,
+        String groupName,
+        long borrowed,
+        long returned,
+        long overdue,
+        BigDecimal fines
+) {
+}
@@ -0,0 +1,17 @@
+package org.mystudying.bookmanagementauth.dto;
+
+import java.util.Set;
+
+/**
+ * The signed-in user's profile as served by {@code /api/auth/me}, with the counters the navbar shows.
+ */
+public record CurrentUserDto(
+        long id,
+        String name,
+        String email,
+        boolean active,
+        Set<String> roles,
+        long activeLoans,
+        long unpaidFines
+) {
+}
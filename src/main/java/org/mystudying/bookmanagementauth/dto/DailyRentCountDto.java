@@ -0,0 +1,6 @@
+package org.mystudying.bookmanagementauth.dto;
+
+import java.time.LocalDate;
+
+public record DailyRentCountDto(LocalDate day, Long itemId, Long count) {
+}
@@ -0,0 +1,8 @@
+package org.mystudying.bookmanagementauth.dto;
+
+public record PopularItemDto(
+        long id,
+        String name,
+        long rents
+) {
+}
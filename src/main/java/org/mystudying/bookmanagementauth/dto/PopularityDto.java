@@ -0,0 +1,10 @@
+package org.mystudying.bookmanagementauth.dto;
+
+import java.util.List;
+
+public record PopularityDto(
+        PopularityWindow window,
+        List<PopularItemDto> books,
+        List<PopularItemDto> genres
+) {
+}
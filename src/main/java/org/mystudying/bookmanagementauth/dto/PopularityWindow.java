@@ -0,0 +1,16 @@
+package org.mystudying.bookmanagementauth.dto;
+
+public enum PopularityWindow {
+    WEEK(7),
+    MONTH(30);
+
+    private final int days;
+
+    PopularityWindow(int days) {
+        this.days = days;
+    }
+
+    public int days() {
+        return days;
+    }
+}
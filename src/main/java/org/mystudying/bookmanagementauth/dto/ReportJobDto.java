@@ -0,0 +1,19 @@
+package org.mystudying.bookmanagementauth.dto;
+
+import org.mystudying.bookmanagementauth.domain.ReportJobStatus;
+
+import java.time.LocalDateTime;
+
+public record ReportJobDto(
+        Long id,
+        BookingReportType type,
+        Integer days,
+        Long minActiveBooks,
+        ReportJobStatus status,
+        Integer rowCount,
+        String error,
+        LocalDateTime createdAt,
+        LocalDateTime startedAt,
+        LocalDateTime finishedAt
+) {
+}
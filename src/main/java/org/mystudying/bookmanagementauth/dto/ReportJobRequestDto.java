@@ -0,0 +1,26 @@
+package org.mystudying.bookmanagementauth.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+
+@Schema(description = "Request to run a booking report in the background")
+public record ReportJobRequestDto(
+        @NotNull(message = "Report type cannot be null")
+        @Schema(example = "UNPAID_FINES")
+        BookingReportType type,
+
+        @Positive(message = "Days must be a positive number")
+        @Schema(example = "3")
+        Integer days,
+
+        @Positive(message = "Min active books must be a positive number")
+        @Schema(example = "2")
+        Long minActiveBooks,
+
+        @Valid
+        @Schema(description = "Optional inclusive bounds on the booking dates, as for the paged reports")
+        BookingDateRange range
+) {
+}
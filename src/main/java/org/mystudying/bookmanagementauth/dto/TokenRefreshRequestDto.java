@@ -0,0 +1,9 @@
+package org.mystudying.bookmanagementauth.dto;
+
+import jakarta.validation.constraints.NotBlank;
+
+public record TokenRefreshRequestDto(
+        @NotBlank(message = "Refresh token cannot be blank")
+        String refreshToken
+) {
+}
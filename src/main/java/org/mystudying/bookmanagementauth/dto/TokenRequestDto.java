@@ -0,0 +1,12 @@
+package org.mystudying.bookmanagementauth.dto;
+
+import jakarta.validation.constraints.NotBlank;
+
+public record TokenRequestDto(
+        @NotBlank(message = "Email cannot be blank")
+        String email,
+
+        @NotBlank(message = "Password cannot be blank")
+        String password
+) {
+}
@@ -0,0 +1,9 @@
+package org.mystudying.bookmanagementauth.dto;
+
+public record TokenResponseDto(
+        String accessToken,
+        String refreshToken,
+        String tokenType,
+        long expiresIn // seconds until the access token expires
+) {
+}
@@ -0,0 +1,8 @@
+package org.mystudying.bookmanagementauth.events;
+
+/**
+ * Published by {@code BookService} inside the transaction that replaces a book's genres.
+ * Cached book-to-genre mappings of the book must be dropped.
+ */
+public record BookGenresChangedEvent(long bookId) {
+}
@@ -0,0 +1,10 @@
+package org.mystudying.bookmanagementauth.events;
+
+import java.time.LocalDate;
+
+/**
+ * Published by {@code UserService.rentBook} inside the rent transaction.
+ * Listeners interested only in committed rents should use {@code @TransactionalEventListener}.
+ */
+public record BookRentedEvent(long bookingId, long userId, long bookId, LocalDate borrowedAt) {
+}
@@ -0,0 +1,9 @@
+package org.mystudying.bookmanagementauth.events;
+
+/**
+ * Published by {@code UserService} inside the transaction that changes a user's password, email or
+ * active flag, or deletes the user. Anything that remembers a past authentication of the user must drop it.
+ * Code that changes a user's roles has to publish it as well, since remembered authentications carry them.
+ */
+public record UserCredentialsChangedEvent(long userId) {
+}
@@ -0,0 +1,8 @@
+package org.mystudying.bookmanagementauth.events;
+
+/**
+ * Published by {@code UserService} inside the transaction that changes anything shown on a user's own
+ * profile: account fields, loans (rent, return) or fines. Cached profile snapshots of the user must be dropped.
+ */
+public record UserProfileChangedEvent(long userId) {
+}
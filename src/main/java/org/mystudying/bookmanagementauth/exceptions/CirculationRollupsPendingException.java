@@ -0,0 +1,10 @@
+package org.mystudying.bookmanagementauth.exceptions;
+
+import java.time.LocalDate;
+
+public class CirculationRollupsPendingException extends RuntimeException {
+    public CirculationRollupsPendingException(LocalDate watermark) {
+        super("Circulation rollups are still catching up (rolled up to " + (watermark != null ? watermark : "none")
+                + "). Please try again later.");
+    }
+}
@@ -0,0 +1,7 @@
+package org.mystudying.bookmanagementauth.exceptions;
+
+public class InvalidImportFileException extends RuntimeException {
+    public InvalidImportFileException(String message) {
+        super("Invalid import file: " + message);
+    }
+}
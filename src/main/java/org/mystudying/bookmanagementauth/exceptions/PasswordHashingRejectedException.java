@@ -0,0 +1,13 @@
+package org.mystudying.bookmanagementauth.exceptions;
+
+import org.springframework.security.authentication.AuthenticationServiceException;
+
+/**
+ * The password hashing queue is full. An {@code AuthenticationException} so that login and HTTP Basic
+ * report it through their failure handlers (as 503) instead of failing the filter chain.
+ */
+public class PasswordHashingRejectedException extends AuthenticationServiceException {
+    public PasswordHashingRejectedException() {
+        super("Too many sign-in requests are being processed. Please try again later.");
+    }
+}
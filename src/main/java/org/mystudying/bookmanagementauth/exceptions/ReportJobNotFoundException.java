@@ -0,0 +1,7 @@
+package org.mystudying.bookmanagementauth.exceptions;
+
+public class ReportJobNotFoundException extends RuntimeException {
+    public ReportJobNotFoundException(long id) {
+        super("Report job not found with id: " + id);
+    }
+}
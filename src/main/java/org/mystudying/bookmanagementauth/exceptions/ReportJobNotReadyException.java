@@ -0,0 +1,9 @@
+package org.mystudying.bookmanagementauth.exceptions;
+
+import org.mystudying.bookmanagementauth.domain.ReportJobStatus;
+
+public class ReportJobNotReadyException extends RuntimeException {
+    public ReportJobNotReadyException(long id, ReportJobStatus status) {
+        super("Report job with id '" + id + "' has no result (status: " + status + ").");
+    }
+}
@@ -0,0 +1,7 @@
+package org.mystudying.bookmanagementauth.exceptions;
+
+public class ReportJobRejectedException extends RuntimeException {
+    public ReportJobRejectedException() {
+        super("Report job queue is full. Please try again later.");
+    }
+}
@@ -0,0 +1,99 @@
+package org.mystudying.bookmanagementauth.repositories;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.simple.JdbcClient;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Plain JDBC writes of the bulk book import. Author and book ids come from the same {@code id_allocator}
+ * rows Hibernate uses (V11), so imported rows never collide with entities saved through JPA.
+ * All inserts are sent as JDBC batches, which the driver rewrites into multi-row INSERTs.
+ */
+@Repository
+public class BookImportJdbcRepository {
+
+    private final JdbcClient jdbcClient;
+    private final JdbcTemplate jdbcTemplate;
+
+    public BookImportJdbcRepository(JdbcClient jdbcClient, JdbcTemplate jdbcTemplate) {
+        this.jdbcClient = jdbcClient;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Takes the next {@code count} ids of an {@code id_allocator} row. Like Hibernate's generator, which stores
+     * the last value it handed out, this reserves {@code next_val + 1} up to {@code next_val + count} and leaves
+     * the last of them in {@code next_val}. The row stays locked until the surrounding transaction ends, so
+     * callers should run this in a short transaction of its own.
+     *
+     * @return the first reserved id
+     */
+    public long reserveIds(String name, int count) {
+        long last = jdbcClient.sql("SELECT next_val FROM id_allocator WHERE name = :name FOR UPDATE")
+                .param("name", name)
+                .query(Long.class)
+                .single();
+        jdbcClient.sql("UPDATE id_allocator SET next_val = :last WHERE name = :name")
+                .param("last", last + count)
+                .param("name", name)
+                .update();
+        return last + 1;
+    }
+
+    /**
+     * Authors whose name matches one of {@code names} under the column collation, so callers
+     * have to compare the returned names themselves when they need exact matches.
+     */
+    public List<Map.Entry<String, Long>> findAuthorsByName(Collection<String> names) {
+        return jdbcClient.sql("SELECT id, name FROM authors WHERE name IN (:names)")
+                .param("names", names)
+                .query((rs, rowNum) -> Map.entry(rs.getString("name"), rs.getLong("id")))
+                .list();
+    }
+
+    /**
+     * Genre ids by stored name for every genre matching one of {@code names} (case-insensitively, like the
+     * unique index on {@code genres.name}).
+     */
+    public Map<String, Long> findGenreIdsByName(Collection<String> names) {
+        Map<String, Long> ids = new HashMap<>();
+        jdbcClient.sql("SELECT id, name FROM genres WHERE name IN (:names)")
+                .param("names", names)
+                .query(rs -> {
+                    ids.put(rs.getString("name"), rs.getLong("id"));
+                });
+        return ids;
+    }
+
+    public void insertAuthors(List<Object[]> idAndName) {
+        jdbcTemplate.batchUpdate("INSERT INTO authors (id, name) VALUES (?, ?)", idAndName);
+    }
+
+    /**
+     * Inserts genres that do not exist yet; names another import added in the meantime are skipped.
+     */
+    public void insertMissingGenres(Collection<String> names) {
+        jdbcTemplate.batchUpdate("INSERT IGNORE INTO genres (name) VALUES (?)",
+                names.stream().map(name -> new Object[]{name}).toList());
+    }
+
+    /**
+     * @param rows id, title, year, author id and available count of each book
+     */
+    public void insertBooks(List<Object[]> rows) {
+        jdbcTemplate.batchUpdate("INSERT INTO books (id, title, year, author_id, available, version) VALUES (?, ?, ?, ?, ?, 0)",
+                rows);
+    }
+
+    /**
+     * @param rows book id and genre id of each link
+     */
+    public void insertBookGenres(List<Object[]> rows) {
+        jdbcTemplate.batchUpdate("INSERT INTO book_genres (book_id, genre_id) VALUES (?, ?)", rows);
+    }
+}
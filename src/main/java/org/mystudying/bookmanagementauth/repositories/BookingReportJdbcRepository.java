@@ -0,0 +1,152 @@
+package org.mystudying.bookmanagementauth.repositories;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.mystudying.bookmanagementauth.dto.BookingDateRange;
+import org.mystudying.bookmanagementauth.dto.BookingReportDto;
+import org.mystudying.bookmanagementauth.dto.BookingReportType;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.simple.JdbcClient;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Unpaged booking reports for background report jobs.
+ * Runs on its own small Hikari pool so long report scans never hold connections of the request pool.
+ * Row filters and fine/overdue rules mirror the paged JPQL reports in {@link BookingRepository}.
+ */
+@Repository
+public class BookingReportJdbcRepository {
+
+    private static final String SELECT = """
+            SELECT b.id, u.id AS user_id, u.name AS user_name, u.email AS user_email,
+                   bk.id AS book_id, bk.title AS book_title,
+                   b.borrowed_at, b.due_at, b.returned_at,
+                   CASE WHEN b.returned_at IS NOT NULL THEN GREATEST(DATEDIFF(b.returned_at, b.due_at), 0)
+                        WHEN b.due_at < :now THEN DATEDIFF(:now, b.due_at)
+                        ELSE 0 END AS overdue_days,
+                   CASE WHEN b.returned_at IS NULL AND b.due_at < :now THEN DATEDIFF(:now, b.due_at)
+                        ELSE COALESCE(b.fine, 0) END AS fine,
+                   b.fine_paid
+            FROM bookings b
+            JOIN users u ON u.id = b.user_id
+            JOIN books bk ON bk.id = b.book_id
+            """;
+
+    // same bounds as the paged reports: a null parameter disables its bound
+    private static final String RANGE = """
+            AND (:borrowedFrom IS NULL OR b.borrowed_at >= :borrowedFrom)
+            AND (:borrowedTo IS NULL OR b.borrowed_at <= :borrowedTo)
+            AND (:dueFrom IS NULL OR b.due_at >= :dueFrom)
+            AND (:dueTo IS NULL OR b.due_at <= :dueTo)
+            AND (:returnedFrom IS NULL OR b.returned_at >= :returnedFrom)
+            AND (:returnedTo IS NULL OR b.returned_at <= :returnedTo)
+            """;
+
+    private final HikariDataSource dataSource;
+    private final JdbcClient jdbcClient;
+    private final Map<BookingReportType, Timer> queryTimers = new EnumMap<>(BookingReportType.class);
+
+    public BookingReportJdbcRepository(DataSourceProperties dataSourceProperties,
+                                       @Value("${app.reports.jobs.pool-size:2}") int poolSize,
+                                       MeterRegistry meterRegistry) {
+        this.dataSource = dataSourceProperties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .build();
+        this.dataSource.setPoolName("report-pool");
+        this.dataSource.setMaximumPoolSize(poolSize);
+        this.dataSource.setMinimumIdle(0);
+        this.dataSource.setReadOnly(true);
+        this.dataSource.setTransactionIsolation("TRANSACTION_READ_COMMITTED");
+        // hikaricp.* meters with pool=report-pool, next to the request pool's
+        this.dataSource.setMetricRegistry(meterRegistry);
+        for (BookingReportType type : BookingReportType.values()) {
+            // same meter as the paged reports in BookingService
+            queryTimers.put(type, Timer.builder("app.reports.query")
+                    .tag("type", type.name())
+                    .tag("source", "job")
+                    .register(meterRegistry));
+        }
+
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        if (dataSource.getJdbcUrl() != null && dataSource.getJdbcUrl().startsWith("jdbc:mysql:")) {
+            // Connector/J streams rows one by one only with this fetch size
+            jdbcTemplate.setFetchSize(Integer.MIN_VALUE);
+        }
+        this.jdbcClient = JdbcClient.create(new NamedParameterJdbcTemplate(jdbcTemplate));
+    }
+
+    /**
+     * Streams every row of the report to {@code sink} in booking id order.
+     *
+     * @return number of rows streamed
+     */
+    public int streamReport(BookingReportType type, LocalDate now, int dueSoonDays, long minActiveBooks,
+                            BookingDateRange range, Consumer<BookingReportDto> sink) {
+        int[] rows = {0};
+        RowCallbackHandler handler = rs -> {
+            sink.accept(new BookingReportDto(
+                    rs.getLong("id"),
+                    rs.getLong("user_id"),
+                    rs.getString("user_name"),
+                    rs.getString("user_email"),
+                    rs.getLong("book_id"),
+                    rs.getString("book_title"),
+                    rs.getObject("borrowed_at", LocalDate.class),
+                    rs.getObject("due_at", LocalDate.class),
+                    rs.getObject("returned_at", LocalDate.class),
+                    rs.getLong("overdue_days"),
+                    rs.getBigDecimal("fine"),
+                    rs.getBoolean("fine_paid")
+            ));
+            rows[0]++;
+        };
+
+        // rows are streamed, so this includes handing each of them to the sink
+        queryTimers.get(type).record(() -> jdbcClient.sql(SELECT + "WHERE (" + whereClause(type) + ")\n" + RANGE + "ORDER BY b.id")
+                .param("now", now)
+                .param("futureDate", now.plusDays(dueSoonDays))
+                .param("minActiveBooks", minActiveBooks)
+                .param("borrowedFrom", range.borrowedFrom())
+                .param("borrowedTo", range.borrowedTo())
+                .param("dueFrom", range.dueFrom())
+                .param("dueTo", range.dueTo())
+                .param("returnedFrom", range.returnedFrom())
+                .param("returnedTo", range.returnedTo())
+                .query(handler));
+        return rows[0];
+    }
+
+    private String whereClause(BookingReportType type) {
+        return switch (type) {
+            case ALL -> "1 = 1";
+            case ACTIVE -> "b.returned_at IS NULL";
+            case RETURNED -> "b.returned_at IS NOT NULL";
+            case FINES -> "b.fine > 0 OR (b.returned_at IS NULL AND b.due_at < :now)";
+            case UNPAID_FINES -> "(b.fine > 0 AND b.fine_paid = FALSE) OR (b.returned_at IS NULL AND b.due_at < :now)";
+            case DUE_SOON -> "b.returned_at IS NULL AND b.due_at BETWEEN :now AND :futureDate";
+            case HEAVY_USERS -> """
+                    b.returned_at IS NULL AND b.user_id IN (
+                        SELECT h.user_id FROM bookings h
+                        WHERE h.returned_at IS NULL
+                        GROUP BY h.user_id
+                        HAVING COUNT(*) >= :minActiveBooks)
+                    """;
+        };
+    }
+
+    @PreDestroy
+    void close() {
+        dataSource.close();
+    }
+}
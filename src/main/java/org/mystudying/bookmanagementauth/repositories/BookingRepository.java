@@ -1,6 +1,9 @@
 package org.mystudying.bookmanagementauth.repositories;
 
 import org.mystudying.bookmanagementauth.domain.Booking;
+import org.mystudying.bookmanagementauth.dto.BookGenreDto;
+import org.mystudying.bookmanagementauth.dto.BookingDateRange;
+import org.mystudying.bookmanagementauth.dto.DailyRentCountDto;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -8,7 +11,9 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -28,42 +33,136 @@ public interface BookingRepository extends JpaRepository<Booking, Long> {
     @Query("SELECT b FROM Booking b JOIN FETCH b.book bk WHERE b.user.id = :userId AND bk.id = :bookId AND b.returnedAt IS NULL")
     Optional<Booking> findActiveBooking(@Param("userId") Long userId, @Param("bookId") Long bookId);
 
-    // --- Reports with pagination and eager fetching ---
-
-    @Query(value = "SELECT DISTINCT b FROM Booking b JOIN FETCH b.user JOIN FETCH b.book",
-            countQuery = "SELECT COUNT(b) FROM Booking b")
-    Page<Booking> findAllWithDetails(Pageable pageable);
-
-    @Query(value = "SELECT DISTINCT b FROM Booking b JOIN FETCH b.user JOIN FETCH b.book WHERE b.returnedAt IS NULL",
-            countQuery = "SELECT COUNT(b) FROM Booking b WHERE b.returnedAt IS NULL")
-    Page<Booking> findActiveWithDetails(Pageable pageable);
-
-    @Query(value = "SELECT DISTINCT b FROM Booking b JOIN FETCH b.user JOIN FETCH b.book WHERE b.returnedAt IS NOT NULL",
-            countQuery = "SELECT COUNT(b) FROM Booking b WHERE b.returnedAt IS NOT NULL")
-    Page<Booking> findReturnedWithDetails(Pageable pageable);
+    @Query("SELECT COUNT(b) FROM Booking b WHERE b.user.id = :userId AND b.returnedAt IS NULL")
+    long countActiveByUserId(@Param("userId") Long userId);
 
-    @Query(value = "SELECT DISTINCT b FROM Booking b JOIN FETCH b.user JOIN FETCH b.book WHERE b.fine > 0 OR (b.returnedAt IS NULL AND b.dueAt < :now)",
-            countQuery = "SELECT COUNT(b) FROM Booking b WHERE b.fine > 0 OR (b.returnedAt IS NULL AND b.dueAt < :now)")
-    Page<Booking> findWithActualOrPotentialFines(@Param("now") LocalDate now, Pageable pageable);
+    @Query("SELECT COUNT(b) FROM Booking b WHERE b.user.id = :userId AND b.fine > 0 AND b.finePaid = false")
+    long countUnpaidFinesByUserId(@Param("userId") Long userId);
 
-    @Query(value = "SELECT DISTINCT b FROM Booking b JOIN FETCH b.user JOIN FETCH b.book WHERE (b.fine > 0 AND b.finePaid = false) OR (b.returnedAt IS NULL AND b.dueAt < :now)",
-            countQuery = "SELECT COUNT(b) FROM Booking b WHERE (b.fine > 0 AND b.finePaid = false) OR (b.returnedAt IS NULL AND b.dueAt < :now)")
-    Page<Booking> findWithUnpaidActualOrPotentialFines(@Param("now") LocalDate now, Pageable pageable);
-
-    @Query(value = "SELECT DISTINCT b FROM Booking b JOIN FETCH b.user JOIN FETCH b.book WHERE b.returnedAt IS NULL AND b.dueAt < :date",
-            countQuery = "SELECT COUNT(b) FROM Booking b WHERE b.returnedAt IS NULL AND b.dueAt < :date")
-    Page<Booking> findOverdueWithDetails(@Param("date") LocalDate date, Pageable pageable);
+    // --- Reports with pagination and eager fetching ---
 
-    @Query(value = "SELECT DISTINCT b FROM Booking b JOIN FETCH b.user JOIN FETCH b.book WHERE b.returnedAt IS NULL AND b.dueAt BETWEEN :now AND :futureDate",
-            countQuery = "SELECT COUNT(b) FROM Booking b WHERE b.returnedAt IS NULL AND b.dueAt BETWEEN :now AND :futureDate")
-    Page<Booking> findDueSoonWithDetails(@Param("now") LocalDate now, @Param("futureDate") LocalDate futureDate, Pageable pageable);
+    /**
+     * Appended to every report filter. Connector/J inlines the parameters client-side, so MySQL folds a null
+     * bound away before planning and a given bound turns into a plain range on the matching index (see V7
+     * migration and BookingRepositoryTest, which EXPLAINs the generated statements).
+     */
+    String DATE_RANGE = """
+             AND (:#{#range.borrowedFrom()} IS NULL OR b.borrowedAt >= :#{#range.borrowedFrom()})
+             AND (:#{#range.borrowedTo()} IS NULL OR b.borrowedAt <= :#{#range.borrowedTo()})
+             AND (:#{#range.dueFrom()} IS NULL OR b.dueAt >= :#{#range.dueFrom()})
+             AND (:#{#range.dueTo()} IS NULL OR b.dueAt <= :#{#range.dueTo()})
+             AND (:#{#range.returnedFrom()} IS NULL OR b.returnedAt >= :#{#range.returnedFrom()})
+             AND (:#{#range.returnedTo()} IS NULL OR b.returnedAt <= :#{#range.returnedTo()})
+            """;
+
+    @Query(value = "SELECT DISTINCT b FROM Booking b JOIN FETCH b.user JOIN FETCH b.book WHERE 1 = 1" + DATE_RANGE,
+            countQuery = "SELECT COUNT(b) FROM Booking b WHERE 1 = 1" + DATE_RANGE)
+    Page<Booking> findAllWithDetails(@Param("range") BookingDateRange range, Pageable pageable);
+
+    @Query(value = "SELECT DISTINCT b FROM Booking b JOIN FETCH b.user JOIN FETCH b.book WHERE b.returnedAt IS NULL" + DATE_RANGE,
+            countQuery = "SELECT COUNT(b) FROM Booking b WHERE b.returnedAt IS NULL" + DATE_RANGE)
+    Page<Booking> findActiveWithDetails(@Param("range") BookingDateRange range, Pageable pageable);
+
+    @Query(value = "SELECT DISTINCT b FROM Booking b JOIN FETCH b.user JOIN FETCH b.book WHERE b.returnedAt IS NOT NULL" + DATE_RANGE,
+            countQuery = "SELECT COUNT(b) FROM Booking b WHERE b.returnedAt IS NOT NULL" + DATE_RANGE)
+    Page<Booking> findReturnedWithDetails(@Param("range") BookingDateRange range, Pageable pageable);
+
+    @Query(value = "SELECT DISTINCT b FROM Booking b JOIN FETCH b.user JOIN FETCH b.book WHERE (b.fine > 0 OR (b.returnedAt IS NULL AND b.dueAt < :now))" + DATE_RANGE,
+            countQuery = "SELECT COUNT(b) FROM Booking b WHERE (b.fine > 0 OR (b.returnedAt IS NULL AND b.dueAt < :now))" + DATE_RANGE)
+    Page<Booking> findWithActualOrPotentialFines(@Param("now") LocalDate now, @Param("range") BookingDateRange range, Pageable pageable);
+
+    @Query(value = "SELECT DISTINCT b FROM Booking b JOIN FETCH b.user JOIN FETCH b.book WHERE ((b.fine > 0 AND b.finePaid = false) OR (b.returnedAt IS NULL AND b.dueAt < :now))" + DATE_RANGE,
+            countQuery = "SELECT COUNT(b) FROM Booking b WHERE ((b.fine > 0 AND b.finePaid = false) OR (b.returnedAt IS NULL AND b.dueAt < :now))" + DATE_RANGE)
+    Page<Booking> findWithUnpaidActualOrPotentialFines(@Param("now") LocalDate now, @Param("range") BookingDateRange range, Pageable pageable);
+
+    @Query(value = "SELECT DISTINCT b FROM Booking b JOIN FETCH b.user JOIN FETCH b.book WHERE b.returnedAt IS NULL AND b.dueAt < :date" + DATE_RANGE,
+            countQuery = "SELECT COUNT(b) FROM Booking b WHERE b.returnedAt IS NULL AND b.dueAt < :date" + DATE_RANGE)
+    Page<Booking> findOverdueWithDetails(@Param("date") LocalDate date, @Param("range") BookingDateRange range, Pageable pageable);
+
+    @Query(value = "SELECT DISTINCT b FROM Booking b JOIN FETCH b.user JOIN FETCH b.book WHERE b.returnedAt IS NULL AND b.dueAt BETWEEN :now AND :futureDate" + DATE_RANGE,
+            countQuery = "SELECT COUNT(b) FROM Booking b WHERE b.returnedAt IS NULL AND b.dueAt BETWEEN :now AND :futureDate" + DATE_RANGE)
+    Page<Booking> findDueSoonWithDetails(@Param("now") LocalDate now, @Param("futureDate") LocalDate futureDate,
+                                         @Param("range") BookingDateRange range, Pageable pageable);
 
     @Query(value = "SELECT DISTINCT b FROM Booking b JOIN FETCH b.user u JOIN FETCH b.book WHERE b.returnedAt IS NULL AND " +
-            "(SELECT COUNT(b2) FROM Booking b2 WHERE b2.returnedAt IS NULL AND b2.user = u) >= :count",
+            "(SELECT COUNT(b2) FROM Booking b2 WHERE b2.returnedAt IS NULL AND b2.user = u) >= :count" + DATE_RANGE,
             countQuery = "SELECT COUNT(b) FROM Booking b WHERE b.returnedAt IS NULL AND " +
-                    "(SELECT COUNT(b2) FROM Booking b2 WHERE b2.returnedAt IS NULL AND b2.user = b.user) >= :count")
-    Page<Booking> findBookingsForHeavyUsers(@Param("count") Long count, Pageable pageable);
+                    "(SELECT COUNT(b2) FROM Booking b2 WHERE b2.returnedAt IS NULL AND b2.user = b.user) >= :count" + DATE_RANGE)
+    Page<Booking> findBookingsForHeavyUsers(@Param("count") Long count, @Param("range") BookingDateRange range, Pageable pageable);
 
     long countByBookId(Long bookId);
+
+    // --- Popularity tracker rebuild ---
+
+    @Query("SELECT new org.mystudying.bookmanagementauth.dto.DailyRentCountDto(b.borrowedAt, b.book.id, COUNT(b)) " +
+            "FROM Booking b WHERE b.borrowedAt >= :since GROUP BY b.borrowedAt, b.book.id")
+    List<DailyRentCountDto> countDailyRentsPerBook(@Param("since") LocalDate since);
+
+    @Query("SELECT new org.mystudying.bookmanagementauth.dto.DailyRentCountDto(b.borrowedAt, g.id, COUNT(b)) " +
+            "FROM Booking b JOIN b.book bk JOIN bk.genres g WHERE b.borrowedAt >= :since GROUP BY b.borrowedAt, g.id")
+    List<DailyRentCountDto> countDailyRentsPerGenre(@Param("since") LocalDate since);
+
+    @Query("SELECT DISTINCT new org.mystudying.bookmanagementauth.dto.BookGenreDto(bk.id, g.id) " +
+            "FROM Booking b JOIN b.book bk JOIN bk.genres g WHERE b.borrowedAt >= :since")
+    List<BookGenreDto> findGenresOfBooksRentedSince(@Param("since") LocalDate since);
+
+    @Query("SELECT b.id FROM Booking b WHERE b.id IN :ids")
+    List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
+
+    // --- Dashboard summary ---
+
+    /**
+     * Headline numbers for every report type in one pass over {@code bookings}.
+     * Fine amounts follow the same rules as the report rows: active overdue bookings
+     * contribute their potential fine ($1 per day), everything else its stored fine.
+     * Heavy users need a GROUP BY, so they are counted in a scalar subquery over active rows only.
+     */
+    @Query(value = """
+            SELECT
+                COUNT(*) AS total,
+                COALESCE(SUM(CASE WHEN b.returned_at IS NULL THEN 1 ELSE 0 END), 0) AS active,
+                COALESCE(SUM(CASE WHEN b.returned_at IS NOT NULL THEN 1 ELSE 0 END), 0) AS returned,
+                COALESCE(SUM(CASE WHEN b.returned_at IS NULL AND b.due_at < :now THEN 1 ELSE 0 END), 0) AS overdue,
+                COALESCE(SUM(CASE WHEN b.returned_at IS NULL AND b.due_at BETWEEN :now AND :futureDate THEN 1 ELSE 0 END), 0) AS dueSoon,
+                COALESCE(SUM(CASE WHEN b.fine > 0 OR (b.returned_at IS NULL AND b.due_at < :now) THEN 1 ELSE 0 END), 0) AS withFines,
+                COALESCE(SUM(CASE WHEN (b.fine > 0 AND b.fine_paid = FALSE) OR (b.returned_at IS NULL AND b.due_at < :now) THEN 1 ELSE 0 END), 0) AS withUnpaidFines,
+                COALESCE(SUM(CASE WHEN b.returned_at IS NULL AND b.due_at < :now THEN DATEDIFF(:now, b.due_at)
+                                  ELSE COALESCE(b.fine, 0) END), 0) AS totalFines,
+                COALESCE(SUM(CASE WHEN b.returned_at IS NULL AND b.due_at < :now THEN DATEDIFF(:now, b.due_at)
+                                  WHEN b.fine_paid = FALSE THEN COALESCE(b.fine, 0)
+                                  ELSE 0 END), 0) AS unpaidFines,
+                (SELECT COUNT(*) FROM (
+                    SELECT h.user_id FROM bookings h
+                    WHERE h.returned_at IS NULL
+                    GROUP BY h.user_id
+                    HAVING COUNT(*) >= :minActiveBooks
+                ) heavy) AS heavyUsers
+            FROM bookings b
+            """, nativeQuery = true)
+    SummaryRow summarize(@Param("now") LocalDate now,
+                         @Param("futureDate") LocalDate futureDate,
+                         @Param("minActiveBooks") long minActiveBooks);
+
+    interface SummaryRow {
+        Long getTotal();
+
+        Long getActive();
+
+        Long getReturned();
+
+        Long getOverdue();
+
+        Long getDueSoon();
+
+        Long getWithFines();
+
+        Long getWithUnpaidFines();
+
+        BigDecimal getTotalFines();
+
+        BigDecimal getUnpaidFines();
+
+        Long getHeavyUsers();
+    }
 }
 
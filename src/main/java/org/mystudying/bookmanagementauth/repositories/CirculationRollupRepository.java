@@ -0,0 +1,200 @@
+package org.mystudying.bookmanagementauth.repositories;
+
+import org.mystudying.bookmanagementauth.dto.CirculationDimension;
+import org.mystudying.bookmanagementauth.dto.CirculationPointDto;
+import org.springframework.jdbc.core.simple.JdbcClient;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Daily circulation rollup tables (see V6 migration).
+ * Writes aggregate whole days from {@code bookings}; {@link #findTimeseries} reads only the rollups,
+ * {@link #computeTimeseries} aggregates {@code bookings} directly for days not rolled up yet.
+ */
+@Repository
+public class CirculationRollupRepository {
+
+    private static final String WATERMARK = "circulation_daily";
+
+    // One row per circulation event that happened on a day in [:from, :to]
+    private static final String EVENTS = """
+            SELECT b.borrowed_at AS day, b.book_id, 1 AS borrowed, 0 AS returned, 0 AS overdue, 0 AS fines
+            FROM bookings b
+            WHERE b.borrowed_at BETWEEN :from AND :to
+            UNION ALL
+            SELECT b.returned_at, b.book_id, 0, 1, 0, COALESCE(b.fine, 0)
+            FROM bookings b
+            WHERE b.returned_at BETWEEN :from AND :to
+            UNION ALL
+            SELECT DATE_ADD(b.due_at, INTERVAL 1 DAY), b.book_id, 0, 0, 1, 0
+            FROM bookings b
+            WHERE b.due_at BETWEEN DATE_SUB(:from, INTERVAL 1 DAY) AND DATE_SUB(:to, INTERVAL 1 DAY)
+              AND (b.returned_at IS NULL OR b.returned_at > b.due_at)
+            """;
+
+    private final JdbcClient jdbcClient;
+
+    public CirculationRollupRepository(JdbcClient jdbcClient) {
+        this.jdbcClient = jdbcClient;
+    }
+
+    /**
+     * Reads the last rolled-up day and locks the watermark row until the surrounding transaction ends,
+     * so concurrent nodes never roll up the same days at once.
+     */
+    public Optional<LocalDate> lockWatermark() {
+        return jdbcClient.sql("SELECT last_day FROM rollup_state WHERE name = :name FOR UPDATE")
+                .param("name", WATERMARK)
+                .query(LocalDate.class)
+                .optional();
+    }
+
+    public Optional<LocalDate> findWatermark() {
+        return jdbcClient.sql("SELECT last_day FROM rollup_state WHERE name = :name")
+                .param("name", WATERMARK)
+                .query(LocalDate.class)
+                .optional();
+    }
+
+    public void updateWatermark(LocalDate lastDay) {
+        jdbcClient.sql("UPDATE rollup_state SET last_day = :lastDay WHERE name = :name")
+                .param("lastDay", lastDay)
+                .param("name", WATERMARK)
+                .update();
+    }
+
+    public Optional<LocalDate> findFirstBookingDay() {
+        return jdbcClient.sql("SELECT MIN(borrowed_at) FROM bookings")
+                .query(LocalDate.class)
+                .optional();
+    }
+
+    /**
+     * (Re)builds all rollup rows for days in [from, to].
+     */
+    public void rollUp(LocalDate from, LocalDate to) {
+        for (String table : List.of("circulation_daily", "circulation_daily_genre", "circulation_daily_author")) {
+            jdbcClient.sql("DELETE FROM " + table + " WHERE day BETWEEN :from AND :to")
+                    .param("from", from)
+                    .param("to", to)
+                    .update();
+        }
+
+        jdbcClient.sql("""
+                        INSERT INTO circulation_daily (day, borrowed, returned, overdue, fines)
+                        SELECT e.day, SUM(e.borrowed), SUM(e.returned), SUM(e.overdue), SUM(e.fines)
+                        FROM (%s) e
+                        GROUP BY e.day
+                        """.formatted(EVENTS))
+                .param("from", from)
+                .param("to", to)
+                .update();
+
+        jdbcClient.sql("""
+                        INSERT INTO circulation_daily_genre (genre_id, day, borrowed, returned, overdue, fines)
+                        SELECT bg.genre_id, e.day, SUM(e.borrowed), SUM(e.returned), SUM(e.overdue), SUM(e.fines)
+                        FROM (%s) e
+                        JOIN book_genres bg ON bg.book_id = e.book_id
+                        GROUP BY bg.genre_id, e.day
+                        """.formatted(EVENTS))
+                .param("from", from)
+                .param("to", to)
+                .update();
+
+        jdbcClient.sql("""
+                        INSERT INTO circulation_daily_author (author_id, day, borrowed, returned, overdue, fines)
+                        SELECT bk.author_id, e.day, SUM(e.borrowed), SUM(e.returned), SUM(e.overdue), SUM(e.fines)
+                        FROM (%s) e
+                        JOIN books bk ON bk.id = e.book_id
+                        GROUP BY bk.author_id, e.day
+                        """.formatted(EVENTS))
+                .param("from", from)
+                .param("to", to)
+                .update();
+    }
+
+    public List<CirculationPointDto> findTimeseries(CirculationDimension dimension, Long groupId, LocalDate from, LocalDate to) {
+        String sql = switch (dimension) {
+            case TOTAL -> """
+                    SELECT r.day, NULL AS group_id, NULL AS group_name, r.borrowed, r.returned, r.overdue, r.fines
+                    FROM circulation_daily r
+                    WHERE r.day BETWEEN :from AND :to
+                    ORDER BY r.day
+                    """;
+            case GENRE -> """
+                    SELECT r.day, r.genre_id AS group_id, g.name AS group_name, r.borrowed, r.returned, r.overdue, r.fines
+                    FROM circulation_daily_genre r
+                    JOIN genres g ON g.id = r.genre_id
+                    WHERE r.day BETWEEN :from AND :to %s
+                    ORDER BY r.day, g.name
+                    """.formatted(groupId != null ? "AND r.genre_id = :groupId" : "");
+            case AUTHOR -> """
+                    SELECT r.day, r.author_id AS group_id, a.name AS group_name, r.borrowed, r.returned, r.overdue, r.fines
+                    FROM circulation_daily_author r
+                    JOIN authors a ON a.id = r.author_id
+                    WHERE r.day BETWEEN :from AND :to %s
+                    ORDER BY r.day, a.name
+                    """.formatted(groupId != null ? "AND r.author_id = :groupId" : "");
+        };
+
+        return query(sql, groupId, from, to);
+    }
+
+    /**
+     * Same rows as {@link #findTimeseries}, aggregated from {@code bookings} instead of the rollups.
+     * Meant for the few days after the watermark.
+     */
+    public List<CirculationPointDto> computeTimeseries(CirculationDimension dimension, Long groupId, LocalDate from, LocalDate to) {
+        String sql = switch (dimension) {
+            case TOTAL -> """
+                    SELECT e.day, NULL AS group_id, NULL AS group_name,
+                           SUM(e.borrowed) AS borrowed, SUM(e.returned) AS returned, SUM(e.overdue) AS overdue, SUM(e.fines) AS fines
+                    FROM (%s) e
+                    GROUP BY e.day
+                    ORDER BY e.day
+                    """.formatted(EVENTS);
+            case GENRE -> """
+                    SELECT e.day, g.id AS group_id, g.name AS group_name,
+                           SUM(e.borrowed) AS borrowed, SUM(e.returned) AS returned, SUM(e.overdue) AS overdue, SUM(e.fines) AS fines
+                    FROM (%s) e
+                    JOIN book_genres bg ON bg.book_id = e.book_id
+                    JOIN genres g ON g.id = bg.genre_id
+                    %s
+                    GROUP BY e.day, g.id, g.name
+                    ORDER BY e.day, g.name
+                    """.formatted(EVENTS, groupId != null ? "WHERE g.id = :groupId" : "");
+            case AUTHOR -> """
+                    SELECT e.day, a.id AS group_id, a.name AS group_name,
+                           SUM(e.borrowed) AS borrowed, SUM(e.returned) AS returned, SUM(e.overdue) AS overdue, SUM(e.fines) AS fines
+                    FROM (%s) e
+                    JOIN books bk ON bk.id = e.book_id
+                    JOIN authors a ON a.id = bk.author_id
+                    %s
+                    GROUP BY e.day, a.id, a.name
+                    ORDER BY e.day, a.name
+                    """.formatted(EVENTS, groupId != null ? "WHERE a.id = :groupId" : "");
+        };
+
+        return query(sql, groupId, from, to);
+    }
+
+    private List<CirculationPointDto> query(String sql, Long groupId, LocalDate from, LocalDate to) {
+        return jdbcClient.sql(sql)
+                .param("from", from)
+                .param("to", to)
+                .param("groupId", groupId)
+                .query((rs, rowNum) -> new CirculationPointDto(
+                        rs.getObject("day", LocalDate.class),
+                        rs.getObject("group_id", Long.class),
+                        rs.getString("group_name"),
+                        rs.getLong("borrowed"),
+                        rs.getLong("returned"),
+                        rs.getLong("overdue"),
+                        rs.getBigDecimal("fines")
+                ))
+                .list();
+    }
+}
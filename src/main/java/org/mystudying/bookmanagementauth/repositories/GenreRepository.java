@@ -1,8 +1,11 @@
 package org.mystudying.bookmanagementauth.repositories;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.mystudying.bookmanagementauth.domain.Genre;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
@@ -11,11 +14,16 @@ import java.util.Optional;
 
 @Repository
 public interface GenreRepository extends JpaRepository<Genre, Long> {
+    @QueryHints({@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = "reference-lookups")})
     Optional<Genre> findByNameIgnoreCase(String name);
 
     @Query("SELECT g.name FROM Genre g JOIN g.books b WHERE b.id = :bookId")
     List<String> findNamesByBookId(@Param("bookId") long bookId);
 
+    @Query("SELECT g.id FROM Genre g JOIN g.books b WHERE b.id = :bookId")
+    List<Long> findIdsByBookId(@Param("bookId") long bookId);
+
     @Query("SELECT DISTINCT g FROM Genre g LEFT JOIN FETCH g.books b ORDER BY g.name")
     List<Genre> findAllWithBooks();
 
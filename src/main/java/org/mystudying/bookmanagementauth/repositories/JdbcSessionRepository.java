@@ -0,0 +1,381 @@
+package org.mystudying.bookmanagementauth.repositories;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.core.ConfigurableObjectInputStream;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.simple.JdbcClient;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.session.MapSession;
+import org.springframework.session.Session;
+import org.springframework.session.SessionRepository;
+import org.springframework.util.ClassUtils;
+
+import java.io.*;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * HTTP sessions in the {@code app_sessions} table (see V10 migration), shared by all nodes.
+ * <ul>
+ *     <li>Reads are served from a near-cache without touching the database for {@code nearCacheTtl} after this
+ *     node last read or wrote the session; touch-only requests do not extend that window. Inside it, changes made
+ *     on other nodes are not seen: after a logout or a session id change (login) elsewhere, the old id stays
+ *     usable on a node that cached it for up to {@code nearCacheTtl}. A zero TTL turns the near-cache off.</li>
+ *     <li>Attribute changes (login, logout) are written through immediately and bump the version. A session id
+ *     change inserts the session under the new id and deletes the old row.</li>
+ *     <li>A request that only touches the session queues its last-access time; {@link #flushLastAccess()}
+ *     writes the queue in one batch.</li>
+ * </ul>
+ */
+public class JdbcSessionRepository implements SessionRepository<JdbcSessionRepository.JdbcSession>, DisposableBean {
+
+    private final JdbcClient jdbcClient;
+    private final JdbcTemplate jdbcTemplate;
+    private final Duration defaultMaxInactiveInterval;
+    private final Duration nearCacheTtl;
+
+    private final Map<String, CachedSession> nearCache = new ConcurrentHashMap<>();
+    private final Map<String, Instant> pendingLastAccess = new ConcurrentHashMap<>();
+
+    public JdbcSessionRepository(JdbcClient jdbcClient, JdbcTemplate jdbcTemplate, Duration defaultMaxInactiveInterval,
+                                 Duration nearCacheTtl) {
+        this.jdbcClient = jdbcClient;
+        this.jdbcTemplate = jdbcTemplate;
+        this.defaultMaxInactiveInterval = defaultMaxInactiveInterval;
+        this.nearCacheTtl = nearCacheTtl;
+    }
+
+    @Override
+    public JdbcSession createSession() {
+        MapSession session = new MapSession();
+        session.setMaxInactiveInterval(defaultMaxInactiveInterval);
+        return new JdbcSession(session, true);
+    }
+
+    @Override
+    public void save(JdbcSession session) {
+        String id = session.getId();
+        boolean cacheable = true;
+        boolean written = session.isNew || !id.equals(session.originalId) || session.changed;
+        if (session.isNew) {
+            insert(session, 0);
+            session.version = 0;
+        } else if (!id.equals(session.originalId)) {
+            // a new row instead of a new key, so a node near-caching the old id finds it gone once its entry expires
+            int deleted = jdbcClient.sql("DELETE FROM app_sessions WHERE id = :originalId")
+                    .param("originalId", session.originalId)
+                    .update();
+            forget(session.originalId);
+            if (deleted == 0) {
+                // logged out or expired on another node meanwhile: not brought back under a new id
+                return;
+            }
+            insert(session, session.version + 1);
+            session.version++;
+        } else if (session.changed) {
+            if (updateAttributes(session, true) == 1) {
+                session.version++;
+            } else if (updateAttributes(session, false) == 1) {
+                // another node wrote in between; the last write wins, but its version is not known here
+                cacheable = false;
+            } else {
+                forget(id);
+                return;
+            }
+            pendingLastAccess.remove(id);
+        } else if (session.lastAccessChanged) {
+            pendingLastAccess.merge(id, session.getLastAccessedTime(), JdbcSessionRepository::later);
+        }
+
+        session.isNew = false;
+        session.changed = false;
+        session.lastAccessChanged = false;
+        session.originalId = id;
+        if (!cacheable) {
+            nearCache.remove(id);
+        } else if (written) {
+            cache(new MapSession(session.delegate), session.version);
+        } else {
+            // only touched: the entry keeps its expiry, so changes from other nodes still show within nearCacheTtl
+            nearCache.computeIfPresent(id, (key, cached) ->
+                    new CachedSession(new MapSession(session.delegate), cached.version(), cached.expiresAt()));
+        }
+    }
+
+    @Override
+    public JdbcSession findById(String id) {
+        MapSession session = null;
+        long version = 0;
+        CachedSession cached = nearCache.get(id);
+        if (cached != null && cached.expiresAt().isAfter(Instant.now())) {
+            session = new MapSession(cached.session());
+            version = cached.version();
+        }
+
+        // an expired-looking cached copy may just have missed last-access updates from other nodes
+        if (session == null || session.isExpired()) {
+            StoredSession loaded = load(id);
+            if (loaded == null) {
+                forget(id);
+                return null;
+            }
+            session = loaded.session();
+            version = loaded.version();
+            cache(new MapSession(session), version);
+        }
+
+        if (session.isExpired()) {
+            deleteById(id);
+            return null;
+        }
+        return new JdbcSession(session, false, version);
+    }
+
+    @Override
+    public void deleteById(String id) {
+        jdbcClient.sql("DELETE FROM app_sessions WHERE id = :id")
+                .param("id", id)
+                .update();
+        forget(id);
+    }
+
+    /**
+     * Writes queued last-access times; never moves a row's last access backwards.
+     */
+    @Scheduled(fixedDelayString = "${app.sessions.last-access-flush:PT10S}")
+    public void flushLastAccess() {
+        List<Object[]> rows = new ArrayList<>();
+        for (String id : List.copyOf(pendingLastAccess.keySet())) {
+            Instant lastAccessed = pendingLastAccess.remove(id);
+            if (lastAccessed != null) {
+                long millis = lastAccessed.toEpochMilli();
+                rows.add(new Object[]{millis, millis, id, millis});
+            }
+        }
+        if (rows.isEmpty()) {
+            return;
+        }
+        // expiry first: MySQL assigns left to right, so it still sees the old last access
+        jdbcTemplate.batchUpdate("""
+                UPDATE app_sessions
+                SET expiry_time = ? + (expiry_time - last_accessed_time), last_accessed_time = ?
+                WHERE id = ? AND last_accessed_time < ?
+                """, rows);
+    }
+
+    @Scheduled(fixedDelayString = "${app.sessions.cleanup-interval:PT5M}")
+    public void deleteExpired() {
+        long now = Instant.now().toEpochMilli();
+        jdbcClient.sql("DELETE FROM app_sessions WHERE expiry_time < :now")
+                .param("now", now)
+                .update();
+        nearCache.values().removeIf(entry -> entry.expiresAt().isBefore(Instant.now()));
+    }
+
+    @Override
+    public void destroy() {
+        flushLastAccess();
+    }
+
+    private void insert(JdbcSession session, long version) {
+        jdbcClient.sql("""
+                        INSERT INTO app_sessions (id, creation_time, last_accessed_time, max_inactive_seconds, expiry_time,
+                                                  attributes, version)
+                        VALUES (:id, :created, :lastAccessed, :maxInactive, :expiry, :attributes, :version)
+                        """)
+                .param("id", session.getId())
+                .param("created", session.getCreationTime().toEpochMilli())
+                .param("lastAccessed", session.getLastAccessedTime().toEpochMilli())
+                .param("maxInactive", (int) session.getMaxInactiveInterval().toSeconds())
+                .param("expiry", expiryOf(session).toEpochMilli())
+                .param("attributes", serialize(session))
+                .param("version", version)
+                .update();
+    }
+
+    /**
+     * Writes the attributes, with {@code expectVersion} only if nobody else wrote since the session was read.
+     * Returns the number of rows written; 0 without {@code expectVersion} means the session is gone.
+     */
+    private int updateAttributes(JdbcSession session, boolean expectVersion) {
+        return jdbcClient.sql("""
+                        UPDATE app_sessions
+                        SET last_accessed_time = :lastAccessed, max_inactive_seconds = :maxInactive,
+                            expiry_time = :expiry, attributes = :attributes, version = version + 1
+                        WHERE id = :id
+                        """ + (expectVersion ? " AND version = :version" : ""))
+                .param("lastAccessed", session.getLastAccessedTime().toEpochMilli())
+                .param("maxInactive", (int) session.getMaxInactiveInterval().toSeconds())
+                .param("expiry", expiryOf(session).toEpochMilli())
+                .param("attributes", serialize(session))
+                .param("id", session.getId())
+                .param("version", session.version)
+                .update();
+    }
+
+    private void cache(MapSession session, long version) {
+        if (!nearCacheTtl.isZero()) {
+            nearCache.put(session.getId(), new CachedSession(session, version, Instant.now().plus(nearCacheTtl)));
+        }
+    }
+
+    private void forget(String id) {
+        nearCache.remove(id);
+        pendingLastAccess.remove(id);
+    }
+
+    private StoredSession load(String id) {
+        StoredSession loaded = jdbcClient.sql("""
+                        SELECT id, creation_time, last_accessed_time, max_inactive_seconds, attributes, version
+                        FROM app_sessions WHERE id = :id
+                        """)
+                .param("id", id)
+                .query((rs, rowNum) -> {
+                    MapSession session = new MapSession(rs.getString("id"));
+                    session.setCreationTime(Instant.ofEpochMilli(rs.getLong("creation_time")));
+                    session.setLastAccessedTime(Instant.ofEpochMilli(rs.getLong("last_accessed_time")));
+                    session.setMaxInactiveInterval(Duration.ofSeconds(rs.getInt("max_inactive_seconds")));
+                    deserialize(rs.getBytes("attributes")).forEach(session::setAttribute);
+                    return new StoredSession(session, rs.getLong("version"));
+                })
+                .optional()
+                .orElse(null);
+
+        Instant pending = loaded == null ? null : pendingLastAccess.get(id);
+        if (pending != null && pending.isAfter(loaded.session().getLastAccessedTime())) {
+            loaded.session().setLastAccessedTime(pending);
+        }
+        return loaded;
+    }
+
+    private static Instant later(Instant a, Instant b) {
+        return a.isAfter(b) ? a : b;
+    }
+
+    private static Instant expiryOf(Session session) {
+        return session.getLastAccessedTime().plus(session.getMaxInactiveInterval());
+    }
+
+    private static byte[] serialize(Session session) {
+        HashMap<String, Object> attributes = new HashMap<>();
+        for (String name : session.getAttributeNames()) {
+            attributes.put(name, session.getAttribute(name));
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(512);
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(attributes);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not serialize session attributes", e);
+        }
+        return bytes.toByteArray();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> deserialize(byte[] bytes) {
+        try (ObjectInputStream in = new ConfigurableObjectInputStream(new ByteArrayInputStream(bytes), ClassUtils.getDefaultClassLoader())) {
+            return (Map<String, Object>) in.readObject();
+        } catch (IOException | ClassNotFoundException e) {
+            throw new IllegalStateException("Could not deserialize session attributes", e);
+        }
+    }
+
+    private record StoredSession(MapSession session, long version) {
+    }
+
+    private record CachedSession(MapSession session, long version, Instant expiresAt) {
+    }
+
+    /**
+     * Session handed out to the request; remembers what has to be written back on {@link #save}.
+     */
+    public static final class JdbcSession implements Session {
+
+        private final MapSession delegate;
+        private boolean isNew;
+        private boolean changed;
+        private boolean lastAccessChanged;
+        private String originalId;
+        private long version;
+
+        private JdbcSession(MapSession delegate, boolean isNew) {
+            this(delegate, isNew, 0);
+        }
+
+        private JdbcSession(MapSession delegate, boolean isNew, long version) {
+            this.delegate = delegate;
+            this.isNew = isNew;
+            this.originalId = delegate.getId();
+            this.version = version;
+        }
+
+        @Override
+        public String getId() {
+            return delegate.getId();
+        }
+
+        @Override
+        public String changeSessionId() {
+            return delegate.changeSessionId();
+        }
+
+        @Override
+        public <T> T getAttribute(String attributeName) {
+            return delegate.getAttribute(attributeName);
+        }
+
+        @Override
+        public Set<String> getAttributeNames() {
+            return delegate.getAttributeNames();
+        }
+
+        @Override
+        public void setAttribute(String attributeName, Object attributeValue) {
+            delegate.setAttribute(attributeName, attributeValue);
+            changed = true;
+        }
+
+        @Override
+        public void removeAttribute(String attributeName) {
+            delegate.removeAttribute(attributeName);
+            changed = true;
+        }
+
+        @Override
+        public Instant getCreationTime() {
+            return delegate.getCreationTime();
+        }
+
+        @Override
+        public void setLastAccessedTime(Instant lastAccessedTime) {
+            delegate.setLastAccessedTime(lastAccessedTime);
+            lastAccessChanged = true;
+        }
+
+        @Override
+        public Instant getLastAccessedTime() {
+            return delegate.getLastAccessedTime();
+        }
+
+        @Override
+        public void setMaxInactiveInterval(Duration interval) {
+            delegate.setMaxInactiveInterval(interval);
+            changed = true;
+        }
+
+        @Override
+        public Duration getMaxInactiveInterval() {
+            return delegate.getMaxInactiveInterval();
+        }
+
+        @Override
+        public boolean isExpired() {
+            return delegate.isExpired();
+        }
+    }
+}
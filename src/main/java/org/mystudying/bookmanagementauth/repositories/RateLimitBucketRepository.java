@@ -0,0 +1,63 @@
+package org.mystudying.bookmanagementauth.repositories;
+
+import org.springframework.jdbc.core.simple.JdbcClient;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+/**
+ * Shared token buckets (see V9 migration). Callers hold the row lock from {@link #lock} until their transaction ends.
+ */
+@Repository
+public class RateLimitBucketRepository {
+
+    private final JdbcClient jdbcClient;
+
+    public RateLimitBucketRepository(JdbcClient jdbcClient) {
+        this.jdbcClient = jdbcClient;
+    }
+
+    public record BucketRow(double tokens, long updatedAt) {
+    }
+
+    /**
+     * Locks the bucket, creating it full if it does not exist yet.
+     */
+    public BucketRow lock(String key, int capacity, long now) {
+        Optional<BucketRow> row = selectForUpdate(key);
+        if (row.isPresent()) {
+            return row.get();
+        }
+        // another node may insert the same key concurrently; the no-op update makes that harmless
+        jdbcClient.sql("""
+                        INSERT INTO rate_limit_buckets (bucket_key, tokens, updated_at) VALUES (:key, :tokens, :now)
+                        ON DUPLICATE KEY UPDATE bucket_key = bucket_key
+                        """)
+                .param("key", key)
+                .param("tokens", capacity)
+                .param("now", now)
+                .update();
+        return selectForUpdate(key).orElseThrow();
+    }
+
+    public void update(String key, double tokens, long now) {
+        jdbcClient.sql("UPDATE rate_limit_buckets SET tokens = :tokens, updated_at = :now WHERE bucket_key = :key")
+                .param("tokens", tokens)
+                .param("now", now)
+                .param("key", key)
+                .update();
+    }
+
+    public int deleteIdleSince(long cutoff) {
+        return jdbcClient.sql("DELETE FROM rate_limit_buckets WHERE updated_at < :cutoff")
+                .param("cutoff", cutoff)
+                .update();
+    }
+
+    private Optional<BucketRow> selectForUpdate(String key) {
+        return jdbcClient.sql("SELECT tokens, updated_at FROM rate_limit_buckets WHERE bucket_key = :key FOR UPDATE")
+                .param("key", key)
+                .query((rs, rowNum) -> new BucketRow(rs.getDouble("tokens"), rs.getLong("updated_at")))
+                .optional();
+    }
+}
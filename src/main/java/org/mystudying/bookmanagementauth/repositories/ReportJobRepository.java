@@ -0,0 +1,85 @@
+package org.mystudying.bookmanagementauth.repositories;
+
+import org.mystudying.bookmanagementauth.domain.ReportJob;
+import org.mystudying.bookmanagementauth.dto.ReportJobDto;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+// Status queries project into ReportJobDto so the result blob is never loaded by polling
+public interface ReportJobRepository extends JpaRepository<ReportJob, Long> {
+
+    String DTO_SELECT = "SELECT new org.mystudying.bookmanagementauth.dto.ReportJobDto(" +
+            "j.id, j.type, j.dueSoonDays, j.minActiveBooks, j.status, j.rowCount, j.error, j.createdAt, j.startedAt, j.finishedAt) " +
+            "FROM ReportJob j ";
+
+    @Query(DTO_SELECT + "WHERE j.id = :id")
+    Optional<ReportJobDto> findDtoById(@Param("id") long id);
+
+    // Unfinished jobs only count while they are younger than the stale timeout, see markStaleFailed
+    @Query(DTO_SELECT + """
+            WHERE j.specKey = :specKey AND j.createdAt > :since
+            AND (j.status = org.mystudying.bookmanagementauth.domain.ReportJobStatus.DONE
+                 OR (j.status IN (org.mystudying.bookmanagementauth.domain.ReportJobStatus.PENDING,
+                                  org.mystudying.bookmanagementauth.domain.ReportJobStatus.RUNNING)
+                     AND COALESCE(j.startedAt, j.createdAt) > :staleBefore))
+            ORDER BY j.id DESC
+            """)
+    List<ReportJobDto> findReusable(@Param("specKey") String specKey, @Param("since") LocalDateTime since,
+                                    @Param("staleBefore") LocalDateTime staleBefore, Pageable pageable);
+
+    @Query("SELECT j.result FROM ReportJob j WHERE j.id = :id")
+    Optional<byte[]> findResultById(@Param("id") long id);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE ReportJob j SET j.status = org.mystudying.bookmanagementauth.domain.ReportJobStatus.RUNNING, " +
+            "j.startedAt = :startedAt WHERE j.id = :id")
+    int markRunning(@Param("id") long id, @Param("startedAt") LocalDateTime startedAt);
+
+    @Modifying
+    @Transactional
+    @Query("""
+            UPDATE ReportJob j
+            SET j.status = org.mystudying.bookmanagementauth.domain.ReportJobStatus.DONE,
+                j.result = :result, j.rowCount = :rowCount, j.finishedAt = :finishedAt
+            WHERE j.id = :id
+            """)
+    int markDone(@Param("id") long id, @Param("result") byte[] result,
+                 @Param("rowCount") int rowCount, @Param("finishedAt") LocalDateTime finishedAt);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE ReportJob j SET j.status = org.mystudying.bookmanagementauth.domain.ReportJobStatus.FAILED, " +
+            "j.error = :error, j.finishedAt = :finishedAt WHERE j.id = :id")
+    int markFailed(@Param("id") long id, @Param("error") String error, @Param("finishedAt") LocalDateTime finishedAt);
+
+    /**
+     * Fails jobs that were left unfinished, e.g. by a restart that interrupted the worker.
+     * Timed from {@code startedAt}, or {@code createdAt} for jobs that never started.
+     */
+    @Modifying
+    @Transactional
+    @Query("""
+            UPDATE ReportJob j
+            SET j.status = org.mystudying.bookmanagementauth.domain.ReportJobStatus.FAILED,
+                j.error = :error, j.finishedAt = :finishedAt
+            WHERE j.status IN (org.mystudying.bookmanagementauth.domain.ReportJobStatus.PENDING,
+                               org.mystudying.bookmanagementauth.domain.ReportJobStatus.RUNNING)
+            AND COALESCE(j.startedAt, j.createdAt) < :staleBefore
+            """)
+    int markStaleFailed(@Param("staleBefore") LocalDateTime staleBefore, @Param("error") String error,
+                        @Param("finishedAt") LocalDateTime finishedAt);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM ReportJob j WHERE j.createdAt < :before")
+    int deleteCreatedBefore(@Param("before") LocalDateTime before);
+}
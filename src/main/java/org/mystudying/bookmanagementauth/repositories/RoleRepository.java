@@ -1,9 +1,29 @@
 package org.mystudying.bookmanagementauth.repositories;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.mystudying.bookmanagementauth.domain.Role;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface RoleRepository extends JpaRepository<Role, Long> {
+    @QueryHints({@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = "reference-lookups")})
     Optional<Role> findByName(String name);
+
+    // Straight from the join table, without loading users or roles
+    @Query(value = "SELECT user_id AS userId, role_id AS roleId FROM users_roles WHERE user_id IN (:userIds)", nativeQuery = true)
+    List<UserRoleRow> findUserRoles(@Param("userIds") Collection<Long> userIds);
+
+    interface UserRoleRow {
+        Long getUserId();
+
+        Long getRoleId();
+    }
 }
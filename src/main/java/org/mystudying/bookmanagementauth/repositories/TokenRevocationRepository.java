@@ -0,0 +1,47 @@
+package org.mystudying.bookmanagementauth.repositories;
+
+import org.springframework.jdbc.core.simple.JdbcClient;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Token revocation list (see V8 migration): one row per user with the instant before which
+ * that user's signed tokens are no longer accepted.
+ */
+@Repository
+public class TokenRevocationRepository {
+
+    private final JdbcClient jdbcClient;
+
+    public TokenRevocationRepository(JdbcClient jdbcClient) {
+        this.jdbcClient = jdbcClient;
+    }
+
+    public void revoke(long userId, Instant revokedBefore) {
+        jdbcClient.sql("""
+                        INSERT INTO token_revocations (user_id, revoked_before) VALUES (:userId, :revokedBefore)
+                        ON DUPLICATE KEY UPDATE revoked_before = GREATEST(revoked_before, VALUES(revoked_before))
+                        """)
+                .param("userId", userId)
+                .param("revokedBefore", Timestamp.from(revokedBefore))
+                .update();
+    }
+
+    public Map<Long, Instant> findRevokedSince(Instant since) {
+        return jdbcClient.sql("SELECT user_id, revoked_before FROM token_revocations WHERE revoked_before >= :since")
+                .param("since", Timestamp.from(since))
+                .query((rs, rowNum) -> Map.entry(rs.getLong("user_id"), rs.getTimestamp("revoked_before").toInstant()))
+                .stream()
+                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
+    }
+
+    public int deleteRevokedBefore(Instant cutoff) {
+        return jdbcClient.sql("DELETE FROM token_revocations WHERE revoked_before < :cutoff")
+                .param("cutoff", Timestamp.from(cutoff))
+                .update();
+    }
+}
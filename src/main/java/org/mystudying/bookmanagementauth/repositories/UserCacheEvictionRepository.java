@@ -0,0 +1,53 @@
+package org.mystudying.bookmanagementauth.repositories;
+
+import org.springframework.jdbc.core.simple.JdbcClient;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Cross-node user cache evictions (see V15 migration). All instants are database time, so the clocks of the
+ * nodes never have to agree.
+ */
+@Repository
+public class UserCacheEvictionRepository {
+
+    private final JdbcClient jdbcClient;
+
+    public UserCacheEvictionRepository(JdbcClient jdbcClient) {
+        this.jdbcClient = jdbcClient;
+    }
+
+    public void record(long userId, String cache) {
+        jdbcClient.sql("""
+                        INSERT INTO user_cache_evictions (user_id, cache, evicted_at)
+                        VALUES (:userId, :cache, CURRENT_TIMESTAMP(3))
+                        ON DUPLICATE KEY UPDATE evicted_at = VALUES(evicted_at)
+                        """)
+                .param("userId", userId)
+                .param("cache", cache)
+                .update();
+    }
+
+    public Instant now() {
+        return jdbcClient.sql("SELECT CURRENT_TIMESTAMP(3)").query(Timestamp.class).single().toInstant();
+    }
+
+    public List<Eviction> findEvictedSince(Instant since) {
+        return jdbcClient.sql("SELECT user_id, cache FROM user_cache_evictions WHERE evicted_at >= :since")
+                .param("since", Timestamp.from(since))
+                .query((rs, rowNum) -> new Eviction(rs.getLong("user_id"), rs.getString("cache")))
+                .list();
+    }
+
+    public int deleteEvictedBefore(Instant cutoff) {
+        return jdbcClient.sql("DELETE FROM user_cache_evictions WHERE evicted_at < :cutoff")
+                .param("cutoff", Timestamp.from(cutoff))
+                .update();
+    }
+
+    public record Eviction(long userId, String cache) {
+    }
+}
@@ -0,0 +1,430 @@
+package org.mystudying.bookmanagementauth.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.mystudying.bookmanagementauth.dto.BookImportErrorDto;
+import org.mystudying.bookmanagementauth.dto.BookImportFormat;
+import org.mystudying.bookmanagementauth.dto.BookImportResultDto;
+import org.mystudying.bookmanagementauth.dto.BookImportRowDto;
+import org.mystudying.bookmanagementauth.exceptions.InvalidImportFileException;
+import org.hibernate.SessionFactory;
+import org.mystudying.bookmanagementauth.repositories.BookImportJdbcRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Streams a CSV or NDJSON catalog into {@code books} and {@code book_genres}.
+ * Lines are read one at a time and written in chunks of {@code app.books.import.chunk-size} rows, each chunk in
+ * its own transaction with batched inserts, so memory stays bounded by the chunk and the name caches.
+ * Authors and genres are resolved by name through those caches; the ones missing from the database are created
+ * with the chunk. Rejected lines (parse or validation errors, or a chunk that failed to write) are reported
+ * by line number and do not stop the import.
+ */
+@Service
+public class BookImportService {
+
+    private static final Logger log = LoggerFactory.getLogger(BookImportService.class);
+
+    private static final List<String> CSV_COLUMNS = List.of("title", "year", "author", "available", "genres");
+    private static final String CSV_GENRE_SEPARATOR = "|";
+
+    private final BookImportJdbcRepository importRepository;
+    private final EntityManagerFactory entityManagerFactory;
+    private final TransactionTemplate txTemplate;
+    private final TransactionTemplate idTxTemplate;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final int chunkSize;
+    private final int cacheSize;
+    private final int maxReportedErrors;
+
+    public BookImportService(BookImportJdbcRepository importRepository,
+                             EntityManagerFactory entityManagerFactory,
+                             TransactionTemplate txTemplate,
+                             ObjectMapper objectMapper,
+                             Validator validator,
+                             @Value("${app.books.import.chunk-size:1000}") int chunkSize,
+                             @Value("${app.books.import.cache-size:100000}") int cacheSize,
+                             @Value("${app.books.import.max-reported-errors:1000}") int maxReportedErrors) {
+        this.importRepository = importRepository;
+        this.entityManagerFactory = entityManagerFactory;
+        this.txTemplate = txTemplate;
+        // id blocks are committed right away, so the allocator rows are not locked while a chunk is written
+        this.idTxTemplate = new TransactionTemplate(txTemplate.getTransactionManager());
+        this.idTxTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+        this.chunkSize = chunkSize;
+        this.cacheSize = cacheSize;
+        this.maxReportedErrors = maxReportedErrors;
+    }
+
+    public BookImportResultDto importBooks(InputStream input, BookImportFormat format) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        ImportRun run = new ImportRun();
+        long lineNumber = 0;
+        int[] columns = null;
+        if (format == BookImportFormat.CSV) {
+            String header = reader.readLine();
+            lineNumber++;
+            if (header == null) {
+                throw new InvalidImportFileException("missing CSV header line");
+            }
+            columns = csvColumns(header);
+        }
+
+        try {
+            readRows(reader, format, columns, lineNumber, run);
+        } finally {
+            if (run.createdReferences) {
+                // cached "not found" answers of the name lookups (second-level query cache) are now wrong
+                entityManagerFactory.unwrap(SessionFactory.class).getCache().evictQueryRegion("reference-lookups");
+            }
+        }
+
+        log.info("Imported {} book(s) from {}, {} line(s) rejected", run.imported, format, run.failed);
+        return new BookImportResultDto(run.imported, run.failed, run.errors);
+    }
+
+    private void readRows(BufferedReader reader, BookImportFormat format, int[] columns, long headerLines, ImportRun run)
+            throws IOException {
+        long lineNumber = headerLines;
+        List<PendingRow> chunk = new ArrayList<>(chunkSize);
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            BookImportRowDto row;
+            try {
+                row = format == BookImportFormat.CSV ? parseCsv(line, columns) : parseJson(line);
+            } catch (IllegalArgumentException e) {
+                run.reject(lineNumber, e.getMessage());
+                continue;
+            }
+            String violations = validate(row);
+            if (violations != null) {
+                run.reject(lineNumber, violations);
+                continue;
+            }
+            chunk.add(new PendingRow(lineNumber, row));
+            if (chunk.size() == chunkSize) {
+                writeChunk(run, chunk);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            writeChunk(run, chunk);
+        }
+    }
+
+    private void writeChunk(ImportRun run, List<PendingRow> chunk) {
+        try {
+            Map<String, Long> authorIds = resolveAuthors(run, chunk);
+            List<String> newAuthors = chunk.stream()
+                    .map(row -> row.book().author().strip())
+                    .filter(name -> !authorIds.containsKey(name))
+                    .distinct()
+                    .toList();
+            long firstBookId = reserveIds("books", chunk.size());
+            long firstAuthorId = newAuthors.isEmpty() ? 0 : reserveIds("authors", newAuthors.size());
+
+            ChunkResult result = Objects.requireNonNull(txTemplate.execute(status -> {
+                List<Object[]> authors = new ArrayList<>(newAuthors.size());
+                for (int i = 0; i < newAuthors.size(); i++) {
+                    authorIds.put(newAuthors.get(i), firstAuthorId + i);
+                    authors.add(new Object[]{firstAuthorId + i, newAuthors.get(i)});
+                }
+                if (!authors.isEmpty()) {
+                    run.createdReferences = true;
+                    importRepository.insertAuthors(authors);
+                }
+                Map<String, Long> genreIds = resolveGenres(run, chunk);
+                return new ChunkResult(genreIds, writeBooks(chunk, authorIds, genreIds, firstBookId));
+            }));
+
+            // only committed rows go into the caches
+            run.authors.putAll(authorIds);
+            run.genres.putAll(result.genreIds());
+            run.imported += chunk.size() - result.skipped().size();
+            result.skipped().forEach(error -> run.reject(error.line(), error.message()));
+        } catch (DataAccessException | TransactionException e) {
+            log.warn("Import chunk of lines {}-{} failed", chunk.get(0).line(), chunk.get(chunk.size() - 1).line(), e);
+            String message = "Not imported: " + (e instanceof DataAccessException dataAccess
+                    ? dataAccess.getMostSpecificCause().getMessage() : e.getMessage());
+            for (PendingRow row : chunk) {
+                run.reject(row.line(), message);
+            }
+        }
+    }
+
+    private long reserveIds(String name, int count) {
+        return Objects.requireNonNull(idTxTemplate.execute(status -> importRepository.reserveIds(name, count)));
+    }
+
+    /**
+     * Author ids of the chunk by name, from the cache or the database (exact name, lowest id wins).
+     * Names without an id have to be created.
+     */
+    private Map<String, Long> resolveAuthors(ImportRun run, List<PendingRow> chunk) {
+        Map<String, Long> ids = new HashMap<>();
+        Set<String> uncached = new LinkedHashSet<>();
+        for (PendingRow row : chunk) {
+            String name = row.book().author().strip();
+            Long id = run.authors.get(name);
+            if (id != null) {
+                ids.put(name, id);
+            } else {
+                uncached.add(name);
+            }
+        }
+        if (!uncached.isEmpty()) {
+            for (Map.Entry<String, Long> author : importRepository.findAuthorsByName(uncached)) {
+                if (uncached.contains(author.getKey())) {
+                    ids.merge(author.getKey(), author.getValue(), Math::min);
+                }
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * Genre ids of the chunk by lower-cased name, from the cache or the database, creating the missing genres.
+     */
+    private Map<String, Long> resolveGenres(ImportRun run, List<PendingRow> chunk) {
+        Map<String, Long> ids = new HashMap<>();
+        Map<String, String> uncached = new LinkedHashMap<>();
+        for (PendingRow row : chunk) {
+            for (String genre : row.book().genres()) {
+                String name = genre.strip();
+                String key = name.toLowerCase(Locale.ROOT);
+                Long id = run.genres.get(key);
+                if (id != null) {
+                    ids.put(key, id);
+                } else {
+                    uncached.putIfAbsent(key, name);
+                }
+            }
+        }
+        if (uncached.isEmpty()) {
+            return ids;
+        }
+        collectGenres(ids, importRepository.findGenreIdsByName(uncached.values()));
+        List<String> missing = uncached.entrySet().stream()
+                .filter(genre -> !ids.containsKey(genre.getKey()))
+                .map(Map.Entry::getValue)
+                .toList();
+        if (!missing.isEmpty()) {
+            run.createdReferences = true;
+            importRepository.insertMissingGenres(missing);
+            collectGenres(ids, importRepository.findGenreIdsByName(missing));
+        }
+        return ids;
+    }
+
+    private static void collectGenres(Map<String, Long> target, Map<String, Long> idsByName) {
+        idsByName.forEach((name, id) -> target.put(name.toLowerCase(Locale.ROOT), id));
+    }
+
+    /**
+     * Inserts the chunk's books and genre links.
+     *
+     * @return rows that were skipped
+     */
+    private List<BookImportErrorDto> writeBooks(List<PendingRow> chunk, Map<String, Long> authorIds,
+                                                Map<String, Long> genreIds, long firstBookId) {
+        List<Object[]> books = new ArrayList<>(chunk.size());
+        List<Object[]> bookGenres = new ArrayList<>(chunk.size() * 2);
+        List<BookImportErrorDto> skipped = new ArrayList<>();
+        long bookId = firstBookId;
+        for (PendingRow row : chunk) {
+            BookImportRowDto book = row.book();
+            Set<Long> genres = new LinkedHashSet<>();
+            String unresolved = null;
+            for (String genre : book.genres()) {
+                Long genreId = genreIds.get(genre.strip().toLowerCase(Locale.ROOT));
+                if (genreId == null) {
+                    unresolved = genre.strip();
+                    break;
+                }
+                genres.add(genreId);
+            }
+            if (unresolved != null) {
+                // e.g. a name differing from an existing genre only by accents, which the unique index treats as equal
+                skipped.add(new BookImportErrorDto(row.line(), "Genre could not be resolved: " + unresolved));
+                continue;
+            }
+
+            books.add(new Object[]{bookId, book.title().strip(), book.year(), authorIds.get(book.author().strip()),
+                    book.available()});
+            for (Long genreId : genres) {
+                bookGenres.add(new Object[]{bookId, genreId});
+            }
+            bookId++;
+        }
+        importRepository.insertBooks(books);
+        importRepository.insertBookGenres(bookGenres);
+        return skipped;
+    }
+
+    private String validate(BookImportRowDto row) {
+        Set<ConstraintViolation<BookImportRowDto>> violations = validator.validate(row);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.stream()
+                .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                .sorted()
+                .collect(Collectors.joining(", "));
+    }
+
+    private BookImportRowDto parseJson(String line) {
+        try {
+            return objectMapper.readValue(line, BookImportRowDto.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Malformed JSON: " + e.getOriginalMessage());
+        }
+    }
+
+    /**
+     * Position of each of {@link #CSV_COLUMNS} in the header.
+     */
+    private static int[] csvColumns(String header) {
+        List<String> names = splitCsv(header.startsWith("\uFEFF") ? header.substring(1) : header).stream()
+                .map(name -> name.strip().toLowerCase(Locale.ROOT))
+                .toList();
+        int[] columns = new int[CSV_COLUMNS.size()];
+        for (int i = 0; i < columns.length; i++) {
+            columns[i] = names.indexOf(CSV_COLUMNS.get(i));
+            if (columns[i] < 0) {
+                throw new InvalidImportFileException("CSV header must name the columns " + String.join(",", CSV_COLUMNS));
+            }
+        }
+        return columns;
+    }
+
+    private static BookImportRowDto parseCsv(String line, int[] columns) {
+        List<String> fields = splitCsv(line);
+        String genres = field(fields, columns[4]);
+        return new BookImportRowDto(
+                field(fields, columns[0]),
+                number("year", field(fields, columns[1])),
+                field(fields, columns[2]),
+                number("available", field(fields, columns[3])),
+                genres == null ? List.of() : Arrays.stream(genres.split("\\" + CSV_GENRE_SEPARATOR))
+                        .filter(genre -> !genre.isBlank())
+                        .toList());
+    }
+
+    private static String field(List<String> fields, int column) {
+        return column < fields.size() && !fields.get(column).isBlank() ? fields.get(column) : null;
+    }
+
+    private static Integer number(String column, String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Integer.valueOf(value.strip());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(column + ": not a number: " + value);
+        }
+    }
+
+    /**
+     * Splits one CSV line (RFC 4180 quoting, no line breaks inside fields).
+     */
+    static List<String> splitCsv(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c != '"') {
+                    field.append(c);
+                } else if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else {
+                    quoted = false;
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("Unterminated quoted field");
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    private record PendingRow(long line, BookImportRowDto book) {
+    }
+
+    private record ChunkResult(Map<String, Long> genreIds, List<BookImportErrorDto> skipped) {
+    }
+
+    /**
+     * Counters, reported errors and name caches of one import.
+     */
+    private final class ImportRun {
+
+        private final BoundedCache authors = new BoundedCache();
+        private final BoundedCache genres = new BoundedCache();
+        private final List<BookImportErrorDto> errors = new ArrayList<>();
+        private long imported;
+        private long failed;
+        private boolean createdReferences;
+
+        void reject(long line, String message) {
+            failed++;
+            if (errors.size() < maxReportedErrors) {
+                errors.add(new BookImportErrorDto(line, message));
+            }
+        }
+    }
+
+    /**
+     * Name to id map that starts over once it holds {@code app.books.import.cache-size} entries.
+     */
+    private final class BoundedCache extends HashMap<String, Long> {
+
+        @Override
+        public Long put(String key, Long value) {
+            if (size() >= cacheSize && !containsKey(key)) {
+                clear();
+            }
+            return super.put(key, value);
+        }
+
+        @Override
+        public void putAll(Map<? extends String, ? extends Long> entries) {
+            entries.forEach(this::put);
+        }
+    }
+}
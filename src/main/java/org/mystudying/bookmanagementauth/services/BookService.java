@@ -5,6 +5,7 @@ import org.mystudying.bookmanagementauth.domain.Genre;
 import org.mystudying.bookmanagementauth.dto.BookDetailDto;
 import org.mystudying.bookmanagementauth.dto.CreateBookRequestDto;
 import org.mystudying.bookmanagementauth.dto.UpdateBookRequestDto;
+import org.mystudying.bookmanagementauth.events.BookGenresChangedEvent;
 import org.mystudying.bookmanagementauth.exceptions.AuthorNotFoundException;
 import org.mystudying.bookmanagementauth.exceptions.BookHasBookingsException;
 import org.mystudying.bookmanagementauth.exceptions.BookNotFoundException;
@@ -12,15 +13,16 @@ import org.mystudying.bookmanagementauth.exceptions.GenreNotFoundException;
 import org.mystudying.bookmanagementauth.repositories.AuthorRepository;
 import org.mystudying.bookmanagementauth.repositories.BookRepository;
 import org.mystudying.bookmanagementauth.repositories.GenreRepository;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
-import java.util.stream.Collectors;
 
 @Service
 @Transactional(readOnly = true)
@@ -28,11 +30,14 @@ public class BookService {
     private final BookRepository bookRepository;
     private final AuthorRepository authorRepository;
     private final GenreRepository genreRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
-    public BookService(BookRepository bookRepository, AuthorRepository authorRepository, GenreRepository genreRepository) {
+    public BookService(BookRepository bookRepository, AuthorRepository authorRepository, GenreRepository genreRepository,
+                       ApplicationEventPublisher eventPublisher) {
         this.bookRepository = bookRepository;
         this.authorRepository = authorRepository;
         this.genreRepository = genreRepository;
+        this.eventPublisher = eventPublisher;
     }
 
     public List<Book> findAll() {
@@ -90,29 +95,12 @@ public class BookService {
         var author = authorRepository.findById(createBookRequestDto.authorId())
                 .orElseThrow(() -> new AuthorNotFoundException(createBookRequestDto.authorId()));
 
-        List<Long> requestedIds = createBookRequestDto.genreIds();
-
-        List<Genre> genres = genreRepository.findAllById(requestedIds);
-
-//        IDs that actually exist in DB
-        Set<Long> foundIds = genres.stream()
-                .map(Genre::getId)
-                .collect(Collectors.toSet());
-
-        Set<Long> missingIds = new HashSet<>(requestedIds);
-
-//        Remove all IDs that were found
-        missingIds.removeAll(foundIds);
-
-//        If anything remains -> those genres don't exist
-        if (!missingIds.isEmpty()) {
-            throw new GenreNotFoundException(missingIds.iterator().next());
-        }
+        Set<Genre> genres = findGenres(createBookRequestDto.genreIds());
 
 
         Book book = new Book(null, createBookRequestDto.title(), createBookRequestDto.year(),
                 author, createBookRequestDto.available());
-        book.setGenres(new HashSet<>(genres));
+        book.setGenres(genres);
 
         return bookRepository.save(book);
     }
@@ -123,29 +111,13 @@ public class BookService {
         var author = authorRepository.findById(updateBookRequestDto.authorId()).orElseThrow(() ->
                 new AuthorNotFoundException(updateBookRequestDto.authorId()));
 
-        List<Long> requestedIds = updateBookRequestDto.genreIds();
-
-        List<Genre> genres = genreRepository.findAllById(requestedIds);
-
-//        IDs that actually exist in DB
-        Set<Long> foundIds = genres.stream()
-                .map(Genre::getId)
-                .collect(Collectors.toSet());
-
-        Set<Long> missingIds = new HashSet<>(requestedIds);
-
-//        Remove all IDs that were found
-        missingIds.removeAll(foundIds);
-
-//        If anything remains -> those genres don't exist
-        if (!missingIds.isEmpty()) {
-            throw new GenreNotFoundException(missingIds.iterator().next());
-        }
+        Set<Genre> genres = findGenres(updateBookRequestDto.genreIds());
 
         book.setTitle(updateBookRequestDto.title());
         book.setYear(updateBookRequestDto.year());
         book.setAuthor(author);
-        book.setGenres(new HashSet<>(genres));
+        book.setGenres(genres);
+        eventPublisher.publishEvent(new BookGenresChangedEvent(id));
 
         return book;
 
@@ -159,4 +131,16 @@ public class BookService {
         }
         bookRepository.delete(book);
     }
+
+    /**
+     * Loads genres one by one through the persistence context, so they come from the second-level cache
+     * instead of one {@code IN} query per save.
+     */
+    private Set<Genre> findGenres(List<Long> genreIds) {
+        Set<Genre> genres = new HashSet<>();
+        for (Long genreId : new LinkedHashSet<>(genreIds)) {
+            genres.add(genreRepository.findById(genreId).orElseThrow(() -> new GenreNotFoundException(genreId)));
+        }
+        return genres;
+    }
 }
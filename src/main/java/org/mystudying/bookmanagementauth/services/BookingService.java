@@ -1,61 +1,145 @@
 package org.mystudying.bookmanagementauth.services;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.mystudying.bookmanagementauth.domain.Booking;
+import org.mystudying.bookmanagementauth.dto.BookingDateRange;
 import org.mystudying.bookmanagementauth.dto.BookingReportDto;
 import org.mystudying.bookmanagementauth.dto.BookingReportType;
+import org.mystudying.bookmanagementauth.dto.BookingSummaryDto;
 import org.mystudying.bookmanagementauth.repositories.BookingRepository;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Service
 @Transactional(readOnly = true)
 public class BookingService {
 
+    // Summary is keyed by user-supplied filters, so keep the cache small
+    private static final int SUMMARY_CACHE_MAX_ENTRIES = 32;
+
     private final BookingRepository bookingRepository;
+    private final Duration summaryTtl;
+    private final int defaultDueSoonDays;
+    private final long defaultMinActiveBooks;
+    private final Map<SummaryKey, CachedSummary> summaryCache = new ConcurrentHashMap<>();
+    private final Map<BookingReportType, Timer> reportQueryTimers = new EnumMap<>(BookingReportType.class);
 
-    public BookingService(BookingRepository bookingRepository) {
+    public BookingService(BookingRepository bookingRepository,
+                          @Value("${app.reports.summary-ttl:30s}") Duration summaryTtl,
+                          @Value("${app.reports.due-soon-days:3}") int defaultDueSoonDays,
+                          @Value("${app.reports.heavy-user-min-books:2}") long defaultMinActiveBooks,
+                          MeterRegistry meterRegistry) {
         this.bookingRepository = bookingRepository;
+        this.summaryTtl = summaryTtl;
+        this.defaultDueSoonDays = defaultDueSoonDays;
+        this.defaultMinActiveBooks = defaultMinActiveBooks;
+        // page and count query per report; streamed report jobs record source=job
+        for (BookingReportType type : BookingReportType.values()) {
+            reportQueryTimers.put(type, Timer.builder("app.reports.query")
+                    .tag("type", type.name())
+                    .tag("source", "page")
+                    .register(meterRegistry));
+        }
     }
 
-    public Page<BookingReportDto> getBookingReport(BookingReportType type, Integer dueSoonDays, Long minActiveBooks, Pageable pageable) {
+    public Page<BookingReportDto> getBookingReport(BookingReportType type, Integer dueSoonDays, Long minActiveBooks,
+                                                   BookingDateRange range, Pageable pageable) {
         Page<Booking> bookings;
         LocalDate now = LocalDate.now();
+        range = Objects.requireNonNullElse(range, BookingDateRange.NONE);
+        Timer.Sample query = Timer.start();
 
         switch (type) {
             case ALL:
-                bookings = bookingRepository.findAllWithDetails(pageable);
+                bookings = bookingRepository.findAllWithDetails(range, pageable);
                 break;
             case ACTIVE:
-                bookings = bookingRepository.findActiveWithDetails(pageable);
+                bookings = bookingRepository.findActiveWithDetails(range, pageable);
                 break;
             case RETURNED:
-                bookings = bookingRepository.findReturnedWithDetails(pageable);
+                bookings = bookingRepository.findReturnedWithDetails(range, pageable);
                 break;
             case FINES:
-                bookings = bookingRepository.findWithActualOrPotentialFines(now, pageable);
+                bookings = bookingRepository.findWithActualOrPotentialFines(now, range, pageable);
                 break;
             case UNPAID_FINES:
-                bookings = bookingRepository.findWithUnpaidActualOrPotentialFines(now, pageable);
+                bookings = bookingRepository.findWithUnpaidActualOrPotentialFines(now, range, pageable);
                 break;
             case DUE_SOON:
-                LocalDate futureDate = now.plusDays(Objects.requireNonNullElse(dueSoonDays, 3));
-                bookings = bookingRepository.findDueSoonWithDetails(now, futureDate, pageable);
+                LocalDate futureDate = now.plusDays(Objects.requireNonNullElse(dueSoonDays, defaultDueSoonDays));
+                bookings = bookingRepository.findDueSoonWithDetails(now, futureDate, range, pageable);
                 break;
             case HEAVY_USERS:
-                bookings = bookingRepository.findBookingsForHeavyUsers(Objects.requireNonNullElse(minActiveBooks, 2L), pageable);
+                bookings = bookingRepository.findBookingsForHeavyUsers(Objects.requireNonNullElse(minActiveBooks, defaultMinActiveBooks), range, pageable);
                 break;
             default:
                 throw new IllegalArgumentException("Unknown report type: " + type);
         }
+        query.stop(reportQueryTimers.get(type));
         return bookings.map(this::toReportDto);
     }
 
+    public int getDefaultDueSoonDays() {
+        return defaultDueSoonDays;
+    }
+
+    public long getDefaultMinActiveBooks() {
+        return defaultMinActiveBooks;
+    }
+
+    /**
+     * Dashboard headline numbers in a single round trip.
+     * Results are cached for {@code app.reports.summary-ttl}; a cache hit does not open a transaction.
+     * A caller's transaction is joined, so the summary counts the same rows as the paged reports.
+     */
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
+    public BookingSummaryDto getSummary(Integer dueSoonDays, Long minActiveBooks) {
+        SummaryKey key = new SummaryKey(Objects.requireNonNullElse(dueSoonDays, defaultDueSoonDays),
+                Objects.requireNonNullElse(minActiveBooks, defaultMinActiveBooks));
+        LocalDateTime now = LocalDateTime.now();
+
+        CachedSummary cached = summaryCache.get(key);
+        if (cached != null && cached.expiresAt().isAfter(now)) {
+            return cached.summary();
+        }
+
+        LocalDate today = now.toLocalDate();
+        BookingRepository.SummaryRow row = bookingRepository.summarize(today, today.plusDays(key.dueSoonDays()), key.minActiveBooks());
+        BookingSummaryDto summary = new BookingSummaryDto(
+                row.getTotal(),
+                row.getActive(),
+                row.getReturned(),
+                row.getOverdue(),
+                row.getDueSoon(),
+                row.getWithFines(),
+                row.getWithUnpaidFines(),
+                row.getTotalFines(),
+                row.getUnpaidFines(),
+                row.getHeavyUsers(),
+                now
+        );
+
+        if (summaryCache.size() >= SUMMARY_CACHE_MAX_ENTRIES) {
+            summaryCache.clear();
+        }
+        summaryCache.put(key, new CachedSummary(summary, now.plus(summaryTtl)));
+        return summary;
+    }
+
     private BookingReportDto toReportDto(Booking booking) {
         BigDecimal fine = booking.getFine();
         if (booking.getReturnedAt() == null && booking.isExpired()) {
@@ -77,5 +161,10 @@ public class BookingService {
                 booking.isFinePaid()
         );
     }
-}
 
+    private record SummaryKey(int dueSoonDays, long minActiveBooks) {
+    }
+
+    private record CachedSummary(BookingSummaryDto summary, LocalDateTime expiresAt) {
+    }
+}
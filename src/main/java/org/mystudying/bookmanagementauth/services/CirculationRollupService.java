@@ -0,0 +1,154 @@
+package org.mystudying.bookmanagementauth.services;
+
+import org.mystudying.bookmanagementauth.dto.CirculationDimension;
+import org.mystudying.bookmanagementauth.dto.CirculationPointDto;
+import org.mystudying.bookmanagementauth.exceptions.CirculationRollupsPendingException;
+import org.mystudying.bookmanagementauth.exceptions.InvalidDateRangeException;
+import org.mystudying.bookmanagementauth.repositories.CirculationRollupRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Maintains the daily circulation rollups and serves time series from them.
+ * Only closed days (before today) are rolled up, each exactly once, in chunks of
+ * {@code app.rollups.chunk-days} days per transaction.
+ * The startup catch-up runs in the background, so a restart after a long pause does not delay readiness.
+ * Time series compute the days after the watermark from {@code bookings}, but at most
+ * {@code app.rollups.max-live-days} of them: a request reaching further back while the catch-up is still
+ * running gets a 503 instead of scanning the bookings of the whole range.
+ */
+@Service
+public class CirculationRollupService {
+
+    private static final Logger log = LoggerFactory.getLogger(CirculationRollupService.class);
+
+    private final CirculationRollupRepository rollupRepository;
+    private final TransactionTemplate txTemplate;
+    private final TaskExecutor taskExecutor;
+    private final int chunkDays;
+    private final int maxLiveDays;
+
+    public CirculationRollupService(CirculationRollupRepository rollupRepository,
+                                    TransactionTemplate txTemplate,
+                                    @Qualifier("applicationTaskExecutor") TaskExecutor taskExecutor,
+                                    @Value("${app.rollups.chunk-days:31}") int chunkDays,
+                                    @Value("${app.rollups.max-live-days:7}") int maxLiveDays) {
+        this.rollupRepository = rollupRepository;
+        this.txTemplate = txTemplate;
+        this.taskExecutor = taskExecutor;
+        this.chunkDays = chunkDays;
+        this.maxLiveDays = maxLiveDays;
+    }
+
+    /**
+     * Closed days in [from, to]: rolled-up days from the rollups, later ones aggregated from {@code bookings}.
+     *
+     * @throws InvalidDateRangeException          if {@code from} is after {@code to}
+     * @throws CirculationRollupsPendingException if more than {@code max-live-days} of the range are not rolled up yet
+     */
+    @Transactional(readOnly = true)
+    public List<CirculationPointDto> getTimeseries(CirculationDimension dimension, Long groupId, LocalDate from, LocalDate to) {
+        if (from.isAfter(to)) {
+            throw new InvalidDateRangeException(from, to);
+        }
+        dimension = Objects.requireNonNullElse(dimension, CirculationDimension.TOTAL);
+        LocalDate lastClosedDay = LocalDate.now().minusDays(1);
+        LocalDate watermark = rollupRepository.findWatermark().orElse(null);
+
+        List<CirculationPointDto> points = new ArrayList<>();
+        LocalDate liveFrom = from;
+        if (watermark != null) {
+            if (!from.isAfter(watermark)) {
+                points.addAll(rollupRepository.findTimeseries(dimension, groupId, from, to.isAfter(watermark) ? watermark : to));
+                liveFrom = watermark.plusDays(1);
+            }
+        } else {
+            // nothing rolled up yet: only the days since the first booking can have any circulation
+            LocalDate firstBookingDay = rollupRepository.findFirstBookingDay().orElse(null);
+            if (firstBookingDay == null) {
+                return points;
+            }
+            if (firstBookingDay.isAfter(liveFrom)) {
+                liveFrom = firstBookingDay;
+            }
+        }
+        LocalDate liveTo = to.isAfter(lastClosedDay) ? lastClosedDay : to;
+        if (!liveFrom.isAfter(liveTo)) {
+            if (ChronoUnit.DAYS.between(liveFrom, liveTo) >= maxLiveDays) {
+                throw new CirculationRollupsPendingException(watermark);
+            }
+            points.addAll(rollupRepository.computeTimeseries(dimension, groupId, liveFrom, liveTo));
+        }
+        return points;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void catchUpOnStartup() {
+        taskExecutor.execute(() -> {
+            try {
+                rollUp();
+            } catch (RuntimeException e) {
+                // the scheduled run retries; readers fall back to bookings meanwhile
+                log.warn("Circulation rollup catch-up failed", e);
+            }
+        });
+    }
+
+    @Scheduled(cron = "${app.rollups.cron:0 10 0 * * *}")
+    public void rollUpScheduled() {
+        rollUp();
+    }
+
+    /**
+     * Rolls up every closed day after the watermark.
+     *
+     * @return number of days processed
+     */
+    public long rollUp() {
+        LocalDate lastClosedDay = LocalDate.now().minusDays(1);
+        long total = 0;
+        long processed;
+        do {
+            processed = Objects.requireNonNull(txTemplate.execute(status -> rollUpNextChunk(lastClosedDay)));
+            total += processed;
+        } while (processed > 0);
+
+        if (total > 0) {
+            log.info("Rolled up {} day(s) of circulation up to {}", total, lastClosedDay);
+        }
+        return total;
+    }
+
+    private long rollUpNextChunk(LocalDate lastClosedDay) {
+        LocalDate from = rollupRepository.lockWatermark()
+                .map(day -> day.plusDays(1))
+                .or(rollupRepository::findFirstBookingDay)
+                .orElse(null);
+        if (from == null || from.isAfter(lastClosedDay)) {
+            return 0;
+        }
+
+        LocalDate to = from.plusDays(chunkDays - 1L);
+        if (to.isAfter(lastClosedDay)) {
+            to = lastClosedDay;
+        }
+        rollupRepository.rollUp(from, to);
+        rollupRepository.updateWatermark(to);
+        return ChronoUnit.DAYS.between(from, to) + 1;
+    }
+}
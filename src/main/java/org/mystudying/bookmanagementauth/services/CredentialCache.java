@@ -0,0 +1,130 @@
+package org.mystudying.bookmanagementauth.services;
+
+import org.mystudying.bookmanagementauth.config.UserPrincipal;
+import org.mystudying.bookmanagementauth.events.UserCredentialsChangedEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Remembers recently verified username/password pairs so repeated HTTP Basic requests skip the
+ * user lookup and the BCrypt check. Entries are keyed by an HMAC of the credentials under a key
+ * generated per process, so neither plaintext passwords nor reusable hashes are kept in memory.
+ * Entries are dropped on {@link UserCredentialsChangedEvent} only; changes made on other nodes arrive
+ * through {@link UserCacheSyncService}.
+ */
+@Service
+public class CredentialCache {
+
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+
+    private final Map<String, CachedCredential> entries = new ConcurrentHashMap<>();
+    private final SecretKeySpec key;
+    private final Duration ttl;
+    private final int maxEntries;
+
+    public CredentialCache(@Value("${app.security.credential-cache.ttl:5m}") Duration ttl,
+                           @Value("${app.security.credential-cache.max-entries:1000}") int maxEntries) {
+        byte[] secret = new byte[32];
+        new SecureRandom().nextBytes(secret);
+        this.key = new SecretKeySpec(secret, HMAC_ALGORITHM);
+        this.ttl = ttl;
+        this.maxEntries = maxEntries;
+    }
+
+    public UserPrincipal get(String username, String password) {
+        if (ttl.isZero()) {
+            return null;
+        }
+        String hash = hash(username, password);
+        CachedCredential cached = entries.get(hash);
+        if (cached == null) {
+            return null;
+        }
+        if (cached.expiresAt().isBefore(Instant.now())) {
+            entries.remove(hash, cached);
+            return null;
+        }
+        return cached.principal();
+    }
+
+    public void put(String username, String password, UserPrincipal principal) {
+        if (ttl.isZero()) {
+            return;
+        }
+        Instant now = Instant.now();
+        if (entries.size() >= maxEntries) {
+            entries.values().removeIf(entry -> entry.expiresAt().isBefore(now));
+            if (entries.size() >= maxEntries) {
+                entries.clear();
+            }
+        }
+        String hash = hash(username, password);
+        CachedCredential entry = new CachedCredential(principal, now.plus(ttl));
+        entries.put(hash, entry);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            // verified against uncommitted data: only keep it if that data is committed
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        entries.remove(hash, entry);
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * Drops every entry of the user right away and, when called inside a transaction, once more after it
+     * completes, so a request that authenticated against the old row in the meantime cannot re-populate it.
+     */
+    public void invalidate(long userId) {
+        evict(userId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    evict(userId);
+                }
+            });
+        }
+    }
+
+    @EventListener
+    public void onCredentialsChanged(UserCredentialsChangedEvent event) {
+        invalidate(event.userId());
+    }
+
+    private void evict(long userId) {
+        entries.values().removeIf(entry -> entry.principal().getId() == userId);
+    }
+
+    private String hash(String username, String password) {
+        try {
+            Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(key);
+            mac.update(username.getBytes(StandardCharsets.UTF_8));
+            mac.update((byte) 0);
+            return Base64.getEncoder().encodeToString(mac.doFinal(password.getBytes(StandardCharsets.UTF_8)));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(HMAC_ALGORITHM + " is not available", e);
+        }
+    }
+
+    private record CachedCredential(UserPrincipal principal, Instant expiresAt) {
+    }
+}
@@ -0,0 +1,112 @@
+package org.mystudying.bookmanagementauth.services;
+
+import org.mystudying.bookmanagementauth.dto.CurrentUserDto;
+import org.mystudying.bookmanagementauth.events.UserProfileChangedEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-user snapshot of the profile behind {@code /api/auth/me}, which the navbar requests on every page.
+ * Snapshots are dropped whenever {@code UserService} changes the user's account, loans or fines, so a hit
+ * is answered without a transaction or a connection; on other nodes {@link UserCacheSyncService} drops them
+ * within {@code app.users.cache-sync}. The TTL only bounds changes made outside the service.
+ * Not transactional on purpose: misses load through {@link UserService#findCurrentUser(long)}.
+ */
+@Service
+public class CurrentUserCache {
+
+    private final UserService userService;
+    private final Map<Long, CachedSnapshot> snapshots = new ConcurrentHashMap<>();
+    // bumped by every eviction, so a load that raced with a change does not store what it read
+    private final AtomicLong evictions = new AtomicLong();
+    private final Duration ttl;
+    private final int maxEntries;
+
+    public CurrentUserCache(UserService userService,
+                            @Value("${app.users.current-user-cache.ttl:5m}") Duration ttl,
+                            @Value("${app.users.current-user-cache.max-entries:10000}") int maxEntries) {
+        this.userService = userService;
+        this.ttl = ttl;
+        this.maxEntries = maxEntries;
+    }
+
+    public Optional<CurrentUserDto> get(long userId) {
+        Instant now = Instant.now();
+        CachedSnapshot cached = snapshots.get(userId);
+        if (cached != null && cached.expiresAt().isAfter(now)) {
+            return Optional.of(cached.user());
+        }
+        long generation = evictions.get();
+        Optional<CurrentUserDto> loaded = userService.findCurrentUser(userId);
+        loaded.ifPresent(user -> put(user, generation, now));
+        return loaded;
+    }
+
+    /**
+     * Drops the user's snapshot right away and, when called inside a transaction, once more after it
+     * completes, so a request that read the old rows in the meantime cannot re-populate it.
+     */
+    public void invalidate(long userId) {
+        evict(userId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    evict(userId);
+                }
+            });
+        }
+    }
+
+    @EventListener
+    public void onProfileChanged(UserProfileChangedEvent event) {
+        invalidate(event.userId());
+    }
+
+    private void put(CurrentUserDto user, long generation, Instant now) {
+        if (ttl.isZero()) {
+            return;
+        }
+        if (snapshots.size() >= maxEntries) {
+            snapshots.values().removeIf(entry -> !entry.expiresAt().isAfter(now));
+            if (snapshots.size() >= maxEntries) {
+                snapshots.clear();
+            }
+        }
+        CachedSnapshot entry = new CachedSnapshot(user, now.plus(ttl));
+        snapshots.put(user.id(), entry);
+        if (evictions.get() != generation) {
+            snapshots.remove(user.id(), entry);
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            // read uncommitted data of the caller's transaction: only keep it if that data is committed
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        snapshots.remove(user.id(), entry);
+                    }
+                }
+            });
+        }
+    }
+
+    private void evict(long userId) {
+        evictions.incrementAndGet();
+        snapshots.remove(userId);
+    }
+
+    private record CachedSnapshot(CurrentUserDto user, Instant expiresAt) {
+    }
+}
@@ -0,0 +1,80 @@
+package org.mystudying.bookmanagementauth.services;
+
+import org.mystudying.bookmanagementauth.config.RateLimitProperties;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Per-node buckets. Keys are spread over a fixed number of stripes, each a plain map guarded by its own lock,
+ * so concurrent clients rarely contend. A full stripe (its share of {@link #MAX_BUCKETS}) drops its least recently
+ * used bucket in constant time; that client, idle longer than any other in the stripe, starts over with a full bucket.
+ */
+@Service
+@ConditionalOnProperty(name = "app.rate-limit.store", havingValue = "memory", matchIfMissing = true)
+public class InMemoryRateLimiter implements RateLimiter {
+
+    private static final int STRIPES = 64;
+    private static final int MAX_BUCKETS = 100_000;
+    private static final int BUCKETS_PER_STRIPE = MAX_BUCKETS / STRIPES;
+
+    private final Stripe[] stripes = new Stripe[STRIPES];
+
+    public InMemoryRateLimiter() {
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    @Override
+    public long tryAcquire(String key, RateLimitProperties.Group limit) {
+        int hash = key.hashCode();
+        Stripe stripe = stripes[(hash ^ (hash >>> 16)) & (STRIPES - 1)];
+        long now = System.nanoTime() / 1_000_000;
+
+        synchronized (stripe) {
+            Bucket bucket = stripe.buckets.get(key);
+            if (bucket == null) {
+                bucket = new Bucket(limit, now);
+                stripe.buckets.put(key, bucket);
+            }
+
+            double tokens = bucket.refill(now);
+            if (tokens >= 1) {
+                bucket.tokens = tokens - 1;
+                return 0;
+            }
+            return (long) Math.ceil((1 - tokens) / bucket.limit.tokensPerMilli());
+        }
+    }
+
+    private static final class Stripe {
+        // access-ordered, so the eldest entry is the least recently used bucket
+        private final Map<String, Bucket> buckets = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Bucket> eldest) {
+                return size() > BUCKETS_PER_STRIPE;
+            }
+        };
+    }
+
+    private static final class Bucket {
+        private final RateLimitProperties.Group limit;
+        private double tokens;
+        private long updatedAt;
+
+        private Bucket(RateLimitProperties.Group limit, long now) {
+            this.limit = limit;
+            this.tokens = limit.capacity();
+            this.updatedAt = now;
+        }
+
+        private double refill(long now) {
+            tokens = Math.min(limit.capacity(), tokens + (now - updatedAt) * limit.tokensPerMilli());
+            updatedAt = now;
+            return tokens;
+        }
+    }
+}
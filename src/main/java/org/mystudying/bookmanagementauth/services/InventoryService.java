@@ -1,5 +1,7 @@
 package org.mystudying.bookmanagementauth.services;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.mystudying.bookmanagementauth.exceptions.BookNotAvailableException;
 import org.mystudying.bookmanagementauth.exceptions.BookNotFoundException;
 import org.mystudying.bookmanagementauth.exceptions.InsufficientAvailableStockException;
@@ -12,13 +14,15 @@ import org.springframework.transaction.annotation.Transactional;
 public class InventoryService {
 
     private final BookRepository bookRepository;
+    private final MeterRegistry meterRegistry;
 
-    public InventoryService(BookRepository bookRepository) {
+    public InventoryService(BookRepository bookRepository, MeterRegistry meterRegistry) {
         this.bookRepository = bookRepository;
+        this.meterRegistry = meterRegistry;
     }
 
     public void decrementStock(long bookId) {
-        int updated = bookRepository.decrementAvailableIfInStock(bookId);
+        int updated = counted("decrement", bookRepository.decrementAvailableIfInStock(bookId));
         if (updated == 0) {
             if (!bookRepository.existsById(bookId)) {
                 throw new BookNotFoundException(bookId);
@@ -29,7 +33,7 @@ public class InventoryService {
     }
 
     public void incrementStock(long bookId) {
-        int updated = bookRepository.incrementAvailable(bookId);
+        int updated = counted("increment", bookRepository.incrementAvailable(bookId));
         if (updated == 0) {
             throw new BookNotFoundException(bookId);
         }
@@ -39,7 +43,7 @@ public class InventoryService {
         if (amount <= 0) {
             throw new IllegalArgumentException("Amount must be positive");
         }
-        int updated = bookRepository.incrementAvailableBy(bookId, amount);
+        int updated = counted("replenish", bookRepository.incrementAvailableBy(bookId, amount));
         if (updated == 0) {
             throw new BookNotFoundException(bookId);
         }
@@ -49,7 +53,7 @@ public class InventoryService {
         if (amount <= 0) {
             throw new IllegalArgumentException("Amount must be positive");
         }
-        int updated = bookRepository.decrementAvailableBy(bookId, amount);
+        int updated = counted("write-off", bookRepository.decrementAvailableBy(bookId, amount));
         if (updated == 0) {
             if (!bookRepository.existsById(bookId)) {
                 throw new BookNotFoundException(bookId);
@@ -59,4 +63,15 @@ public class InventoryService {
             }
         }
     }
+
+    // Conditional stock updates that match no row mean the stock ran out (often to a concurrent rent);
+    // their share of app.inventory.updates is the contention signal
+    private int counted(String operation, int updated) {
+        Counter.builder("app.inventory.updates")
+                .tag("operation", operation)
+                .tag("result", updated == 0 ? "no-row" : "updated")
+                .register(meterRegistry)
+                .increment();
+        return updated;
+    }
 }
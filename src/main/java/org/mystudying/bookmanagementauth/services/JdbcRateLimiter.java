@@ -0,0 +1,55 @@
+package org.mystudying.bookmanagementauth.services;
+
+import org.mystudying.bookmanagementauth.config.RateLimitProperties;
+import org.mystudying.bookmanagementauth.repositories.RateLimitBucketRepository;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Buckets shared by all nodes: each acquire is one short transaction holding the bucket's row lock.
+ * Timestamps come from the node clocks, which are assumed to be kept in sync.
+ */
+@Service
+@ConditionalOnProperty(name = "app.rate-limit.store", havingValue = "jdbc")
+public class JdbcRateLimiter implements RateLimiter {
+
+    // Any bucket untouched this long has refilled under every sensible configuration
+    private static final Duration IDLE_RETENTION = Duration.ofHours(1);
+
+    private final RateLimitBucketRepository bucketRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    public JdbcRateLimiter(RateLimitBucketRepository bucketRepository, PlatformTransactionManager transactionManager) {
+        this.bucketRepository = bucketRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Override
+    public long tryAcquire(String key, RateLimitProperties.Group limit) {
+        Long waitMillis = transactionTemplate.execute(status -> {
+            long now = System.currentTimeMillis();
+            RateLimitBucketRepository.BucketRow bucket = bucketRepository.lock(key, limit.capacity(), now);
+
+            double tokens = Math.min(limit.capacity(),
+                    bucket.tokens() + Math.max(0, now - bucket.updatedAt()) * limit.tokensPerMilli());
+            if (tokens >= 1) {
+                bucketRepository.update(key, tokens - 1, now);
+                return 0L;
+            }
+            bucketRepository.update(key, tokens, now);
+            return (long) Math.ceil((1 - tokens) / limit.tokensPerMilli());
+        });
+        return waitMillis == null ? 0 : waitMillis;
+    }
+
+    @Scheduled(fixedDelay = 10, initialDelay = 10, timeUnit = TimeUnit.MINUTES)
+    public void purgeIdleBuckets() {
+        bucketRepository.deleteIdleSince(System.currentTimeMillis() - IDLE_RETENTION.toMillis());
+    }
+}
@@ -12,16 +12,18 @@ import org.springframework.stereotype.Service;
 public class JpaUserDetailsService implements UserDetailsService {
 
     private final UserRepository userRepository;
+    private final RoleCache roleCache;
 
-    public JpaUserDetailsService(UserRepository userRepository) {
+    public JpaUserDetailsService(UserRepository userRepository, RoleCache roleCache) {
         this.userRepository = userRepository;
+        this.roleCache = roleCache;
     }
 
     @Override
     public UserDetails loadUserByUsername(String email) throws UsernameNotFoundException {
-        User user = userRepository.findByEmailWithRoles(email)
+        User user = userRepository.findByEmail(email)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found with email: " + email));
 
-        return UserPrincipal.from(user);
+        return UserPrincipal.from(user, roleCache.authoritiesOf(user.getId()));
     }
 }
\ No newline at end of file
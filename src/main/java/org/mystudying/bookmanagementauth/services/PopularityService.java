@@ -0,0 +1,264 @@
+package org.mystudying.bookmanagementauth.services;
+
+import org.mystudying.bookmanagementauth.domain.Book;
+import org.mystudying.bookmanagementauth.domain.Genre;
+import org.mystudying.bookmanagementauth.dto.BookGenreDto;
+import org.mystudying.bookmanagementauth.dto.DailyRentCountDto;
+import org.mystudying.bookmanagementauth.dto.PopularItemDto;
+import org.mystudying.bookmanagementauth.dto.PopularityDto;
+import org.mystudying.bookmanagementauth.dto.PopularityWindow;
+import org.mystudying.bookmanagementauth.events.BookGenresChangedEvent;
+import org.mystudying.bookmanagementauth.events.BookRentedEvent;
+import org.mystudying.bookmanagementauth.repositories.BookRepository;
+import org.mystudying.bookmanagementauth.repositories.BookingRepository;
+import org.mystudying.bookmanagementauth.repositories.GenreRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * In-memory "most borrowed" tracker.
+ * Keeps exact per-day rent counters for books and genres covering the longest {@link PopularityWindow};
+ * a window query merges at most that many day buckets and picks the top K with a bounded heap.
+ * Counters are rebuilt from {@code bookings} on startup and fed by committed rents afterwards.
+ * Rents committed while a rebuild runs are held back and added to the rebuilt counters unless its snapshot
+ * already contains them, so a rebuild neither loses nor double-counts concurrent rents.
+ * The genres of each rented book come from a book-to-genre map, filled by the rebuild for the books rented
+ * in the retained days and on a miss, so a committed rent is counted without a query.
+ */
+@Service
+public class PopularityService {
+
+    private static final int MAX_LIMIT = 100;
+    private static final int RETAINED_DAYS = Arrays.stream(PopularityWindow.values())
+            .mapToInt(PopularityWindow::days)
+            .max()
+            .orElse(30);
+
+    private final BookingRepository bookingRepository;
+    private final BookRepository bookRepository;
+    private final GenreRepository genreRepository;
+    private final TransactionTemplate snapshotTemplate;
+    private final Object rebuildLock = new Object();
+
+    // Replaced as a whole by rebuild(), so readers never see a half-built state
+    private volatile ConcurrentMap<LocalDate, DayCounters> days = new ConcurrentHashMap<>();
+    // Rents committed during a rebuild, null while none runs; guarded by this
+    private List<PendingRent> pendingRents;
+    private volatile ConcurrentMap<Long, List<Long>> bookGenres = new ConcurrentHashMap<>();
+    // bumped by every eviction, so a load that raced with a genre change does not store what it read
+    private final AtomicLong genreEvictions = new AtomicLong();
+    private final int maxBookGenres;
+
+    public PopularityService(BookingRepository bookingRepository, BookRepository bookRepository,
+                             GenreRepository genreRepository, PlatformTransactionManager transactionManager,
+                             @Value("${app.popularity.book-genres.max-entries:50000}") int maxBookGenres) {
+        this.bookingRepository = bookingRepository;
+        this.bookRepository = bookRepository;
+        this.genreRepository = genreRepository;
+        this.maxBookGenres = maxBookGenres;
+        // both counts and the pending-rent check have to read the same snapshot
+        this.snapshotTemplate = new TransactionTemplate(transactionManager);
+        snapshotTemplate.setReadOnly(true);
+        snapshotTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        synchronized (rebuildLock) {
+            synchronized (this) {
+                pendingRents = new ArrayList<>();
+            }
+            try {
+                snapshotTemplate.executeWithoutResult(status -> {
+                    ConcurrentMap<LocalDate, DayCounters> rebuilt = countRecentRents();
+                    loadGenresOfRecentlyRentedBooks();
+                    synchronized (this) {
+                        Set<Long> counted = pendingRents.isEmpty() ? Set.of() : new HashSet<>(
+                                bookingRepository.findExistingIds(pendingRents.stream().map(rent -> rent.event().bookingId()).toList()));
+                        pendingRents.stream()
+                                .filter(rent -> !counted.contains(rent.event().bookingId()))
+                                .forEach(rent -> add(rebuilt, rent));
+                        days = rebuilt;
+                        pendingRents = null;
+                    }
+                });
+            } finally {
+                synchronized (this) {
+                    // the rebuild failed: keep the held-back rents in the old counters
+                    if (pendingRents != null) {
+                        pendingRents.forEach(rent -> add(days, rent));
+                        pendingRents = null;
+                    }
+                }
+            }
+        }
+    }
+
+    private ConcurrentMap<LocalDate, DayCounters> countRecentRents() {
+        LocalDate since = LocalDate.now().minusDays(RETAINED_DAYS - 1L);
+        ConcurrentMap<LocalDate, DayCounters> rebuilt = new ConcurrentHashMap<>();
+        for (DailyRentCountDto row : bookingRepository.countDailyRentsPerBook(since)) {
+            rebuilt.computeIfAbsent(row.day(), day -> new DayCounters()).add(row.itemId(), List.of(), row.count());
+        }
+        for (DailyRentCountDto row : bookingRepository.countDailyRentsPerGenre(since)) {
+            rebuilt.computeIfAbsent(row.day(), day -> new DayCounters()).addGenre(row.itemId(), row.count());
+        }
+        return rebuilt;
+    }
+
+    private void loadGenresOfRecentlyRentedBooks() {
+        long generation = genreEvictions.get();
+        ConcurrentMap<Long, List<Long>> loaded = new ConcurrentHashMap<>();
+        for (BookGenreDto row : bookingRepository.findGenresOfBooksRentedSince(LocalDate.now().minusDays(RETAINED_DAYS - 1L))) {
+            loaded.computeIfAbsent(row.bookId(), id -> new ArrayList<>()).add(row.genreId());
+        }
+        // a genre change during the load may not be in the snapshot: start empty and fill on misses instead
+        bookGenres = genreEvictions.get() == generation && loaded.size() <= maxBookGenres
+                ? loaded : new ConcurrentHashMap<>();
+    }
+
+    private List<Long> genreIdsOf(long bookId) {
+        List<Long> cached = bookGenres.get(bookId);
+        if (cached != null) {
+            return cached;
+        }
+        long generation = genreEvictions.get();
+        List<Long> loaded = List.copyOf(genreRepository.findIdsByBookId(bookId));
+        if (bookGenres.size() >= maxBookGenres) {
+            bookGenres.clear();
+        }
+        bookGenres.put(bookId, loaded);
+        if (genreEvictions.get() != generation) {
+            bookGenres.remove(bookId, loaded);
+        }
+        return loaded;
+    }
+
+    /**
+     * Drops the book's genres right away and, when called inside a transaction, once more after it
+     * completes, so a rent that read the old genres in the meantime cannot re-populate them.
+     */
+    @EventListener
+    public void onBookGenresChanged(BookGenresChangedEvent event) {
+        evictGenres(event.bookId());
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    evictGenres(event.bookId());
+                }
+            });
+        }
+    }
+
+    private void evictGenres(long bookId) {
+        genreEvictions.incrementAndGet();
+        bookGenres.remove(bookId);
+    }
+
+    @TransactionalEventListener
+    public void onBookRented(BookRentedEvent event) {
+        PendingRent rent = new PendingRent(event, genreIdsOf(event.bookId()));
+        synchronized (this) {
+            if (pendingRents != null) {
+                pendingRents.add(rent);
+                return;
+            }
+            add(days, rent);
+        }
+
+        LocalDate cutoff = LocalDate.now().minusDays(RETAINED_DAYS - 1L);
+        days.keySet().removeIf(day -> day.isBefore(cutoff));
+    }
+
+    private static void add(ConcurrentMap<LocalDate, DayCounters> days, PendingRent rent) {
+        days.computeIfAbsent(rent.event().borrowedAt(), day -> new DayCounters())
+                .add(rent.event().bookId(), rent.genreIds(), 1);
+    }
+
+    public PopularityDto getPopular(PopularityWindow window, int limit) {
+        int k = Math.max(1, Math.min(limit, MAX_LIMIT));
+        LocalDate since = LocalDate.now().minusDays(window.days() - 1L);
+
+        Map<Long, Long> bookTotals = new HashMap<>();
+        Map<Long, Long> genreTotals = new HashMap<>();
+        days.forEach((day, counters) -> {
+            if (!day.isBefore(since)) {
+                counters.books.forEach((id, count) -> bookTotals.merge(id, count.sum(), Long::sum));
+                counters.genres.forEach((id, count) -> genreTotals.merge(id, count.sum(), Long::sum));
+            }
+        });
+
+        List<Map.Entry<Long, Long>> topBooks = topK(bookTotals, k);
+        List<Map.Entry<Long, Long>> topGenres = topK(genreTotals, k);
+
+        Map<Long, String> titles = bookRepository.findAllById(ids(topBooks)).stream()
+                .collect(Collectors.toMap(Book::getId, Book::getTitle));
+        Map<Long, String> genreNames = genreRepository.findAllById(ids(topGenres)).stream()
+                .collect(Collectors.toMap(Genre::getId, Genre::getName));
+
+        return new PopularityDto(window, toItems(topBooks, titles), toItems(topGenres, genreNames));
+    }
+
+    private static List<Map.Entry<Long, Long>> topK(Map<Long, Long> totals, int k) {
+        Comparator<Map.Entry<Long, Long>> byRents = Map.Entry.<Long, Long>comparingByValue()
+                .thenComparing(Map.Entry.<Long, Long>comparingByKey().reversed());
+
+        // Min-heap of size k: the weakest entry is evicted first
+        PriorityQueue<Map.Entry<Long, Long>> heap = new PriorityQueue<>(k + 1, byRents);
+        for (Map.Entry<Long, Long> entry : totals.entrySet()) {
+            heap.offer(entry);
+            if (heap.size() > k) {
+                heap.poll();
+            }
+        }
+        List<Map.Entry<Long, Long>> top = new ArrayList<>(heap);
+        top.sort(byRents.reversed());
+        return top;
+    }
+
+    private static List<Long> ids(List<Map.Entry<Long, Long>> entries) {
+        return entries.stream().map(Map.Entry::getKey).toList();
+    }
+
+    // Items deleted since they were counted have no name any more and are skipped
+    private static List<PopularItemDto> toItems(List<Map.Entry<Long, Long>> entries, Map<Long, String> names) {
+        return entries.stream()
+                .filter(entry -> names.containsKey(entry.getKey()))
+                .map(entry -> new PopularItemDto(entry.getKey(), names.get(entry.getKey()), entry.getValue()))
+                .toList();
+    }
+
+    private record PendingRent(BookRentedEvent event, List<Long> genreIds) {
+    }
+
+    private static final class DayCounters {
+        private final ConcurrentMap<Long, LongAdder> books = new ConcurrentHashMap<>();
+        private final ConcurrentMap<Long, LongAdder> genres = new ConcurrentHashMap<>();
+
+        void add(long bookId, List<Long> genreIds, long count) {
+            books.computeIfAbsent(bookId, id -> new LongAdder()).add(count);
+            genreIds.forEach(genreId -> addGenre(genreId, count));
+        }
+
+        void addGenre(long genreId, long count) {
+            genres.computeIfAbsent(genreId, id -> new LongAdder()).add(count);
+        }
+    }
+}
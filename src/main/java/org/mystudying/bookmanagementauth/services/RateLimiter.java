@@ -0,0 +1,16 @@
+package org.mystudying.bookmanagementauth.services;
+
+import org.mystudying.bookmanagementauth.config.RateLimitProperties;
+
+/**
+ * Token-bucket rate limiter.
+ */
+public interface RateLimiter {
+
+    /**
+     * Takes one token from the bucket identified by {@code key}, creating a full bucket on first use.
+     *
+     * @return 0 if a token was taken, otherwise the milliseconds until one becomes available
+     */
+    long tryAcquire(String key, RateLimitProperties.Group limit);
+}
@@ -0,0 +1,105 @@
+package org.mystudying.bookmanagementauth.services;
+
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpSession;
+import org.mystudying.bookmanagementauth.events.UserProfileChangedEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseCookie;
+import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.time.Duration;
+
+/**
+ * Keeps a client's reads on the primary database for {@code app.datasource.replica.read-your-writes-window}
+ * after one of its requests changed loans, fines or an account, instead of showing a replica that has not
+ * caught up. The window travels with the client, so it holds on whichever node serves the next request:
+ * it is kept in the HTTP session and also sent as a cookie that expires with it (for HTTP Basic and bearer
+ * token clients without a session). Only the client that made the change is covered; a user affected by
+ * someone else's change (an admin renting for them) may read data up to {@code max-lag} old.
+ */
+@Service
+public class ReadYourWritesWindow {
+
+    static final String COOKIE = "READ_PRIMARY";
+    static final String ATTRIBUTE = ReadYourWritesWindow.class.getName() + ".UNTIL";
+
+    private final Duration window;
+
+    public ReadYourWritesWindow(@Value("${app.datasource.replica.read-your-writes-window:10s}") Duration window) {
+        this.window = window;
+    }
+
+    @EventListener
+    public void onProfileChanged(UserProfileChangedEvent event) {
+        mark();
+    }
+
+    private void mark() {
+        ServletRequestAttributes attributes = currentRequest();
+        if (window.isZero() || attributes == null) {
+            return;
+        }
+        // epoch millis rather than an Instant, as a plain value to serialize with the session
+        Long until = System.currentTimeMillis() + window.toMillis();
+        attributes.setAttribute(ATTRIBUTE, until, RequestAttributes.SCOPE_REQUEST);
+        HttpSession session = attributes.getRequest().getSession(false);
+        if (session != null) {
+            session.setAttribute(ATTRIBUTE, until);
+        }
+        HttpServletResponse response = attributes.getResponse();
+        if (response != null && !response.isCommitted()) {
+            response.addHeader(HttpHeaders.SET_COOKIE, ResponseCookie.from(COOKIE, "1")
+                    .path("/")
+                    .maxAge(window)
+                    .httpOnly(true)
+                    .sameSite("Lax")
+                    .build()
+                    .toString());
+        }
+    }
+
+    /**
+     * Whether the client of the current HTTP request has to read from the primary.
+     */
+    public boolean isActiveForCurrentRequest() {
+        ServletRequestAttributes attributes = currentRequest();
+        if (attributes == null) {
+            return false;
+        }
+        HttpServletRequest request = attributes.getRequest();
+        if (isFuture(request.getAttribute(ATTRIBUTE))) {
+            return true;
+        }
+        HttpSession session = request.getSession(false);
+        if (session != null && isFuture(session.getAttribute(ATTRIBUTE))) {
+            return true;
+        }
+        // the browser drops the cookie when the window ends, so its presence is enough
+        Cookie[] cookies = request.getCookies();
+        if (cookies != null) {
+            for (Cookie cookie : cookies) {
+                if (COOKIE.equals(cookie.getName())) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static boolean isFuture(Object until) {
+        return until instanceof Long millis && millis > System.currentTimeMillis();
+    }
+
+    private static ServletRequestAttributes currentRequest() {
+        return RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes
+                ? attributes
+                : null;
+    }
+}
@@ -0,0 +1,200 @@
+package org.mystudying.bookmanagementauth.services;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import org.mystudying.bookmanagementauth.domain.ReportJob;
+import org.mystudying.bookmanagementauth.domain.ReportJobStatus;
+import org.mystudying.bookmanagementauth.dto.BookingDateRange;
+import org.mystudying.bookmanagementauth.dto.BookingReportType;
+import org.mystudying.bookmanagementauth.dto.ReportJobDto;
+import org.mystudying.bookmanagementauth.dto.ReportJobRequestDto;
+import org.mystudying.bookmanagementauth.exceptions.ReportJobNotFoundException;
+import org.mystudying.bookmanagementauth.exceptions.ReportJobNotReadyException;
+import org.mystudying.bookmanagementauth.exceptions.ReportJobRejectedException;
+import org.mystudying.bookmanagementauth.repositories.BookingReportJdbcRepository;
+import org.mystudying.bookmanagementauth.repositories.ReportJobRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Runs booking reports in the background instead of inside the HTTP request.
+ * Jobs are persisted in {@code report_jobs}; results are stored as gzip-compressed JSON.
+ * A job with the same spec created within {@code app.reports.jobs.reuse-window} is returned instead of starting a new one.
+ * Jobs still pending or running after {@code app.reports.jobs.stale-after} are not reused and are failed on startup,
+ * since a restart interrupts their worker.
+ * <p>
+ * Not transactional on purpose: the job row must be committed before a worker thread picks it up.
+ */
+@Service
+public class ReportJobService {
+
+    private static final Logger log = LoggerFactory.getLogger(ReportJobService.class);
+    private static final int MAX_ERROR_LENGTH = 500;
+
+    private final ReportJobRepository reportJobRepository;
+    private final BookingReportJdbcRepository bookingReportJdbcRepository;
+    private final ObjectMapper objectMapper;
+    private final Duration reuseWindow;
+    private final Duration retention;
+    private final Duration staleAfter;
+    private final int defaultDueSoonDays;
+    private final long defaultMinActiveBooks;
+    private final ThreadPoolExecutor executor;
+
+    public ReportJobService(ReportJobRepository reportJobRepository,
+                            BookingReportJdbcRepository bookingReportJdbcRepository,
+                            ObjectMapper objectMapper,
+                            @Value("${app.reports.jobs.threads:2}") int threads,
+                            @Value("${app.reports.jobs.queue-capacity:20}") int queueCapacity,
+                            @Value("${app.reports.jobs.reuse-window:10m}") Duration reuseWindow,
+                            @Value("${app.reports.jobs.retention:1d}") Duration retention,
+                            @Value("${app.reports.jobs.stale-after:30m}") Duration staleAfter,
+                            @Value("${app.reports.due-soon-days:3}") int defaultDueSoonDays,
+                            @Value("${app.reports.heavy-user-min-books:2}") long defaultMinActiveBooks) {
+        this.reportJobRepository = reportJobRepository;
+        this.bookingReportJdbcRepository = bookingReportJdbcRepository;
+        this.objectMapper = objectMapper;
+        this.reuseWindow = reuseWindow;
+        this.retention = retention;
+        this.staleAfter = staleAfter;
+        this.defaultDueSoonDays = defaultDueSoonDays;
+        this.defaultMinActiveBooks = defaultMinActiveBooks;
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), new CustomizableThreadFactory("report-job-"),
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    // Synchronized so two identical submissions on this node cannot both start a job
+    public synchronized ReportJobDto submit(ReportJobRequestDto request) {
+        BookingReportType type = request.type();
+        Integer days = type == BookingReportType.DUE_SOON ? (request.days() != null ? request.days() : defaultDueSoonDays) : null;
+        Long minActiveBooks = type == BookingReportType.HEAVY_USERS
+                ? (request.minActiveBooks() != null ? request.minActiveBooks() : defaultMinActiveBooks) : null;
+        BookingDateRange range = Objects.requireNonNullElse(request.range(), BookingDateRange.NONE);
+        String specKey = type + ":" + days + ":" + minActiveBooks + rangeKey(range);
+        LocalDateTime now = LocalDateTime.now();
+
+        var reusable = reportJobRepository.findReusable(specKey, now.minus(reuseWindow), now.minus(staleAfter),
+                PageRequest.of(0, 1));
+        if (!reusable.isEmpty()) {
+            return reusable.get(0);
+        }
+
+        reportJobRepository.deleteCreatedBefore(now.minus(retention));
+        ReportJob job = reportJobRepository.save(new ReportJob(specKey, type, days, minActiveBooks, now));
+        long jobId = job.getId();
+        try {
+            executor.execute(() -> run(jobId, type, days, minActiveBooks, range));
+        } catch (RejectedExecutionException e) {
+            reportJobRepository.markFailed(jobId, "Rejected: report queue is full", LocalDateTime.now());
+            throw new ReportJobRejectedException();
+        }
+        return findById(jobId);
+    }
+
+    // Other nodes may still be running younger jobs, so only those past the timeout are failed
+    @EventListener(ApplicationReadyEvent.class)
+    public void failStaleJobs() {
+        LocalDateTime now = LocalDateTime.now();
+        int failed = reportJobRepository.markStaleFailed(now.minus(staleAfter),
+                "Abandoned: not finished within " + staleAfter, now);
+        if (failed > 0) {
+            log.info("Marked {} abandoned report jobs as failed", failed);
+        }
+    }
+
+    public ReportJobDto findById(long id) {
+        return reportJobRepository.findDtoById(id).orElseThrow(() -> new ReportJobNotFoundException(id));
+    }
+
+    /**
+     * @return gzip-compressed JSON array of {@link org.mystudying.bookmanagementauth.dto.BookingReportDto}
+     */
+    public byte[] findResultById(long id) {
+        ReportJobDto job = findById(id);
+        if (job.status() != ReportJobStatus.DONE) {
+            throw new ReportJobNotReadyException(id, job.status());
+        }
+        return reportJobRepository.findResultById(id)
+                .orElseThrow(() -> new ReportJobNotReadyException(id, job.status()));
+    }
+
+    public byte[] decompress(byte[] gzipped) {
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(gzipped))) {
+            return in.readAllBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Unbounded ranges keep the spec keys they had before date bounds existed
+    private static String rangeKey(BookingDateRange range) {
+        if (range.equals(BookingDateRange.NONE)) {
+            return "";
+        }
+        return Stream.of(range.borrowedFrom(), range.borrowedTo(), range.dueFrom(), range.dueTo(),
+                        range.returnedFrom(), range.returnedTo())
+                .map(String::valueOf)
+                .collect(Collectors.joining(":", ":", ""));
+    }
+
+    private void run(long jobId, BookingReportType type, Integer days, Long minActiveBooks, BookingDateRange range) {
+        try {
+            reportJobRepository.markRunning(jobId, LocalDateTime.now());
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+            int rows;
+            try (GZIPOutputStream gzip = new GZIPOutputStream(buffer);
+                 JsonGenerator generator = objectMapper.getFactory().createGenerator(gzip)) {
+                generator.writeStartArray();
+                rows = bookingReportJdbcRepository.streamReport(type, LocalDate.now(),
+                        days != null ? days : defaultDueSoonDays,
+                        minActiveBooks != null ? minActiveBooks : defaultMinActiveBooks,
+                        range,
+                        row -> {
+                            try {
+                                objectMapper.writeValue(generator, row);
+                            } catch (IOException e) {
+                                throw new UncheckedIOException(e);
+                            }
+                        });
+                generator.writeEndArray();
+            }
+            reportJobRepository.markDone(jobId, buffer.toByteArray(), rows, LocalDateTime.now());
+        } catch (Exception e) {
+            log.warn("Report job {} failed", jobId, e);
+            String error = String.valueOf(e.getMessage());
+            reportJobRepository.markFailed(jobId,
+                    error.length() > MAX_ERROR_LENGTH ? error.substring(0, MAX_ERROR_LENGTH) : error,
+                    LocalDateTime.now());
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+}
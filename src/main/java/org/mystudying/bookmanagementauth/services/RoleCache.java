@@ -0,0 +1,217 @@
+package org.mystudying.bookmanagementauth.services;
+
+import org.hibernate.Hibernate;
+import org.mystudying.bookmanagementauth.domain.Role;
+import org.mystudying.bookmanagementauth.domain.User;
+import org.mystudying.bookmanagementauth.events.UserCredentialsChangedEvent;
+import org.mystudying.bookmanagementauth.repositories.RoleRepository;
+import org.springframework.context.event.EventListener;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Resolves user roles without touching {@code User.roles}.
+ * The roles themselves (a handful of rows that only migrations change) are kept in an immutable map,
+ * together with a shared authority object per role; each user's role ids are cached on first use and
+ * evicted whenever the user's account changes. Role ids read inside a transaction are only cached once it
+ * commits, and never when an eviction happened since the read, like {@link CurrentUserCache}.
+ */
+@Service
+public class RoleCache {
+
+    private static final int MAX_CACHED_USERS = 10_000;
+
+    private final RoleRepository roleRepository;
+    private final Map<Long, Set<Long>> roleIdsByUser = new ConcurrentHashMap<>();
+    // bumped by every eviction, so a load that raced with a change does not store what it read
+    private final AtomicLong evictions = new AtomicLong();
+
+    private volatile Map<Long, CachedRole> roles;
+
+    public RoleCache(RoleRepository roleRepository) {
+        this.roleRepository = roleRepository;
+    }
+
+    public Set<String> roleNamesOf(User user) {
+        // freshly created users hold their roles in memory, and the join table rows may not be flushed yet
+        if (Hibernate.isInitialized(user.getRoles())) {
+            return user.getRoles().stream().map(Role::getName).collect(Collectors.toUnmodifiableSet());
+        }
+        return roleIdsOf(user.getId()).stream().map(id -> role(id).name()).collect(Collectors.toUnmodifiableSet());
+    }
+
+    public List<GrantedAuthority> authoritiesOf(long userId) {
+        return roleIdsOf(userId).stream().map(id -> role(id).authority()).toList();
+    }
+
+    /**
+     * Loads the role ids of all given users that are not cached yet with a single query.
+     */
+    public void preload(Collection<Long> userIds) {
+        List<Long> missing = userIds.stream().filter(id -> cached(id) == null).toList();
+        if (missing.isEmpty()) {
+            return;
+        }
+        long generation = evictions.get();
+        Map<Long, Set<Long>> loaded = new HashMap<>();
+        missing.forEach(id -> loaded.put(id, new HashSet<>()));
+        roleRepository.findUserRoles(missing).forEach(row -> loaded.get(row.getUserId()).add(row.getRoleId()));
+        loaded.forEach((userId, roleIds) -> cache(userId, Set.copyOf(roleIds), generation));
+    }
+
+    /**
+     * Drops the user's role ids right away and, when called inside a transaction, once more after it
+     * completes, so a request that read the old rows in the meantime cannot re-populate them.
+     */
+    public void evict(long userId) {
+        remove(userId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    remove(userId);
+                }
+            });
+        }
+    }
+
+    @EventListener
+    public void onCredentialsChanged(UserCredentialsChangedEvent event) {
+        evict(event.userId());
+    }
+
+    private void remove(long userId) {
+        evictions.incrementAndGet();
+        roleIdsByUser.remove(userId);
+        PendingRoles pending = pending();
+        if (pending != null) {
+            pending.roleIds().remove(userId);
+        }
+    }
+
+    private Set<Long> roleIdsOf(long userId) {
+        Set<Long> cached = cached(userId);
+        if (cached != null) {
+            return cached;
+        }
+        long generation = evictions.get();
+        Set<Long> roleIds = roleRepository.findUserRoles(List.of(userId)).stream()
+                .map(RoleRepository.UserRoleRow::getRoleId)
+                .collect(Collectors.toUnmodifiableSet());
+        cache(userId, roleIds, generation);
+        return roleIds;
+    }
+
+    private Set<Long> cached(long userId) {
+        Set<Long> cached = roleIdsByUser.get(userId);
+        if (cached == null) {
+            PendingRoles pending = pending();
+            if (pending != null) {
+                cached = pending.roleIds().get(userId);
+            }
+        }
+        return cached;
+    }
+
+    private void cache(long userId, Set<Long> roleIds, long generation) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            store(Map.of(userId, roleIds), generation);
+        } else {
+            // read inside a transaction that may still change the rows or roll back: serve it to this
+            // transaction only, and share it once the transaction has committed
+            pending(generation).roleIds().put(userId, roleIds);
+        }
+    }
+
+    /**
+     * Role ids read by the current transaction, or {@code null} outside of one. Kept as one of its
+     * synchronizations, so a suspended outer transaction's reads stay apart from an inner one's.
+     */
+    private PendingRoles pending() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return null;
+        }
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            if (synchronization instanceof PendingRoles pending && pending.belongsTo(this)) {
+                return pending;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * The current transaction's role ids, registered on the first read; {@code generation} is taken before that read.
+     */
+    private PendingRoles pending(long generation) {
+        PendingRoles pending = pending();
+        if (pending == null) {
+            pending = new PendingRoles(generation);
+            TransactionSynchronizationManager.registerSynchronization(pending);
+        }
+        return pending;
+    }
+
+    private void store(Map<Long, Set<Long>> loaded, long generation) {
+        if (loaded.isEmpty() || evictions.get() != generation) {
+            return;
+        }
+        if (roleIdsByUser.size() + loaded.size() > MAX_CACHED_USERS) {
+            roleIdsByUser.clear();
+        }
+        roleIdsByUser.putAll(loaded);
+    }
+
+    private CachedRole role(long roleId) {
+        Map<Long, CachedRole> current = roles;
+        if (current == null || !current.containsKey(roleId)) {
+            current = loadRoles();
+        }
+        CachedRole role = current.get(roleId);
+        if (role == null) {
+            throw new IllegalStateException("Unknown role id " + roleId);
+        }
+        return role;
+    }
+
+    private synchronized Map<Long, CachedRole> loadRoles() {
+        Map<Long, CachedRole> loaded = roleRepository.findAll().stream()
+                .collect(Collectors.toUnmodifiableMap(Role::getId,
+                        role -> new CachedRole(role.getName(), new SimpleGrantedAuthority(role.getName()))));
+        roles = loaded;
+        return loaded;
+    }
+
+    private record CachedRole(String name, GrantedAuthority authority) {
+    }
+
+    private final class PendingRoles implements TransactionSynchronization {
+
+        private final Map<Long, Set<Long>> roleIds = new HashMap<>();
+        private final long generation;
+
+        PendingRoles(long generation) {
+            this.generation = generation;
+        }
+
+        Map<Long, Set<Long>> roleIds() {
+            return roleIds;
+        }
+
+        boolean belongsTo(RoleCache cache) {
+            return cache == RoleCache.this;
+        }
+
+        @Override
+        public void afterCommit() {
+            store(roleIds, generation);
+        }
+    }
+}
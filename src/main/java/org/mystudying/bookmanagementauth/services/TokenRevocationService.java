@@ -0,0 +1,68 @@
+package org.mystudying.bookmanagementauth.services;
+
+import org.mystudying.bookmanagementauth.events.UserCredentialsChangedEvent;
+import org.mystudying.bookmanagementauth.repositories.TokenRevocationRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Compact revocation list for signed tokens: user id -> instant before which that user's tokens are rejected.
+ * Lookups are served from memory; the table is the source of truth for other nodes and is re-read every
+ * {@code app.security.token.revocation-sync}. Entries older than the refresh token lifetime are dropped,
+ * since every token they could reject has expired by then.
+ */
+@Service
+@ConditionalOnProperty(name = "app.security.token.enabled", havingValue = "true")
+public class TokenRevocationService {
+
+    private final TokenRevocationRepository revocationRepository;
+    private final Duration retention;
+
+    private volatile Map<Long, Instant> revokedBefore = new ConcurrentHashMap<>();
+
+    public TokenRevocationService(TokenRevocationRepository revocationRepository,
+                                  @Value("${app.security.token.refresh-ttl:7d}") Duration retention) {
+        this.revocationRepository = revocationRepository;
+        this.retention = retention;
+    }
+
+    public boolean isRevoked(long userId, Instant issuedAt) {
+        Instant before = revokedBefore.get(userId);
+        return before != null && issuedAt.isBefore(before);
+    }
+
+    /**
+     * Runs inside the transaction that changed the user, so the row commits (or rolls back) with the change.
+     * The local entry is applied right away; a rolled-back change only forces the user to sign in again.
+     */
+    @EventListener
+    public void onCredentialsChanged(UserCredentialsChangedEvent event) {
+        Instant now = Instant.now();
+        revocationRepository.revoke(event.userId(), now);
+        revokedBefore.merge(event.userId(), now, (current, next) -> next.isAfter(current) ? next : current);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${app.security.token.revocation-sync:PT30S}",
+            initialDelayString = "${app.security.token.revocation-sync:PT30S}")
+    public void sync() {
+        Instant cutoff = Instant.now().minus(retention);
+        revocationRepository.deleteRevokedBefore(cutoff);
+
+        Map<Long, Instant> loaded = new ConcurrentHashMap<>(revocationRepository.findRevokedSince(cutoff));
+        // keep local revocations the table does not show yet (uncommitted or concurrent)
+        revokedBefore.forEach((userId, before) -> loaded.merge(userId, before,
+                (stored, local) -> local.isAfter(stored) ? local : stored));
+        loaded.values().removeIf(before -> before.isBefore(cutoff));
+        revokedBefore = loaded;
+    }
+}
@@ -0,0 +1,188 @@
+package org.mystudying.bookmanagementauth.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.mystudying.bookmanagementauth.config.UserPrincipal;
+import org.mystudying.bookmanagementauth.domain.User;
+import org.mystudying.bookmanagementauth.dto.TokenRequestDto;
+import org.mystudying.bookmanagementauth.dto.TokenResponseDto;
+import org.mystudying.bookmanagementauth.exceptions.PasswordHashingRejectedException;
+import org.mystudying.bookmanagementauth.exceptions.UnauthorizedException;
+import org.mystudying.bookmanagementauth.repositories.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Issues and verifies HMAC-SHA256 signed tokens of the form {@code base64url(claims).base64url(signature)}.
+ * Access tokens carry the user id and roles, so verifying one needs neither the database nor a session;
+ * refresh tokens re-read the user, so a refresh picks up role changes and fails for inactive users.
+ */
+@Service
+@ConditionalOnProperty(name = "app.security.token.enabled", havingValue = "true")
+public class TokenService {
+
+    private static final Logger log = LoggerFactory.getLogger(TokenService.class);
+
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+    private static final String ACCESS = "access";
+    private static final String REFRESH = "refresh";
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private final AuthenticationProvider authenticationProvider;
+    private final UserRepository userRepository;
+    private final TokenRevocationService revocationService;
+    private final RoleCache roleCache;
+    private final ObjectMapper objectMapper;
+    private final SecretKeySpec key;
+    private final Duration accessTtl;
+    private final Duration refreshTtl;
+
+    public TokenService(AuthenticationProvider authenticationProvider,
+                        UserRepository userRepository,
+                        TokenRevocationService revocationService,
+                        RoleCache roleCache,
+                        ObjectMapper objectMapper,
+                        @Value("${app.security.token.secret:}") String secret,
+                        @Value("${app.security.token.access-ttl:15m}") Duration accessTtl,
+                        @Value("${app.security.token.refresh-ttl:7d}") Duration refreshTtl) {
+        this.authenticationProvider = authenticationProvider;
+        this.userRepository = userRepository;
+        this.revocationService = revocationService;
+        this.roleCache = roleCache;
+        this.objectMapper = objectMapper;
+        this.accessTtl = accessTtl;
+        this.refreshTtl = refreshTtl;
+
+        byte[] keyBytes;
+        if (secret.isBlank()) {
+            log.warn("app.security.token.secret is not set; using a random key, so tokens are only valid on this node until it restarts");
+            keyBytes = new byte[32];
+            new SecureRandom().nextBytes(keyBytes);
+        } else {
+            keyBytes = Base64.getDecoder().decode(secret);
+            if (keyBytes.length < 32) {
+                throw new IllegalStateException("app.security.token.secret must be a Base64 encoded key of at least 32 bytes");
+            }
+        }
+        this.key = new SecretKeySpec(keyBytes, HMAC_ALGORITHM);
+    }
+
+    public TokenResponseDto issue(TokenRequestDto request) {
+        Authentication authentication;
+        try {
+            authentication = authenticationProvider.authenticate(
+                    UsernamePasswordAuthenticationToken.unauthenticated(request.email(), request.password()));
+        } catch (PasswordHashingRejectedException e) {
+            throw e;
+        } catch (AuthenticationException e) {
+            throw new UnauthorizedException("Invalid credentials");
+        }
+        return issue((UserPrincipal) authentication.getPrincipal());
+    }
+
+    public TokenResponseDto refresh(String refreshToken) {
+        TokenClaims claims = verify(refreshToken, REFRESH)
+                .orElseThrow(() -> new UnauthorizedException("Invalid or expired refresh token"));
+        User user = userRepository.findById(claims.sub())
+                .filter(User::isActive)
+                .orElseThrow(() -> new UnauthorizedException("Invalid or expired refresh token"));
+        return issue(UserPrincipal.from(user, roleCache.authoritiesOf(user.getId())));
+    }
+
+    /**
+     * Verifies an access token without touching the database.
+     */
+    public Optional<UserPrincipal> authenticate(String accessToken) {
+        return verify(accessToken, ACCESS).map(claims -> new UserPrincipal(
+                claims.sub(),
+                claims.email(),
+                null,
+                true,
+                claims.roles().stream().map(SimpleGrantedAuthority::new).toList()));
+    }
+
+    private TokenResponseDto issue(UserPrincipal principal) {
+        Instant now = Instant.now();
+        List<String> roles = principal.getAuthorities().stream()
+                .map(GrantedAuthority::getAuthority)
+                .toList();
+
+        String accessToken = sign(new TokenClaims(principal.getId(), principal.getUsername(), roles, ACCESS,
+                now.toEpochMilli(), now.plus(accessTtl).toEpochMilli()));
+        String refreshToken = sign(new TokenClaims(principal.getId(), principal.getUsername(), List.of(), REFRESH,
+                now.toEpochMilli(), now.plus(refreshTtl).toEpochMilli()));
+        return new TokenResponseDto(accessToken, refreshToken, "Bearer", accessTtl.toSeconds());
+    }
+
+    private String sign(TokenClaims claims) {
+        try {
+            String payload = ENCODER.encodeToString(objectMapper.writeValueAsBytes(claims));
+            return payload + "." + ENCODER.encodeToString(mac(payload));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize token claims", e);
+        }
+    }
+
+    private Optional<TokenClaims> verify(String token, String type) {
+        int dot = token.indexOf('.');
+        if (dot <= 0 || dot != token.lastIndexOf('.')) {
+            return Optional.empty();
+        }
+        String payload = token.substring(0, dot);
+
+        TokenClaims claims;
+        try {
+            if (!MessageDigest.isEqual(mac(payload), DECODER.decode(token.substring(dot + 1)))) {
+                return Optional.empty();
+            }
+            claims = objectMapper.readValue(DECODER.decode(payload), TokenClaims.class);
+        } catch (IllegalArgumentException | IOException e) {
+            return Optional.empty();
+        }
+
+        Instant now = Instant.now();
+        if (!type.equals(claims.typ())
+                || !Instant.ofEpochMilli(claims.exp()).isAfter(now)
+                || revocationService.isRevoked(claims.sub(), Instant.ofEpochMilli(claims.iat()))) {
+            return Optional.empty();
+        }
+        return Optional.of(claims);
+    }
+
+    private byte[] mac(String payload) {
+        try {
+            Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(key);
+            return mac.doFinal(payload.getBytes(StandardCharsets.US_ASCII));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(HMAC_ALGORITHM + " is not available", e);
+        }
+    }
+
+    // package-private so Jackson can bind it without opening up access
+    record TokenClaims(long sub, String email, List<String> roles, String typ, long iat, long exp) {
+    }
+}
@@ -0,0 +1,80 @@
+package org.mystudying.bookmanagementauth.services;
+
+import org.mystudying.bookmanagementauth.events.UserCredentialsChangedEvent;
+import org.mystudying.bookmanagementauth.events.UserProfileChangedEvent;
+import org.mystudying.bookmanagementauth.repositories.UserCacheEvictionRepository;
+import org.mystudying.bookmanagementauth.repositories.UserCacheEvictionRepository.Eviction;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Carries evictions of the node-local user caches to the other nodes. Every change that evicts locally also
+ * stamps a row into {@code user_cache_evictions}; each node re-reads the rows stamped since its previous poll every
+ * {@code app.users.cache-sync} and evicts them as well. A change made on one node therefore stops being served
+ * from the caches of the others within about one sync interval, instead of one cache TTL.
+ */
+@Service
+public class UserCacheSyncService {
+
+    // covers transactions that stamped their row before a poll but committed after it
+    private static final Duration OVERLAP = Duration.ofSeconds(5);
+    // far beyond any cache TTL: a node that has not polled for this long holds no entry older than the rows
+    private static final Duration RETENTION = Duration.ofDays(1);
+    private static final String CREDENTIALS = "CREDENTIALS";
+    private static final String PROFILE = "PROFILE";
+
+    private final UserCacheEvictionRepository evictionRepository;
+    private final CredentialCache credentialCache;
+    private final CurrentUserCache currentUserCache;
+
+    // database time of the previous poll, null before the first one
+    private Instant lastPoll;
+
+    public UserCacheSyncService(UserCacheEvictionRepository evictionRepository, CredentialCache credentialCache,
+                                CurrentUserCache currentUserCache) {
+        this.evictionRepository = evictionRepository;
+        this.credentialCache = credentialCache;
+        this.currentUserCache = currentUserCache;
+    }
+
+    /**
+     * Runs inside the transaction that changed the user, so the row commits (or rolls back) with the change.
+     */
+    @EventListener
+    public void onCredentialsChanged(UserCredentialsChangedEvent event) {
+        evictionRepository.record(event.userId(), CREDENTIALS);
+    }
+
+    @EventListener
+    public void onProfileChanged(UserProfileChangedEvent event) {
+        evictionRepository.record(event.userId(), PROFILE);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${app.users.cache-sync:PT5S}", initialDelayString = "${app.users.cache-sync:PT5S}")
+    public synchronized void sync() {
+        Instant now = evictionRepository.now();
+        if (lastPoll != null) {
+            for (Eviction eviction : evictionRepository.findEvictedSince(lastPoll.minus(OVERLAP))) {
+                evict(eviction);
+            }
+        }
+        lastPoll = now;
+        evictionRepository.deleteEvictedBefore(now.minus(RETENTION));
+    }
+
+    private void evict(Eviction eviction) {
+        switch (eviction.cache()) {
+            case CREDENTIALS -> credentialCache.invalidate(eviction.userId());
+            case PROFILE -> currentUserCache.invalidate(eviction.userId());
+            default -> {
+                // written by a newer node during a rolling upgrade
+            }
+        }
+    }
+}
@@ -3,17 +3,19 @@ package org.mystudying.bookmanagementauth.services;
 import jakarta.persistence.EntityManager;
 import org.mystudying.bookmanagementauth.domain.Book;
 import org.mystudying.bookmanagementauth.domain.Booking;
-import org.mystudying.bookmanagementauth.domain.Role;
 import org.mystudying.bookmanagementauth.domain.User;
 import org.mystudying.bookmanagementauth.dto.*;
+import org.mystudying.bookmanagementauth.events.BookRentedEvent;
+import org.mystudying.bookmanagementauth.events.UserCredentialsChangedEvent;
+import org.mystudying.bookmanagementauth.events.UserProfileChangedEvent;
 import org.mystudying.bookmanagementauth.exceptions.*;
 import org.mystudying.bookmanagementauth.repositories.BookRepository;
 import org.mystudying.bookmanagementauth.repositories.BookingRepository;
 import org.mystudying.bookmanagementauth.repositories.RoleRepository;
 import org.mystudying.bookmanagementauth.repositories.UserRepository;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Sort;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -30,28 +32,33 @@ public class UserService {
     private final BookRepository bookRepository;
     private final BookingRepository bookingRepository;
     private final RoleRepository roleRepository;
-    private final PasswordEncoder passwordEncoder;
     private final EntityManager entityManager;
     private final InventoryService inventoryService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final RoleCache roleCache;
 
     public UserService(UserRepository userRepository,
                        BookRepository bookRepository,
                        BookingRepository bookingRepository,
                        RoleRepository roleRepository,
-                       PasswordEncoder passwordEncoder,
                        EntityManager entityManager,
-                       InventoryService inventoryService) {
+                       InventoryService inventoryService,
+                       ApplicationEventPublisher eventPublisher,
+                       RoleCache roleCache) {
         this.userRepository = userRepository;
         this.bookRepository = bookRepository;
         this.bookingRepository = bookingRepository;
         this.roleRepository = roleRepository;
-        this.passwordEncoder = passwordEncoder;
         this.entityManager = entityManager;
         this.inventoryService = inventoryService;
+        this.eventPublisher = eventPublisher;
+        this.roleCache = roleCache;
     }
 
     public List<UserDto> findAll() {
-        return userRepository.findAll(Sort.by("name")).stream()
+        List<User> users = userRepository.findAll(Sort.by("name"));
+        roleCache.preload(users.stream().map(User::getId).toList());
+        return users.stream()
                 .map(this::toDto)
                 .collect(Collectors.toList());
     }
@@ -72,6 +79,21 @@ public class UserService {
         return userRepository.findById(id).map(this::toDto);
     }
 
+    /**
+     * Loads the profile snapshot behind {@code /api/auth/me}; callers go through {@link CurrentUserCache}.
+     */
+    public Optional<CurrentUserDto> findCurrentUser(long id) {
+        return userRepository.findById(id).map(user -> new CurrentUserDto(
+                user.getId(),
+                user.getName(),
+                user.getEmail(),
+                user.isActive(),
+                roleCache.roleNamesOf(user),
+                bookingRepository.countActiveByUserId(id),
+                bookingRepository.countUnpaidFinesByUserId(id)
+        ));
+    }
+
     public Optional<UserDto> findByName(String name) {
         return userRepository.findByName(name).map(this::toDto);
     }
@@ -134,56 +156,78 @@ public class UserService {
 
         if (booking.getFine().compareTo(BigDecimal.ZERO) > 0 && !booking.isFinePaid()) {
             booking.setFinePaid(true);
+            eventPublisher.publishEvent(new UserProfileChangedEvent(userId));
         }
     }
 
+    /**
+     * @param passwordHash the request's password, already encoded: hashing takes far longer than the insert and must
+     *                     not run while the transaction holds a pooled connection
+     */
     @Transactional
-    public UserDto register(RegisterRequestDto registerRequestDto) {
+    public UserDto register(RegisterRequestDto registerRequestDto, String passwordHash) {
         try {
             User user = new User(null,
                     registerRequestDto.name(),
                     registerRequestDto.email(),
-                    passwordEncoder.encode(registerRequestDto.password()));
+                    passwordHash);
 
             roleRepository.findByName("ROLE_USER").ifPresent(user::addRole);
 
-            return toDto(userRepository.save(user));
+            // flushed here, so a duplicate email fails inside the try (inserts are deferred with pooled ids)
+            return toDto(userRepository.saveAndFlush(user));
         } catch (DataIntegrityViolationException e) {
             throw new EmailAlreadyExistsException(registerRequestDto.email());
         }
     }
 
+    /**
+     * @param passwordHash the request's password, already encoded (see {@link #register})
+     */
     @Transactional
-    public UserDto save(CreateUserRequestDto createUserRequestDto) {
+    public UserDto save(CreateUserRequestDto createUserRequestDto, String passwordHash) {
         try {
             User user = new User(null,
                     createUserRequestDto.name(),
                     createUserRequestDto.email(),
-                    passwordEncoder.encode(createUserRequestDto.password()));
+                    passwordHash);
 
             roleRepository.findByName("ROLE_USER").ifPresent(user::addRole);
 
-            return toDto(userRepository.save(user));
+            return toDto(userRepository.saveAndFlush(user));
         } catch (DataIntegrityViolationException e) {
             throw new EmailAlreadyExistsException(createUserRequestDto.email());
         }
     }
 
+    /**
+     * @param passwordHash the request's new password, already encoded (see {@link #register}); {@code null} keeps
+     *                     the current one
+     */
     @Transactional
-    public UserDto update(long id, UpdateUserRequestDto updateUserRequestDto) {
+    public UserDto update(long id, UpdateUserRequestDto updateUserRequestDto, String passwordHash) {
         User user = userRepository.findById(id).orElseThrow(() -> new UserNotFoundException(id));
         try {
             user.setName(updateUserRequestDto.name());
+            // a new login name also matters: remembered credentials would keep the old one working
+            boolean credentialsChanged = !user.getEmail().equals(updateUserRequestDto.email());
             user.setEmail(updateUserRequestDto.email());
 
-            if (updateUserRequestDto.password() != null && !updateUserRequestDto.password().isBlank()) {
-                user.setPassword(passwordEncoder.encode(updateUserRequestDto.password()));
+            if (passwordHash != null) {
+                user.setPassword(passwordHash);
+                credentialsChanged = true;
             }
 
             if (updateUserRequestDto.active() != null) {
+                credentialsChanged |= updateUserRequestDto.active() != user.isActive();
                 user.setActive(updateUserRequestDto.active());
             }
 
+            if (credentialsChanged) {
+                eventPublisher.publishEvent(new UserCredentialsChangedEvent(id));
+            }
+            eventPublisher.publishEvent(new UserProfileChangedEvent(id));
+
             return toDto(userRepository.saveAndFlush(user));
         } catch (DataIntegrityViolationException e) {
             throw new EmailAlreadyExistsException(user.getEmail());
@@ -197,6 +241,8 @@ public class UserService {
             throw new UserHasBookingsException(id);
         }
         userRepository.delete(user);
+        eventPublisher.publishEvent(new UserCredentialsChangedEvent(id));
+        eventPublisher.publishEvent(new UserProfileChangedEvent(id));
     }
 
     @Transactional
@@ -226,6 +272,9 @@ public class UserService {
         Booking booking = new Booking(user, bookRef, LocalDate.now(), LocalDate.now().plusDays(14));
         user.addBooking(booking);
         bookingRepository.save(booking);
+
+        eventPublisher.publishEvent(new BookRentedEvent(booking.getId(), userId, bookId, booking.getBorrowedAt()));
+        eventPublisher.publishEvent(new UserProfileChangedEvent(userId));
     }
 
     @Transactional
@@ -244,6 +293,7 @@ public class UserService {
         booking.setFine(booking.calculateFine());
 
         inventoryService.incrementStock(bookId);
+        eventPublisher.publishEvent(new UserProfileChangedEvent(userId));
     }
 
     private UserDto toDto(User user) {
@@ -252,9 +302,7 @@ public class UserService {
                 user.getName(),
                 user.getEmail(),
                 user.isActive(),
-                user.getRoles().stream()
-                        .map(Role::getName)
-                        .collect(Collectors.toSet())
+                roleCache.roleNamesOf(user)
         );
     }
 }
@@ -0,0 +1,14 @@
+-- HTTP sessions shared by all nodes (app.sessions.store=jdbc). Times are epoch millis. version is bumped by every
+-- attribute write (repositories.JdbcSessionRepository), so a node notices when another node wrote in between.
+-- Kept to plain SQL so the same script sets up the embedded H2 database in tests.
+CREATE TABLE app_sessions (
+    id VARCHAR(36) NOT NULL PRIMARY KEY,
+    creation_time BIGINT NOT NULL,
+    last_accessed_time BIGINT NOT NULL,
+    max_inactive_seconds INT NOT NULL,
+    expiry_time BIGINT NOT NULL,
+    attributes BLOB NOT NULL,
+    version BIGINT DEFAULT 0 NOT NULL
+);
+
+CREATE INDEX idx_app_sessions_expiry_time ON app_sessions (expiry_time);
@@ -0,0 +1,21 @@
+-- Pooled ids for authors, books, users and bookings (domain.IdAllocation).
+-- next_val is the last id handed out (Hibernate's table generator stores the last used value). A node reserves
+-- next_val + 1 up to next_val + allocation size by reading the row FOR UPDATE and storing the new last id
+-- in its own short transaction, so any number of nodes and the bulk import can share it.
+CREATE TABLE id_allocator (
+    name VARCHAR(64) NOT NULL PRIMARY KEY,
+    next_val BIGINT NOT NULL
+);
+
+INSERT INTO id_allocator (name, next_val) SELECT 'authors', COALESCE(MAX(id), 0) FROM authors;
+INSERT INTO id_allocator (name, next_val) SELECT 'books', COALESCE(MAX(id), 0) FROM books;
+INSERT INTO id_allocator (name, next_val) SELECT 'users', COALESCE(MAX(id), 0) FROM users;
+INSERT INTO id_allocator (name, next_val) SELECT 'bookings', COALESCE(MAX(id), 0) FROM bookings;
+
+-- Rows written with plain SQL (migrations, seed scripts, test data) keep taking AUTO_INCREMENT ids.
+-- Those start far above the allocator's range, so the two never hand out the same id: explicit ids
+-- below the counter do not move it.
+ALTER TABLE authors AUTO_INCREMENT = 1000000000;
+ALTER TABLE books AUTO_INCREMENT = 1000000000;
+ALTER TABLE users AUTO_INCREMENT = 1000000000;
+ALTER TABLE bookings AUTO_INCREMENT = 1000000000;
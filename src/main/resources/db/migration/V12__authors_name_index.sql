@@ -0,0 +1,2 @@
+-- Bulk imports (POST /api/books/import) resolve authors by name
+CREATE INDEX idx_authors_name ON authors (name);
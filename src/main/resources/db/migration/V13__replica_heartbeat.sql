@@ -0,0 +1,8 @@
+-- Replication lag probe (config.ReplicaLagMonitor): one heartbeat row per running node, written with the current
+-- time (epoch millis) on the primary and read back from the replica. A node only compares its own row with its own
+-- clock, so clock differences between nodes do not count as replication lag. Rows of nodes that stopped beating are
+-- removed by the next node that starts.
+CREATE TABLE replica_heartbeat (
+    node_id VARCHAR(36) NOT NULL PRIMARY KEY,
+    beat_millis BIGINT NOT NULL
+);
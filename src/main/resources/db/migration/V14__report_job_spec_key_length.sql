@@ -0,0 +1,2 @@
+-- Report job specs now include the optional booking date bounds (six ISO dates), which do not fit in 100 characters
+ALTER TABLE report_jobs MODIFY spec_key VARCHAR(255) NOT NULL;
@@ -0,0 +1,10 @@
+-- Cross-node evictions of the node-local user caches (services.UserCacheSyncService): one row per user and cache,
+-- stamped with database time inside the transaction that changed the user. Every node re-reads the rows stamped
+-- since its previous poll and drops its own entries; rows are only needed until every node has polled past them.
+CREATE TABLE user_cache_evictions (
+    user_id BIGINT NOT NULL,
+    cache VARCHAR(20) NOT NULL,
+    evicted_at TIMESTAMP(3) NOT NULL,
+    PRIMARY KEY (user_id, cache),
+    INDEX idx_user_cache_evictions_evicted_at (evicted_at)
+);
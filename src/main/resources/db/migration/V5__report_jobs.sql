@@ -0,0 +1,19 @@
+-- Asynchronous report jobs: spec, lifecycle and gzip-compressed JSON result
+
+CREATE TABLE IF NOT EXISTS report_jobs (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    spec_key VARCHAR(100) NOT NULL,
+    report_type VARCHAR(30) NOT NULL,
+    due_soon_days INT,
+    min_active_books BIGINT,
+    status VARCHAR(20) NOT NULL,
+    row_count INT,
+    result LONGBLOB,
+    error VARCHAR(500),
+    created_at DATETIME NOT NULL,
+    started_at DATETIME,
+    finished_at DATETIME
+);
+
+-- Reuse lookup: latest job for the same spec
+CREATE INDEX idx_report_jobs_spec_created ON report_jobs (spec_key, created_at);
@@ -0,0 +1,44 @@
+-- Daily circulation rollups for time-series reports.
+-- Each closed day is aggregated once from bookings; rows are keyed so re-running a day overwrites it.
+--   borrowed      bookings with borrowed_at = day
+--   returned      bookings with returned_at = day
+--   overdue       loans that became overdue on day (due_at = day - 1 and not returned by due date)
+--   fines         fines assessed on returns of that day
+
+CREATE TABLE IF NOT EXISTS circulation_daily (
+    day DATE PRIMARY KEY,
+    borrowed INT NOT NULL DEFAULT 0,
+    returned INT NOT NULL DEFAULT 0,
+    overdue INT NOT NULL DEFAULT 0,
+    fines DECIMAL(12,2) NOT NULL DEFAULT 0
+);
+
+CREATE TABLE IF NOT EXISTS circulation_daily_genre (
+    genre_id BIGINT NOT NULL,
+    day DATE NOT NULL,
+    borrowed INT NOT NULL DEFAULT 0,
+    returned INT NOT NULL DEFAULT 0,
+    overdue INT NOT NULL DEFAULT 0,
+    fines DECIMAL(12,2) NOT NULL DEFAULT 0,
+    PRIMARY KEY (genre_id, day),
+    INDEX idx_circulation_daily_genre_day (day)
+);
+
+CREATE TABLE IF NOT EXISTS circulation_daily_author (
+    author_id BIGINT NOT NULL,
+    day DATE NOT NULL,
+    borrowed INT NOT NULL DEFAULT 0,
+    returned INT NOT NULL DEFAULT 0,
+    overdue INT NOT NULL DEFAULT 0,
+    fines DECIMAL(12,2) NOT NULL DEFAULT 0,
+    PRIMARY KEY (author_id, day),
+    INDEX idx_circulation_daily_author_day (day)
+);
+
+-- Watermark: last day that has been rolled up
+CREATE TABLE IF NOT EXISTS rollup_state (
+    name VARCHAR(50) PRIMARY KEY,
+    last_day DATE
+);
+
+INSERT INTO rollup_state (name, last_day) VALUES ('circulation_daily', NULL);
@@ -0,0 +1,6 @@
+-- Indexes backing the date-range filters of the booking reports.
+-- Reports split on returned_at (active vs. returned), so the composites lead with it.
+CREATE INDEX idx_bookings_returned_due ON bookings (returned_at, due_at);
+CREATE INDEX idx_bookings_returned_borrowed ON bookings (returned_at, borrowed_at);
+CREATE INDEX idx_bookings_borrowed ON bookings (borrowed_at);
+CREATE INDEX idx_bookings_due ON bookings (due_at);
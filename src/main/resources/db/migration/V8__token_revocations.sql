@@ -0,0 +1,7 @@
+-- Signed tokens issued to a user before revoked_before are rejected (deactivation, password change, deletion).
+-- Rows are only needed until the longest-lived token issued before them has expired.
+CREATE TABLE token_revocations (
+    user_id BIGINT PRIMARY KEY,
+    revoked_before TIMESTAMP(3) NOT NULL,
+    INDEX idx_token_revocations_revoked_before (revoked_before)
+);
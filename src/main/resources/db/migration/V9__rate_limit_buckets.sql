@@ -0,0 +1,7 @@
+-- Token buckets shared by all nodes when app.rate-limit.store=jdbc
+CREATE TABLE rate_limit_buckets (
+    bucket_key VARCHAR(255) PRIMARY KEY,
+    tokens DOUBLE NOT NULL,
+    updated_at BIGINT NOT NULL, -- epoch millis of the last refill
+    INDEX idx_rate_limit_buckets_updated_at (updated_at)
+);
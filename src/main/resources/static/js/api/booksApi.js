@@ -10,6 +10,10 @@ window.booksApi = {
         return api.get(`/api/books/${id}`);
     },
 
+    popular(window = "WEEK", limit = 5) {
+        return api.get(`/api/books/popular?window=${window}&limit=${limit}`);
+    },
+
     create(data) {
         return api.post("/api/books", data);
     },
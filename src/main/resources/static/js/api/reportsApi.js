@@ -11,5 +11,10 @@ window.reportsApi = {
         });
 
         return api.get(`/api/reports/bookings?${queryParams.toString()}`);
+    },
+
+    fetchSummary(filters = {}) {
+        const queryParams = new URLSearchParams(filters);
+        return api.get(`/api/reports/summary?${queryParams.toString()}`);
     }
 };
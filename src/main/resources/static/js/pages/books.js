@@ -19,6 +19,27 @@ class BooksPage {
     init() {
         this.bindEvents();
         this.handleInitialParams();
+        this.loadPopular();
+    }
+
+    async loadPopular() {
+        const container = byId('popularBooks');
+        const list = byId('popularBooksList');
+        if (!container || !list) return;
+
+        try {
+            const response = await booksApi.popular('WEEK', 5);
+            if (!response.ok) return;
+            const popularity = await response.json();
+            if (popularity.books.length === 0) return;
+
+            list.innerHTML = popularity.books
+                .map(b => `<a href="/books/${b.id}" class="badge bg-light text-dark text-decoration-none me-1">${b.name} (${b.rents})</a>`)
+                .join('');
+            container.style.display = 'block';
+        } catch (error) {
+            console.error('Error loading popular books:', error);
+        }
     }
 
     bindEvents() {
@@ -8,6 +8,7 @@ class ReportsPage {
         this.minActiveBooksInputContainer = byId('minActiveBooksInputContainer');
         this.btnRunReport = byId('btnRunReport');
         
+        this.reportSummary = byId('report-summary');
         this.reportTitle = byId('report-title');
         this.reportContent = byId('report-content');
         this.reportHeader = byId('report-header');
@@ -25,6 +26,7 @@ class ReportsPage {
         this.bindEvents();
         // Set initial visibility
         this.handleReportTypeChange();
+        this.loadSummary();
     }
 
     bindEvents() {
@@ -32,6 +34,7 @@ class ReportsPage {
         this.btnRunReport?.addEventListener('click', () => {
             this.currentPage = 0;
             this.loadReport();
+            this.loadSummary();
         });
 
         this.prevPageButton?.addEventListener("click", () => {
@@ -61,6 +64,8 @@ class ReportsPage {
 
         if (type === 'DUE_SOON') filters.days = byId('days').value;
         if (type === 'HEAVY_USERS') filters.minActiveBooks = byId('minActiveBooks').value;
+        if (byId('borrowedFrom')?.value) filters.borrowedFrom = byId('borrowedFrom').value;
+        if (byId('borrowedTo')?.value) filters.borrowedTo = byId('borrowedTo').value;
         
         this.reportTitle.textContent = `${this.reportTypeSelect.options[this.reportTypeSelect.selectedIndex].text} Report`;
         this.reportContent.classList.add("loading");
@@ -85,6 +90,50 @@ class ReportsPage {
         }
     }
 
+    async loadSummary() {
+        if (!this.reportSummary) return;
+
+        // Empty inputs are left out so the server applies its configured defaults
+        const filters = {};
+        const days = byId('days')?.value;
+        const minActiveBooks = byId('minActiveBooks')?.value;
+        if (days) filters.days = days;
+        if (minActiveBooks) filters.minActiveBooks = minActiveBooks;
+
+        try {
+            const response = await reportsApi.fetchSummary(filters);
+            if (response.ok) {
+                this.renderSummary(await response.json());
+            }
+        } catch (error) {
+            console.error('Error fetching report summary:', error);
+        }
+    }
+
+    renderSummary(summary) {
+        const money = value => `$${Number(value || 0).toFixed(2)}`;
+        const tiles = [
+            ["Active", summary.active, ""],
+            ["Returned", summary.returned, ""],
+            ["Overdue", summary.overdue, summary.overdue > 0 ? "status-overdue" : ""],
+            ["Due Soon", summary.dueSoon, summary.dueSoon > 0 ? "status-near-due" : ""],
+            ["Total Fines", money(summary.totalFines), ""],
+            ["Unpaid Fines", money(summary.unpaidFines), summary.unpaidFines > 0 ? "status-overdue" : ""],
+            ["Heavy Users", summary.heavyUsers, ""]
+        ];
+
+        this.reportSummary.innerHTML = tiles.map(([label, value, cls]) => `
+            <div class="col-6 col-md-3 col-xl">
+                <div class="card shadow-sm h-100">
+                    <div class="card-body text-center">
+                        <div class="text-muted small">${label}</div>
+                        <div class="fs-4 fw-bold ${cls}">${value}</div>
+                    </div>
+                </div>
+            </div>
+        `).join('');
+    }
+
     renderReport(pageData) {
         const content = pageData.content;
         const headers = ["User", "Email", "Book", "Borrowed", "Returned", "Overdue", "Fine", "Fine Paid", "Status"];
@@ -0,0 +1,102 @@
+package org.mystudying.bookmanagementauth.auth;
+
+import org.junit.jupiter.api.Test;
+import org.mystudying.bookmanagementauth.dto.UpdateUserRequestDto;
+import org.mystudying.bookmanagementauth.repositories.UserCacheEvictionRepository;
+import org.mystudying.bookmanagementauth.services.CredentialCache;
+import org.mystudying.bookmanagementauth.services.UserCacheSyncService;
+import org.mystudying.bookmanagementauth.services.UserService;
+import org.mystudying.bookmanagementauth.support.AbstractSecurityIntegrationTest;
+import org.springframework.jdbc.core.simple.JdbcClient;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.jdbc.Sql;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.httpBasic;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@Sql("/insertTestRecords.sql")
+public class CredentialCacheTest extends AbstractSecurityIntegrationTest {
+
+    private static final String EMAIL = "test1@example.com";
+
+    private final UserService userService;
+    private final CredentialCache credentialCache;
+    private final UserCacheEvictionRepository evictionRepository;
+    private final UserCacheSyncService cacheSyncService;
+    private final JdbcClient jdbcClient;
+    private final PasswordEncoder passwordEncoder;
+
+    public CredentialCacheTest(UserService userService, CredentialCache credentialCache,
+                               UserCacheEvictionRepository evictionRepository, UserCacheSyncService cacheSyncService,
+                               JdbcClient jdbcClient, PasswordEncoder passwordEncoder) {
+        this.userService = userService;
+        this.credentialCache = credentialCache;
+        this.evictionRepository = evictionRepository;
+        this.cacheSyncService = cacheSyncService;
+        this.jdbcClient = jdbcClient;
+        this.passwordEncoder = passwordEncoder;
+    }
+
+    private void expectMe(String email, String password, int status) throws Exception {
+        mockMvc.perform(get("/api/auth/me").with(httpBasic(email, password)))
+                .andExpect(status().is(status));
+    }
+
+    @Test
+    void verifiedCredentialsAreServedFromCache() throws Exception {
+        expectMe(EMAIL, "password", 200);
+
+        // Scramble the stored hash behind the service's back: only a cache hit can still authenticate
+        jdbcClient.sql("UPDATE users SET password = '{noop}scrambled' WHERE email = ?").param(EMAIL).update();
+
+        expectMe(EMAIL, "password", 200);
+        expectMe(EMAIL, "wrong", 401);
+    }
+
+    @Test
+    void passwordChangeInvalidatesCachedCredentials() throws Exception {
+        long id = idOfUser(EMAIL);
+        expectMe(EMAIL, "password", 200);
+
+        userService.update(id, new UpdateUserRequestDto("Test User 1", EMAIL, "changed", null),
+                passwordEncoder.encode("changed"));
+
+        expectMe(EMAIL, "password", 401);
+        expectMe(EMAIL, "changed", 200);
+    }
+
+    @Test
+    void deactivationInvalidatesCachedCredentials() throws Exception {
+        long id = idOfUser(EMAIL);
+        expectMe(EMAIL, "password", 200);
+
+        userService.update(id, new UpdateUserRequestDto("Test User 1", EMAIL, null, false), null);
+
+        expectMe(EMAIL, "password", 401);
+    }
+
+    @Test
+    void evictionsRecordedByAnotherNodeDropCachedCredentials() throws Exception {
+        expectMe(EMAIL, "password", 200);
+        assertThat(credentialCache.get(EMAIL, "password")).isNotNull();
+
+        // all that a change on another node leaves behind for this one
+        evictionRepository.record(idOfUser(EMAIL), "CREDENTIALS");
+        cacheSyncService.sync();
+
+        assertThat(credentialCache.get(EMAIL, "password")).isNull();
+    }
+
+    @Test
+    void circulationKeepsCachedCredentials() throws Exception {
+        String email = "rent@example.com";
+        long bookId = jdbcClient.sql("SELECT id FROM books WHERE title = 'Rentable Book'").query(Long.class).single();
+        expectMe(email, "password", 200);
+
+        userService.rentBook(idOfUser(email), bookId);
+
+        assertThat(credentialCache.get(email, "password")).isNotNull();
+    }
+}
@@ -0,0 +1,105 @@
+package org.mystudying.bookmanagementauth.auth;
+
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.mystudying.bookmanagementauth.dto.UpdateUserRequestDto;
+import org.mystudying.bookmanagementauth.repositories.UserCacheEvictionRepository;
+import org.mystudying.bookmanagementauth.services.UserCacheSyncService;
+import org.mystudying.bookmanagementauth.services.UserService;
+import org.mystudying.bookmanagementauth.support.AbstractSecurityIntegrationTest;
+import org.springframework.jdbc.core.simple.JdbcClient;
+import org.springframework.mock.web.MockHttpSession;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.web.servlet.ResultActions;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@Sql("/insertTestRecords.sql")
+public class CurrentUserCacheTest extends AbstractSecurityIntegrationTest {
+
+    private static final String EMAIL = "test1@example.com";
+
+    private final UserService userService;
+    private final UserCacheEvictionRepository evictionRepository;
+    private final UserCacheSyncService cacheSyncService;
+    private final JdbcClient jdbcClient;
+    private final EntityManager entityManager;
+
+    public CurrentUserCacheTest(UserService userService, UserCacheEvictionRepository evictionRepository,
+                                UserCacheSyncService cacheSyncService, JdbcClient jdbcClient,
+                                EntityManager entityManager) {
+        this.userService = userService;
+        this.evictionRepository = evictionRepository;
+        this.cacheSyncService = cacheSyncService;
+        this.jdbcClient = jdbcClient;
+        this.entityManager = entityManager;
+    }
+
+    private ResultActions me(MockHttpSession session) throws Exception {
+        return mockMvc.perform(get("/api/auth/me").session(session))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void meIncludesLoanAndFineCounters() throws Exception {
+        me(loginAsUser())
+                .andExpect(jsonPath("$.email").value(EMAIL))
+                .andExpect(jsonPath("$.roles[0]").value("ROLE_USER"))
+                .andExpect(jsonPath("$.activeLoans").value(1))
+                .andExpect(jsonPath("$.unpaidFines").value(0));
+    }
+
+    @Test
+    void repeatedRequestsAreServedFromTheSnapshot() throws Exception {
+        MockHttpSession session = loginAsUser();
+        me(session).andExpect(jsonPath("$.name").value("Test User 1"));
+
+        // Rename behind the service's back: only a cached snapshot still shows the old name
+        jdbcClient.sql("UPDATE users SET name = 'Renamed' WHERE email = ?").param(EMAIL).update();
+
+        me(session).andExpect(jsonPath("$.name").value("Test User 1"));
+    }
+
+    @Test
+    void returningABookRefreshesTheCounters() throws Exception {
+        long id = idOfUser(EMAIL);
+        long bookId = jdbcClient.sql("SELECT id FROM books WHERE title = 'Test Book 1'").query(Long.class).single();
+        MockHttpSession session = loginAsUser();
+        me(session).andExpect(jsonPath("$.activeLoans").value(1));
+
+        userService.returnBook(id, bookId);
+
+        // the loan was overdue, so returning it leaves an unpaid fine
+        me(session)
+                .andExpect(jsonPath("$.activeLoans").value(0))
+                .andExpect(jsonPath("$.unpaidFines").value(1));
+    }
+
+    @Test
+    void profileUpdateRefreshesTheSnapshot() throws Exception {
+        long id = idOfUser(EMAIL);
+        MockHttpSession session = loginAsUser();
+        me(session).andExpect(jsonPath("$.name").value("Test User 1"));
+
+        userService.update(id, new UpdateUserRequestDto("Renamed", EMAIL, null, null), null);
+
+        me(session).andExpect(jsonPath("$.name").value("Renamed"));
+    }
+
+    @Test
+    void evictionsRecordedByAnotherNodeDropTheSnapshot() throws Exception {
+        MockHttpSession session = loginAsUser();
+        me(session).andExpect(jsonPath("$.name").value("Test User 1"));
+
+        // all that a rename on another node leaves behind for this one
+        jdbcClient.sql("UPDATE users SET name = 'Renamed' WHERE email = ?").param(EMAIL).update();
+        // the test transaction's persistence context still holds the user as first loaded
+        entityManager.clear();
+        evictionRepository.record(idOfUser(EMAIL), "PROFILE");
+        cacheSyncService.sync();
+
+        me(session).andExpect(jsonPath("$.name").value("Renamed"));
+    }
+}
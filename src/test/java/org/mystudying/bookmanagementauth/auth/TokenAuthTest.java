@@ -0,0 +1,107 @@
+package org.mystudying.bookmanagementauth.auth;
+
+import com.jayway.jsonpath.JsonPath;
+import org.junit.jupiter.api.Test;
+import org.mystudying.bookmanagementauth.dto.UpdateUserRequestDto;
+import org.mystudying.bookmanagementauth.services.UserService;
+import org.mystudying.bookmanagementauth.support.AbstractSecurityIntegrationTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@Sql("/insertTestRecords.sql")
+@TestPropertySource(properties = "app.security.token.enabled=true")
+public class TokenAuthTest extends AbstractSecurityIntegrationTest {
+
+    private static final String EMAIL = "test1@example.com";
+
+    private final UserService userService;
+
+    public TokenAuthTest(UserService userService) {
+        this.userService = userService;
+    }
+
+    private String issueTokens(String email, String password) throws Exception {
+        return mockMvc.perform(post("/api/auth/token")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"email\":\"%s\",\"password\":\"%s\"}".formatted(email, password)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.tokenType").value("Bearer"))
+                .andReturn().getResponse().getContentAsString();
+    }
+
+    private MvcResult me(String accessToken, int status) throws Exception {
+        return mockMvc.perform(get("/api/auth/me").header(HttpHeaders.AUTHORIZATION, "Bearer " + accessToken))
+                .andExpect(status().is(status))
+                .andReturn();
+    }
+
+    @Test
+    void accessTokenAuthenticatesWithoutSession() throws Exception {
+        String accessToken = JsonPath.read(issueTokens(EMAIL, "password"), "$.accessToken");
+
+        MvcResult result = me(accessToken, 200);
+
+        assertThat(JsonPath.<String>read(result.getResponse().getContentAsString(), "$.email")).isEqualTo(EMAIL);
+        assertThat(result.getRequest().getSession(false)).isNull();
+    }
+
+    @Test
+    void tamperedTokenIsRejected() throws Exception {
+        String accessToken = JsonPath.read(issueTokens(EMAIL, "password"), "$.accessToken");
+        String otherToken = JsonPath.read(issueTokens("admin@library.com", "admin"), "$.accessToken");
+
+        // admin claims with the user's signature
+        String forged = otherToken.substring(0, otherToken.indexOf('.')) + accessToken.substring(accessToken.indexOf('.'));
+
+        me(forged, 401);
+    }
+
+    @Test
+    void wrongPasswordGetsNoToken() throws Exception {
+        mockMvc.perform(post("/api/auth/token")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"email\":\"%s\",\"password\":\"wrong\"}".formatted(EMAIL)))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void refreshIssuesNewAccessToken() throws Exception {
+        String refreshToken = JsonPath.read(issueTokens(EMAIL, "password"), "$.refreshToken");
+
+        String refreshed = mockMvc.perform(post("/api/auth/token/refresh")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"refreshToken\":\"%s\"}".formatted(refreshToken)))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        me(JsonPath.read(refreshed, "$.accessToken"), 200);
+        // a refresh token is not an access token
+        me(refreshToken, 401);
+    }
+
+    @Test
+    void deactivationRevokesIssuedTokens() throws Exception {
+        String tokens = issueTokens(EMAIL, "password");
+        String accessToken = JsonPath.read(tokens, "$.accessToken");
+        me(accessToken, 200);
+
+        // tokens carry millisecond issue times; make sure the revocation is strictly later
+        Thread.sleep(5);
+        userService.update(idOfUser(EMAIL), new UpdateUserRequestDto("Test User 1", EMAIL, null, false), null);
+
+        me(accessToken, 401);
+        mockMvc.perform(post("/api/auth/token/refresh")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"refreshToken\":\"%s\"}".formatted(JsonPath.<String>read(tokens, "$.refreshToken"))))
+                .andExpect(status().isUnauthorized());
+    }
+}
@@ -0,0 +1,59 @@
+package org.mystudying.bookmanagementauth.benchmark;
+
+import org.mystudying.bookmanagementauth.domain.Author;
+import org.mystudying.bookmanagementauth.domain.Book;
+import org.mystudying.bookmanagementauth.domain.Booking;
+import org.mystudying.bookmanagementauth.domain.Role;
+import org.mystudying.bookmanagementauth.domain.User;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * In-memory entities for the benchmarks: a third of the bookings is returned (some late, with a fine),
+ * a third is active and overdue, and a third is active and on time.
+ */
+final class BenchmarkData {
+
+    private BenchmarkData() {
+    }
+
+    static User user(long id) {
+        User user = new User(id, "Benchmark User " + id, "user" + id + "@example.com", "{noop}password");
+        user.addRole(new Role("ROLE_USER"));
+        return user;
+    }
+
+    static List<Booking> bookings(User user, int size) {
+        LocalDate today = LocalDate.now();
+        Author author = new Author(1L, "Benchmark Author", LocalDate.of(1950, 1, 1));
+        List<Booking> bookings = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            Book book = new Book((long) i + 1, "Benchmark Book " + i, 2000 + i % 25, author, 3);
+            Booking booking;
+            switch (i % 3) {
+                case 0 -> {
+                    LocalDate borrowedAt = today.minusDays(60 + i % 30);
+                    booking = new Booking(user, book, borrowedAt, borrowedAt.plusDays(14));
+                    booking.setReturnedAt(borrowedAt.plusDays(7 + i % 14));
+                    booking.setFine(booking.calculateFine());
+                    booking.setFinePaid(i % 2 == 0);
+                }
+                case 1 -> {
+                    LocalDate borrowedAt = today.minusDays(20 + i % 30);
+                    booking = new Booking(user, book, borrowedAt, borrowedAt.plusDays(14));
+                }
+                default -> {
+                    LocalDate borrowedAt = today.minusDays(i % 10);
+                    booking = new Booking(user, book, borrowedAt, borrowedAt.plusDays(14));
+                }
+            }
+            // ids are generated by the database; the DTOs need them
+            ReflectionTestUtils.setField(booking, "id", (long) i + 1);
+            bookings.add(booking);
+        }
+        return bookings;
+    }
+}
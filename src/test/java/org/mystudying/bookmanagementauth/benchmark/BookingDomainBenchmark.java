@@ -0,0 +1,60 @@
+package org.mystudying.bookmanagementauth.benchmark;
+
+import org.mystudying.bookmanagementauth.domain.Booking;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The date and fine arithmetic that every booking list and report runs per row.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BookingDomainBenchmark {
+
+    @Param("90")
+    private int bookings;
+
+    private List<Booking> rows;
+
+    @Setup
+    public void setUp() {
+        rows = BenchmarkData.bookings(BenchmarkData.user(1), bookings);
+    }
+
+    @Benchmark
+    public void isExpired(Blackhole blackhole) {
+        for (Booking booking : rows) {
+            blackhole.consume(booking.isExpired());
+        }
+    }
+
+    @Benchmark
+    public void overdueDays(Blackhole blackhole) {
+        for (Booking booking : rows) {
+            blackhole.consume(booking.overdueDays());
+        }
+    }
+
+    @Benchmark
+    public void calculateFine(Blackhole blackhole) {
+        for (Booking booking : rows) {
+            blackhole.consume(booking.calculateFine());
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(BookingDomainBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,104 @@
+package org.mystudying.bookmanagementauth.benchmark;
+
+import ch.vorburger.mariadb4j.DB;
+import ch.vorburger.mariadb4j.DBConfiguration;
+import ch.vorburger.mariadb4j.DBConfigurationBuilder;
+import org.mystudying.bookmanagementauth.BookManagementAuthApplication;
+import org.mystudying.bookmanagementauth.config.SqlStatementStats;
+import org.mystudying.bookmanagementauth.domain.Author;
+import org.mystudying.bookmanagementauth.repositories.AuthorRepository;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code AuthorRepository.saveAllAndFlush} in the application context, against an embedded MariaDB with the
+ * migrated schema. {@code batchSize} is Hibernate's {@code jdbc.batch_size}: 1 sends one INSERT per row, as
+ * IDENTITY ids forced before V11, 50 is the configured value. The JDBC statements of every call are counted by
+ * {@code StatementCountingDataSource} (id reservations included, a batch counts once) and printed per trial.
+ * Each call is rolled back, so every invocation starts from the same table.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BulkInsertBenchmark {
+
+    private static final String DATABASE = "benchmark";
+    private static final LocalDate BIRTHDATE = LocalDate.of(1970, 1, 1);
+
+    @Param({"100", "1000"})
+    private int rows;
+
+    @Param({"1", "50"})
+    private int batchSize;
+
+    private DB db;
+    private ConfigurableApplicationContext context;
+    private AuthorRepository authorRepository;
+    private TransactionTemplate txTemplate;
+    private int statements;
+
+    @Setup
+    public void setUp() throws Exception {
+        DBConfigurationBuilder config = DBConfigurationBuilder.newBuilder();
+        config.setPort(0);
+        DBConfiguration database = config.build();
+        db = DB.newEmbeddedDB(database);
+        db.start();
+
+        context = new SpringApplicationBuilder(BookManagementAuthApplication.class).run(
+                "--spring.datasource.url=jdbc:mysql://localhost:" + database.getPort() + "/" + DATABASE
+                        + "?createDatabaseIfNotExist=true",
+                "--spring.datasource.username=root",
+                "--spring.datasource.password=",
+                "--spring.jpa.properties.hibernate.jdbc.batch_size=" + batchSize,
+                "--server.port=0",
+                "--logging.level.root=WARN");
+        authorRepository = context.getBean(AuthorRepository.class);
+        txTemplate = context.getBean(TransactionTemplate.class);
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        System.out.printf("%n%d rows, batch size %d: %d statements per saveAll%n", rows, batchSize, statements);
+        context.close();
+        db.stop();
+    }
+
+    @Benchmark
+    public void saveAll(Blackhole blackhole) {
+        List<Author> authors = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            authors.add(new Author(null, "Author " + i, BIRTHDATE));
+        }
+        SqlStatementStats stats = SqlStatementStats.start(false);
+        try {
+            txTemplate.executeWithoutResult(status -> {
+                blackhole.consume(authorRepository.saveAllAndFlush(authors));
+                status.setRollbackOnly();
+            });
+        } finally {
+            stats.stop();
+        }
+        statements = stats.getCount();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(BulkInsertBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,33 @@
+package org.mystudying.bookmanagementauth.benchmark;
+
+import java.lang.reflect.Proxy;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Hand-written stand-ins for the repositories behind the benchmarked services. A fake answers the methods a
+ * benchmark calls by name, without argument matching or invocation bookkeeping, and throws on any other method,
+ * so a service that starts calling something new fails the run instead of being timed against a {@code null}.
+ * Spring Data interfaces have dozens of methods, hence a proxy instead of a class implementing all of them.
+ */
+final class Fakes {
+
+    private Fakes() {
+    }
+
+    static <T> T of(Class<T> type, Map<String, Function<Object[], Object>> answers) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            Function<Object[], Object> answer = answers.get(method.getName());
+            if (answer != null) {
+                return answer.apply(args);
+            }
+            return switch (method.getName()) {
+                case "equals" -> proxy == args[0];
+                case "hashCode" -> System.identityHashCode(proxy);
+                case "toString" -> "Fake" + type.getSimpleName();
+                default -> throw new UnsupportedOperationException(
+                        type.getSimpleName() + "." + method.getName() + " is not faked");
+            };
+        }));
+    }
+}
@@ -0,0 +1,73 @@
+package org.mystudying.bookmanagementauth.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.mystudying.bookmanagementauth.domain.Booking;
+import org.mystudying.bookmanagementauth.dto.BookDto;
+import org.mystudying.bookmanagementauth.dto.BookingReportDto;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Response bodies of the catalog and report endpoints, written with an ObjectMapper configured the way
+ * Spring Boot configures the one behind the REST controllers (java.time as ISO strings).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JsonSerializationBenchmark {
+
+    @Param({"20", "100"})
+    private int size;
+
+    private ObjectWriter writer;
+    private List<BookDto> books;
+    private List<BookingReportDto> reportRows;
+
+    @Setup
+    public void setUp() {
+        ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        writer = objectMapper.writer();
+        books = IntStream.range(0, size)
+                .mapToObj(i -> new BookDto(i, "Benchmark Book " + i, 2000 + i % 25, i % 5))
+                .toList();
+        List<Booking> bookings = BenchmarkData.bookings(BenchmarkData.user(1), size);
+        reportRows = IntStream.range(0, size)
+                .mapToObj(i -> toReportDto(i, bookings.get(i)))
+                .toList();
+    }
+
+    private static BookingReportDto toReportDto(long id, Booking booking) {
+        return new BookingReportDto(id, booking.getUser().getId(), booking.getUser().getName(),
+                booking.getUser().getEmail(), booking.getBook().getId(), booking.getBook().getTitle(),
+                booking.getBorrowedAt(), booking.getDueAt(), booking.getReturnedAt(), booking.overdueDays(),
+                booking.getFine(), booking.isFinePaid());
+    }
+
+    @Benchmark
+    public byte[] bookList() throws JsonProcessingException {
+        return writer.writeValueAsBytes(books);
+    }
+
+    @Benchmark
+    public byte[] bookingReportList() throws JsonProcessingException {
+        return writer.writeValueAsBytes(reportRows);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(JsonSerializationBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,149 @@
+package org.mystudying.bookmanagementauth.benchmark;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import org.mystudying.bookmanagementauth.controller.advice.GlobalExceptionHandler;
+import org.mystudying.bookmanagementauth.domain.Booking;
+import org.mystudying.bookmanagementauth.domain.Role;
+import org.mystudying.bookmanagementauth.domain.User;
+import org.mystudying.bookmanagementauth.dto.BookingDateRange;
+import org.mystudying.bookmanagementauth.dto.BookingReportDto;
+import org.mystudying.bookmanagementauth.dto.BookingReportType;
+import org.mystudying.bookmanagementauth.dto.BookingResponseDto;
+import org.mystudying.bookmanagementauth.dto.ErrorResponse;
+import org.mystudying.bookmanagementauth.exceptions.BookNotFoundException;
+import org.mystudying.bookmanagementauth.repositories.BookRepository;
+import org.mystudying.bookmanagementauth.repositories.BookingRepository;
+import org.mystudying.bookmanagementauth.repositories.RoleRepository;
+import org.mystudying.bookmanagementauth.repositories.RoleRepository.UserRoleRow;
+import org.mystudying.bookmanagementauth.repositories.UserRepository;
+import org.mystudying.bookmanagementauth.services.BookingService;
+import org.mystudying.bookmanagementauth.services.InventoryService;
+import org.mystudying.bookmanagementauth.services.JpaUserDetailsService;
+import org.mystudying.bookmanagementauth.services.RoleCache;
+import org.mystudying.bookmanagementauth.services.UserService;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Entity-to-DTO mapping on the request path, without the database: repositories are {@link Fakes} that hand
+ * back prepared entities, so the numbers are the services' own mapping and sorting plus one proxy call per query.
+ * {@code loadUserByUsername} runs with a real {@link RoleCache}, warmed by the first call like after a first login.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MappingBenchmark {
+
+    private static final long USER_ID = 1;
+    private static final long ROLE_ID = 1;
+    private static final SimpleGrantedAuthority USER_AUTHORITY = new SimpleGrantedAuthority("ROLE_USER");
+
+    @Param("90")
+    private int bookings;
+
+    private User user;
+    private BookingService bookingService;
+    private UserService userService;
+    private JpaUserDetailsService userDetailsService;
+    private Pageable pageable;
+    private GlobalExceptionHandler exceptionHandler;
+    private MockHttpServletRequest request;
+    private BookNotFoundException notFound;
+
+    @Setup
+    public void setUp() {
+        user = BenchmarkData.user(USER_ID);
+        List<Booking> rows = BenchmarkData.bookings(user, bookings);
+        pageable = PageRequest.of(0, bookings);
+
+        Page<Booking> page = new PageImpl<>(rows, pageable, rows.size());
+        BookingRepository bookingRepository = Fakes.of(BookingRepository.class, Map.of(
+                "findAllWithDetails", args -> page,
+                "findAllByUserIdWithBooks", args -> rows));
+        Optional<User> found = Optional.of(user);
+        UserRepository userRepository = Fakes.of(UserRepository.class, Map.of(
+                "findById", args -> found,
+                "findByEmail", args -> user.getEmail().equals(args[0]) ? found : Optional.empty()));
+
+        Role role = new Role(USER_AUTHORITY.getAuthority());
+        ReflectionTestUtils.setField(role, "id", ROLE_ID);
+        List<UserRoleRow> userRoles = List.of(new UserRoleRow() {
+            @Override
+            public Long getUserId() {
+                return USER_ID;
+            }
+
+            @Override
+            public Long getRoleId() {
+                return ROLE_ID;
+            }
+        });
+        RoleRepository roleRepository = Fakes.of(RoleRepository.class, Map.of(
+                "findAll", args -> List.of(role),
+                "findUserRoles", args -> userRoles));
+        RoleCache roleCache = new RoleCache(roleRepository);
+
+        // collaborators of the write paths, which the benchmarks do not reach
+        BookRepository bookRepository = Fakes.of(BookRepository.class, Map.of());
+        InventoryService inventoryService = new InventoryService(bookRepository, new SimpleMeterRegistry());
+        ApplicationEventPublisher ignoredEvents = event -> {
+        };
+
+        bookingService = new BookingService(bookingRepository, Duration.ZERO, 3, 2L, new SimpleMeterRegistry());
+        userService = new UserService(userRepository, bookRepository, bookingRepository, roleRepository,
+                Fakes.of(EntityManager.class, Map.of()), inventoryService, ignoredEvents, roleCache);
+        userDetailsService = new JpaUserDetailsService(userRepository, roleCache);
+
+        exceptionHandler = new GlobalExceptionHandler();
+        request = new MockHttpServletRequest("GET", "/api/books/42");
+        notFound = new BookNotFoundException(42);
+    }
+
+    @Benchmark
+    public Page<BookingReportDto> bookingReportPage() {
+        return bookingService.getBookingReport(BookingReportType.ALL, null, null, BookingDateRange.NONE, pageable);
+    }
+
+    @Benchmark
+    public List<BookingResponseDto> userBookingsSortedAndMapped() {
+        return userService.findBookingsByUserId(USER_ID);
+    }
+
+    @Benchmark
+    public UserDetails loadUserByUsername() {
+        return userDetailsService.loadUserByUsername(user.getEmail());
+    }
+
+    @Benchmark
+    public ResponseEntity<ErrorResponse> errorResponse() {
+        return exceptionHandler.handleNotFoundException(notFound, request);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(MappingBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
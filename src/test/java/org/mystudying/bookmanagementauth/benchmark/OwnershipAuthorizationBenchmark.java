@@ -0,0 +1,83 @@
+package org.mystudying.bookmanagementauth.benchmark;
+
+import org.aopalliance.intercept.MethodInvocation;
+import org.mystudying.bookmanagementauth.config.AdminOrSelfAuthorizationManager;
+import org.mystudying.bookmanagementauth.config.UserPrincipal;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authorization.AuthorizationDecision;
+import org.springframework.security.authorization.method.PreAuthorizeAuthorizationManager;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.util.SimpleMethodInvocation;
+import org.springframework.security.web.access.intercept.RequestAuthorizationContext;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * "Admin or self" for a regular user acting on their own id: the filter-level {@link AdminOrSelfAuthorizationManager}
+ * against the {@code @PreAuthorize} SpEL check it replaced in {@code UserController}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class OwnershipAuthorizationBenchmark {
+
+    private static final long USER_ID = 42;
+
+    private Supplier<Authentication> authentication;
+    private AdminOrSelfAuthorizationManager precompiled;
+    private RequestAuthorizationContext requestContext;
+    private PreAuthorizeAuthorizationManager spel;
+    private MethodInvocation invocation;
+
+    // The previous UserController guard
+    public static class SpelGuarded {
+        @PreAuthorize("hasRole('ADMIN') or #userId == principal.id")
+        public void rentBook(long userId) {
+        }
+    }
+
+    @Setup
+    public void setUp() throws NoSuchMethodException {
+        UserPrincipal principal = new UserPrincipal(USER_ID, "user@example.com", null, true,
+                List.of(new SimpleGrantedAuthority("ROLE_USER")));
+        Authentication auth = UsernamePasswordAuthenticationToken.authenticated(principal, null, principal.getAuthorities());
+        authentication = () -> auth;
+
+        precompiled = new AdminOrSelfAuthorizationManager("userId");
+        requestContext = new RequestAuthorizationContext(
+                new MockHttpServletRequest("POST", "/api/users/42/rent"), Map.of("userId", String.valueOf(USER_ID)));
+
+        spel = new PreAuthorizeAuthorizationManager();
+        invocation = new SimpleMethodInvocation(new SpelGuarded(),
+                SpelGuarded.class.getMethod("rentBook", long.class), USER_ID);
+    }
+
+    @Benchmark
+    public AuthorizationDecision precompiledManager() {
+        return precompiled.check(authentication, requestContext);
+    }
+
+    @Benchmark
+    public AuthorizationDecision spelPreAuthorize() {
+        return spel.check(authentication, invocation);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(OwnershipAuthorizationBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,50 @@
+package org.mystudying.bookmanagementauth.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.web.access.intercept.RequestAuthorizationContext;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AdminOrSelfAuthorizationManagerTest {
+
+    private final AdminOrSelfAuthorizationManager manager = new AdminOrSelfAuthorizationManager("id");
+
+    private static Authentication user(long id, String role) {
+        UserPrincipal principal = new UserPrincipal(id, "user" + id + "@example.com", null, true,
+                AuthorityUtils.createAuthorityList(role));
+        return UsernamePasswordAuthenticationToken.authenticated(principal, null, principal.getAuthorities());
+    }
+
+    private boolean granted(Authentication authentication, String id) {
+        var context = new RequestAuthorizationContext(new MockHttpServletRequest(), Map.of("id", id));
+        return manager.check(() -> authentication, context).isGranted();
+    }
+
+    @Test
+    void userMayOnlyAccessOwnId() {
+        assertThat(granted(user(7, "ROLE_USER"), "7")).isTrue();
+        assertThat(granted(user(7, "ROLE_USER"), "8")).isFalse();
+        assertThat(granted(user(7, "ROLE_USER"), "abc")).isFalse();
+        assertThat(granted(user(7, "ROLE_USER"), "99999999999999999999")).isFalse();
+    }
+
+    @Test
+    void adminMayAccessAnyId() {
+        assertThat(granted(user(1, "ROLE_ADMIN"), "7")).isTrue();
+    }
+
+    @Test
+    void anonymousIsDenied() {
+        var anonymous = new AnonymousAuthenticationToken("key", "anonymousUser",
+                AuthorityUtils.createAuthorityList("ROLE_ANONYMOUS"));
+
+        assertThat(granted(anonymous, "7")).isFalse();
+    }
+}
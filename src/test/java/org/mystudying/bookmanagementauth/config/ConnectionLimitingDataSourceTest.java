@@ -0,0 +1,109 @@
+package org.mystudying.bookmanagementauth.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import java.sql.Connection;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ConnectionLimitingDataSourceTest {
+
+    private final EmbeddedDatabase database = new EmbeddedDatabaseBuilder()
+            .setType(EmbeddedDatabaseType.H2)
+            .generateUniqueName(true)
+            .build();
+
+    private final ConnectionLimitingDataSource dataSource =
+            new ConnectionLimitingDataSource(database, 2, Duration.ofMillis(200));
+
+    @AfterEach
+    void shutdown() {
+        database.shutdown();
+    }
+
+    // a thread's first connection is the one that takes a permit, so each of these gets a thread of its own
+    private Connection connectOnAnotherThread() throws Exception {
+        try (ExecutorService executor = Executors.newSingleThreadExecutor()) {
+            return executor.submit(() -> dataSource.getConnection()).get();
+        }
+    }
+
+    @Test
+    void connectionsBeyondTheLimitTimeOut() throws Exception {
+        try (Connection first = connectOnAnotherThread(); Connection second = connectOnAnotherThread()) {
+            assertThatThrownBy(this::connectOnAnotherThread).hasCauseInstanceOf(SQLTransientConnectionException.class);
+        }
+        // both permits are back once the connections are closed
+        try (Connection first = connectOnAnotherThread(); Connection second = connectOnAnotherThread()) {
+            assertThat(first.isValid(1)).isTrue();
+            assertThat(second.isValid(1)).isTrue();
+        }
+    }
+
+    @Test
+    void closingTwiceReleasesOnePermit() throws Exception {
+        Connection connection = connectOnAnotherThread();
+        connection.close();
+        connection.close();
+
+        try (Connection first = connectOnAnotherThread(); Connection second = connectOnAnotherThread()) {
+            assertThatThrownBy(this::connectOnAnotherThread).hasCauseInstanceOf(SQLTransientConnectionException.class);
+        }
+    }
+
+    @Test
+    void connectionsOpenedWhileHoldingOneTakeNoPermit() throws Exception {
+        try (Connection first = dataSource.getConnection(); Connection second = connectOnAnotherThread()) {
+            // what Hibernate's table generator does inside a transaction while all permits are taken
+            try (Connection nested = dataSource.getConnection()) {
+                assertThat(nested.isValid(1)).isTrue();
+            }
+            assertThatThrownBy(this::connectOnAnotherThread).hasCauseInstanceOf(SQLTransientConnectionException.class);
+        }
+        // the nested connection handed back no permit of its own
+        try (Connection first = connectOnAnotherThread(); Connection second = connectOnAnotherThread()) {
+            assertThatThrownBy(this::connectOnAnotherThread).hasCauseInstanceOf(SQLTransientConnectionException.class);
+        }
+    }
+
+    @Test
+    void virtualThreadsNeverHoldMoreConnectionsThanPermits() throws Exception {
+        ConnectionLimitingDataSource patient = new ConnectionLimitingDataSource(database, 2, Duration.ofSeconds(10));
+        AtomicInteger inUse = new AtomicInteger();
+        AtomicInteger maxInUse = new AtomicInteger();
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                futures.add(executor.submit(() -> {
+                    try (Connection connection = patient.getConnection()) {
+                        maxInUse.accumulateAndGet(inUse.incrementAndGet(), Math::max);
+                        connection.createStatement().execute("SELECT 1");
+                        Thread.sleep(1);
+                        inUse.decrementAndGet();
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        }
+
+        assertThat(maxInUse.get()).isLessThanOrEqualTo(2);
+        assertThat(patient.getWaitingThreads()).isZero();
+    }
+}
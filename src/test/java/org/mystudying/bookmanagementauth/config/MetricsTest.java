@@ -0,0 +1,92 @@
+package org.mystudying.bookmanagementauth.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.mystudying.bookmanagementauth.exceptions.BookNotAvailableException;
+import org.mystudying.bookmanagementauth.services.InventoryService;
+import org.mystudying.bookmanagementauth.support.AbstractSecurityIntegrationTest;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.simple.JdbcClient;
+import org.springframework.test.context.jdbc.Sql;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.httpBasic;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@AutoConfigureObservability
+@Sql("/insertTestRecords.sql")
+class MetricsTest extends AbstractSecurityIntegrationTest {
+
+    private final MeterRegistry meterRegistry;
+    private final InventoryService inventoryService;
+    private final JdbcClient jdbcClient;
+
+    MetricsTest(MeterRegistry meterRegistry, InventoryService inventoryService, JdbcClient jdbcClient) {
+        this.meterRegistry = meterRegistry;
+        this.inventoryService = inventoryService;
+        this.jdbcClient = jdbcClient;
+    }
+
+    private long idOfBook(String title) {
+        return jdbcClient.sql("SELECT id FROM books WHERE title = ?").param(title).query(Long.class).single();
+    }
+
+    private double count(String name, String... tags) {
+        var counter = meterRegistry.find(name).tags(tags).counter();
+        return counter == null ? 0 : counter.count();
+    }
+
+    @Test
+    void healthIsPublic() throws Exception {
+        mockMvc.perform(get("/actuator/health"))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void prometheusScrapeRequiresAnAdmin() throws Exception {
+        mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isUnauthorized());
+        mockMvc.perform(get("/actuator/prometheus").with(httpBasic("test1@example.com", "password")))
+                .andExpect(status().isForbidden());
+
+        mockMvc.perform(get("/api/books"));
+        mockMvc.perform(get("/actuator/prometheus").with(httpBasic("admin@library.com", "admin")))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("http_server_requests_seconds_bucket")))
+                .andExpect(content().string(containsString("hikaricp_connections_acquire_seconds")));
+    }
+
+    @Test
+    void rejectedRentIsCountedByException() throws Exception {
+        // test1 has an overdue booking
+        long userId = idOfUser("test1@example.com");
+        String[] tags = {"operation", "rent", "outcome", "UserHasOverdueBooksException"};
+        double before = count("app.circulation.outcomes", tags);
+
+        mockMvc.perform(post("/api/users/{id}/rent", userId)
+                        .session(loginAsUser())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"bookId\":" + idOfBook("Rentable Book") + "}"))
+                .andExpect(status().isConflict());
+
+        assertThat(count("app.circulation.outcomes", tags)).isEqualTo(before + 1);
+    }
+
+    @Test
+    void stockUpdateThatMatchesNoRowIsCounted() {
+        String[] tags = {"operation", "decrement", "result", "no-row"};
+        double before = count("app.inventory.updates", tags);
+
+        // Test Book 2 has no copies left
+        assertThatThrownBy(() -> inventoryService.decrementStock(idOfBook("Test Book 2")))
+                .isInstanceOf(BookNotAvailableException.class);
+
+        assertThat(count("app.inventory.updates", tags)).isEqualTo(before + 1);
+    }
+}
@@ -0,0 +1,90 @@
+package org.mystudying.bookmanagementauth.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "app.rate-limit.enabled=true",
+        "app.rate-limit.groups.auth.capacity=2",
+        "app.rate-limit.groups.auth.refill-per-minute=1"
+})
+@AutoConfigureMockMvc
+@Transactional
+@Sql("/insertTestRecords.sql")
+class RateLimitFilterTest {
+
+    private final MockMvc mockMvc;
+
+    RateLimitFilterTest(MockMvc mockMvc) {
+        this.mockMvc = mockMvc;
+    }
+
+    private MockHttpServletRequestBuilder login(String remoteAddress) {
+        return post("/api/auth/login")
+                .param("username", "test1@example.com")
+                .param("password", "wrong")
+                .with(request -> {
+                    request.setRemoteAddr(remoteAddress);
+                    return request;
+                });
+    }
+
+    @Test
+    void exhaustedBucketAnswers429WithRetryAfter() throws Exception {
+        mockMvc.perform(login("10.0.0.1")).andExpect(status().isUnauthorized());
+        mockMvc.perform(login("10.0.0.1")).andExpect(status().isUnauthorized());
+
+        mockMvc.perform(login("10.0.0.1"))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().exists("Retry-After"))
+                .andExpect(jsonPath("$.code").value("RATE_LIMITED"));
+
+        // other clients have their own bucket
+        mockMvc.perform(login("10.0.0.2")).andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void clientsBehindATrustedProxyAreKeyedByForwardedFor() throws Exception {
+        // the load balancer 10.0.0.10 appends the address it got the request from; the first entry is forged
+        mockMvc.perform(login("10.0.0.10").header("X-Forwarded-For", "1.1.1.1, 203.0.113.1"))
+                .andExpect(status().isUnauthorized());
+        mockMvc.perform(login("10.0.0.10").header("X-Forwarded-For", "2.2.2.2, 203.0.113.1"))
+                .andExpect(status().isUnauthorized());
+        mockMvc.perform(login("10.0.0.10").header("X-Forwarded-For", "3.3.3.3, 203.0.113.1"))
+                .andExpect(status().isTooManyRequests());
+
+        mockMvc.perform(login("10.0.0.10").header("X-Forwarded-For", "203.0.113.2"))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void forwardedForFromUntrustedAddressesIsIgnored() throws Exception {
+        mockMvc.perform(login("198.51.100.7").header("X-Forwarded-For", "203.0.113.11"))
+                .andExpect(status().isUnauthorized());
+        mockMvc.perform(login("198.51.100.7").header("X-Forwarded-For", "203.0.113.12"))
+                .andExpect(status().isUnauthorized());
+        mockMvc.perform(login("198.51.100.7").header("X-Forwarded-For", "203.0.113.13"))
+                .andExpect(status().isTooManyRequests());
+    }
+
+    @Test
+    void routesOutsideTheGroupsAreNotLimited() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            mockMvc.perform(get("/api/books").with(request -> {
+                request.setRemoteAddr("10.0.0.3");
+                return request;
+            })).andExpect(status().isOk());
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package org.mystudying.bookmanagementauth.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.simple.JdbcClient;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Two embedded H2 databases stand in for primary and replica; "replication" is copying the heartbeat rows.
+ */
+class ReadWriteRoutingDataSourceTest {
+
+    private final EmbeddedDatabase primary = database("primary");
+    private final EmbeddedDatabase replica = database("replica");
+    private final AtomicLong now = new AtomicLong(1_000_000);
+    private final AtomicBoolean primaryRequired = new AtomicBoolean();
+    private final ReplicaLagMonitor lagMonitor =
+            new ReplicaLagMonitor(primary, replica, Duration.ofSeconds(3), new TestClock());
+    private final DataSource dataSource = new LazyConnectionDataSourceProxy(
+            new ReadWriteRoutingDataSource(primary, replica, lagMonitor, primaryRequired::get));
+    private final DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+
+    private static EmbeddedDatabase database(String name) {
+        EmbeddedDatabase database = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .generateUniqueName(true)
+                .build();
+        JdbcClient jdbcClient = JdbcClient.create(database);
+        jdbcClient.sql("CREATE TABLE replica_heartbeat (node_id VARCHAR(36) PRIMARY KEY, beat_millis BIGINT NOT NULL)")
+                .update();
+        jdbcClient.sql("CREATE TABLE items (name VARCHAR(20))").update();
+        jdbcClient.sql("INSERT INTO items (name) VALUES (:name)").param("name", name).update();
+        return database;
+    }
+
+    @BeforeEach
+    void freshReplica() {
+        lagMonitor.beat();
+        replicate();
+        lagMonitor.check();
+    }
+
+    @AfterEach
+    void shutdown() {
+        primary.shutdown();
+        replica.shutdown();
+    }
+
+    private void replicate() {
+        List<Object[]> beats = JdbcClient.create(primary).sql("SELECT node_id, beat_millis FROM replica_heartbeat")
+                .query((rs, rowNum) -> new Object[]{rs.getString(1), rs.getLong(2)})
+                .list();
+        JdbcClient.create(replica).sql("DELETE FROM replica_heartbeat").update();
+        beats.forEach(beat -> JdbcClient.create(replica)
+                .sql("INSERT INTO replica_heartbeat (node_id, beat_millis) VALUES (?, ?)")
+                .params(beat)
+                .update());
+    }
+
+    private String readItem(boolean readOnly) {
+        TransactionTemplate txTemplate = new TransactionTemplate(transactionManager);
+        txTemplate.setReadOnly(readOnly);
+        return txTemplate.execute(status -> JdbcClient.create(dataSource).sql("SELECT name FROM items")
+                .query(String.class)
+                .single());
+    }
+
+    @Test
+    void readOnlyTransactionsReadFromAFreshReplica() {
+        assertThat(lagMonitor.isReplicaUsable()).isTrue();
+        assertThat(readItem(true)).isEqualTo("replica");
+        assertThat(readItem(false)).isEqualTo("primary");
+        assertThat(JdbcClient.create(dataSource).sql("SELECT name FROM items").query(String.class).single())
+                .isEqualTo("primary");
+    }
+
+    @Test
+    void aLaggingReplicaIsBypassed() {
+        now.addAndGet(5_000);
+        lagMonitor.beat();
+        lagMonitor.check();
+
+        assertThat(lagMonitor.getLag()).isEqualTo(Duration.ofSeconds(5));
+        assertThat(lagMonitor.isReplicaUsable()).isFalse();
+        assertThat(readItem(true)).isEqualTo("primary");
+
+        replicate();
+        lagMonitor.check();
+        assertThat(readItem(true)).isEqualTo("replica");
+    }
+
+    @Test
+    void eachNodeMeasuresItsOwnHeartbeat() {
+        ReplicaLagMonitor otherNode = new ReplicaLagMonitor(primary, replica, Duration.ofSeconds(3), new TestClock());
+        otherNode.beat();
+        now.addAndGet(5_000);
+        lagMonitor.beat();
+        otherNode.check();
+
+        assertThat(otherNode.getLag()).isNull();
+        assertThat(otherNode.isReplicaUsable()).isFalse();
+
+        replicate();
+        otherNode.check();
+        lagMonitor.check();
+        assertThat(otherNode.getLag()).isEqualTo(Duration.ofSeconds(5));
+        assertThat(lagMonitor.getLag()).isZero();
+        assertThat(lagMonitor.isReplicaUsable()).isTrue();
+    }
+
+    @Test
+    void anUnreadableReplicaIsBypassed() {
+        JdbcClient.create(replica).sql("DROP TABLE replica_heartbeat").update();
+        lagMonitor.check();
+
+        assertThat(lagMonitor.getLag()).isNull();
+        assertThat(readItem(true)).isEqualTo("primary");
+    }
+
+    @Test
+    void readYourWritesStaysOnThePrimary() {
+        primaryRequired.set(true);
+
+        assertThat(readItem(true)).isEqualTo("primary");
+    }
+
+    private final class TestClock extends Clock {
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return Instant.ofEpochMilli(now.get());
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package org.mystudying.bookmanagementauth.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StatementCountingDataSourceTest {
+
+    private final EmbeddedDatabase database = new EmbeddedDatabaseBuilder()
+            .setType(EmbeddedDatabaseType.H2)
+            .generateUniqueName(true)
+            .build();
+
+    private final StatementCountingDataSource dataSource = new StatementCountingDataSource(database);
+
+    @AfterEach
+    void shutdown() {
+        database.shutdown();
+    }
+
+    @Test
+    void countsEveryExecutionWhileRecording() throws Exception {
+        SqlStatementStats stats = SqlStatementStats.start(true);
+        try (Connection connection = dataSource.getConnection()) {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("CREATE TABLE items(id INT)");
+            }
+            try (PreparedStatement insert = connection.prepareStatement("INSERT INTO items VALUES (?)")) {
+                for (int i = 0; i < 3; i++) {
+                    insert.setInt(1, i);
+                    insert.addBatch();
+                }
+                // one round trip
+                insert.executeBatch();
+            }
+            try (PreparedStatement select = connection.prepareStatement("SELECT count(*) FROM items")) {
+                select.executeQuery().close();
+            }
+        } finally {
+            stats.stop();
+        }
+
+        assertThat(stats.getCount()).isEqualTo(3);
+        assertThat(stats.getStatements()).containsExactly(
+                "CREATE TABLE items(id INT)", "INSERT INTO items VALUES (?)", "SELECT count(*) FROM items");
+        assertThat(stats.getDuration()).isPositive();
+    }
+
+    @Test
+    void statementsOfOtherThreadsAreNotCounted() throws Exception {
+        SqlStatementStats stats = SqlStatementStats.start(false);
+        try {
+            Thread other = new Thread(() -> {
+                try (Connection connection = dataSource.getConnection();
+                     Statement statement = connection.createStatement()) {
+                    statement.execute("SELECT 1");
+                } catch (SQLException e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+            other.start();
+            other.join();
+        } finally {
+            stats.stop();
+        }
+        assertThat(stats.getCount()).isZero();
+    }
+
+    @Test
+    void nestedRecordingsRestoreTheOuterOne() throws Exception {
+        SqlStatementStats outer = SqlStatementStats.start(false);
+        try (Connection connection = dataSource.getConnection()) {
+            SqlStatementStats inner = SqlStatementStats.start(false);
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("SELECT 1");
+            } finally {
+                inner.stop();
+            }
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("SELECT 2");
+            }
+            assertThat(inner.getCount()).isEqualTo(1);
+        } finally {
+            outer.stop();
+        }
+        assertThat(outer.getCount()).isEqualTo(1);
+    }
+}
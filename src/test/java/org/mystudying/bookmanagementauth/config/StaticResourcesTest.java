@@ -0,0 +1,86 @@
+package org.mystudying.bookmanagementauth.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.web.servlet.resource.ResourceUrlProvider;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class StaticResourcesTest {
+
+    private final MockMvc mockMvc;
+    private final ResourceUrlProvider resourceUrlProvider;
+
+    StaticResourcesTest(MockMvc mockMvc, ResourceUrlProvider resourceUrlProvider) {
+        this.mockMvc = mockMvc;
+        this.resourceUrlProvider = resourceUrlProvider;
+    }
+
+    private String hashedUrl(String path) {
+        return resourceUrlProvider.getForLookupPath(path);
+    }
+
+    @Test
+    void assetsAreServedUnderContentHashWithImmutableCaching() throws Exception {
+        String url = hashedUrl("/js/core/api.js");
+        assertThat(url).matches("/js/core/api-[0-9a-f]{32}\\.js");
+
+        MvcResult result = mockMvc.perform(get(url))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Cache-Control", containsString("max-age=31536000")))
+                .andExpect(header().string("Cache-Control", containsString("immutable")))
+                .andExpect(header().doesNotExist("Set-Cookie"))
+                .andReturn();
+
+        // the lightweight chain never touches the session
+        assertThat(result.getRequest().getSession(false)).isNull();
+    }
+
+    @Test
+    void templatesLinkToHashedUrls() throws Exception {
+        mockMvc.perform(get("/"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString(hashedUrl("/css/style.css"))))
+                .andExpect(content().string(containsString(hashedUrl("/js/core/api.js"))));
+    }
+
+    @Test
+    void gzipIsServedToClientsThatAcceptIt() throws Exception {
+        byte[] body = mockMvc.perform(get(hashedUrl("/css/style.css")).header("Accept-Encoding", "gzip, deflate, br"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Encoding", "gzip"))
+                .andExpect(header().string("Vary", containsString("Accept-Encoding")))
+                .andExpect(content().contentTypeCompatibleWith("text/css"))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        assertThat(gunzip(body)).isEqualTo(new ClassPathResource("static/css/style.css").getContentAsByteArray());
+    }
+
+    @Test
+    void plainClientsGetTheUncompressedFile() throws Exception {
+        mockMvc.perform(get(hashedUrl("/css/style.css")))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("Content-Encoding"));
+    }
+
+    private static byte[] gunzip(byte[] bytes) throws IOException {
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(bytes))) {
+            return in.readAllBytes();
+        }
+    }
+}
@@ -3,14 +3,20 @@ package org.mystudying.bookmanagementauth.controller;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.Test;
 import org.mystudying.bookmanagementauth.dto.RegisterRequestDto;
+import org.mystudying.bookmanagementauth.exceptions.PasswordHashingRejectedException;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.test.context.support.WithUserDetails;
 import org.springframework.test.context.jdbc.Sql;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.transaction.annotation.Transactional;
 
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
 import static org.springframework.security.test.web.servlet.response.SecurityMockMvcResultMatchers.authenticated;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
@@ -25,6 +31,9 @@ public class AuthControllerTest {
     private final MockMvc mockMvc;
     private final ObjectMapper objectMapper;
 
+    @SpyBean
+    private PasswordEncoder passwordEncoder;
+
     public AuthControllerTest(MockMvc mockMvc, ObjectMapper objectMapper) {
         this.mockMvc = mockMvc;
         this.objectMapper = objectMapper;
@@ -74,6 +83,23 @@ public class AuthControllerTest {
                 .andExpect(jsonPath("$.code").value("EMAIL_ALREADY_EXISTS"));
     }
 
+    @Test
+    void registerWhileHashingIsSaturatedReturnsServiceUnavailable() throws Exception {
+        doThrow(new PasswordHashingRejectedException()).when(passwordEncoder).encode(any());
+        RegisterRequestDto registration = new RegisterRequestDto(
+                "New User",
+                "newuser@example.com",
+                "password123"
+        );
+
+        mockMvc.perform(post("/api/auth/register")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(registration)))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string(HttpHeaders.RETRY_AFTER, "1"))
+                .andExpect(jsonPath("$.code").value("SERVICE_BUSY"));
+    }
+
     @Test
     void meReturnsUnauthorizedWhenNotLoggedIn() throws Exception {
         mockMvc.perform(get("/api/auth/me"))
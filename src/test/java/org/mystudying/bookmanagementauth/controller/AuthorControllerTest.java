@@ -97,21 +97,21 @@ public class AuthorControllerTest {
     @WithMockUser(roles = "ADMIN")
     void createAuthorReturnsCreatedAuthor() throws Exception {
         long initialRowCount = JdbcTestUtils.countRowsInTable(jdbcClient, AUTHORS_TABLE);
-        long maxId = jdbcClient.sql("select max(id) from authors")
-                .query(Long.class)
-                .single();
         String newAuthorJson = readJsonFile("correctAuthor.json");
 
-        mockMvc.perform(post("/api/authors")
+        MvcResult result = mockMvc.perform(post("/api/authors")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(newAuthorJson))
                 .andExpect(status().isCreated())
                 .andExpect(jsonPath("$.id").isNumber())
-                .andExpect(jsonPath("$.id").value(maxId + 1))
                 .andExpect(jsonPath("$.name").value("New Author From Test"))
-                .andExpect(jsonPath("$.birthdate").value("1980-01-01"));
+                .andExpect(jsonPath("$.birthdate").value("1980-01-01"))
+                .andReturn();
+        long newId = ((Number) JsonPath.read(result.getResponse().getContentAsString(), "$.id")).longValue();
 
-        assertThat(JdbcTestUtils.countRowsInTableWhere(jdbcClient, AUTHORS_TABLE, "name = 'New Author From Test'")).isEqualTo(1);
+        // pooled ids: the insert waits for the flush
+        entityManager.flush();
+        assertThat(JdbcTestUtils.countRowsInTableWhere(jdbcClient, AUTHORS_TABLE, "name = 'New Author From Test' and id = " + newId)).isEqualTo(1);
         assertThat(JdbcTestUtils.countRowsInTable(jdbcClient, AUTHORS_TABLE)).isEqualTo(initialRowCount + 1);
     }
 
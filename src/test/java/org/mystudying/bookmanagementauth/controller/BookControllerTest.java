@@ -32,8 +32,11 @@ import java.util.stream.Collectors;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.hamcrest.Matchers.everyItem;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.startsWith;
+import static org.mystudying.bookmanagementauth.support.SqlStatementAssertions.assertMaxStatements;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -114,6 +117,7 @@ public class BookControllerTest {
         MvcResult result = mockMvc.perform(get("/api/books"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.length()").value(JdbcTestUtils.countRowsInTable(jdbcClient, BOOKS_TABLE)))
+                .andExpect(assertMaxStatements(1))
                 .andReturn();
 
         String jsonResponse = result.getResponse().getContentAsString();
@@ -176,6 +180,7 @@ public class BookControllerTest {
 
         MvcResult result = mockMvc.perform(get("/api/books").queryParam("authorName", authorName))
                 .andExpect(status().isOk())
+                .andExpect(assertMaxStatements(1))
                 .andReturn();
 
         long expectedDbCount = jdbcClient.sql("""
@@ -201,7 +206,18 @@ public class BookControllerTest {
         mockMvc.perform(get("/api/books/{id}", id))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.id").value(id))
-                .andExpect(jsonPath("$.title").value("Test Book 1"));
+                .andExpect(jsonPath("$.title").value("Test Book 1"))
+                .andExpect(assertMaxStatements(1));
+    }
+
+    @Test
+    void getBookDetailsLoadsAuthorAndGenresWithTwoStatements() throws Exception {
+        long id = idOfTestBook1();
+        mockMvc.perform(get("/api/books/{id}/details", id))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.title").value("Test Book 1"))
+                .andExpect(header().string("Server-Timing", startsWith("db;dur=")))
+                .andExpect(assertMaxStatements(2));
     }
 
     @Test
@@ -241,6 +257,8 @@ public class BookControllerTest {
         String jsonResponse = result.getResponse().getContentAsString();
         int newId = JsonPath.parse(jsonResponse).read("$.id");
 
+        // pooled ids: the insert waits for the flush
+        entityManager.flush();
         assertThat(JdbcTestUtils.countRowsInTableWhere(jdbcClient, BOOKS_TABLE, "title = 'New Book From Test' and id = " + newId)).isEqualTo(1);
         assertThat(JdbcTestUtils.countRowsInTable(jdbcClient, BOOKS_TABLE)).isEqualTo(initialRowCount + 1);
     }
@@ -0,0 +1,214 @@
+package org.mystudying.bookmanagementauth.controller;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mystudying.bookmanagementauth.domain.Book;
+import org.mystudying.bookmanagementauth.repositories.AuthorRepository;
+import org.mystudying.bookmanagementauth.repositories.BookRepository;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.simple.JdbcClient;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.startsWith;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Not transactional: every chunk commits in its own transaction, as in production, so the rows written here
+ * are real. All of them carry the "Import Test" prefix and are deleted after each test.
+ */
+@SpringBootTest(properties = "app.books.import.chunk-size=2")
+@AutoConfigureMockMvc
+public class BookImportTest {
+
+    private static final String CSV_HEADER = "title,year,author,available,genres\n";
+
+    private final MockMvc mockMvc;
+    private final JdbcClient jdbcClient;
+    private final TransactionTemplate txTemplate;
+    private final BookRepository bookRepository;
+    private final AuthorRepository authorRepository;
+
+    public BookImportTest(MockMvc mockMvc, JdbcClient jdbcClient, TransactionTemplate txTemplate,
+                          BookRepository bookRepository, AuthorRepository authorRepository) {
+        this.mockMvc = mockMvc;
+        this.jdbcClient = jdbcClient;
+        this.txTemplate = txTemplate;
+        this.bookRepository = bookRepository;
+        this.authorRepository = authorRepository;
+    }
+
+    @BeforeEach
+    void existingReferences() {
+        jdbcClient.sql("INSERT INTO authors (name) VALUES ('Import Test Author')").update();
+        jdbcClient.sql("INSERT INTO genres (name) VALUES ('Import Test Genre 1'), ('Import Test Genre 2')").update();
+    }
+
+    @AfterEach
+    void deleteImportedRows() {
+        jdbcClient.sql("""
+                        DELETE FROM book_genres WHERE book_id IN (SELECT id FROM books WHERE title LIKE 'Import Test%')
+                           OR genre_id IN (SELECT id FROM genres WHERE name LIKE 'Import Test%')""")
+                .update();
+        jdbcClient.sql("DELETE FROM books WHERE title LIKE 'Import Test%'").update();
+        jdbcClient.sql("DELETE FROM authors WHERE name LIKE 'Import Test%'").update();
+        jdbcClient.sql("DELETE FROM genres WHERE name LIKE 'Import Test%'").update();
+    }
+
+    private ResultActions importCsv(String rows) throws Exception {
+        return mockMvc.perform(post("/api/books/import").contentType("text/csv").content(CSV_HEADER + rows));
+    }
+
+    private List<String> genresOf(String title) {
+        return jdbcClient.sql("""
+                        SELECT g.name FROM books b
+                        JOIN book_genres bg ON bg.book_id = b.id
+                        JOIN genres g ON g.id = bg.genre_id
+                        WHERE b.title = :title ORDER BY g.name""")
+                .param("title", title)
+                .query(String.class)
+                .list();
+    }
+
+    private String authorOf(String title) {
+        return jdbcClient.sql("SELECT a.name FROM books b JOIN authors a ON a.id = b.author_id WHERE b.title = :title")
+                .param("title", title)
+                .query(String.class)
+                .single();
+    }
+
+    private long count(String sql) {
+        return jdbcClient.sql(sql).query(Long.class).single();
+    }
+
+    private long idOfBook(String title) {
+        return jdbcClient.sql("SELECT id FROM books WHERE title = ?").param(title).query(Long.class).single();
+    }
+
+    private long lastHandedOutBookId() {
+        return jdbcClient.sql("SELECT next_val FROM id_allocator WHERE name = 'books'").query(Long.class).single();
+    }
+
+    private long saveThroughJpa(String title) {
+        long authorId = jdbcClient.sql("SELECT id FROM authors WHERE name = 'Import Test Author'")
+                .query(Long.class)
+                .single();
+        return txTemplate.execute(status -> bookRepository.save(
+                new Book(null, title, 2000, authorRepository.getReferenceById(authorId), 1)).getId());
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void csvImportReusesAndCreatesAuthorsAndGenres() throws Exception {
+        importCsv("""
+                Import Test Book 1,1999,Import Test Author,3,Import Test Genre 1|import test genre 2
+                "Import Test Book 2, Part ""Two\""",2005,Import Test New Author,0,Import Test New Genre
+                """)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("imported").value(2))
+                .andExpect(jsonPath("failed").value(0))
+                .andExpect(jsonPath("errors").isEmpty());
+
+        assertThat(authorOf("Import Test Book 1")).isEqualTo("Import Test Author");
+        assertThat(genresOf("Import Test Book 1")).containsExactly("Import Test Genre 1", "Import Test Genre 2");
+        assertThat(authorOf("Import Test Book 2, Part \"Two\"")).isEqualTo("Import Test New Author");
+        assertThat(genresOf("Import Test Book 2, Part \"Two\"")).containsExactly("Import Test New Genre");
+        assertThat(count("SELECT count(*) FROM authors WHERE name = 'Import Test Author'")).isEqualTo(1);
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void ndjsonImportReportsRejectedLinesAndImportsTheRest() throws Exception {
+        String ndjson = """
+                {"title":"Import Test Json 1","year":2010,"author":"Import Test Json Author","available":1,"genres":["Import Test Json Genre"]}
+                {"title":"","year":2010,"author":"Import Test Json Author","available":1,"genres":["Import Test Json Genre"]}
+                not json
+                {"title":"Import Test Json 2","year":2011,"author":"Import Test Json Author","available":2,"genres":["Import Test Json Genre","Import Test Genre 2"]}
+                """;
+
+        mockMvc.perform(post("/api/books/import").contentType("application/x-ndjson").content(ndjson))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("imported").value(2))
+                .andExpect(jsonPath("failed").value(2))
+                .andExpect(jsonPath("errors[0].line").value(2))
+                .andExpect(jsonPath("errors[0].message").value("title: Title cannot be blank"))
+                .andExpect(jsonPath("errors[1].line").value(3))
+                .andExpect(jsonPath("errors[1].message").value(startsWith("Malformed JSON")));
+
+        assertThat(count("SELECT count(*) FROM authors WHERE name = 'Import Test Json Author'")).isEqualTo(1);
+        assertThat(genresOf("Import Test Json 2")).containsExactly("Import Test Genre 2", "Import Test Json Genre");
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void aFailedChunkIsRolledBackAndTheOtherChunksAreKept() throws Exception {
+        // takes the second id the first chunk will reserve, so writing that chunk fails
+        long authorId = jdbcClient.sql("SELECT id FROM authors WHERE name = 'Import Test Author'")
+                .query(Long.class)
+                .single();
+        jdbcClient.sql("INSERT INTO books (id, title, year, author_id, available, version) VALUES (?, ?, 2000, ?, 0, 0)")
+                .params(lastHandedOutBookId() + 2, "Import Test Blocker", authorId)
+                .update();
+
+        importCsv("""
+                Import Test Chunk 1a,2001,Import Test Lost Author,1,Import Test Genre 1
+                Import Test Chunk 1b,2001,Import Test Author,1,Import Test Genre 1
+                Import Test Chunk 2a,2002,Import Test Author,1,Import Test Genre 1
+                Import Test Chunk 2b,2002,Import Test Author,1,Import Test Genre 2
+                Import Test Chunk 3a,2003,Import Test Author,1,Import Test Genre 2
+                """)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("imported").value(3))
+                .andExpect(jsonPath("failed").value(2))
+                .andExpect(jsonPath("errors[0].line").value(2))
+                .andExpect(jsonPath("errors[0].message").value(startsWith("Not imported: ")))
+                .andExpect(jsonPath("errors[1].line").value(3));
+
+        assertThat(count("SELECT count(*) FROM books WHERE title LIKE 'Import Test Chunk 1%'")).isZero();
+        assertThat(count("SELECT count(*) FROM authors WHERE name = 'Import Test Lost Author'")).isZero();
+        assertThat(count("SELECT count(*) FROM books WHERE title LIKE 'Import Test Chunk 2%'")).isEqualTo(2);
+        assertThat(genresOf("Import Test Chunk 3a")).containsExactly("Import Test Genre 2");
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void importedIdsDoNotCollideWithIdsHandedOutToJpa() throws Exception {
+        long firstJpaId = saveThroughJpa("Import Test Jpa 1");
+        long lastHandedOut = lastHandedOutBookId();
+
+        importCsv("Import Test Between,2001,Import Test Author,1,Import Test Genre 1\n")
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("imported").value(1));
+        long importedId = idOfBook("Import Test Between");
+        long secondJpaId = saveThroughJpa("Import Test Jpa 2");
+
+        assertThat(firstJpaId).isLessThanOrEqualTo(lastHandedOut);
+        assertThat(importedId).isGreaterThan(lastHandedOut);
+        assertThat(secondJpaId).isNotEqualTo(importedId);
+        assertThat(count("SELECT count(*) FROM books WHERE title LIKE 'Import Test Jpa%'")).isEqualTo(2);
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void csvWithoutRequiredColumnsIsRejected() throws Exception {
+        mockMvc.perform(post("/api/books/import").contentType("text/csv").content("title,year\nSome Book,2000\n"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("code").value("INVALID_IMPORT_FILE"));
+    }
+
+    @Test
+    @WithMockUser
+    void importIsForAdminsOnly() throws Exception {
+        mockMvc.perform(post("/api/books/import").contentType("text/csv").content(CSV_HEADER))
+                .andExpect(status().isForbidden());
+    }
+}
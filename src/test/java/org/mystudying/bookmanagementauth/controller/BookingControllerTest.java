@@ -0,0 +1,131 @@
+package org.mystudying.bookmanagementauth.controller;
+
+import com.jayway.jsonpath.JsonPath;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.jdbc.core.simple.JdbcClient;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.model;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "app.reports.summary-ttl=0s")
+@AutoConfigureMockMvc
+@Transactional
+@Sql("/insertTestRecords.sql")
+public class BookingControllerTest {
+
+    private final MockMvc mockMvc;
+    private final JdbcClient jdbcClient;
+
+    public BookingControllerTest(MockMvc mockMvc, JdbcClient jdbcClient) {
+        this.mockMvc = mockMvc;
+        this.jdbcClient = jdbcClient;
+    }
+
+    private int reportTotal(String type, String... params) throws Exception {
+        var request = get("/api/reports/bookings").queryParam("type", type);
+        for (int i = 0; i < params.length; i += 2) {
+            request.queryParam(params[i], params[i + 1]);
+        }
+        String json = mockMvc.perform(request)
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return JsonPath.parse(json).read("$.totalElements", Integer.class);
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void summaryCountsMatchPagedReports() throws Exception {
+        String json = mockMvc.perform(get("/api/reports/summary")
+                        .queryParam("days", "5")
+                        .queryParam("minActiveBooks", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.generatedAt").exists())
+                .andReturn().getResponse().getContentAsString();
+
+        var summary = JsonPath.parse(json);
+        assertThat(summary.read("$.total", Integer.class)).isEqualTo(reportTotal("ALL"));
+        assertThat(summary.read("$.active", Integer.class)).isEqualTo(reportTotal("ACTIVE"));
+        assertThat(summary.read("$.returned", Integer.class)).isEqualTo(reportTotal("RETURNED"));
+        assertThat(summary.read("$.withFines", Integer.class)).isEqualTo(reportTotal("FINES"));
+        assertThat(summary.read("$.withUnpaidFines", Integer.class)).isEqualTo(reportTotal("UNPAID_FINES"));
+        assertThat(summary.read("$.dueSoon", Integer.class)).isEqualTo(reportTotal("DUE_SOON", "days", "5"));
+        // Test User 1 has an active booking that has been overdue since 2024
+        assertThat(summary.read("$.overdue", Integer.class)).isPositive();
+        assertThat(summary.read("$.heavyUsers", Integer.class)).isPositive();
+    }
+
+    @Test
+    @WithMockUser
+    void summaryIsAdminOnly() throws Exception {
+        mockMvc.perform(get("/api/reports/summary"))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void reportsPageStartsWithTheServerDefaults() throws Exception {
+        mockMvc.perform(get("/reports"))
+                .andExpect(status().isOk())
+                .andExpect(model().attribute("dueSoonDays", 3))
+                .andExpect(model().attribute("minActiveBooks", 2L))
+                .andExpect(content().string(containsString("id=\"days\" class=\"form-control\" value=\"3\"")));
+
+        String defaults = mockMvc.perform(get("/api/reports/summary"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        String explicit = mockMvc.perform(get("/api/reports/summary")
+                        .queryParam("days", "3")
+                        .queryParam("minActiveBooks", "2"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        assertThat(JsonPath.parse(defaults).read("$.dueSoon", Integer.class))
+                .isEqualTo(JsonPath.parse(explicit).read("$.dueSoon", Integer.class));
+        assertThat(JsonPath.parse(defaults).read("$.heavyUsers", Integer.class))
+                .isEqualTo(JsonPath.parse(explicit).read("$.heavyUsers", Integer.class));
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void timeseriesRejectsFromAfterTo() throws Exception {
+        mockMvc.perform(get("/api/reports/timeseries")
+                        .queryParam("from", "2024-02-01")
+                        .queryParam("to", "2024-01-01"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.code").value("INVALID_DATE_RANGE"));
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void timeseriesComputesOnlyAFewDaysPastTheRollups() throws Exception {
+        LocalDate yesterday = LocalDate.now().minusDays(1);
+        // as if the catch-up after a restart had only reached the first test booking
+        jdbcClient.sql("UPDATE rollup_state SET last_day = '2024-01-01' WHERE name = 'circulation_daily'").update();
+
+        mockMvc.perform(get("/api/reports/timeseries")
+                        .queryParam("from", "2024-01-01")
+                        .queryParam("to", yesterday.toString()))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().exists(HttpHeaders.RETRY_AFTER))
+                .andExpect(jsonPath("$.code").value("ROLLUPS_PENDING"));
+
+        mockMvc.perform(get("/api/reports/timeseries")
+                        .queryParam("from", yesterday.minusDays(2).toString())
+                        .queryParam("to", yesterday.toString()))
+                .andExpect(status().isOk());
+    }
+}
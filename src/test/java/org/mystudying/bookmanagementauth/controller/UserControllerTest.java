@@ -32,6 +32,7 @@ import java.util.stream.Collectors;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.hamcrest.Matchers.*;
+import static org.mystudying.bookmanagementauth.support.SqlStatementAssertions.assertMaxStatements;
 
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.security.test.context.support.WithUserDetails;
@@ -108,6 +109,8 @@ public class UserControllerTest {
         MvcResult result = mockMvc.perform(get("/api/users"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.length()").value(JdbcTestUtils.countRowsInTable(jdbcClient, USERS_TABLE)))
+                // users, then the roles of all of them at once (and the role table, unless already cached)
+                .andExpect(assertMaxStatements(3))
                 .andReturn();
 
         String jsonResponse = result.getResponse().getContentAsString();
@@ -135,7 +138,8 @@ public class UserControllerTest {
         mockMvc.perform(get("/api/users/{id}", id))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.id").value(id))
-                .andExpect(jsonPath("$.name").value("Test User 1"));
+                .andExpect(jsonPath("$.name").value("Test User 1"))
+                .andExpect(assertMaxStatements(3));
     }
 
     @Test
@@ -187,6 +191,8 @@ public class UserControllerTest {
         MvcResult result = mockMvc.perform(get("/api/users/{id}/books", user1Id))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.length()").value((int) expectedBooksCount))
+                // the user check and one query for the bookings with their books
+                .andExpect(assertMaxStatements(2))
                 .andReturn();
 
         String jsonResponse = result.getResponse().getContentAsString();
@@ -210,20 +216,16 @@ public class UserControllerTest {
     void createUserReturnsCreatedUser() throws Exception {
         long initialRowCount = JdbcTestUtils.countRowsInTable(jdbcClient, USERS_TABLE);
         String newUserJson = readJsonFile("correctUser.json");
-        long lastId = jdbcClient.sql("select max(id) from users")
-                .query(Long.class)
-                .single();
 
         mockMvc.perform(post("/api/users")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(newUserJson))
                 .andExpect(status().isCreated())
                 .andExpect(jsonPath("$.id").isNumber())
-                .andExpect(jsonPath("$.id").value(lastId + 1))
                 .andExpect(jsonPath("$.name").value("New User From Test"))
                 .andExpect(jsonPath("$.email").value("new.test@example.com"));
 
-//        we already can check DB without flushing due the forced flush by creation and strategy = GenerationType.IDENTITY
+//        we already can check DB without flushing due "saveAndFlush" in Service class
         assertThat(JdbcTestUtils.countRowsInTableWhere(jdbcClient, USERS_TABLE, "email = 'new.test@example.com'")).isEqualTo(1);
         assertThat(JdbcTestUtils.countRowsInTable(jdbcClient, USERS_TABLE)).isEqualTo(initialRowCount + 1);
     }
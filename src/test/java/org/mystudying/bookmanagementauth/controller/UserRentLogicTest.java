@@ -86,7 +86,9 @@ public class UserRentLogicTest {
                         .content(requestJson))
                 .andExpect(status().isNoContent());
 
-//      Clear persistence context to force entity reload from DB, because we got stale entity from persistence context after atomic update
+//      Write the new booking first (pooled ids defer the insert), then clear the persistence context
+//      to force entity reload from DB, because we got stale entity from persistence context after atomic update
+        entityManager.flush();
         entityManager.clear();
         mockMvc.perform(get("/api/books/{id}", bookId))
                 .andExpect(status().isOk())
@@ -0,0 +1,80 @@
+package org.mystudying.bookmanagementauth.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.PrintStream;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-operation latency histograms and outcome counters. Latency is measured from the moment a request
+ * was scheduled to start, so time spent queued behind a slow server counts (no coordinated omission).
+ */
+class LatencyRecorder {
+
+    private final Map<Operation, Stats> stats = new EnumMap<>(Operation.class);
+
+    LatencyRecorder() {
+        for (Operation operation : Operation.values()) {
+            stats.put(operation, new Stats());
+        }
+    }
+
+    /**
+     * @param status HTTP status, or -1 when the request failed without a response
+     */
+    void record(Operation operation, long intendedStartNanos, long endNanos, int status) {
+        Stats s = stats.get(operation);
+        s.latency.recordValue(Math.max(0, endNanos - intendedStartNanos));
+        if (status < 0 || status >= 500) {
+            s.errors.increment();
+        } else if (status >= 400) {
+            s.rejected.increment();
+        }
+    }
+
+    void dropped(Operation operation) {
+        stats.get(operation).dropped.increment();
+    }
+
+    void skipped(Operation operation) {
+        stats.get(operation).skipped.increment();
+    }
+
+    void print(PrintStream out, Duration duration) {
+        out.printf("%n%-42s %8s %8s %8s %8s %8s %9s %9s %9s %9s %9s%n", "endpoint", "count", "rejected", "errors",
+                "dropped", "skipped", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+        Histogram total = new Histogram(3);
+        long errors = 0;
+        for (Map.Entry<Operation, Stats> entry : stats.entrySet()) {
+            Stats s = entry.getValue();
+            Histogram latency = s.latency.copy();
+            total.add(latency);
+            errors += s.errors.sum();
+            out.printf("%-42s %8d %8d %8d %8d %8d %9.2f %9.2f %9.2f %9.2f %9.2f%n", entry.getKey().endpoint(),
+                    latency.getTotalCount(), s.rejected.sum(), s.errors.sum(), s.dropped.sum(), s.skipped.sum(),
+                    millis(latency, 50), millis(latency, 90), millis(latency, 99), millis(latency, 99.9),
+                    latency.getMaxValue() / 1e6);
+        }
+        out.printf("%nthroughput: %.1f req/s, errors: %d, overall p50 %.2f ms, p99 %.2f ms%n",
+                total.getTotalCount() / (duration.toMillis() / 1000.0), errors, millis(total, 50), millis(total, 99));
+        out.println("rejected = 4xx answers (e.g. book not available), errors = 5xx or no response,");
+        out.println("dropped = not sent because load.max-in-flight requests were outstanding,");
+        out.println("skipped = no suitable user at that moment (e.g. nothing to return)");
+    }
+
+    private static double millis(Histogram histogram, double percentile) {
+        return histogram.getValueAtPercentile(percentile) / 1e6;
+    }
+
+    private static final class Stats {
+        private final ConcurrentHistogram latency = new ConcurrentHistogram(3);
+        private final LongAdder rejected = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder dropped = new LongAdder();
+        private final LongAdder skipped = new LongAdder();
+    }
+}
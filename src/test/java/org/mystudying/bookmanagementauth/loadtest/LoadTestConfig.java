@@ -0,0 +1,53 @@
+package org.mystudying.bookmanagementauth.loadtest;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Harness settings, read from {@code load.*} system properties (the {@code loadtest} Maven profile passes them on).
+ *
+ * @param rate        requests started per second, independent of how fast responses come back (open loop)
+ * @param maxInFlight requests beyond this many outstanding ones are counted as dropped instead of sent
+ * @param sessions    seeded users that are logged in up front and do the renting and returning
+ * @param mix         relative weight of each operation
+ */
+record LoadTestConfig(int books,
+                      int users,
+                      int sessions,
+                      int finedBookings,
+                      int rate,
+                      Duration warmup,
+                      Duration duration,
+                      int maxInFlight,
+                      Map<Operation, Integer> mix) {
+
+    static LoadTestConfig fromSystemProperties() {
+        int users = intProperty("load.users", 500);
+        return new LoadTestConfig(
+                intProperty("load.books", 2_000),
+                users,
+                Math.min(users, intProperty("load.sessions", 200)),
+                intProperty("load.fined-bookings", 2_000),
+                intProperty("load.rate", 200),
+                Duration.parse("PT" + System.getProperty("load.warmup", "15s")),
+                Duration.parse("PT" + System.getProperty("load.duration", "60s")),
+                intProperty("load.max-in-flight", 1_000),
+                parseMix(System.getProperty("load.mix",
+                        "browse:35,details:30,login:5,rent:10,return:10,payFine:3,reports:7")));
+    }
+
+    private static int intProperty(String name, int defaultValue) {
+        return Integer.parseInt(System.getProperty(name, String.valueOf(defaultValue)));
+    }
+
+    // "browse:35,details:30,..."
+    private static Map<Operation, Integer> parseMix(String value) {
+        Map<Operation, Integer> mix = new EnumMap<>(Operation.class);
+        for (String entry : value.split(",")) {
+            String[] parts = entry.trim().split(":");
+            mix.put(Operation.fromKey(parts[0]), Integer.parseInt(parts[1]));
+        }
+        return mix;
+    }
+}
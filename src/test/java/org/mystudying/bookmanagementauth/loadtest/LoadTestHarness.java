@@ -0,0 +1,166 @@
+package org.mystudying.bookmanagementauth.loadtest;
+
+import ch.vorburger.mariadb4j.DB;
+import ch.vorburger.mariadb4j.DBConfiguration;
+import ch.vorburger.mariadb4j.DBConfigurationBuilder;
+import org.mystudying.bookmanagementauth.BookManagementAuthApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * End-to-end load test without Docker: starts an embedded MariaDB (MySQL compatible), boots the application
+ * against it (Flyway migrates as usual), seeds {@link LoadTestSeeder data}, then sends a weighted mix of
+ * requests at a fixed arrival rate for {@code load.duration} after a {@code load.warmup}.
+ * Run with {@code ./mvnw -Ploadtest verify}; every {@code load.*} setting can be overridden with {@code -D}.
+ * Extra application properties (e.g. {@code --spring.threads.virtual.enabled=true}) can be passed as arguments.
+ */
+public class LoadTestHarness {
+
+    private static final String DATABASE = "booksmarket";
+
+    public static void main(String[] args) throws Exception {
+        LoadTestConfig config = LoadTestConfig.fromSystemProperties();
+
+        DBConfigurationBuilder dbConfig = DBConfigurationBuilder.newBuilder();
+        dbConfig.setPort(0);
+        DBConfiguration database = dbConfig.build();
+        DB db = DB.newEmbeddedDB(database);
+        db.start();
+        db.createDB(DATABASE);
+
+        // command line arguments, so they win over application.properties; the caller's own come last
+        List<String> arguments = new ArrayList<>(List.of(
+                "--spring.datasource.url=jdbc:mysql://localhost:" + database.getPort() + "/" + DATABASE,
+                "--spring.datasource.username=root",
+                "--spring.datasource.password=",
+                "--server.port=0",
+                // every simulated client comes from 127.0.0.1
+                "--app.rate-limit.enabled=false",
+                // the test classpath switches the session store off for MockMvc; measure the real one
+                "--app.sessions.store=jdbc",
+                "--logging.level.root=WARN"));
+        arguments.addAll(List.of(args));
+
+        // the test class path brings the optional devtools, whose restart would run this main method a second time
+        System.setProperty("spring.devtools.restart.enabled", "false");
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(BookManagementAuthApplication.class)
+                .run(arguments.toArray(String[]::new))) {
+            run(config, context);
+        } finally {
+            db.stop();
+        }
+    }
+
+    private static void run(LoadTestConfig config, ConfigurableApplicationContext context) throws Exception {
+        String passwordHash = context.getBean(PasswordEncoder.class).encode(LoadTestSeeder.PASSWORD);
+        LoadTestSeeder.SeededData data = new LoadTestSeeder(context.getBean(JdbcTemplate.class)).seed(config, passwordHash);
+        int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+        String baseUrl = "http://localhost:" + port;
+        System.out.printf("Seeded %d books, %d users, %d unpaid fines; application on %s%n",
+                data.bookIds().size(), data.userIds().size(), data.fines().size(), baseUrl);
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            HttpClient client = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .connectTimeout(Duration.ofSeconds(5))
+                    .executor(executor)
+                    .build();
+
+            List<LoadTestWorkload.Session> sessions = login(client, baseUrl, data, config.sessions(), executor);
+            LoadTestWorkload.Session admin = new LoadTestWorkload.Session(0, "admin@library.com",
+                    LoadTestWorkload.login(client, baseUrl, "admin@library.com", "admin"));
+            LoadTestWorkload workload = new LoadTestWorkload(client, baseUrl, data, sessions, admin);
+
+            System.out.printf("Warm-up: %s at %d req/s%n", config.warmup(), config.rate());
+            drive(config, workload, config.warmup(), new LatencyRecorder());
+
+            System.out.printf("Measuring: %s at %d req/s, mix %s%n", config.duration(), config.rate(), config.mix());
+            LatencyRecorder recorder = new LatencyRecorder();
+            drive(config, workload, config.duration(), recorder);
+            recorder.print(System.out, config.duration());
+        }
+    }
+
+    private static List<LoadTestWorkload.Session> login(HttpClient client, String baseUrl, LoadTestSeeder.SeededData data,
+                                                        int count, ExecutorService executor) throws Exception {
+        List<Future<LoadTestWorkload.Session>> logins = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            int user = i;
+            logins.add(executor.submit(() -> new LoadTestWorkload.Session(data.userIds().get(user),
+                    LoadTestSeeder.email(user),
+                    LoadTestWorkload.login(client, baseUrl, LoadTestSeeder.email(user), LoadTestSeeder.PASSWORD))));
+        }
+        List<LoadTestWorkload.Session> sessions = new ArrayList<>();
+        for (Future<LoadTestWorkload.Session> login : logins) {
+            sessions.add(login.get());
+        }
+        return sessions;
+    }
+
+    /**
+     * Open loop: request n is due at start + n / rate whether or not earlier ones have been answered.
+     */
+    private static void drive(LoadTestConfig config, LoadTestWorkload workload, Duration duration,
+                              LatencyRecorder recorder) throws InterruptedException {
+        Operation[] weighted = weightedOperations(config);
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / config.rate();
+        long start = System.nanoTime();
+        long end = start + duration.toNanos();
+        AtomicInteger inFlight = new AtomicInteger();
+
+        for (long n = 0; ; n++) {
+            long intendedStart = start + n * intervalNanos;
+            if (intendedStart >= end) {
+                break;
+            }
+            long wait = intendedStart - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            Operation operation = weighted[ThreadLocalRandom.current().nextInt(weighted.length)];
+            if (inFlight.get() >= config.maxInFlight()) {
+                recorder.dropped(operation);
+                continue;
+            }
+            inFlight.incrementAndGet();
+            workload.execute(operation).whenComplete((status, error) -> {
+                if (error == null && status == null) {
+                    recorder.skipped(operation);
+                } else {
+                    recorder.record(operation, intendedStart, System.nanoTime(), error == null ? status : -1);
+                }
+                inFlight.decrementAndGet();
+            });
+        }
+
+        long drainDeadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (inFlight.get() > 0 && System.nanoTime() < drainDeadline) {
+            Thread.sleep(10);
+        }
+    }
+
+    private static Operation[] weightedOperations(LoadTestConfig config) {
+        List<Operation> weighted = new ArrayList<>();
+        config.mix().forEach((operation, weight) -> {
+            for (int i = 0; i < weight; i++) {
+                weighted.add(operation);
+            }
+        });
+        return weighted.toArray(Operation[]::new);
+    }
+}
@@ -0,0 +1,118 @@
+package org.mystudying.bookmanagementauth.loadtest;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.simple.JdbcClient;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Fills the freshly migrated database with a catalog, users and returned-late bookings with unpaid fines.
+ * Fines go to users outside the logged-in sessions, because a user with unpaid fines cannot rent.
+ */
+class LoadTestSeeder {
+
+    static final String PASSWORD = "password";
+
+    private static final int GENRES = 20;
+    private static final int BATCH_SIZE = 500;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final JdbcClient jdbcClient;
+
+    LoadTestSeeder(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.jdbcClient = JdbcClient.create(jdbcTemplate);
+    }
+
+    static String email(int user) {
+        return "load-user-" + user + "@example.com";
+    }
+
+    SeededData seed(LoadTestConfig config, String passwordHash) {
+        List<Object[]> authors = new ArrayList<>();
+        for (int i = 0; i < Math.max(1, config.books() / 10); i++) {
+            authors.add(new Object[]{"Load Author " + i, Date.valueOf(LocalDate.of(1900 + i % 100, 1, 1))});
+        }
+        insert("INSERT INTO authors(name, birthdate) VALUES (?, ?)", authors);
+        List<Long> authorIds = ids("SELECT id FROM authors WHERE name LIKE 'Load Author %' ORDER BY id");
+
+        List<Object[]> genres = new ArrayList<>();
+        for (int i = 0; i < GENRES; i++) {
+            genres.add(new Object[]{"Load Genre " + i});
+        }
+        insert("INSERT INTO genres(name) VALUES (?)", genres);
+        List<Long> genreIds = ids("SELECT id FROM genres WHERE name LIKE 'Load Genre %' ORDER BY id");
+
+        List<Object[]> books = new ArrayList<>();
+        for (int i = 0; i < config.books(); i++) {
+            books.add(new Object[]{"Load Book " + i, 1950 + i % 75, authorIds.get(i % authorIds.size()), 5});
+        }
+        insert("INSERT INTO books(title, year, author_id, available) VALUES (?, ?, ?, ?)", books);
+        List<Long> bookIds = ids("SELECT id FROM books WHERE title LIKE 'Load Book %' ORDER BY id");
+
+        List<Object[]> bookGenres = new ArrayList<>();
+        for (int i = 0; i < bookIds.size(); i++) {
+            bookGenres.add(new Object[]{bookIds.get(i), genreIds.get(i % GENRES)});
+            if (i % 3 == 0) {
+                bookGenres.add(new Object[]{bookIds.get(i), genreIds.get((i + 7) % GENRES)});
+            }
+        }
+        insert("INSERT INTO book_genres(book_id, genre_id) VALUES (?, ?)", bookGenres);
+
+        List<Object[]> users = new ArrayList<>();
+        for (int i = 0; i < config.users(); i++) {
+            users.add(new Object[]{"Load User " + i, email(i), passwordHash});
+        }
+        insert("INSERT INTO users(name, email, password, active) VALUES (?, ?, ?, TRUE)", users);
+        List<Long> userIds = ids("SELECT id FROM users WHERE email LIKE 'load-user-%' ORDER BY id");
+        jdbcTemplate.update("""
+                INSERT INTO users_roles(user_id, role_id)
+                SELECT u.id, r.id FROM users u JOIN roles r ON r.name = 'ROLE_USER'
+                WHERE u.email LIKE 'load-user-%'""");
+
+        List<Fine> fines = seedFines(config, userIds, bookIds);
+        return new SeededData(userIds, bookIds, genreIds, fines);
+    }
+
+    private List<Fine> seedFines(LoadTestConfig config, List<Long> userIds, List<Long> bookIds) {
+        List<Long> finedUsers = userIds.subList(config.sessions(), userIds.size());
+        if (finedUsers.isEmpty()) {
+            return List.of();
+        }
+        LocalDate today = LocalDate.now();
+        List<Object[]> bookings = new ArrayList<>();
+        for (int i = 0; i < config.finedBookings(); i++) {
+            LocalDate borrowedAt = today.minusDays(60 + i % 200);
+            LocalDate dueAt = borrowedAt.plusDays(14);
+            int daysLate = 1 + i % 20;
+            bookings.add(new Object[]{finedUsers.get(i % finedUsers.size()), bookIds.get(i % bookIds.size()),
+                    Date.valueOf(borrowedAt), Date.valueOf(dueAt), Date.valueOf(dueAt.plusDays(daysLate)),
+                    BigDecimal.valueOf(daysLate)});
+        }
+        insert("INSERT INTO bookings(user_id, book_id, borrowed_at, due_at, returned_at, fine, fine_paid) " +
+                "VALUES (?, ?, ?, ?, ?, ?, FALSE)", bookings);
+        return jdbcClient.sql("SELECT user_id, id FROM bookings WHERE fine > 0 AND fine_paid = FALSE")
+                .query((rs, rowNum) -> new Fine(rs.getLong(1), rs.getLong(2)))
+                .list();
+    }
+
+    private void insert(String sql, List<Object[]> rows) {
+        for (int from = 0; from < rows.size(); from += BATCH_SIZE) {
+            jdbcTemplate.batchUpdate(sql, rows.subList(from, Math.min(rows.size(), from + BATCH_SIZE)));
+        }
+    }
+
+    private List<Long> ids(String sql) {
+        return jdbcClient.sql(sql).query(Long.class).list();
+    }
+
+    record Fine(long userId, long bookingId) {
+    }
+
+    record SeededData(List<Long> userIds, List<Long> bookIds, List<Long> genreIds, List<Fine> fines) {
+    }
+}
@@ -0,0 +1,187 @@
+package org.mystudying.bookmanagementauth.loadtest;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Turns an {@link Operation} into an HTTP request against the running application.
+ * Circulation runs as the logged-in seeded users (one request per user at a time, each keeping track of
+ * the books it holds); fines are paid and reports read as the admin.
+ */
+class LoadTestWorkload {
+
+    private static final int MAX_LOANS = 3;
+    private static final int PICK_ATTEMPTS = 8;
+
+    private final HttpClient client;
+    private final String baseUrl;
+    private final List<Long> bookIds;
+    private final List<Long> genreIds;
+    private final List<Session> sessions;
+    private final ConcurrentLinkedQueue<LoadTestSeeder.Fine> unpaidFines;
+    private final Session admin;
+
+    LoadTestWorkload(HttpClient client, String baseUrl, LoadTestSeeder.SeededData data,
+                     List<Session> sessions, Session admin) {
+        this.client = client;
+        this.baseUrl = baseUrl;
+        this.bookIds = data.bookIds();
+        this.genreIds = data.genreIds();
+        this.sessions = sessions;
+        this.unpaidFines = new ConcurrentLinkedQueue<>(data.fines());
+        this.admin = admin;
+    }
+
+    /**
+     * Logs in and returns the session cookie, or throws when the credentials are refused.
+     */
+    static String login(HttpClient client, String baseUrl, String email, String password) throws Exception {
+        HttpResponse<Void> response = client.send(loginRequest(baseUrl, email, password),
+                HttpResponse.BodyHandlers.discarding());
+        String cookie = sessionCookie(response);
+        if (response.statusCode() != 200 || cookie == null) {
+            throw new IllegalStateException("Login of " + email + " failed with status " + response.statusCode());
+        }
+        return cookie;
+    }
+
+    /**
+     * Sends the operation; completes with the HTTP status, or with {@code null} when there was nothing to do
+     * (no idle user, nothing to return, no unpaid fine left).
+     */
+    CompletableFuture<Integer> execute(Operation operation) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return switch (operation) {
+            case BROWSE -> send(get("/api/books?genreId=" + pick(genreIds, random), null));
+            case DETAILS -> send(get("/api/books/" + pick(bookIds, random) + "/details", null));
+            case LOGIN -> withIdleSession(random, session -> true, session ->
+                    client.sendAsync(loginRequest(baseUrl, session.email, LoadTestSeeder.PASSWORD),
+                                    HttpResponse.BodyHandlers.discarding())
+                            .thenApply(response -> {
+                                String cookie = sessionCookie(response);
+                                if (cookie != null) {
+                                    session.cookie.set(cookie);
+                                }
+                                return response.statusCode();
+                            }));
+            case RENT -> withIdleSession(random, session -> session.loans.size() < MAX_LOANS, session -> {
+                long bookId = pick(bookIds, random);
+                return send(post("/api/users/" + session.userId + "/rent", "{\"bookId\":" + bookId + "}", session))
+                        .thenApply(status -> {
+                            if (status == 204) {
+                                session.loans.add(bookId);
+                            }
+                            return status;
+                        });
+            });
+            case RETURN -> withIdleSession(random, session -> !session.loans.isEmpty(), session -> {
+                Long bookId = session.loans.poll();
+                return send(post("/api/users/" + session.userId + "/return", "{\"bookId\":" + bookId + "}", session));
+            });
+            case PAY_FINE -> {
+                LoadTestSeeder.Fine fine = unpaidFines.poll();
+                yield fine == null ? CompletableFuture.completedFuture(null)
+                        : send(post("/api/users/" + fine.userId() + "/bookings/" + fine.bookingId() + "/pay", null, admin));
+            }
+            case REPORTS -> {
+                String[] types = {"ACTIVE", "DUE_SOON", "UNPAID_FINES", "RETURNED"};
+                yield send(get("/api/reports/bookings?type=" + types[random.nextInt(types.length)]
+                        + "&page=" + random.nextInt(5) + "&size=20", admin));
+            }
+        };
+    }
+
+    private CompletableFuture<Integer> withIdleSession(ThreadLocalRandom random,
+                                                      Predicate<Session> eligible,
+                                                      Function<Session, CompletableFuture<Integer>> action) {
+        for (int attempt = 0; attempt < PICK_ATTEMPTS; attempt++) {
+            Session session = sessions.get(random.nextInt(sessions.size()));
+            if (eligible.test(session) && session.busy.compareAndSet(false, true)) {
+                if (!eligible.test(session)) {
+                    session.busy.set(false);
+                    continue;
+                }
+                return action.apply(session).whenComplete((status, error) -> session.busy.set(false));
+            }
+        }
+        return CompletableFuture.completedFuture(null);
+    }
+
+    private CompletableFuture<Integer> send(HttpRequest request) {
+        return client.sendAsync(request, HttpResponse.BodyHandlers.discarding()).thenApply(HttpResponse::statusCode);
+    }
+
+    private HttpRequest get(String path, Session session) {
+        return builder(path, session).GET().build();
+    }
+
+    private HttpRequest post(String path, String json, Session session) {
+        HttpRequest.Builder builder = builder(path, session);
+        if (json == null) {
+            return builder.POST(HttpRequest.BodyPublishers.noBody()).build();
+        }
+        return builder.header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json, StandardCharsets.UTF_8))
+                .build();
+    }
+
+    private HttpRequest.Builder builder(String path, Session session) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .header("Accept", "application/json");
+        if (session != null) {
+            builder.header("Cookie", session.cookie.get());
+        }
+        return builder;
+    }
+
+    private static HttpRequest loginRequest(String baseUrl, String email, String password) {
+        String form = "username=" + URLEncoder.encode(email, StandardCharsets.UTF_8)
+                + "&password=" + URLEncoder.encode(password, StandardCharsets.UTF_8);
+        return HttpRequest.newBuilder(URI.create(baseUrl + "/api/auth/login"))
+                .header("Content-Type", "application/x-www-form-urlencoded")
+                .POST(HttpRequest.BodyPublishers.ofString(form, StandardCharsets.UTF_8))
+                .build();
+    }
+
+    // the last JSESSIONID wins: login rotates the session id
+    private static String sessionCookie(HttpResponse<?> response) {
+        String cookie = null;
+        for (String header : response.headers().allValues("Set-Cookie")) {
+            if (header.startsWith("JSESSIONID=")) {
+                cookie = header.substring(0, header.indexOf(';') > 0 ? header.indexOf(';') : header.length());
+            }
+        }
+        return cookie;
+    }
+
+    private static long pick(List<Long> ids, ThreadLocalRandom random) {
+        return ids.get(random.nextInt(ids.size()));
+    }
+
+    static final class Session {
+        private final long userId;
+        private final String email;
+        private final AtomicReference<String> cookie;
+        private final ConcurrentLinkedDeque<Long> loans = new ConcurrentLinkedDeque<>();
+        private final AtomicBoolean busy = new AtomicBoolean();
+
+        Session(long userId, String email, String cookie) {
+            this.userId = userId;
+            this.email = email;
+            this.cookie = new AtomicReference<>(cookie);
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package org.mystudying.bookmanagementauth.loadtest;
+
+import java.util.Arrays;
+
+enum Operation {
+    BROWSE("browse", "GET /api/books?genreId={id}"),
+    DETAILS("details", "GET /api/books/{id}/details"),
+    LOGIN("login", "POST /api/auth/login"),
+    RENT("rent", "POST /api/users/{id}/rent"),
+    RETURN("return", "POST /api/users/{id}/return"),
+    PAY_FINE("payFine", "POST /api/users/{id}/bookings/{id}/pay"),
+    REPORTS("reports", "GET /api/reports/bookings");
+
+    private final String key;
+    private final String endpoint;
+
+    Operation(String key, String endpoint) {
+        this.key = key;
+        this.endpoint = endpoint;
+    }
+
+    String endpoint() {
+        return endpoint;
+    }
+
+    static Operation fromKey(String key) {
+        return Arrays.stream(values())
+                .filter(operation -> operation.key.equals(key))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Unknown operation in load.mix: " + key));
+    }
+}
@@ -0,0 +1,147 @@
+package org.mystudying.bookmanagementauth.repositories;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.Test;
+import org.mystudying.bookmanagementauth.domain.Booking;
+import org.mystudying.bookmanagementauth.dto.BookingDateRange;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.simple.JdbcClient;
+import org.springframework.test.context.jdbc.Sql;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+        + "org.mystudying.bookmanagementauth.repositories.BookingRepositoryTest$CapturingInspector")
+@Sql("/insertTestRecords.sql")
+class BookingRepositoryTest {
+
+    // Test User 1 borrows Test Book 1 on 2024-01-01, due 2024-01-15, never returned
+    private static final LocalDate BORROWED = LocalDate.of(2024, 1, 1);
+
+    private final BookingRepository bookingRepository;
+    private final JdbcClient jdbcClient;
+
+    BookingRepositoryTest(BookingRepository bookingRepository, JdbcClient jdbcClient) {
+        this.bookingRepository = bookingRepository;
+        this.jdbcClient = jdbcClient;
+    }
+
+    /**
+     * Runs the repository call and returns the one statement it sent to {@code bookings}, as Hibernate generated it.
+     * Statements that load associations of the fetched users are left out.
+     */
+    private String generatedSql(Runnable query) {
+        CapturingInspector.STATEMENTS.clear();
+        query.run();
+        List<String> bookingQueries = CapturingInspector.STATEMENTS.stream()
+                .filter(sql -> sql.contains(" from bookings "))
+                .toList();
+        assertThat(bookingQueries).hasSize(1);
+        return bookingQueries.get(0);
+    }
+
+    /**
+     * The indexes MySQL picks for the statement. Parameters are inlined client-side like Connector/J does by
+     * default, so {@code ? IS NULL} on a bound date folds to false here just as it does for the application.
+     */
+    private List<String> chosenKeys(String sql, List<Object> params) {
+        assertThat(sql.chars().filter(c -> c == '?').count()).as("parameters of %s", sql).isEqualTo(params.size());
+        return jdbcClient.sql("EXPLAIN " + sql)
+                .params(params)
+                .query((rs, rowNum) -> rs.getString("key"))
+                .list();
+    }
+
+    // Each bound appears twice in DATE_RANGE: once for the IS NULL check, once for the comparison
+    private static List<Object> rangeParams(BookingDateRange range) {
+        List<Object> params = new ArrayList<>();
+        Stream.of(range.borrowedFrom(), range.borrowedTo(), range.dueFrom(), range.dueTo(),
+                range.returnedFrom(), range.returnedTo()).forEach(bound -> {
+            params.add(bound);
+            params.add(bound);
+        });
+        return params;
+    }
+
+    /**
+     * Enough bookings that a full scan stops being the cheap plan: returned ones borrowed on {@link #BORROWED}
+     * and due years earlier, and active ones borrowed years earlier and due far ahead.
+     */
+    private void addBookingsAroundTheTestRecords() {
+        jdbcClient.sql("""
+                        INSERT INTO bookings (user_id, book_id, borrowed_at, due_at, returned_at)
+                        WITH RECURSIVE seq (n) AS (SELECT 1 UNION ALL SELECT n + 1 FROM seq WHERE n < 600)
+                        SELECT (SELECT id FROM users WHERE email = 'test2@example.com'),
+                               (SELECT id FROM books WHERE title = 'Test Book 2'),
+                               CASE WHEN n <= 400 THEN :borrowed ELSE DATE '2011-01-01' + INTERVAL n DAY END,
+                               CASE WHEN n <= 400 THEN DATE '2010-01-01' + INTERVAL n DAY
+                                    ELSE DATE '2040-01-01' + INTERVAL n DAY END,
+                               CASE WHEN n <= 400 THEN :returned END
+                        FROM seq
+                        """)
+                .param("borrowed", BORROWED)
+                .param("returned", BORROWED.plusDays(1))
+                .update();
+    }
+
+    @Test
+    void reportsAreNarrowedByDateRange() {
+        var borrowedThatDay = new BookingDateRange(BORROWED, BORROWED, null, null, null, null);
+
+        var active = bookingRepository.findActiveWithDetails(borrowedThatDay, Pageable.unpaged());
+        assertThat(active.getContent())
+                .extracting(Booking::getBorrowedAt)
+                .containsOnly(BORROWED);
+        assertThat(active.getTotalElements()).isEqualTo(active.getContent().size()).isPositive();
+
+        var dueLater = new BookingDateRange(BORROWED, BORROWED, BORROWED.plusDays(15), null, null, null);
+        assertThat(bookingRepository.findActiveWithDetails(dueLater, Pageable.unpaged())).isEmpty();
+    }
+
+    @Test
+    void emptyRangeLeavesReportsUnchanged() {
+        assertThat(bookingRepository.findAllWithDetails(BookingDateRange.NONE, Pageable.unpaged()).getTotalElements())
+                .isEqualTo(bookingRepository.count());
+    }
+
+    @Test
+    void generatedDateRangeQueriesUseTheReportIndexes() {
+        addBookingsAroundTheTestRecords();
+
+        var borrowedThatDay = new BookingDateRange(BORROWED, BORROWED, null, null, null, null);
+        String active = generatedSql(() -> bookingRepository.findActiveWithDetails(borrowedThatDay, Pageable.unpaged()));
+        assertThat(chosenKeys(active, rangeParams(borrowedThatDay))).contains("idx_bookings_returned_borrowed");
+
+        var dueThatDay = new BookingDateRange(null, null, BORROWED.plusDays(14), BORROWED.plusDays(14), null, null);
+        String all = generatedSql(() -> bookingRepository.findAllWithDetails(dueThatDay, Pageable.unpaged()));
+        assertThat(chosenKeys(all, rangeParams(dueThatDay))).contains("idx_bookings_due");
+
+        LocalDate overdueBefore = BORROWED.plusDays(1);
+        String overdue = generatedSql(() ->
+                bookingRepository.findOverdueWithDetails(overdueBefore, BookingDateRange.NONE, Pageable.unpaged()));
+        List<Object> params = new ArrayList<>(List.of(overdueBefore));
+        params.addAll(rangeParams(BookingDateRange.NONE));
+        assertThat(chosenKeys(overdue, params)).contains("idx_bookings_returned_due");
+    }
+
+    /**
+     * Sees every statement Hibernate prepares, exactly as it is sent.
+     */
+    public static class CapturingInspector implements StatementInspector {
+
+        static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            STATEMENTS.add(sql);
+            return sql;
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package org.mystudying.bookmanagementauth.repositories;
+
+import org.junit.jupiter.api.Test;
+import org.mystudying.bookmanagementauth.dto.CirculationDimension;
+import org.mystudying.bookmanagementauth.dto.CirculationPointDto;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.simple.JdbcClient;
+import org.springframework.test.context.jdbc.Sql;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+@DataJpaTest
+@Import(CirculationRollupRepository.class)
+@Sql("/insertTestRecords.sql")
+class CirculationRollupRepositoryTest {
+
+    // Test User 1 borrows Test Book 1 (Test Author 1; Test Genre 1 and 2) on 2024-01-01, due 2024-01-15, never returned
+    private static final LocalDate BORROWED = LocalDate.of(2024, 1, 1);
+    private static final LocalDate FIRST_OVERDUE_DAY = LocalDate.of(2024, 1, 16);
+
+    private final CirculationRollupRepository rollupRepository;
+    private final JdbcClient jdbcClient;
+
+    CirculationRollupRepositoryTest(CirculationRollupRepository rollupRepository, JdbcClient jdbcClient) {
+        this.rollupRepository = rollupRepository;
+        this.jdbcClient = jdbcClient;
+    }
+
+    private long idOf(String sql) {
+        return jdbcClient.sql(sql).query(Long.class).single();
+    }
+
+    @Test
+    void rollUpAggregatesBorrowAndOverdueEventsPerGenreAndAuthor() {
+        long genreId = idOf("SELECT id FROM genres WHERE name = 'Test Genre 1'");
+        long authorId = idOf("SELECT id FROM authors WHERE name = 'Test Author 1'");
+
+        rollupRepository.rollUp(BORROWED, FIRST_OVERDUE_DAY);
+
+        List<CirculationPointDto> genre = rollupRepository.findTimeseries(CirculationDimension.GENRE, genreId, BORROWED, FIRST_OVERDUE_DAY);
+        assertThat(genre)
+                .extracting(CirculationPointDto::day, CirculationPointDto::borrowed, CirculationPointDto::overdue)
+                .containsExactly(
+                        tuple(BORROWED, 1L, 0L),
+                        tuple(FIRST_OVERDUE_DAY, 0L, 1L));
+        assertThat(genre).allSatisfy(point -> assertThat(point.groupName()).isEqualTo("Test Genre 1"));
+
+        List<CirculationPointDto> author = rollupRepository.findTimeseries(CirculationDimension.AUTHOR, authorId, BORROWED, BORROWED);
+        assertThat(author).singleElement()
+                .satisfies(point -> assertThat(point.borrowed()).isEqualTo(1));
+
+        List<CirculationPointDto> total = rollupRepository.findTimeseries(CirculationDimension.TOTAL, null, BORROWED, FIRST_OVERDUE_DAY);
+        assertThat(total).extracting(CirculationPointDto::day).contains(BORROWED, FIRST_OVERDUE_DAY);
+    }
+
+    @Test
+    void rollUpIsRepeatable() {
+        long genreId = idOf("SELECT id FROM genres WHERE name = 'Test Genre 2'");
+
+        rollupRepository.rollUp(BORROWED, BORROWED);
+        rollupRepository.rollUp(BORROWED, BORROWED);
+
+        assertThat(rollupRepository.findTimeseries(CirculationDimension.GENRE, genreId, BORROWED, BORROWED))
+                .singleElement()
+                .satisfies(point -> assertThat(point.borrowed()).isEqualTo(1));
+    }
+
+    @Test
+    void computedTimeseriesMatchesTheRollups() {
+        rollupRepository.rollUp(BORROWED, FIRST_OVERDUE_DAY);
+
+        for (CirculationDimension dimension : CirculationDimension.values()) {
+            assertThat(rollupRepository.computeTimeseries(dimension, null, BORROWED, FIRST_OVERDUE_DAY))
+                    .usingRecursiveFieldByFieldElementComparatorIgnoringFields("fines")
+                    .containsExactlyElementsOf(rollupRepository.findTimeseries(dimension, null, BORROWED, FIRST_OVERDUE_DAY));
+        }
+    }
+}
@@ -0,0 +1,227 @@
+package org.mystudying.bookmanagementauth.repositories;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.simple.JdbcClient;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JdbcSessionRepositoryTest {
+
+    private static final Duration SHORT_NEAR_CACHE_TTL = Duration.ofMillis(500);
+
+    private final EmbeddedDatabase database = new EmbeddedDatabaseBuilder()
+            .setType(EmbeddedDatabaseType.H2)
+            .generateUniqueName(true)
+            .addScript("db/migration/V10__sessions.sql")
+            .build();
+    private final JdbcClient jdbcClient = JdbcClient.create(database);
+    private final JdbcTemplate jdbcTemplate = new JdbcTemplate(database);
+    private final JdbcSessionRepository repository =
+            new JdbcSessionRepository(jdbcClient, jdbcTemplate, Duration.ofMinutes(30), Duration.ofMinutes(1));
+
+    @AfterEach
+    void shutdown() {
+        database.shutdown();
+    }
+
+    private JdbcSessionRepository.JdbcSession savedSession() {
+        return savedSession(repository);
+    }
+
+    private JdbcSessionRepository.JdbcSession savedSession(JdbcSessionRepository node) {
+        JdbcSessionRepository.JdbcSession session = node.createSession();
+        session.setAttribute("greeting", "hello");
+        node.save(session);
+        return session;
+    }
+
+    private JdbcSessionRepository shortLivedNearCacheNode() {
+        return new JdbcSessionRepository(jdbcClient, jdbcTemplate, Duration.ofMinutes(30), SHORT_NEAR_CACHE_TTL);
+    }
+
+    private static void outliveTheNearCache() throws InterruptedException {
+        Thread.sleep(SHORT_NEAR_CACHE_TTL.toMillis() + 100);
+    }
+
+    private long storedLastAccess(String id) {
+        return jdbcClient.sql("SELECT last_accessed_time FROM app_sessions WHERE id = ?")
+                .param(id)
+                .query(Long.class)
+                .single();
+    }
+
+    @Test
+    void sessionsAreSharedThroughTheDatabase() {
+        String id = savedSession().getId();
+
+        JdbcSessionRepository otherNode =
+                new JdbcSessionRepository(jdbcClient, jdbcTemplate, Duration.ofMinutes(30), Duration.ZERO);
+        JdbcSessionRepository.JdbcSession loaded = otherNode.findById(id);
+
+        assertThat(loaded).isNotNull();
+        assertThat(loaded.<String>getAttribute("greeting")).isEqualTo("hello");
+    }
+
+    private JdbcSessionRepository otherNode() {
+        return new JdbcSessionRepository(jdbcClient, jdbcTemplate, Duration.ofMinutes(30), Duration.ofMinutes(1));
+    }
+
+    @Test
+    void nearCacheHitsDoNotReadTheDatabase() {
+        String id = savedSession().getId();
+
+        jdbcClient.sql("DELETE FROM app_sessions").update();
+
+        assertThat(repository.findById(id).<String>getAttribute("greeting")).isEqualTo("hello");
+    }
+
+    @Test
+    void sessionDeletedOnAnotherNodeIsServedFromTheNearCacheForAtMostItsTtl() throws InterruptedException {
+        JdbcSessionRepository node = shortLivedNearCacheNode();
+        String id = savedSession(node).getId();
+
+        otherNode().deleteById(id);
+        assertThat(node.findById(id)).isNotNull();
+
+        outliveTheNearCache();
+        assertThat(node.findById(id)).isNull();
+    }
+
+    @Test
+    void touchesDoNotExtendTheNearCacheTtl() throws InterruptedException {
+        JdbcSessionRepository node = shortLivedNearCacheNode();
+        String id = savedSession(node).getId();
+        otherNode().deleteById(id);
+
+        Thread.sleep(SHORT_NEAR_CACHE_TTL.toMillis() / 2);
+        JdbcSessionRepository.JdbcSession session = node.findById(id);
+        session.setLastAccessedTime(Instant.now());
+        node.save(session);
+
+        // past the TTL counted from the save, not from the touch
+        Thread.sleep(SHORT_NEAR_CACHE_TTL.toMillis() / 2 + 100);
+        assertThat(node.findById(id)).isNull();
+    }
+
+    @Test
+    void attributeChangesOnAnotherNodeAreSeenOnceTheNearCacheTtlIsOver() throws InterruptedException {
+        JdbcSessionRepository node = shortLivedNearCacheNode();
+        String id = savedSession(node).getId();
+
+        JdbcSessionRepository otherNode = otherNode();
+        JdbcSessionRepository.JdbcSession session = otherNode.findById(id);
+        session.setAttribute("greeting", "bye");
+        otherNode.save(session);
+
+        outliveTheNearCache();
+        assertThat(node.findById(id).<String>getAttribute("greeting")).isEqualTo("bye");
+    }
+
+    @Test
+    void sessionIdChangedOnAnotherNodeRetiresTheOldIdOnceTheNearCacheTtlIsOver() throws InterruptedException {
+        JdbcSessionRepository node = shortLivedNearCacheNode();
+        String id = savedSession(node).getId();
+
+        JdbcSessionRepository otherNode = otherNode();
+        JdbcSessionRepository.JdbcSession session = otherNode.findById(id);
+        String newId = session.changeSessionId();
+        otherNode.save(session);
+
+        outliveTheNearCache();
+        assertThat(node.findById(id)).isNull();
+        assertThat(node.findById(newId).<String>getAttribute("greeting")).isEqualTo("hello");
+    }
+
+    @Test
+    void savingASessionDeletedOnAnotherNodeDoesNotBringItBack() {
+        String id = savedSession().getId();
+        JdbcSessionRepository.JdbcSession session = repository.findById(id);
+
+        otherNode().deleteById(id);
+        session.setAttribute("greeting", "still here?");
+        repository.save(session);
+
+        assertThat(repository.findById(id)).isNull();
+        assertThat(jdbcClient.sql("SELECT COUNT(*) FROM app_sessions").query(Long.class).single()).isZero();
+    }
+
+    @Test
+    void lastAccessIsWrittenBehind() {
+        String id = savedSession().getId();
+        long stored = storedLastAccess(id);
+
+        JdbcSessionRepository.JdbcSession session = repository.findById(id);
+        Instant later = Instant.ofEpochMilli(stored).plus(1, ChronoUnit.MINUTES);
+        session.setLastAccessedTime(later);
+        repository.save(session);
+
+        assertThat(storedLastAccess(id)).isEqualTo(stored);
+        assertThat(repository.findById(id).getLastAccessedTime()).isEqualTo(later);
+
+        repository.flushLastAccess();
+
+        assertThat(storedLastAccess(id)).isEqualTo(later.toEpochMilli());
+        assertThat(jdbcClient.sql("SELECT expiry_time FROM app_sessions WHERE id = ?").param(id).query(Long.class).single())
+                .isEqualTo(later.plus(30, ChronoUnit.MINUTES).toEpochMilli());
+    }
+
+    @Test
+    void lastAccessOfSeveralSessionsIsFlushedTogether() {
+        String first = savedSession().getId();
+        String second = savedSession().getId();
+        Instant later = Instant.ofEpochMilli(storedLastAccess(first)).plus(1, ChronoUnit.MINUTES);
+        for (String id : new String[]{first, second}) {
+            JdbcSessionRepository.JdbcSession session = repository.findById(id);
+            session.setLastAccessedTime(later);
+            repository.save(session);
+        }
+
+        repository.flushLastAccess();
+
+        assertThat(storedLastAccess(first)).isEqualTo(later.toEpochMilli());
+        assertThat(storedLastAccess(second)).isEqualTo(later.toEpochMilli());
+    }
+
+    @Test
+    void changedSessionIdMovesTheRow() {
+        JdbcSessionRepository.JdbcSession session = savedSession();
+        String originalId = session.getId();
+
+        String newId = session.changeSessionId();
+        repository.save(session);
+
+        assertThat(repository.findById(originalId)).isNull();
+        assertThat(repository.findById(newId).<String>getAttribute("greeting")).isEqualTo("hello");
+    }
+
+    @Test
+    void expiredSessionsAreDeleted() {
+        JdbcSessionRepository.JdbcSession session = repository.createSession();
+        session.setMaxInactiveInterval(Duration.ofSeconds(1));
+        session.setLastAccessedTime(Instant.now().minus(1, ChronoUnit.HOURS));
+        repository.save(session);
+
+        repository.deleteExpired();
+
+        assertThat(jdbcClient.sql("SELECT COUNT(*) FROM app_sessions").query(Long.class).single()).isZero();
+        assertThat(repository.findById(session.getId())).isNull();
+    }
+
+    @Test
+    void deletedSessionIsGone() {
+        String id = savedSession().getId();
+
+        repository.deleteById(id);
+
+        assertThat(repository.findById(id)).isNull();
+    }
+}
@@ -0,0 +1,75 @@
+package org.mystudying.bookmanagementauth.repositories;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.mystudying.bookmanagementauth.config.SqlStatementStats;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.simple.JdbcClient;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Second-level cache of the reference entities, against the rows seeded by the migrations.
+ * Each lookup runs twice in separate transactions; the second one must not reach the database.
+ */
+@SpringBootTest
+class ReferenceDataCacheTest {
+
+    private final GenreRepository genreRepository;
+    private final AuthorRepository authorRepository;
+    private final RoleRepository roleRepository;
+    private final JdbcClient jdbcClient;
+    private final TransactionTemplate txTemplate;
+    private final Statistics statistics;
+
+    ReferenceDataCacheTest(GenreRepository genreRepository, AuthorRepository authorRepository,
+                           RoleRepository roleRepository, JdbcClient jdbcClient, TransactionTemplate txTemplate,
+                           EntityManagerFactory entityManagerFactory) {
+        this.genreRepository = genreRepository;
+        this.authorRepository = authorRepository;
+        this.roleRepository = roleRepository;
+        this.jdbcClient = jdbcClient;
+        this.txTemplate = txTemplate;
+        this.statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    private int statementsOf(Supplier<?> lookup) {
+        SqlStatementStats stats = SqlStatementStats.start(false);
+        try {
+            Object found = txTemplate.execute(status -> lookup.get());
+            assertThat(found).isNotNull();
+        } finally {
+            stats.stop();
+        }
+        return stats.getCount();
+    }
+
+    @Test
+    void genresByIdComeFromTheCache() {
+        long id = jdbcClient.sql("SELECT id FROM genres WHERE name = 'Fantasy'").query(Long.class).single();
+        long hits = statistics.getSecondLevelCacheHitCount();
+
+        statementsOf(() -> genreRepository.findById(id).orElseThrow());
+
+        assertThat(statementsOf(() -> genreRepository.findById(id).orElseThrow())).isZero();
+        assertThat(statistics.getSecondLevelCacheHitCount()).isGreaterThan(hits);
+    }
+
+    @Test
+    void nameLookupsComeFromTheQueryCache() {
+        statementsOf(() -> genreRepository.findByNameIgnoreCase("fantasy").orElseThrow());
+        statementsOf(() -> authorRepository.findByName("Isaac Asimov").orElseThrow());
+        statementsOf(() -> roleRepository.findByName("ROLE_USER").orElseThrow());
+        long queryHits = statistics.getQueryCacheHitCount();
+
+        assertThat(statementsOf(() -> genreRepository.findByNameIgnoreCase("fantasy").orElseThrow())).isZero();
+        assertThat(statementsOf(() -> authorRepository.findByName("Isaac Asimov").orElseThrow())).isZero();
+        assertThat(statementsOf(() -> roleRepository.findByName("ROLE_USER").orElseThrow())).isZero();
+        assertThat(statistics.getQueryCacheHitCount()).isEqualTo(queryHits + 3);
+    }
+}
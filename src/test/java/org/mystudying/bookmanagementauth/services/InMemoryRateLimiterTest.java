@@ -0,0 +1,39 @@
+package org.mystudying.bookmanagementauth.services;
+
+import org.junit.jupiter.api.Test;
+import org.mystudying.bookmanagementauth.config.RateLimitProperties;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class InMemoryRateLimiterTest {
+
+    private static final RateLimitProperties.Group LIMIT = new RateLimitProperties.Group(List.of("/x"), 1, 1);
+
+    @Test
+    void emptyBucketMakesTheClientWait() {
+        InMemoryRateLimiter limiter = new InMemoryRateLimiter();
+
+        assertThat(limiter.tryAcquire("client", LIMIT)).isZero();
+        assertThat(limiter.tryAcquire("client", LIMIT)).isPositive();
+    }
+
+    @Test
+    void leastRecentlyUsedBucketsAreDroppedOnceTheStripesAreFull() {
+        InMemoryRateLimiter limiter = new InMemoryRateLimiter();
+        limiter.tryAcquire("idle", LIMIT);
+        limiter.tryAcquire("busy", LIMIT);
+
+        // twice the total capacity: every stripe overflows, the busy client keeps touching its bucket
+        for (int i = 0; i < 200_000; i++) {
+            limiter.tryAcquire("client-" + i, LIMIT);
+            if (i % 1_000 == 0) {
+                assertThat(limiter.tryAcquire("busy", LIMIT)).isPositive();
+            }
+        }
+
+        assertThat(limiter.tryAcquire("busy", LIMIT)).isPositive();
+        assertThat(limiter.tryAcquire("idle", LIMIT)).isZero();
+    }
+}
@@ -1,5 +1,6 @@
 package org.mystudying.bookmanagementauth.services;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Test;
 import org.mystudying.bookmanagementauth.domain.Book;
 import org.mystudying.bookmanagementauth.exceptions.BookNotFoundException;
@@ -21,7 +22,7 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
 @DataJpaTest
-@Import(InventoryService.class)
+@Import({InventoryService.class, SimpleMeterRegistry.class})
 @Sql({"/insertTestRecords.sql"})
 public class InventoryConcurrencyTest {
 
@@ -0,0 +1,124 @@
+package org.mystudying.bookmanagementauth.services;
+
+import org.junit.jupiter.api.Test;
+import org.mystudying.bookmanagementauth.config.SqlStatementStats;
+import org.mystudying.bookmanagementauth.dto.PopularItemDto;
+import org.mystudying.bookmanagementauth.dto.PopularityDto;
+import org.mystudying.bookmanagementauth.dto.PopularityWindow;
+import org.mystudying.bookmanagementauth.dto.UpdateBookRequestDto;
+import org.mystudying.bookmanagementauth.events.BookRentedEvent;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.simple.JdbcClient;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.context.transaction.AfterTransaction;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+@SpringBootTest
+@Transactional
+@Sql("/insertTestRecords.sql")
+public class PopularityServiceTest {
+
+    private final PopularityService popularityService;
+    private final BookService bookService;
+    private final JdbcClient jdbcClient;
+
+    public PopularityServiceTest(PopularityService popularityService, BookService bookService, JdbcClient jdbcClient) {
+        this.popularityService = popularityService;
+        this.bookService = bookService;
+        this.jdbcClient = jdbcClient;
+    }
+
+    private long idOf(String table, String column, String value) {
+        return jdbcClient.sql("SELECT id FROM " + table + " WHERE " + column + " = ?").param(value).query(Long.class).single();
+    }
+
+    private int statementsOf(Runnable action) {
+        SqlStatementStats stats = SqlStatementStats.start(false);
+        try {
+            action.run();
+        } finally {
+            stats.stop();
+        }
+        return stats.getCount();
+    }
+
+    private void rentToday(String email, String title) {
+        jdbcClient.sql("""
+                        INSERT INTO bookings(user_id, book_id, borrowed_at, due_at)
+                        VALUES ((SELECT id FROM users WHERE email = ?), (SELECT id FROM books WHERE title = ?),
+                                CURRENT_DATE, CURRENT_DATE + INTERVAL 14 DAY)
+                        """)
+                .params(email, title)
+                .update();
+    }
+
+    // Counters live outside the test transaction, so rebuild them from the rolled-back database
+    @AfterTransaction
+    void resetCounters() {
+        popularityService.rebuild();
+    }
+
+    @Test
+    void rebuildCountsRecentRentsPerBookAndGenre() {
+        rentToday("test1@example.com", "Rentable Book");
+        rentToday("test2@example.com", "Rentable Book");
+        rentToday("rent@example.com", "Rentable Book");
+        rentToday("rent@example.com", "Test Book 1");
+
+        popularityService.rebuild();
+        PopularityDto week = popularityService.getPopular(PopularityWindow.WEEK, 3);
+
+        assertThat(week.books()).hasSizeLessThanOrEqualTo(3);
+        assertThat(week.books().get(0)).extracting(PopularItemDto::name, PopularItemDto::rents)
+                .containsExactly("Rentable Book", 3L);
+        assertThat(week.books()).extracting(PopularItemDto::rents).isSortedAccordingTo((a, b) -> Long.compare(b, a));
+        // Rentable Book and Test Book 1 are both in Test Genre 2
+        assertThat(week.genres().get(0)).extracting(PopularItemDto::name, PopularItemDto::rents)
+                .containsExactly("Test Genre 2", 4L);
+    }
+
+    @Test
+    void oldRentsAreOutsideTheWindows() {
+        // Test User 1 borrowed Test Book 1 on 2024-01-01
+        popularityService.rebuild();
+
+        assertThat(popularityService.getPopular(PopularityWindow.MONTH, 100).books())
+                .extracting(PopularItemDto::name)
+                .doesNotContain("Test Book 1");
+    }
+
+    @Test
+    void committedRentsOfRecentlyRentedBooksAreCountedWithoutAQuery() {
+        rentToday("test1@example.com", "Rentable Book");
+        popularityService.rebuild();
+        long bookId = idOf("books", "title", "Rentable Book");
+
+        assertThat(statementsOf(() -> popularityService.onBookRented(
+                new BookRentedEvent(-1, 0, bookId, LocalDate.now())))).isZero();
+        assertThat(popularityService.getPopular(PopularityWindow.WEEK, 1).genres().get(0))
+                .extracting(PopularItemDto::name, PopularItemDto::rents)
+                .containsExactly("Test Genre 2", 2L);
+    }
+
+    @Test
+    void changedGenresAreReloadedOnTheNextRent() {
+        rentToday("test1@example.com", "Rentable Book");
+        popularityService.rebuild();
+        long bookId = idOf("books", "title", "Rentable Book");
+        long authorId = idOf("authors", "name", "Test Author 1");
+        long genreId = idOf("genres", "name", "Test Genre 3");
+
+        bookService.update(bookId, new UpdateBookRequestDto("Rentable Book", 2023, authorId, List.of(genreId)));
+        popularityService.onBookRented(new BookRentedEvent(-1, 0, bookId, LocalDate.now()));
+
+        assertThat(popularityService.getPopular(PopularityWindow.WEEK, 10).genres())
+                .extracting(PopularItemDto::name, PopularItemDto::rents)
+                .contains(tuple("Test Genre 3", 1L));
+    }
+}
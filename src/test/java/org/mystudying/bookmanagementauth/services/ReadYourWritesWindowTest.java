@@ -0,0 +1,86 @@
+package org.mystudying.bookmanagementauth.services;
+
+import jakarta.servlet.http.Cookie;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mystudying.bookmanagementauth.events.UserProfileChangedEvent;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.MockHttpSession;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Each request is a fresh {@link MockHttpServletRequest}, as if a different node served it.
+ */
+class ReadYourWritesWindowTest {
+
+    private final ReadYourWritesWindow window = new ReadYourWritesWindow(Duration.ofSeconds(10));
+
+    @AfterEach
+    void resetRequest() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    private static MockHttpServletResponse bind(MockHttpServletRequest request) {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request, response));
+        return response;
+    }
+
+    @Test
+    void theChangingRequestReadsFromThePrimaryRightAway() {
+        bind(new MockHttpServletRequest());
+        assertThat(window.isActiveForCurrentRequest()).isFalse();
+
+        window.onProfileChanged(new UserProfileChangedEvent(1));
+
+        assertThat(window.isActiveForCurrentRequest()).isTrue();
+    }
+
+    @Test
+    void theWindowTravelsWithTheSession() {
+        MockHttpSession session = new MockHttpSession();
+        MockHttpServletRequest change = new MockHttpServletRequest();
+        change.setSession(session);
+        bind(change);
+        window.onProfileChanged(new UserProfileChangedEvent(1));
+
+        MockHttpServletRequest next = new MockHttpServletRequest();
+        next.setSession(session);
+        bind(next);
+        assertThat(window.isActiveForCurrentRequest()).isTrue();
+
+        MockHttpServletRequest otherClient = new MockHttpServletRequest();
+        otherClient.setSession(new MockHttpSession());
+        bind(otherClient);
+        assertThat(window.isActiveForCurrentRequest()).isFalse();
+    }
+
+    @Test
+    void clientsWithoutASessionGetACookieThatExpiresWithTheWindow() {
+        MockHttpServletResponse response = bind(new MockHttpServletRequest());
+        window.onProfileChanged(new UserProfileChangedEvent(1));
+
+        assertThat(response.getHeader(HttpHeaders.SET_COOKIE))
+                .startsWith(ReadYourWritesWindow.COOKIE + "=")
+                .contains("Max-Age=10");
+
+        MockHttpServletRequest next = new MockHttpServletRequest();
+        next.setCookies(new Cookie(ReadYourWritesWindow.COOKIE, "1"));
+        bind(next);
+        assertThat(window.isActiveForCurrentRequest()).isTrue();
+    }
+
+    @Test
+    void outsideARequestNothingIsForcedToThePrimary() {
+        window.onProfileChanged(new UserProfileChangedEvent(1));
+
+        assertThat(window.isActiveForCurrentRequest()).isFalse();
+    }
+}
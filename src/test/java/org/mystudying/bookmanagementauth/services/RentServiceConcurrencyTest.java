@@ -1,6 +1,8 @@
 package org.mystudying.bookmanagementauth.services;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Test;
+import org.mystudying.bookmanagementauth.config.ConnectionLimitConfig;
 import org.mystudying.bookmanagementauth.domain.Book;
 import org.mystudying.bookmanagementauth.exceptions.BookNotAvailableException;
 import org.mystudying.bookmanagementauth.exceptions.BookNotFoundException;
@@ -25,7 +27,8 @@ import java.util.concurrent.*;
 import static org.assertj.core.api.Assertions.assertThat;
 
 @DataJpaTest
-@Import({UserService.class, InventoryService.class})
+// ConnectionLimitConfig: each of the ten threads needs a second connection when Hibernate reserves booking ids
+@Import({UserService.class, InventoryService.class, RoleCache.class, SimpleMeterRegistry.class, ConnectionLimitConfig.class})
 @Sql({"/insertConcurrentUsersTestRecords.sql", "/insertTestRecords.sql"})
 public class RentServiceConcurrencyTest {
 
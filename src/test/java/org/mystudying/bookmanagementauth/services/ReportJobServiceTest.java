@@ -0,0 +1,119 @@
+package org.mystudying.bookmanagementauth.services;
+
+import com.jayway.jsonpath.JsonPath;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mystudying.bookmanagementauth.domain.ReportJobStatus;
+import org.mystudying.bookmanagementauth.dto.BookingDateRange;
+import org.mystudying.bookmanagementauth.dto.BookingReportType;
+import org.mystudying.bookmanagementauth.dto.ReportJobDto;
+import org.mystudying.bookmanagementauth.dto.ReportJobRequestDto;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.simple.JdbcClient;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Not transactional: the background worker must see committed job rows
+@SpringBootTest
+public class ReportJobServiceTest {
+
+    private final ReportJobService reportJobService;
+    private final JdbcClient jdbcClient;
+
+    public ReportJobServiceTest(ReportJobService reportJobService, JdbcClient jdbcClient) {
+        this.reportJobService = reportJobService;
+        this.jdbcClient = jdbcClient;
+    }
+
+    @AfterEach
+    void cleanup() {
+        jdbcClient.sql("DELETE FROM report_jobs").update();
+    }
+
+    private ReportJobDto awaitFinished(long id) throws InterruptedException {
+        for (int i = 0; i < 100; i++) {
+            ReportJobDto job = reportJobService.findById(id);
+            if (job.status() == ReportJobStatus.DONE || job.status() == ReportJobStatus.FAILED) {
+                return job;
+            }
+            Thread.sleep(100);
+        }
+        throw new AssertionError("Report job " + id + " did not finish in time");
+    }
+
+    @Test
+    void jobProducesCompressedResultWithAllBookings() throws Exception {
+        ReportJobDto submitted = reportJobService.submit(new ReportJobRequestDto(BookingReportType.ALL, null, null, null));
+
+        ReportJobDto finished = awaitFinished(submitted.id());
+        long bookings = jdbcClient.sql("SELECT COUNT(*) FROM bookings").query(Long.class).single();
+
+        assertThat(finished.status()).isEqualTo(ReportJobStatus.DONE);
+        assertThat(finished.rowCount()).isEqualTo((int) bookings);
+
+        String json = new String(reportJobService.decompress(reportJobService.findResultById(submitted.id())),
+                StandardCharsets.UTF_8);
+        List<Integer> ids = JsonPath.parse(json).read("$[*].bookingId");
+        assertThat(ids).hasSize((int) bookings).isSorted();
+    }
+
+    @Test
+    void identicalSpecReusesExistingJob() throws Exception {
+        ReportJobDto first = reportJobService.submit(new ReportJobRequestDto(BookingReportType.ACTIVE, 10, 5L, null));
+        awaitFinished(first.id());
+
+        // days and minActiveBooks are irrelevant for ACTIVE, so this is the same spec
+        ReportJobDto second = reportJobService.submit(new ReportJobRequestDto(BookingReportType.ACTIVE, null, null, null));
+        ReportJobDto other = reportJobService.submit(new ReportJobRequestDto(BookingReportType.DUE_SOON, 7, null, null));
+
+        assertThat(second.id()).isEqualTo(first.id());
+        assertThat(second.status()).isEqualTo(ReportJobStatus.DONE);
+        assertThat(other.id()).isNotEqualTo(first.id());
+        awaitFinished(other.id());
+    }
+
+    @Test
+    void abandonedJobsAreNeitherReusedNorLeftRunning() throws Exception {
+        LocalDateTime now = LocalDateTime.now();
+        // left RUNNING by a restart an hour ago, well past app.reports.jobs.stale-after
+        jdbcClient.sql("""
+                        INSERT INTO report_jobs (spec_key, report_type, status, created_at, started_at)
+                        VALUES ('RETURNED:null:null', 'RETURNED', 'RUNNING', :created, :started)
+                        """)
+                .param("created", now.minusMinutes(5))
+                .param("started", now.minusHours(1))
+                .update();
+        long abandoned = jdbcClient.sql("SELECT MAX(id) FROM report_jobs").query(Long.class).single();
+
+        ReportJobDto submitted = reportJobService.submit(new ReportJobRequestDto(BookingReportType.RETURNED, null, null, null));
+        assertThat(submitted.id()).isNotEqualTo(abandoned);
+        assertThat(awaitFinished(submitted.id()).status()).isEqualTo(ReportJobStatus.DONE);
+
+        reportJobService.failStaleJobs();
+        assertThat(reportJobService.findById(abandoned).status()).isEqualTo(ReportJobStatus.FAILED);
+    }
+
+    @Test
+    void dateBoundsFilterRowsAndArePartOfTheSpec() throws Exception {
+        LocalDate borrowedFrom = jdbcClient.sql("SELECT MAX(borrowed_at) FROM bookings").query(LocalDate.class).single();
+        BookingDateRange range = new BookingDateRange(borrowedFrom, null, null, null, null, null);
+
+        ReportJobDto unbounded = reportJobService.submit(new ReportJobRequestDto(BookingReportType.ALL, null, null, null));
+        ReportJobDto bounded = reportJobService.submit(new ReportJobRequestDto(BookingReportType.ALL, null, null, range));
+        assertThat(bounded.id()).isNotEqualTo(unbounded.id());
+        awaitFinished(unbounded.id());
+
+        assertThat(awaitFinished(bounded.id()).status()).isEqualTo(ReportJobStatus.DONE);
+        String json = new String(reportJobService.decompress(reportJobService.findResultById(bounded.id())),
+                StandardCharsets.UTF_8);
+        List<String> borrowed = JsonPath.parse(json).read("$[*].borrowedAt");
+        long expected = jdbcClient.sql("SELECT COUNT(*) FROM bookings WHERE borrowed_at >= ?")
+                .param(borrowedFrom).query(Long.class).single();
+        assertThat(borrowed).hasSize((int) expected).allMatch(day -> !LocalDate.parse(day).isBefore(borrowedFrom));
+    }
+}
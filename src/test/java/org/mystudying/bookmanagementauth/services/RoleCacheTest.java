@@ -0,0 +1,98 @@
+package org.mystudying.bookmanagementauth.services;
+
+import org.hibernate.Hibernate;
+import org.junit.jupiter.api.Test;
+import org.mystudying.bookmanagementauth.dto.RegisterRequestDto;
+import org.mystudying.bookmanagementauth.dto.UserDto;
+import org.mystudying.bookmanagementauth.repositories.UserRepository;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.simple.JdbcClient;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+@Sql("/insertTestRecords.sql")
+class RoleCacheTest {
+
+    private final UserService userService;
+    private final UserRepository userRepository;
+    private final RoleCache roleCache;
+    private final JdbcClient jdbcClient;
+    private final PlatformTransactionManager transactionManager;
+
+    RoleCacheTest(UserService userService, UserRepository userRepository, RoleCache roleCache,
+                  JdbcClient jdbcClient, PlatformTransactionManager transactionManager) {
+        this.userService = userService;
+        this.userRepository = userRepository;
+        this.roleCache = roleCache;
+        this.jdbcClient = jdbcClient;
+        this.transactionManager = transactionManager;
+    }
+
+    private long idOf(String email) {
+        return userRepository.findByEmail(email).orElseThrow().getId();
+    }
+
+    @Test
+    void loadingAUserLeavesRolesUntouched() {
+        var user = userRepository.findById(idOf("test1@example.com")).orElseThrow();
+
+        assertThat(Hibernate.isInitialized(user.getRoles())).isFalse();
+    }
+
+    @Test
+    void rolesAreResolvedFromTheCache() {
+        assertThat(userService.findById(idOf("test1@example.com")).orElseThrow().roles())
+                .containsExactly("ROLE_USER");
+        assertThat(userService.findById(idOf("admin@library.com")).orElseThrow().roles())
+                .contains("ROLE_ADMIN");
+        assertThat(roleCache.authoritiesOf(idOf("admin@library.com")))
+                .extracting(authority -> authority.getAuthority())
+                .contains("ROLE_ADMIN");
+    }
+
+    @Test
+    void findAllResolvesEveryUsersRoles() {
+        assertThat(userService.findAll())
+                .isNotEmpty()
+                .allSatisfy(user -> assertThat(user.roles()).isNotEmpty());
+    }
+
+    @Test
+    void newUserGetsDefaultRole() {
+        UserDto registered = userService.register(new RegisterRequestDto("New User", "new@example.com", "password"),
+                "{noop}password");
+
+        assertThat(registered.roles()).containsExactly("ROLE_USER");
+    }
+
+    @Test
+    void rolesReadByARolledBackTransactionAreNotCached() {
+        // a seeded user, so the separate transaction below sees it
+        long userId = idOf("alice@example.com");
+        roleCache.evict(userId);
+        TransactionTemplate separate = new TransactionTemplate(transactionManager);
+        separate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+        separate.executeWithoutResult(status -> {
+            jdbcClient.sql("INSERT INTO users_roles (user_id, role_id) SELECT ?, id FROM roles WHERE name = 'ROLE_ADMIN'")
+                    .param(userId)
+                    .update();
+            assertThat(roleCache.authoritiesOf(userId))
+                    .extracting(GrantedAuthority::getAuthority)
+                    .contains("ROLE_ADMIN");
+            status.setRollbackOnly();
+        });
+
+        assertThat(roleCache.authoritiesOf(userId))
+                .extracting(GrantedAuthority::getAuthority)
+                .containsExactly("ROLE_USER");
+    }
+}
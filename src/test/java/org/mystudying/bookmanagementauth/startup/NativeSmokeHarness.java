@@ -0,0 +1,150 @@
+package org.mystudying.bookmanagementauth.startup;
+
+import ch.vorburger.mariadb4j.DB;
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.net.URLEncoder;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.mystudying.bookmanagementauth.startup.StartupHarness.*;
+
+/**
+ * Smoke test of the native binary ({@code ./mvnw -Pnative verify}) against an embedded MariaDB.
+ * The first start migrates the schema and exercises what depends on reflection and resource hints: JSON catalog
+ * and OpenAPI docs, a Thymeleaf page, a static file, HTTP Basic and a rent and return through JPA, then a form
+ * login whose JSESSIONID cookie alone authenticates a rent and return (the JDBC session store Java-serializes
+ * the security context and the read-your-writes window, see {@code NativeImageHints}).
+ * The second start is timed and has to be healthy within {@code native.max-ready}; its resident memory is printed.
+ * Any failure ends the build.
+ */
+public class NativeSmokeHarness {
+
+    public static void main(String[] args) throws Exception {
+        Path binary = Path.of(System.getProperty("native.binary"));
+        Duration maxReady = Duration.parse("PT" + System.getProperty("native.max-ready", "1s"));
+        if (!Files.isExecutable(binary)) {
+            throw new IllegalStateException("No native binary at " + binary);
+        }
+
+        DB db = startDatabase();
+        try {
+            List<String> arguments = databaseArguments(db);
+            run(binary, arguments, NativeSmokeHarness::smoke);
+
+            long[] readyMillis = new long[1];
+            long launched = System.nanoTime();
+            run(binary, arguments, baseUrl -> {
+                readyMillis[0] = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - launched);
+                send(request(baseUrl + "/api/books").GET().build(), 200);
+            });
+            System.out.printf("Native start: ready in %d ms%n", readyMillis[0]);
+            if (readyMillis[0] > maxReady.toMillis()) {
+                throw new IllegalStateException("Native start took " + readyMillis[0] + " ms, more than " + maxReady);
+            }
+        } finally {
+            db.stop();
+        }
+    }
+
+    private static void smoke(String baseUrl) throws Exception {
+        JsonNode books = objectMapper.readTree(send(request(baseUrl + "/api/books").GET().build(), 200));
+        long bookId = availableBookId(books);
+        send(request(baseUrl + "/api/books/" + bookId).GET().build(), 200);
+        expect(send(request(baseUrl + "/v3/api-docs").GET().build(), 200), "\"openapi\"");
+        expect(send(request(baseUrl + "/books/" + bookId).setHeader("Accept", "text/html").GET().build(), 200), "</html>");
+        send(request(baseUrl + "/css/style.css").setHeader("Accept", "text/css").GET().build(), 200);
+
+        long adminId = adminId(baseUrl);
+        String body = "{\"bookId\":" + bookId + "}";
+        send(circulation(baseUrl + "/api/users/" + adminId + "/rent", body), 204);
+        send(circulation(baseUrl + "/api/users/" + adminId + "/return", body), 204);
+
+        String session = login(baseUrl);
+        JsonNode me = objectMapper.readTree(send(request(baseUrl + "/api/auth/me")
+                .header("Cookie", session).GET().build(), 200));
+        if (me.get("id").asLong() != adminId) {
+            throw new IllegalStateException("Session is not the admin's: " + me);
+        }
+        send(withSession(circulation(baseUrl + "/api/users/" + adminId + "/rent", body), session), 204);
+        send(withSession(circulation(baseUrl + "/api/users/" + adminId + "/return", body), session), 204);
+        System.out.println("Native smoke checks passed");
+    }
+
+    // form login as the admin; returns the JSESSIONID cookie (the last one wins, login rotates the session id)
+    private static String login(String baseUrl) throws Exception {
+        String form = "username=" + URLEncoder.encode(ADMIN_EMAIL, StandardCharsets.UTF_8)
+                + "&password=" + URLEncoder.encode(ADMIN_PASSWORD, StandardCharsets.UTF_8);
+        HttpResponse<String> response = client.send(request(baseUrl + "/api/auth/login")
+                .header("Content-Type", "application/x-www-form-urlencoded")
+                .POST(HttpRequest.BodyPublishers.ofString(form, StandardCharsets.UTF_8))
+                .build(), HttpResponse.BodyHandlers.ofString());
+        String cookie = null;
+        for (String header : response.headers().allValues("Set-Cookie")) {
+            if (header.startsWith("JSESSIONID=")) {
+                cookie = header.substring(0, header.indexOf(';') > 0 ? header.indexOf(';') : header.length());
+            }
+        }
+        if (response.statusCode() != 200 || cookie == null) {
+            throw new IllegalStateException("Form login answered " + response.statusCode() + " without a session: "
+                    + response.body());
+        }
+        return cookie;
+    }
+
+    // the same request authenticated by the session cookie instead of HTTP Basic
+    private static HttpRequest withSession(HttpRequest request, String session) {
+        return HttpRequest.newBuilder(request, (name, value) -> !name.equalsIgnoreCase("Authorization"))
+                .header("Cookie", session)
+                .build();
+    }
+
+    private static void run(Path binary, List<String> arguments, Check check) throws Exception {
+        int port = freePort();
+        List<String> command = new ArrayList<>();
+        command.add(binary.toString());
+        command.addAll(arguments);
+        command.add("--server.port=" + port);
+        StringBuilder output = new StringBuilder();
+        Process process = launch(command, output);
+        try {
+            awaitHealthy("http://localhost:" + port, process, output);
+            check.accept("http://localhost:" + port);
+            printResidentMemory(process);
+        } catch (Exception e) {
+            synchronized (output) {
+                System.err.println(output);
+            }
+            throw e;
+        } finally {
+            stop(process);
+        }
+    }
+
+    private static void expect(String body, String expected) {
+        if (!body.contains(expected)) {
+            throw new IllegalStateException("Expected " + expected + " in:\n" + body);
+        }
+    }
+
+    private static void printResidentMemory(Process process) throws Exception {
+        Path status = Path.of("/proc", String.valueOf(process.pid()), "status");
+        if (Files.isReadable(status)) {
+            Files.readAllLines(status).stream()
+                    .filter(line -> line.startsWith("VmRSS:"))
+                    .forEach(line -> System.out.println("Native process " + line.replaceAll("\\s+", " ")));
+        }
+    }
+
+    @FunctionalInterface
+    private interface Check {
+        void accept(String baseUrl) throws Exception;
+    }
+}
@@ -0,0 +1,281 @@
+package org.mystudying.bookmanagementauth.startup;
+
+import ch.vorburger.mariadb4j.DB;
+import ch.vorburger.mariadb4j.DBConfigurationBuilder;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Startup measurements of the packaged application ({@code ./mvnw -Pfast-startup verify}) against an embedded MariaDB:
+ * first a training run records the AppCDS archive (the JVM exits once the context is refreshed), then every variant
+ * is started {@code startup.runs} times as a separate JVM. Per start it records
+ * <ul>
+ *     <li>ready: process launch until {@code /actuator/health} answers</li>
+ *     <li>started: the JVM's own "Started ... in" time, without process launch and JVM boot</li>
+ *     <li>first catalog and first rent: latency of the first {@code GET /api/books} and of the first rent,
+ *     which is where lazy initialization shows up</li>
+ * </ul>
+ * Samples are written as JSON to {@code startup.result} and the medians printed per variant.
+ */
+public class StartupHarness {
+
+    private static final String DATABASE = "booksmarket";
+    private static final Pattern STARTED = Pattern.compile("Started \\S+ in ([\\d.]+) seconds");
+    private static final Duration READY_TIMEOUT = Duration.ofMinutes(2);
+    static final String ADMIN_EMAIL = "admin@library.com";
+    static final String ADMIN_PASSWORD = "admin";
+    static final String ADMIN = "Basic " + Base64.getEncoder()
+            .encodeToString((ADMIN_EMAIL + ":" + ADMIN_PASSWORD).getBytes(StandardCharsets.UTF_8));
+
+    static final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(1))
+            .build();
+    static final ObjectMapper objectMapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+    record Variant(String name, List<String> jvmOptions, List<String> appArguments) {
+    }
+
+    record Sample(String variant, int run, long readyMillis, double startedSeconds,
+                  long firstCatalogMillis, long firstRentMillis) {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Path jar = Path.of(System.getProperty("startup.jar"));
+        Path archive = Path.of(System.getProperty("startup.archive", jar.resolveSibling("app.jsa").toString()));
+        Path result = Path.of(System.getProperty("startup.result", "target/startup-result.json"));
+        int runs = Integer.parseInt(System.getProperty("startup.runs", "3"));
+
+        DB db = startDatabase();
+        List<String> databaseArguments = databaseArguments(db);
+
+        try {
+            // also migrates the schema, so no variant pays for that
+            Files.deleteIfExists(archive);
+            Process training = launchJar(jar, List.of("-XX:ArchiveClassesAtExit=" + archive, "-Dspring.aot.enabled=true",
+                    "-Dspring.context.exit=onRefresh"), databaseArguments, freePort(), new StringBuilder());
+            if (!training.waitFor(READY_TIMEOUT.toSeconds(), TimeUnit.SECONDS) || !Files.exists(archive)) {
+                training.destroyForcibly();
+                throw new IllegalStateException("Training run did not produce " + archive);
+            }
+
+            List<String> cds = List.of("-XX:SharedArchiveFile=" + archive, "-Dspring.aot.enabled=true");
+            List<Variant> variants = List.of(
+                    new Variant("default", List.of(), List.of()),
+                    new Variant("lazy", List.of(), List.of("--spring.main.lazy-initialization=true")),
+                    new Variant("cds+aot", cds, List.of()),
+                    new Variant("cds+aot+lazy", cds, List.of("--spring.main.lazy-initialization=true")));
+
+            List<Sample> samples = new ArrayList<>();
+            for (int run = 1; run <= runs; run++) {
+                for (Variant variant : variants) {
+                    List<String> arguments = new ArrayList<>(databaseArguments);
+                    arguments.addAll(variant.appArguments());
+                    Sample sample = measure(jar, variant, run, arguments);
+                    System.out.printf("%-14s run %d: ready %5d ms, started %.2f s, first catalog %4d ms, first rent %4d ms%n",
+                            sample.variant(), run, sample.readyMillis(), sample.startedSeconds(),
+                            sample.firstCatalogMillis(), sample.firstRentMillis());
+                    samples.add(sample);
+                }
+            }
+
+            Files.createDirectories(result.toAbsolutePath().getParent());
+            objectMapper.writeValue(result.toFile(), samples);
+            printMedians(samples);
+            System.out.println("Samples written to " + result);
+        } finally {
+            db.stop();
+        }
+    }
+
+    private static Sample measure(Path jar, Variant variant, int run, List<String> arguments) throws Exception {
+        int port = freePort();
+        String baseUrl = "http://localhost:" + port;
+        StringBuilder output = new StringBuilder();
+        long launched = System.nanoTime();
+        Process process = launchJar(jar, variant.jvmOptions(), arguments, port, output);
+        try {
+            awaitHealthy(baseUrl, process, output);
+            long readyMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - launched);
+
+            long start = System.nanoTime();
+            JsonNode books = objectMapper.readTree(send(request(baseUrl + "/api/books").GET().build(), 200));
+            long firstCatalogMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+            long bookId = availableBookId(books);
+            long adminId = adminId(baseUrl);
+            String body = "{\"bookId\":" + bookId + "}";
+            start = System.nanoTime();
+            send(circulation(baseUrl + "/api/users/" + adminId + "/rent", body), 204);
+            long firstRentMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            // leaves the book available for the next start
+            send(circulation(baseUrl + "/api/users/" + adminId + "/return", body), 204);
+
+            double startedSeconds;
+            synchronized (output) {
+                Matcher started = STARTED.matcher(output);
+                startedSeconds = started.find() ? Double.parseDouble(started.group(1)) : Double.NaN;
+            }
+            return new Sample(variant.name(), run, readyMillis, startedSeconds, firstCatalogMillis, firstRentMillis);
+        } finally {
+            stop(process);
+        }
+    }
+
+    static DB startDatabase() throws Exception {
+        DBConfigurationBuilder dbConfig = DBConfigurationBuilder.newBuilder();
+        dbConfig.setPort(0);
+        DB db = DB.newEmbeddedDB(dbConfig.build());
+        db.start();
+        db.createDB(DATABASE);
+        return db;
+    }
+
+    static List<String> databaseArguments(DB db) {
+        return List.of(
+                "--spring.datasource.url=jdbc:mysql://localhost:" + db.getConfiguration().getPort() + "/" + DATABASE,
+                "--spring.datasource.username=root",
+                "--spring.datasource.password=",
+                "--logging.level.root=WARN",
+                "--logging.level.org.mystudying.bookmanagementauth.BookManagementAuthApplication=INFO");
+    }
+
+    private static Process launchJar(Path jar, List<String> jvmOptions, List<String> arguments, int port,
+                                     StringBuilder output) throws IOException {
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(jvmOptions);
+        command.add("-jar");
+        command.add(jar.toString());
+        command.addAll(arguments);
+        command.add("--server.port=" + port);
+        return launch(command, output);
+    }
+
+    static Process launch(List<String> command, StringBuilder output) throws IOException {
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        // drained continuously, so a chatty child never blocks on a full pipe
+        CompletableFuture.runAsync(() -> {
+            try (BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    synchronized (output) {
+                        output.append(line).append(System.lineSeparator());
+                    }
+                }
+            } catch (IOException e) {
+                // process ended
+            }
+        });
+        return process;
+    }
+
+    static void stop(Process process) throws InterruptedException {
+        process.destroy();
+        if (!process.waitFor(30, TimeUnit.SECONDS)) {
+            process.destroyForcibly();
+        }
+    }
+
+    static void awaitHealthy(String baseUrl, Process process, StringBuilder output) throws InterruptedException {
+        long deadline = System.nanoTime() + READY_TIMEOUT.toNanos();
+        HttpRequest health = request(baseUrl + "/actuator/health").GET().build();
+        while (System.nanoTime() < deadline) {
+            if (!process.isAlive()) {
+                synchronized (output) {
+                    throw new IllegalStateException("Application exited with " + process.exitValue() + ":\n" + output);
+                }
+            }
+            try {
+                if (client.send(health, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                    return;
+                }
+            } catch (IOException e) {
+                // not listening yet
+            }
+            Thread.sleep(10);
+        }
+        throw new IllegalStateException("Application not healthy within " + READY_TIMEOUT);
+    }
+
+    static long availableBookId(JsonNode books) {
+        for (JsonNode book : books) {
+            if (book.get("available").asInt() > 0) {
+                return book.get("id").asLong();
+            }
+        }
+        throw new IllegalStateException("No book is available to rent");
+    }
+
+    static long adminId(String baseUrl) throws Exception {
+        return objectMapper.readTree(send(request(baseUrl + "/api/auth/me")
+                .header("Authorization", ADMIN).GET().build(), 200)).get("id").asLong();
+    }
+
+    static HttpRequest circulation(String url, String json) {
+        return request(url)
+                .header("Authorization", ADMIN)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json, StandardCharsets.UTF_8))
+                .build();
+    }
+
+    static HttpRequest.Builder request(String url) {
+        return HttpRequest.newBuilder(URI.create(url)).header("Accept", "application/json");
+    }
+
+    static String send(HttpRequest request, int expectedStatus) throws Exception {
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != expectedStatus) {
+            throw new IllegalStateException(request.method() + " " + request.uri() + " answered "
+                    + response.statusCode() + ": " + response.body());
+        }
+        return response.body();
+    }
+
+    static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static void printMedians(List<Sample> samples) {
+        Map<String, List<Sample>> byVariant = samples.stream()
+                .collect(Collectors.groupingBy(Sample::variant, LinkedHashMap::new, Collectors.toList()));
+        System.out.printf("%n%-14s %10s %10s %14s %12s%n", "median", "ready ms", "started s", "1st catalog ms", "1st rent ms");
+        byVariant.forEach((variant, list) -> System.out.printf("%-14s %10d %10.2f %14d %12d%n", variant,
+                median(list, Sample::readyMillis),
+                list.stream().map(Sample::startedSeconds).sorted().toList().get(list.size() / 2),
+                median(list, Sample::firstCatalogMillis),
+                median(list, Sample::firstRentMillis)));
+    }
+
+    private static long median(List<Sample> samples, java.util.function.ToLongFunction<Sample> metric) {
+        return samples.stream().mapToLong(metric).sorted().toArray()[samples.size() / 2];
+    }
+}
@@ -0,0 +1,29 @@
+package org.mystudying.bookmanagementauth.support;
+
+import org.mystudying.bookmanagementauth.config.SqlStatementStats;
+import org.mystudying.bookmanagementauth.config.SqlStatementTimingFilter;
+import org.springframework.test.web.servlet.ResultMatcher;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Statement budgets for MockMvc scenarios, e.g. {@code .andExpect(assertMaxStatements(1))} on a list endpoint
+ * turns a lazy association touched per row into a failing build, listing the statements that ran.
+ */
+public final class SqlStatementAssertions {
+
+    private SqlStatementAssertions() {
+    }
+
+    public static ResultMatcher assertMaxStatements(int max) {
+        return result -> {
+            SqlStatementStats stats = (SqlStatementStats) result.getRequest()
+                    .getAttribute(SqlStatementTimingFilter.STATS_ATTRIBUTE);
+            assertThat(stats).as("SQL statement stats of the request (app.sql.statement-stats.enabled)").isNotNull();
+            assertThat(stats.getCount())
+                    .as("SQL statements of %s %s:%n%s", result.getRequest().getMethod(),
+                            result.getRequest().getRequestURI(), String.join(System.lineSeparator(), stats.getStatements()))
+                    .isLessThanOrEqualTo(max);
+        };
+    }
+}